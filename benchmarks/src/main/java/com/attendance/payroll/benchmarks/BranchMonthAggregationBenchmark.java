@@ -0,0 +1,178 @@
+package com.attendance.payroll.benchmarks;
+
+import com.attendance.payroll.dto.EmployeeAttendanceSummary;
+import com.attendance.payroll.entity.Attendance;
+import com.attendance.payroll.entity.Branch;
+import com.attendance.payroll.entity.Employee;
+import com.attendance.payroll.entity.PayrollRecord;
+import com.attendance.payroll.util.PayrollCalculator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Aggregating a branch-month of attendance rows into per-employee totals and payroll records
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BranchMonthAggregationBenchmark {
+
+    @Param({"200", "2000"})
+    private int employees;
+
+    private Branch branch;
+
+    private Employee[] staff;
+
+    private List<Attendance> rows;
+
+    private int workingDays;
+
+    @Setup
+    public void setUp() {
+        branch = SyntheticData.branch();
+        staff = SyntheticData.employees(employees, branch);
+        rows = SyntheticData.branchMonth(new Random(42), staff, branch);
+        workingDays = PayrollCalculator.countWorkingDays(SyntheticData.MONTH, PayrollCalculator.DEFAULT_WORKING_DAYS);
+    }
+
+    @Benchmark
+    public Map<Long, DoubleSummaryStatistics> groupingByStream() {
+        return rows.stream()
+                .filter(Attendance::isPresent)
+                .collect(Collectors.groupingBy(row -> row.getEmployee().getId(),
+                        Collectors.summarizingDouble(Attendance::getTotalWorkingHours)));
+    }
+
+    @Benchmark
+    public Totals singlePass() {
+        return Totals.of(rows, staff.length);
+    }
+
+    @Benchmark
+    public List<PayrollRecord> aggregateAndBuildRecords() {
+        Totals totals = Totals.of(rows, staff.length);
+        List<PayrollRecord> records = new ArrayList<>(staff.length);
+        for (int i = 0; i < staff.length; i++) {
+            records.add(PayrollCalculator.buildRecord(staff[i], branch, SyntheticData.MONTH, workingDays,
+                    totals.summary(i, staff[i].getId()), null, PayrollCalculator.DEFAULT_OVERTIME_RATE, "benchmark"));
+        }
+        return records;
+    }
+
+    /**
+     * Per-employee totals accumulated into primitive arrays indexed by employee position
+     */
+    public static final class Totals {
+
+        private final long[] presentDays;
+
+        private final long[] absentDays;
+
+        private final long[] lateDays;
+
+        private final long[] lateMinutes;
+
+        private final double[] workingHours;
+
+        private final double[] overtimeHours;
+
+        private Totals(int employees) {
+            presentDays = new long[employees];
+            absentDays = new long[employees];
+            lateDays = new long[employees];
+            lateMinutes = new long[employees];
+            workingHours = new double[employees];
+            overtimeHours = new double[employees];
+        }
+
+        static Totals of(List<Attendance> rows, int employees) {
+            Totals totals = new Totals(employees);
+            for (Attendance row : rows) {
+                // Synthetic ids are 1..n
+                int index = (int) (row.getEmployee().getId() - 1);
+                if (row.isPresent()) {
+                    totals.presentDays[index]++;
+                } else if (row.isAbsent()) {
+                    totals.absentDays[index]++;
+                }
+                if (row.isLate()) {
+                    totals.lateDays[index]++;
+                }
+                totals.lateMinutes[index] += row.getLateArrivalMinutes();
+                totals.workingHours[index] += row.getTotalWorkingHours();
+                totals.overtimeHours[index] += row.getOvertimeHours();
+            }
+            return totals;
+        }
+
+        EmployeeAttendanceSummary summary(int index, Long employeeId) {
+            return new EmployeeAttendanceSummary() {
+                @Override
+                public Long getEmployeeId() {
+                    return employeeId;
+                }
+
+                @Override
+                public Long getPresentDays() {
+                    return presentDays[index];
+                }
+
+                @Override
+                public Long getAbsentDays() {
+                    return absentDays[index];
+                }
+
+                @Override
+                public Long getLateDays() {
+                    return lateDays[index];
+                }
+
+                @Override
+                public Long getEarlyDepartures() {
+                    return 0L;
+                }
+
+                @Override
+                public Long getLateMinutes() {
+                    return lateMinutes[index];
+                }
+
+                @Override
+                public Long getEarlyMinutes() {
+                    return 0L;
+                }
+
+                @Override
+                public Double getWorkingHours() {
+                    return workingHours[index];
+                }
+
+                @Override
+                public Double getOvertimeHours() {
+                    return overtimeHours[index];
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.attendance.payroll.benchmarks;
+
+import com.attendance.payroll.entity.ZktDevice;
+import com.attendance.payroll.entity.ZktDeviceListConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON round-trips of branch device lists through {@link ZktDeviceListConverter}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeviceListConverterBenchmark {
+
+    @Param({"1", "10", "50"})
+    private int devices;
+
+    private final ZktDeviceListConverter converter = new ZktDeviceListConverter();
+
+    private List<ZktDevice> deviceList;
+
+    private String json;
+
+    @Setup
+    public void setUp() {
+        deviceList = SyntheticData.zktDevices(devices);
+        json = converter.convertToDatabaseColumn(deviceList);
+    }
+
+    @Benchmark
+    public String serialize() {
+        return converter.convertToDatabaseColumn(deviceList);
+    }
+
+    @Benchmark
+    public List<ZktDevice> deserialize() {
+        return converter.convertToEntityAttribute(json);
+    }
+
+    @Benchmark
+    public List<ZktDevice> roundTrip() {
+        return converter.convertToEntityAttribute(converter.convertToDatabaseColumn(deviceList));
+    }
+}
@@ -0,0 +1,75 @@
+package com.attendance.payroll.benchmarks;
+
+import com.attendance.payroll.entity.PayrollRecord;
+import com.attendance.payroll.util.PayrollCalculator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gross/deduction/net calculation of payroll records, on BigDecimal and on long minor units
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayrollCalculationBenchmark {
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private PayrollRecord single;
+
+    private PayrollRecord[] batch;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        single = SyntheticData.payrollRecord(random);
+        batch = new PayrollRecord[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch[i] = SyntheticData.payrollRecord(random);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal singleBigDecimal() {
+        return single.calculateNetSalary();
+    }
+
+    @Benchmark
+    public BigDecimal singleMinorUnits() {
+        PayrollCalculator.applyTotals(single);
+        return single.getNetSalary();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void batchBigDecimal(Blackhole blackhole) {
+        for (PayrollRecord record : batch) {
+            blackhole.consume(record.calculateNetSalary());
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void batchMinorUnits(Blackhole blackhole) {
+        for (PayrollRecord record : batch) {
+            PayrollCalculator.applyTotals(record);
+            blackhole.consume(record.getNetSalary());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.attendance.payroll.benchmarks;
+
+import com.attendance.payroll.entity.Attendance;
+import com.attendance.payroll.entity.Branch;
+import com.attendance.payroll.entity.Employee;
+import com.attendance.payroll.entity.PayrollRecord;
+import com.attendance.payroll.entity.ZktDevice;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic entities for the benchmarks
+ */
+final class SyntheticData {
+
+    static final LocalDate MONTH = LocalDate.of(2024, 3, 1);
+
+    private SyntheticData() {
+    }
+
+    static PayrollRecord payrollRecord(Random random) {
+        PayrollRecord record = new PayrollRecord();
+        record.setBaseSalary(amount(random, 30_000, 250_000));
+        record.setAllowances(amount(random, 0, 20_000));
+        record.setOvertimeAmount(amount(random, 0, 15_000));
+        record.setBonus(amount(random, 0, 10_000));
+        record.setCommission(amount(random, 0, 5_000));
+        record.setTaxDeduction(amount(random, 0, 40_000));
+        record.setSocialSecurityDeduction(amount(random, 0, 20_000));
+        record.setHealthInsuranceDeduction(amount(random, 0, 5_000));
+        record.setPensionDeduction(amount(random, 0, 5_000));
+        record.setOtherDeductions(amount(random, 0, 2_000));
+        return record;
+    }
+
+    static List<ZktDevice> zktDevices(int count) {
+        List<ZktDevice> devices = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ZktDevice device = new ZktDevice();
+            device.setDeviceId("ZKT-" + i);
+            device.setDeviceName("Entrance " + i);
+            device.setIpAddress("10.0." + (i / 250) + "." + (i % 250 + 1));
+            device.setPort(4370);
+            device.setSerialNumber("SN" + (100000 + i));
+            device.setStatus(ZktDevice.DeviceStatus.ONLINE);
+            device.setMacAddress(String.format("00:17:61:%02x:%02x:%02x", i >> 16 & 0xff, i >> 8 & 0xff, i & 0xff));
+            device.setFirmwareVersion("Ver 6.60 Apr 28 2023");
+            device.setModel("MB460");
+            device.setMaxUsers(3000);
+            device.setMaxRecords(100000);
+            devices.add(device);
+        }
+        return devices;
+    }
+
+    static Attendance[] attendanceDay(Random random, int rows) {
+        Attendance[] day = new Attendance[rows];
+        for (int i = 0; i < rows; i++) {
+            day[i] = attendance(random, null, null, MONTH);
+        }
+        return day;
+    }
+
+    static Branch branch() {
+        Branch branch = new Branch();
+        branch.setId(1L);
+        branch.setBranchId("ALG");
+        branch.setName("Algiers Headquarters");
+        return branch;
+    }
+
+    static Employee[] employees(int count, Branch branch) {
+        Employee[] employees = new Employee[count];
+        for (int i = 0; i < count; i++) {
+            Employee employee = new Employee();
+            employee.setId((long) i + 1);
+            employee.setEmployeeId("EMP" + (10000 + i));
+            employee.setBranch(branch);
+            employees[i] = employee;
+        }
+        return employees;
+    }
+
+    /**
+     * One attendance row per employee and weekday of {@link #MONTH}, with some absences
+     */
+    static List<Attendance> branchMonth(Random random, Employee[] employees, Branch branch) {
+        List<Attendance> rows = new ArrayList<>();
+        for (int day = 0; day < MONTH.lengthOfMonth(); day++) {
+            LocalDate date = MONTH.plusDays(day);
+            if (date.getDayOfWeek().getValue() > 5) {
+                continue;
+            }
+            for (Employee employee : employees) {
+                rows.add(attendance(random, employee, branch, date));
+            }
+        }
+        return rows;
+    }
+
+    private static Attendance attendance(Random random, Employee employee, Branch branch, LocalDate date) {
+        Attendance attendance = new Attendance();
+        attendance.setEmployee(employee);
+        attendance.setBranch(branch);
+        attendance.setAttendanceDate(date);
+        if (random.nextInt(20) == 0) {
+            attendance.setStatus(Attendance.AttendanceStatus.ABSENT);
+            return attendance;
+        }
+        LocalDateTime checkIn = date.atTime(8, 30).plusMinutes(random.nextInt(60));
+        LocalDateTime checkOut = date.atTime(16, 30).plusMinutes(random.nextInt(150));
+        attendance.setCheckInTime(checkIn);
+        attendance.setCheckOutTime(checkOut);
+        int lateMinutes = Math.max(0, checkIn.getHour() * 60 + checkIn.getMinute() - 9 * 60);
+        attendance.setLateArrivalMinutes(lateMinutes);
+        attendance.setStatus(lateMinutes > 15 ? Attendance.AttendanceStatus.LATE : Attendance.AttendanceStatus.PRESENT);
+        double hours = (checkOut.getHour() * 60 + checkOut.getMinute() - checkIn.getHour() * 60 - checkIn.getMinute()) / 60.0;
+        attendance.setTotalWorkingHours(hours);
+        attendance.setOvertimeHours(Math.max(0.0, hours - 8.0));
+        return attendance;
+    }
+
+    private static BigDecimal amount(Random random, int min, int max) {
+        long centimes = (min + (long) random.nextInt(max - min + 1)) * 100 + random.nextInt(100);
+        return BigDecimal.valueOf(centimes, 2);
+    }
+}
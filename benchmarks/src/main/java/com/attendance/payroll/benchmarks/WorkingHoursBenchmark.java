@@ -0,0 +1,73 @@
+package com.attendance.payroll.benchmarks;
+
+import com.attendance.payroll.entity.Attendance;
+import com.attendance.payroll.util.AttendanceCalculator;
+import com.attendance.payroll.util.ShiftSchedule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Working-hours computation for a day of attendance rows
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkingHoursBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    private Attendance[] rows;
+
+    private ShiftSchedule schedule;
+
+    @Setup
+    public void setUp() {
+        rows = SyntheticData.attendanceDay(new Random(42), ROWS);
+        schedule = new ShiftSchedule(9 * 60, 17 * 60, ShiftSchedule.ALL_DAYS, 15, 15);
+    }
+
+    @Benchmark
+    public void entityActualWorkingHours(Blackhole blackhole) {
+        for (Attendance row : rows) {
+            blackhole.consume(row.getActualWorkingHours());
+        }
+    }
+
+    @Benchmark
+    public void calculatorWorkingHours(Blackhole blackhole) {
+        for (Attendance row : rows) {
+            blackhole.consume(AttendanceCalculator.workingHours(row.getCheckInTime(), row.getCheckOutTime()));
+        }
+    }
+
+    @Benchmark
+    public void calculatorLateAndEarlyMinutes(Blackhole blackhole) {
+        for (Attendance row : rows) {
+            blackhole.consume(AttendanceCalculator.lateArrivalMinutes(row.getCheckInTime(), "09:00"));
+            blackhole.consume(AttendanceCalculator.earlyDepartureMinutes(row.getCheckOutTime(), "17:00"));
+        }
+    }
+
+    @Benchmark
+    public void compiledScheduleLateAndEarlyMinutes(Blackhole blackhole) {
+        for (Attendance row : rows) {
+            blackhole.consume(schedule.lateArrivalMinutes(row.getAttendanceDate(), row.getCheckInTime()));
+            blackhole.consume(schedule.earlyDepartureMinutes(row.getAttendanceDate(), row.getCheckOutTime()));
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.attendance.payroll.benchmarks;
+
+import com.attendance.payroll.entity.Attendance;
+import com.attendance.payroll.service.SimulatorZktDeviceClient;
+import com.attendance.payroll.util.VirtualThreads;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local TCP stand-in for ZKTeco devices, speaking the line protocol of {@link SimulatorZktDeviceClient}
+ *
+ * Starts one listening socket per simulated device on consecutive loopback ports, which is enough to
+ * load-test the polling service with hundreds of devices on a single node. A fraction of the devices
+ * can be made slow or flaky to check that they do not hold up polling of the others.
+ *
+ * Point the application at it with {@code app.zkteco.transport=simulator}.
+ *
+ * Usage: {@code java -cp benchmarks.jar com.attendance.payroll.benchmarks.ZktDeviceSimulator
+ * <devices> <basePort> [employees] [slowFraction] [slowDelayMs] [failureRate]}
+ */
+public class ZktDeviceSimulator implements AutoCloseable {
+
+    private final int basePort;
+
+    private final int employees;
+
+    private final double slowFraction;
+
+    private final long slowDelayMs;
+
+    private final double failureRate;
+
+    private final List<ServerSocket> sockets = new ArrayList<>();
+
+    private final ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("zkt-sim");
+
+    private volatile boolean running = true;
+
+    public ZktDeviceSimulator(int basePort, int employees, double slowFraction, long slowDelayMs, double failureRate) {
+        this.basePort = basePort;
+        this.employees = employees;
+        this.slowFraction = slowFraction;
+        this.slowDelayMs = slowDelayMs;
+        this.failureRate = failureRate;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: ZktDeviceSimulator <devices> <basePort> [employees] [slowFraction] [slowDelayMs] [failureRate]");
+            System.exit(1);
+        }
+
+        int devices = Integer.parseInt(args[0]);
+        int basePort = Integer.parseInt(args[1]);
+        int employees = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        double slowFraction = args.length > 3 ? Double.parseDouble(args[3]) : 0.0;
+        long slowDelayMs = args.length > 4 ? Long.parseLong(args[4]) : 10000;
+        double failureRate = args.length > 5 ? Double.parseDouble(args[5]) : 0.0;
+
+        ZktDeviceSimulator simulator = new ZktDeviceSimulator(basePort, employees, slowFraction, slowDelayMs, failureRate);
+        simulator.start(devices);
+        Runtime.getRuntime().addShutdownHook(new Thread(simulator::close));
+        System.out.printf("Simulating %d devices on ports %d-%d%n", devices, basePort, basePort + devices - 1);
+        Thread.currentThread().join();
+    }
+
+    public void start(int devices) throws IOException {
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        for (int i = 0; i < devices; i++) {
+            ServerSocket socket = new ServerSocket(basePort + i, 50, loopback);
+            sockets.add(socket);
+            boolean slow = i < Math.round(devices * slowFraction);
+            String deviceId = "SIM-" + (basePort + i);
+            executor.execute(() -> acceptLoop(socket, deviceId, slow));
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        for (ServerSocket socket : sockets) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // already closed
+            }
+        }
+        executor.shutdownNow();
+    }
+
+    private void acceptLoop(ServerSocket server, String deviceId, boolean slow) {
+        while (running) {
+            try {
+                Socket connection = server.accept();
+                executor.execute(() -> serve(connection, deviceId, slow));
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Simulator " + deviceId + " accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket connection, String deviceId, boolean slow) {
+        try (connection) {
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(connection.getInputStream(), StandardCharsets.US_ASCII));
+            Writer writer = new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.US_ASCII);
+            String request = reader.readLine();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+
+            if (slow) {
+                Thread.sleep(slowDelayMs);
+            }
+            if (request == null || !request.startsWith(SimulatorZktDeviceClient.LOGS_COMMAND + " ")) {
+                writer.write(SimulatorZktDeviceClient.ERROR_PREFIX + " unknown command\n");
+            } else if (random.nextDouble() < failureRate) {
+                writer.write(SimulatorZktDeviceClient.ERROR_PREFIX + " simulated failure\n");
+            } else {
+                String since = request.substring(SimulatorZktDeviceClient.LOGS_COMMAND.length() + 1).trim();
+                LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+                LocalDateTime from = since.equals("-") ? now.minusMinutes(1) : LocalDateTime.parse(since);
+                long window = Math.max(1, ChronoUnit.SECONDS.between(from, now));
+                int punches = random.nextInt(0, 20);
+                for (int i = 0; i < punches; i++) {
+                    writer.write(String.format("EMP%05d,%s,%s%n",
+                            random.nextInt(1, employees + 1),
+                            from.plusSeconds(1 + random.nextLong(window)),
+                            Attendance.BiometricMethod.FINGERPRINT));
+                }
+                writer.write(SimulatorZktDeviceClient.END_MARKER + "\n");
+            }
+            writer.flush();
+        } catch (IOException e) {
+            // client went away
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.attendance.payroll.config;
+
+import com.attendance.payroll.service.BranchDashboardService;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inbound STOMP checks for the dashboard endpoint
+ *
+ * Subscriptions are only accepted for branch attendance topics, at most {@code max-subscriptions-per-session}
+ * per session, so a client can neither listen to other broker destinations nor fan itself out to every branch.
+ * Clients may only send to application destinations; a SEND straight to a {@code /topic} destination would
+ * otherwise reach every subscriber through the broker.
+ */
+public class DashboardSubscriptionInterceptor implements ChannelInterceptor {
+
+    private static final String SUBSCRIPTIONS_ATTRIBUTE = DashboardSubscriptionInterceptor.class.getName() + ".subscriptions";
+
+    private final String applicationPrefix;
+
+    private final int maxSubscriptionsPerSession;
+
+    public DashboardSubscriptionInterceptor(String applicationPrefix, int maxSubscriptionsPerSession) {
+        this.applicationPrefix = applicationPrefix;
+        this.maxSubscriptionsPerSession = maxSubscriptionsPerSession;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor headers = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (headers == null || headers.getCommand() == null) {
+            return message;
+        }
+        String destination = headers.getDestination();
+        switch (headers.getCommand()) {
+            case SUBSCRIBE -> {
+                if (BranchDashboardService.branchIdOf(destination) == null) {
+                    throw new MessagingException(message, "Subscriptions are limited to branch attendance topics: " + destination);
+                }
+                Set<String> subscriptions = subscriptions(headers);
+                if (subscriptions != null) {
+                    synchronized (subscriptions) {
+                        if (!subscriptions.contains(headers.getSubscriptionId())
+                                && subscriptions.size() >= maxSubscriptionsPerSession) {
+                            throw new MessagingException(message, "At most " + maxSubscriptionsPerSession
+                                    + " dashboard subscriptions per session");
+                        }
+                        subscriptions.add(headers.getSubscriptionId());
+                    }
+                }
+            }
+            case UNSUBSCRIBE -> {
+                Set<String> subscriptions = subscriptions(headers);
+                if (subscriptions != null) {
+                    subscriptions.remove(headers.getSubscriptionId());
+                }
+            }
+            case SEND -> {
+                if (destination == null || !destination.startsWith(applicationPrefix)) {
+                    throw new MessagingException(message, "Clients may only send to " + applicationPrefix + " destinations");
+                }
+            }
+            default -> {
+                // CONNECT, heartbeats and the rest pass through
+            }
+        }
+        return message;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String> subscriptions(StompHeaderAccessor headers) {
+        Map<String, Object> attributes = headers.getSessionAttributes();
+        if (attributes == null || headers.getSubscriptionId() == null) {
+            return null;
+        }
+        return (Set<String>) attributes.computeIfAbsent(SUBSCRIPTIONS_ATTRIBUTE, key -> ConcurrentHashMap.newKeySet());
+    }
+}
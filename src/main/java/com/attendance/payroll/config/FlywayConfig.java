@@ -0,0 +1,38 @@
+package com.attendance.payroll.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Runs Flyway migrations after Hibernate's schema update instead of before it
+ *
+ * The schema itself still comes from {@code ddl-auto: update}; migrations only reshape tables Hibernate
+ * created (partitioning), so they need those tables to exist first. Spring Boot's own migration step is
+ * turned into a no-op and the migration runs once the EntityManagerFactory has been built.
+ */
+@Configuration
+@Slf4j
+public class FlywayConfig {
+
+    @Bean
+    public FlywayMigrationStrategy deferredMigrationStrategy() {
+        return flyway -> log.debug("Deferring Flyway migration until the schema update has run");
+    }
+
+    @Bean
+    public DeferredFlywayMigration deferredFlywayMigration(Flyway flyway, EntityManagerFactory entityManagerFactory) {
+        return new DeferredFlywayMigration(flyway);
+    }
+
+    public static class DeferredFlywayMigration {
+
+        DeferredFlywayMigration(Flyway flyway) {
+            int applied = flyway.migrate().migrationsExecuted;
+            log.info("Applied {} Flyway migrations", applied);
+        }
+    }
+}
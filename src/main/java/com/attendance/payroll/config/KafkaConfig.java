@@ -0,0 +1,115 @@
+package com.attendance.payroll.config;
+
+import com.attendance.payroll.event.AttendancePunchEvent;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.util.backoff.ExponentialBackOff;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Kafka topics and the batch listener setup of the attendance punch pipeline
+ *
+ * Punch events are consumed in batches of up to {@code app.ingestion.kafka.max-poll-records}, with offsets
+ * committed by the listener once a batch is written. Unreadable records (bad JSON, missing fields) are
+ * reported by the listener and go to the dead-letter topic after {@code poison-retries} redeliveries; any
+ * other failure (database down) redelivers the whole batch with an exponential back-off and never dead-letters.
+ */
+@Configuration
+public class KafkaConfig {
+
+    @Value("${app.ingestion.kafka.topic:attendance-punches}")
+    private String punchTopic;
+
+    @Value("${app.ingestion.kafka.dead-letter-topic:attendance-punches-dlt}")
+    private String deadLetterTopic;
+
+    @Value("${app.ingestion.kafka.partitions:12}")
+    private int partitions;
+
+    @Value("${app.ingestion.kafka.replicas:1}")
+    private int replicas;
+
+    @Value("${app.ingestion.kafka.concurrency:3}")
+    private int concurrency;
+
+    @Value("${app.ingestion.kafka.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${app.ingestion.kafka.poison-retries:2}")
+    private long poisonRetries;
+
+    @Value("${app.ingestion.kafka.max-retry-interval-ms:30000}")
+    private long maxRetryIntervalMs;
+
+    @Bean
+    public NewTopic attendancePunchTopic() {
+        return TopicBuilder.name(punchTopic).partitions(partitions).replicas(replicas).build();
+    }
+
+    @Bean
+    public NewTopic attendancePunchDeadLetterTopic() {
+        return TopicBuilder.name(deadLetterTopic).partitions(1).replicas(replicas).build();
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, AttendancePunchEvent> punchBatchListenerContainerFactory(
+            ConsumerFactory<Object, Object> consumerFactory, KafkaTemplate<Object, Object> kafkaTemplate,
+            ProducerFactory<Object, Object> producerFactory) {
+        Map<String, Object> properties = new HashMap<>(consumerFactory.getConfigurationProperties());
+        properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        properties.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
+        properties.put(JsonDeserializer.VALUE_DEFAULT_TYPE, AttendancePunchEvent.class.getName());
+        properties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        // A new writer group starts from the beginning of the topic rather than skipping what branches already sent
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+
+        ConcurrentKafkaListenerContainerFactory<String, AttendancePunchEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(properties));
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        factory.setCommonErrorHandler(punchErrorHandler(kafkaTemplate, producerFactory));
+        return factory;
+    }
+
+    private DefaultErrorHandler punchErrorHandler(KafkaTemplate<Object, Object> kafkaTemplate,
+                                                  ProducerFactory<Object, Object> producerFactory) {
+        // Records that failed deserialization are dead-lettered with their raw bytes
+        Map<Class<?>, KafkaOperations<?, ?>> templates = new LinkedHashMap<>();
+        templates.put(byte[].class, new KafkaTemplate<>(producerFactory,
+                Map.<String, Object>of(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class)));
+        templates.put(Object.class, kafkaTemplate);
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(templates,
+                (record, e) -> new TopicPartition(deadLetterTopic, -1));
+
+        ExponentialBackOff batchBackOff = new ExponentialBackOff(1000L, 2.0);
+        batchBackOff.setMaxInterval(maxRetryIntervalMs);
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, batchBackOff);
+        // Applies to single records reported through BatchListenerFailedException
+        errorHandler.setBackOffFunction((record, e) -> new FixedBackOff(0L, poisonRetries));
+        return errorHandler;
+    }
+}
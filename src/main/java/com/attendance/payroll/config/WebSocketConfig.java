@@ -0,0 +1,68 @@
+package com.attendance.payroll.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * STOMP over WebSocket for the live branch dashboards
+ *
+ * Clients connect to {@code /ws} and subscribe to {@code /topic/branches/{branchId}/attendance}. Each session
+ * may have at most {@code send-buffer-size-limit} bytes queued and a single send may block for at most
+ * {@code send-time-limit-ms}; a client that falls further behind is disconnected instead of being buffered for.
+ * The handshake is accepted from the same origin and from the origins listed in {@code allowed-origins}; a
+ * wildcard is refused, since the endpoint serves attendance data to whoever the browser is signed in as.
+ * Inbound frames go through {@link DashboardSubscriptionInterceptor}.
+ */
+@Configuration
+@EnableWebSocketMessageBroker
+public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+
+    private static final String APPLICATION_PREFIX = "/app";
+
+    @Value("${app.dashboard.allowed-origins:}")
+    private String[] allowedOrigins;
+
+    @Value("${app.dashboard.max-subscriptions-per-session:20}")
+    private int maxSubscriptionsPerSession;
+
+    @Value("${app.dashboard.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${app.dashboard.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Override
+    public void registerStompEndpoints(StompEndpointRegistry registry) {
+        List<String> origins = Arrays.stream(allowedOrigins).map(String::trim).filter(origin -> !origin.isEmpty()).toList();
+        if (origins.stream().anyMatch(origin -> origin.equals("*"))) {
+            throw new RuntimeException("app.dashboard.allowed-origins must list the dashboard origins, not *");
+        }
+        registry.addEndpoint("/ws").setAllowedOriginPatterns(origins.toArray(new String[0]));
+    }
+
+    @Override
+    public void configureMessageBroker(MessageBrokerRegistry registry) {
+        registry.enableSimpleBroker("/topic");
+        registry.setApplicationDestinationPrefixes(APPLICATION_PREFIX);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(new DashboardSubscriptionInterceptor(APPLICATION_PREFIX, maxSubscriptionsPerSession));
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimitMs);
+        registration.setSendBufferSizeLimit(sendBufferSizeLimit);
+    }
+}
@@ -0,0 +1,24 @@
+package com.attendance.payroll.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Working and overtime hours of one attendance row, and whether a manual override fixes its overtime
+ */
+@Data
+public class AttendanceDayHours {
+
+    private final Long employeeId;
+
+    private final Long branchId;
+
+    private final LocalDate attendanceDate;
+
+    private final double workingHours;
+
+    private final double overtimeHours;
+
+    private final boolean manualOverride;
+}
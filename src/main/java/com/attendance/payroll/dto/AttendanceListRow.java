@@ -0,0 +1,46 @@
+package com.attendance.payroll.dto;
+
+import com.attendance.payroll.entity.Attendance;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of an attendance row with its employee and branch names, for list screens
+ */
+public interface AttendanceListRow {
+
+    Long getId();
+
+    LocalDate getAttendanceDate();
+
+    Long getEmployeeId();
+
+    String getEmployeeCode();
+
+    String getFirstName();
+
+    String getLastName();
+
+    Long getBranchId();
+
+    String getBranchCode();
+
+    String getBranchName();
+
+    LocalDateTime getCheckInTime();
+
+    LocalDateTime getCheckOutTime();
+
+    Double getTotalWorkingHours();
+
+    Double getOvertimeHours();
+
+    Integer getLateArrivalMinutes();
+
+    Integer getEarlyDepartureMinutes();
+
+    Attendance.AttendanceStatus getStatus();
+
+    Boolean getFlaggedForReview();
+}
@@ -0,0 +1,57 @@
+package com.attendance.payroll.dto;
+
+import com.attendance.payroll.entity.Attendance;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * First and last punch of one employee on one day, merged from a batch of device punches
+ */
+@Data
+public class AttendancePunchWindow {
+
+    private final Long employeeId;
+
+    private final Long branchId;
+
+    private final LocalDate attendanceDate;
+
+    private LocalDateTime firstPunch;
+
+    private String firstDeviceId;
+
+    private LocalDateTime lastPunch;
+
+    private String lastDeviceId;
+
+    private Attendance.BiometricMethod verificationMethod;
+
+    // Server-side match score of the first punch's probe, null when it was not verified here
+    private Double verificationScore;
+
+    public void merge(DevicePunch punch) {
+        merge(punch, null);
+    }
+
+    public void merge(DevicePunch punch, Double punchVerificationScore) {
+        if (firstPunch == null || punch.getPunchTime().isBefore(firstPunch)) {
+            firstPunch = punch.getPunchTime();
+            firstDeviceId = punch.getDeviceId();
+            verificationMethod = punch.getVerificationMethod();
+            verificationScore = punchVerificationScore;
+        }
+        if (lastPunch == null || punch.getPunchTime().isAfter(lastPunch)) {
+            lastPunch = punch.getPunchTime();
+            lastDeviceId = punch.getDeviceId();
+        }
+    }
+
+    /**
+     * Check-out time, or null while the employee has punched only once
+     */
+    public LocalDateTime getCheckOut() {
+        return lastPunch != null && lastPunch.isAfter(firstPunch) ? lastPunch : null;
+    }
+}
@@ -0,0 +1,25 @@
+package com.attendance.payroll.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Control totals of one bank transfer file, as written to its trailer
+ */
+@Data
+public class BankFileTotals {
+
+    // Null for a file covering every branch
+    private final String branchCode;
+
+    private final long recordCount;
+
+    private final BigDecimal totalAmount;
+
+    // Sum of the account numbers read as numbers (digits only), modulo 10^15: the hash total banks check
+    private final long accountHash;
+
+    // CRC-32 of the header and detail lines, in hex
+    private final String checksum;
+}
@@ -0,0 +1,27 @@
+package com.attendance.payroll.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-only projection of an approved payroll record paid by bank transfer, as written to the bank file
+ */
+public interface BankTransferLine {
+
+    Long getId();
+
+    Long getBranchId();
+
+    String getBranchCode();
+
+    String getEmployeeCode();
+
+    String getFirstName();
+
+    String getLastName();
+
+    String getBankAccountNumber();
+
+    String getBankName();
+
+    BigDecimal getNetSalary();
+}
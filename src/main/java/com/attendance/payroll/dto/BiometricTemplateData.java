@@ -0,0 +1,25 @@
+package com.attendance.payroll.dto;
+
+import com.attendance.payroll.entity.BiometricTemplate;
+
+/**
+ * Read-only projection of a biometric template with the identifiers a device needs to enroll it
+ */
+public interface BiometricTemplateData {
+
+    Long getEmployeeId();
+
+    Long getBranchId();
+
+    String getEmployeeCode();
+
+    String getBiometricId();
+
+    BiometricTemplate.TemplateType getTemplateType();
+
+    Integer getSlot();
+
+    Integer getAlgorithmVersion();
+
+    byte[] getTemplate();
+}
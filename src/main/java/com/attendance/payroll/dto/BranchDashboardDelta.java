@@ -0,0 +1,65 @@
+package com.attendance.payroll.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One frame of a branch's live attendance feed: what changed since the previous frame
+ * Count fields are the branch-day's current values and are left out when they did not change
+ */
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BranchDashboardDelta {
+
+    private Long branchId;
+
+    private LocalDate date;
+
+    private Integer activeEmployees;
+
+    private Integer presentCount;
+
+    private Integer lateCount;
+
+    private Integer absentCount;
+
+    private Integer halfDayCount;
+
+    private Integer leaveCount;
+
+    private Integer onSiteCount;
+
+    private Integer notRecordedCount;
+
+    private List<LateArrival> lateArrivals = new ArrayList<>();
+
+    // Late arrivals beyond the per-frame limit, counted but not listed
+    private int omittedLateArrivals;
+
+    private LocalDateTime generatedAt;
+
+    public BranchDashboardDelta(Long branchId, LocalDate date) {
+        this.branchId = branchId;
+        this.date = date;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LateArrival {
+
+        private Long employeeId;
+
+        private LocalDateTime checkInTime;
+
+        private int lateMinutes;
+    }
+}
@@ -0,0 +1,16 @@
+package com.attendance.payroll.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Key of a branch daily summary row
+ */
+@Data
+public class BranchDay {
+
+    private final Long branchId;
+
+    private final LocalDate date;
+}
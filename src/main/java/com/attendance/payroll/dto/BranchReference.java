@@ -0,0 +1,39 @@
+package com.attendance.payroll.dto;
+
+import com.attendance.payroll.entity.Branch;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cacheable snapshot of the branch fields read on attendance and payroll paths
+ */
+@Data
+@NoArgsConstructor
+public class BranchReference {
+
+    private Long id;
+
+    private String branchId;
+
+    private String name;
+
+    private String location;
+
+    private String timezone;
+
+    private Branch.BranchStatus status;
+
+    private Long version;
+
+    public static BranchReference from(Branch branch) {
+        BranchReference reference = new BranchReference();
+        reference.setId(branch.getId());
+        reference.setBranchId(branch.getBranchId());
+        reference.setName(branch.getName());
+        reference.setLocation(branch.getLocation());
+        reference.setTimezone(branch.getTimezone());
+        reference.setStatus(branch.getStatus());
+        reference.setVersion(branch.getVersion());
+        return reference;
+    }
+}
@@ -0,0 +1,13 @@
+package com.attendance.payroll.dto;
+
+/**
+ * Searchable branch fields loaded into the in-memory search index
+ */
+public interface BranchSearchDocument {
+
+    Long getId();
+
+    String getName();
+
+    String getLocation();
+}
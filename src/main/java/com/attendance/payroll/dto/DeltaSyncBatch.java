@@ -0,0 +1,43 @@
+package com.attendance.payroll.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of changed rows shipped between nodes
+ * Column names are sent once per table and rows as value arrays in that order; ids are local to each node
+ * and never shipped, references travel as employee and branch codes
+ */
+@Data
+@NoArgsConstructor
+public class DeltaSyncBatch {
+
+    private String sourceNode;
+
+    private LocalDateTime generatedAt;
+
+    private List<TableChanges> tables = new ArrayList<>();
+
+    // Cursor token to pull the next page with
+    private String nextCursor;
+
+    // More changes were pending below the batch's upper bound when it was read
+    private boolean hasMore;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TableChanges {
+
+        private String table;
+
+        private List<String> columns;
+
+        private List<Object[]> rows;
+    }
+}
@@ -0,0 +1,71 @@
+package com.attendance.payroll.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resumable position of a delta sync consumer: per table, the (updated_at, id) of the last row it received
+ * Travels as an opaque URL-safe token; an empty or missing token starts from the beginning
+ */
+@Data
+@NoArgsConstructor
+public class DeltaSyncCursor {
+
+    private static final LocalDateTime START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private Map<String, Position> positions = new LinkedHashMap<>();
+
+    public Position position(String table) {
+        return positions.getOrDefault(table, new Position(START, 0L));
+    }
+
+    public String encode() {
+        StringBuilder token = new StringBuilder();
+        positions.forEach((table, position) -> {
+            if (token.length() > 0) {
+                token.append(';');
+            }
+            token.append(table).append('=').append(position.getUpdatedAt()).append('/').append(position.getId());
+        });
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static DeltaSyncCursor decode(String token) {
+        DeltaSyncCursor cursor = new DeltaSyncCursor();
+        if (token == null || token.isBlank()) {
+            return cursor;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            for (String entry : decoded.split(";")) {
+                int equals = entry.indexOf('=');
+                int slash = entry.lastIndexOf('/');
+                cursor.positions.put(entry.substring(0, equals), new Position(
+                        LocalDateTime.parse(entry.substring(equals + 1, slash)), Long.parseLong(entry.substring(slash + 1))));
+            }
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid delta sync cursor: " + token, e);
+        }
+        return cursor;
+    }
+
+    /**
+     * Keyset position within one table; rows are ordered by updated_at, then id
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Position {
+
+        private LocalDateTime updatedAt;
+
+        private Long id;
+    }
+}
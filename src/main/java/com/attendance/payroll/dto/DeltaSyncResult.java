@@ -0,0 +1,26 @@
+package com.attendance.payroll.dto;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of applying a delta sync batch, per table
+ * Skipped rows were not newer than the local version or reference an employee or branch unknown here
+ */
+@Data
+public class DeltaSyncResult {
+
+    private final Map<String, Integer> applied = new LinkedHashMap<>();
+
+    private final Map<String, Integer> skipped = new LinkedHashMap<>();
+
+    public int getTotalApplied() {
+        return applied.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public int getTotalSkipped() {
+        return skipped.values().stream().mapToInt(Integer::intValue).sum();
+    }
+}
@@ -0,0 +1,33 @@
+package com.attendance.payroll.dto;
+
+import com.attendance.payroll.entity.Attendance;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A single punch read from a ZKTeco device
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DevicePunch {
+
+    private String deviceId;
+
+    private String employeeId;
+
+    private LocalDateTime punchTime;
+
+    private Attendance.BiometricMethod verificationMethod;
+
+    // Probe captured by devices that send it for server-side matching; null for devices that match on board
+    private byte[] verificationTemplate;
+
+    public DevicePunch(String deviceId, String employeeId, LocalDateTime punchTime,
+                       Attendance.BiometricMethod verificationMethod) {
+        this(deviceId, employeeId, punchTime, verificationMethod, null);
+    }
+}
@@ -0,0 +1,26 @@
+package com.attendance.payroll.dto;
+
+/**
+ * Read-only projection of one employee's attendance aggregates over a date range
+ * Produced by a single GROUP BY query per branch instead of loading Attendance entities
+ */
+public interface EmployeeAttendanceSummary {
+
+    Long getEmployeeId();
+
+    Long getPresentDays();
+
+    Long getAbsentDays();
+
+    Long getLateDays();
+
+    Long getEarlyDepartures();
+
+    Long getLateMinutes();
+
+    Long getEarlyMinutes();
+
+    Double getWorkingHours();
+
+    Double getOvertimeHours();
+}
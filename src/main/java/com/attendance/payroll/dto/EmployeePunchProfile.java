@@ -0,0 +1,21 @@
+package com.attendance.payroll.dto;
+
+/**
+ * Minimal employee data needed to turn a device punch into an attendance row
+ */
+public interface EmployeePunchProfile {
+
+    Long getId();
+
+    String getEmployeeId();
+
+    Long getBranchId();
+
+    String getShiftStartTime();
+
+    String getShiftEndTime();
+
+    String getBranchWorkingHoursStart();
+
+    String getBranchWorkingHoursEnd();
+}
@@ -0,0 +1,55 @@
+package com.attendance.payroll.dto;
+
+import com.attendance.payroll.entity.Employee;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cacheable snapshot of the employee fields read on attendance and payroll paths
+ */
+@Data
+@NoArgsConstructor
+public class EmployeeReference {
+
+    private Long id;
+
+    private String employeeId;
+
+    private String firstName;
+
+    private String lastName;
+
+    private String email;
+
+    private Long branchId;
+
+    private Employee.Department department;
+
+    private String position;
+
+    private Employee.EmployeeStatus status;
+
+    private String shiftStartTime;
+
+    private String shiftEndTime;
+
+    private Long version;
+
+    public static EmployeeReference from(Employee employee) {
+        EmployeeReference reference = new EmployeeReference();
+        reference.setId(employee.getId());
+        reference.setEmployeeId(employee.getEmployeeId());
+        reference.setFirstName(employee.getFirstName());
+        reference.setLastName(employee.getLastName());
+        reference.setEmail(employee.getEmail());
+        // Reading the id of a lazy proxy does not initialize it
+        reference.setBranchId(employee.getBranch() != null ? employee.getBranch().getId() : null);
+        reference.setDepartment(employee.getDepartment());
+        reference.setPosition(employee.getPosition());
+        reference.setStatus(employee.getStatus());
+        reference.setShiftStartTime(employee.getShiftStartTime());
+        reference.setShiftEndTime(employee.getShiftEndTime());
+        reference.setVersion(employee.getVersion());
+        return reference;
+    }
+}
@@ -0,0 +1,17 @@
+package com.attendance.payroll.dto;
+
+/**
+ * Searchable employee fields loaded into the in-memory search index
+ */
+public interface EmployeeSearchDocument {
+
+    Long getId();
+
+    String getFirstName();
+
+    String getLastName();
+
+    String getEmail();
+
+    String getEmployeeId();
+}
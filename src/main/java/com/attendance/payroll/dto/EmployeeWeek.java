@@ -0,0 +1,16 @@
+package com.attendance.payroll.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Key of one employee's Monday-to-Sunday overtime week
+ */
+@Data
+public class EmployeeWeek {
+
+    private final Long employeeId;
+
+    private final LocalDate weekStart;
+}
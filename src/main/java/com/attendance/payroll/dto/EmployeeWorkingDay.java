@@ -0,0 +1,11 @@
+package com.attendance.payroll.dto;
+
+/**
+ * One entry of an employee's working days, loaded for many employees at once
+ */
+public interface EmployeeWorkingDay {
+
+    Long getEmployeeId();
+
+    String getWorkingDay();
+}
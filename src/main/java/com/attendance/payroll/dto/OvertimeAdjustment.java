@@ -0,0 +1,18 @@
+package com.attendance.payroll.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Change of an employee's overtime hours in one payroll month
+ */
+@Data
+public class OvertimeAdjustment {
+
+    private final Long employeeId;
+
+    private final LocalDate payrollMonth;
+
+    private final double hours;
+}
@@ -0,0 +1,40 @@
+package com.attendance.payroll.dto;
+
+import com.attendance.payroll.entity.PayrollRecord;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Read-only projection of a payroll record with its employee and branch names, for list screens
+ */
+public interface PayrollListRow {
+
+    Long getId();
+
+    LocalDate getPayrollMonth();
+
+    Long getEmployeeId();
+
+    String getEmployeeCode();
+
+    String getFirstName();
+
+    String getLastName();
+
+    Long getBranchId();
+
+    String getBranchCode();
+
+    String getBranchName();
+
+    BigDecimal getGrossSalary();
+
+    BigDecimal getTotalDeductions();
+
+    BigDecimal getNetSalary();
+
+    PayrollRecord.PayrollStatus getStatus();
+
+    Boolean getFlagged();
+}
@@ -0,0 +1,29 @@
+package com.attendance.payroll.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Outcome of one bulk payslip archive, with throughput and per-payslip render latency
+ */
+@Data
+public class PayslipArchiveSummary {
+
+    private final String branchCode;
+
+    private final LocalDate payrollMonth;
+
+    private final long payslipCount;
+
+    // Compressed size of the archive as written
+    private final long archiveBytes;
+
+    private final long elapsedMillis;
+
+    private final double payslipsPerSecond;
+
+    private final double meanRenderMillis;
+
+    private final double maxRenderMillis;
+}
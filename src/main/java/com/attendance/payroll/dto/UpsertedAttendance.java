@@ -0,0 +1,49 @@
+package com.attendance.payroll.dto;
+
+import com.attendance.payroll.entity.Attendance;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Attendance row state returned by a punch upsert, plus the working-time fields derived from it
+ */
+@Data
+public class UpsertedAttendance {
+
+    private final Long id;
+
+    private final Long employeeId;
+
+    private final Long branchId;
+
+    private final LocalDate attendanceDate;
+
+    private final LocalDateTime checkInTime;
+
+    private final LocalDateTime checkOutTime;
+
+    private Attendance.AttendanceStatus status;
+
+    // Status stored before this upsert's derived fields are written
+    private Attendance.AttendanceStatus previousStatus;
+
+    private final boolean manualOverride;
+
+    // Derived fields, written back after the upsert
+    private double totalWorkingHours;
+
+    private double overtimeHours;
+
+    private int lateArrivalMinutes;
+
+    private int earlyDepartureMinutes;
+
+    // Anomaly scoring; a flag is only ever raised here, clearing it is a manual review decision
+    private double aiAnomalyScore;
+
+    private boolean flaggedForReview;
+
+    private String flagReason;
+}
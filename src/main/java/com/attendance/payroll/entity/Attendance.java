@@ -1,9 +1,12 @@
 package com.attendance.payroll.entity;
 
+import com.attendance.payroll.service.BranchDailySummaryEntityListener;
+import com.attendance.payroll.service.WeeklyOvertimeEntityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -13,14 +16,21 @@ import java.time.LocalDateTime;
  * Tracks daily attendance status and provides data for payroll processing
  */
 @Entity
-@Table(name = "attendance", indexes = {
-    @Index(name = "idx_attendance_employee_date", columnList = "employee_id, attendance_date"),
+@Table(name = "attendance", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_attendance_employee_date", columnNames = {"employee_id", "attendance_date"})
+}, indexes = {
+    // Employee-date lookups use the unique key; status lookups use idx_attendance_status_date (Flyway V3)
     @Index(name = "idx_attendance_branch_date", columnList = "branch_id, attendance_date"),
     @Index(name = "idx_attendance_date", columnList = "attendance_date"),
-    @Index(name = "idx_attendance_status", columnList = "status")
+    @Index(name = "idx_attendance_updated", columnList = "updated_at, id")
+})
+@NamedEntityGraph(name = "Attendance.employeeAndBranch", attributeNodes = {
+    @NamedAttributeNode("employee"),
+    @NamedAttributeNode("branch")
 })
 @Data
 @EqualsAndHashCode(callSuper = true)
+@EntityListeners({BranchDailySummaryEntityListener.class, WeeklyOvertimeEntityListener.class})
 public class Attendance extends BaseEntity {
 
     @NotNull(message = "Employee is required")
@@ -135,6 +145,22 @@ public class Attendance extends BaseEntity {
     @Column(name = "notes")
     private String notes;
 
+    // Employee, branch and date as last loaded or written, so listeners can also refresh what an edit moved the row away from
+    @Transient
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Long persistedEmployeeId;
+
+    @Transient
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Long persistedBranchId;
+
+    @Transient
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private LocalDate persistedAttendanceDate;
+
     public enum AttendanceStatus {
         PRESENT, ABSENT, LATE, HALF_DAY, WEEKEND, HOLIDAY, LEAVE
     }
@@ -151,6 +177,16 @@ public class Attendance extends BaseEntity {
         ANNUAL, SICK, MATERNITY, PATERNITY, EMERGENCY, UNPAID, COMPENSATORY
     }
 
+    // Runs after the entity listeners, which still see the state before the write
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    void rememberPersistedState() {
+        persistedEmployeeId = employee != null ? employee.getId() : null;
+        persistedBranchId = branch != null ? branch.getId() : null;
+        persistedAttendanceDate = attendanceDate;
+    }
+
     // Helper methods
     public boolean isPresent() {
         return status == AttendanceStatus.PRESENT || status == AttendanceStatus.LATE;
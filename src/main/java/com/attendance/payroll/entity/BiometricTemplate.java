@@ -0,0 +1,51 @@
+package com.attendance.payroll.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * One enrolled biometric template of an employee
+ * Templates used to live in TEXT columns on the employee row; they have their own table so that loading an
+ * employee never reads them, an employee can enroll several fingers or faces, and the template is stored as
+ * its raw binary form rather than as encoded text
+ */
+@Entity
+@Table(name = "employee_biometric_templates", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_biometric_template_employee_type_slot", columnNames = {"employee_id", "template_type", "slot"})
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(exclude = {"employee", "template"})
+public class BiometricTemplate extends BaseEntity {
+
+    @NotNull(message = "Employee is required")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "employee_id", nullable = false)
+    private Employee employee;
+
+    @NotNull(message = "Template type is required")
+    @Column(name = "template_type", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private TemplateType templateType;
+
+    // Finger index (0-9) for fingerprints, 0 for the first face template
+    @NotNull(message = "Slot is required")
+    @Min(value = 0, message = "Slot must not be negative")
+    @Column(name = "slot", nullable = false)
+    private Integer slot = 0;
+
+    // Version of the device algorithm that produced the template
+    @Column(name = "algorithm_version")
+    private Integer algorithmVersion;
+
+    @NotNull(message = "Template is required")
+    @Column(name = "template", nullable = false)
+    private byte[] template;
+
+    public enum TemplateType {
+        FINGERPRINT, FACE
+    }
+}
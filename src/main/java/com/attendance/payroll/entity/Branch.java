@@ -1,5 +1,7 @@
 package com.attendance.payroll.entity;
 
+import com.attendance.payroll.service.ReferenceCacheEntityListener;
+import com.attendance.payroll.service.SearchIndexEntityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.Data;
@@ -8,8 +10,6 @@ import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Represents a company branch/location
@@ -19,6 +19,7 @@ import java.util.List;
 @Table(name = "branches")
 @Data
 @EqualsAndHashCode(callSuper = true)
+@EntityListeners({SearchIndexEntityListener.class, ReferenceCacheEntityListener.class})
 public class Branch extends BaseEntity {
 
     @NotBlank(message = "Branch ID is required")
@@ -67,10 +68,6 @@ public class Branch extends BaseEntity {
     @Column(name = "working_hours_end")
     private String workingHoursEnd = "17:00";
 
-    @Column(name = "zkt_devices", type = "json")
-    @Convert(converter = ZktDeviceListConverter.class)
-    private List<ZktDevice> zktDevices = new ArrayList<>();
-
     // Sync timestamp for cross-branch synchronization
     @Column(name = "last_sync_timestamp")
     private LocalDateTime lastSyncTimestamp;
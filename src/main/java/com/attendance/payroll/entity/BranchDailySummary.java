@@ -0,0 +1,87 @@
+package com.attendance.payroll.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Attendance totals of one branch on one day, maintained from attendance writes
+ * Read model for dashboards; rows are written by {@code BranchDailySummaryJdbcRepository} only
+ */
+@Entity
+@Table(name = "branch_daily_summary", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_branch_daily_summary_branch_date", columnNames = {"branch_id", "summary_date"})
+}, indexes = {
+    @Index(name = "idx_branch_daily_summary_date", columnList = "summary_date")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(exclude = "branch")
+public class BranchDailySummary extends BaseEntity {
+
+    @NotNull(message = "Branch is required")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "branch_id", nullable = false)
+    private Branch branch;
+
+    @NotNull(message = "Summary date is required")
+    @Column(name = "summary_date", nullable = false)
+    private LocalDate summaryDate;
+
+    // Active employees of the branch when the row was last recomputed
+    @Column(name = "active_employees")
+    private Integer activeEmployees = 0;
+
+    @Column(name = "present_count")
+    private Integer presentCount = 0;
+
+    @Column(name = "late_count")
+    private Integer lateCount = 0;
+
+    @Column(name = "absent_count")
+    private Integer absentCount = 0;
+
+    @Column(name = "half_day_count")
+    private Integer halfDayCount = 0;
+
+    @Column(name = "leave_count")
+    private Integer leaveCount = 0;
+
+    @Column(name = "other_count")
+    private Integer otherCount = 0; // WEEKEND and HOLIDAY
+
+    @Column(name = "total_late_minutes")
+    private Long totalLateMinutes = 0L;
+
+    @Column(name = "total_early_departure_minutes")
+    private Long totalEarlyDepartureMinutes = 0L;
+
+    @Column(name = "total_working_hours")
+    private Double totalWorkingHours = 0.0;
+
+    @Column(name = "total_overtime_hours")
+    private Double totalOvertimeHours = 0.0;
+
+    @Column(name = "recomputed_at")
+    private LocalDateTime recomputedAt;
+
+    /**
+     * Employees on site, late arrivals included
+     */
+    public int getOnSiteCount() {
+        return presentCount + lateCount + halfDayCount;
+    }
+
+    /**
+     * Active employees without any attendance row for the day yet
+     */
+    public int getNotRecordedCount() {
+        int recorded = presentCount + lateCount + absentCount + halfDayCount + leaveCount + otherCount;
+        return Math.max(0, activeEmployees - recorded);
+    }
+}
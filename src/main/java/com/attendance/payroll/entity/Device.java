@@ -0,0 +1,98 @@
+package com.attendance.payroll.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * A registered ZKTeco biometric device
+ * Devices used to live in the branch's zkt_devices JSON column; they now have their own table so they can be
+ * queried and their status updated without touching the branch row
+ */
+@Entity
+@Table(name = "devices", indexes = {
+    @Index(name = "idx_device_branch", columnList = "branch_id"),
+    @Index(name = "idx_device_serial_number", columnList = "serial_number", unique = true)
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(exclude = "branch")
+public class Device extends BaseEntity {
+
+    @NotBlank(message = "Device ID is required")
+    @Size(max = 50, message = "Device ID must not exceed 50 characters")
+    @Column(name = "device_id", unique = true, nullable = false)
+    private String deviceId;
+
+    @NotBlank(message = "Device name is required")
+    @Column(name = "device_name", nullable = false)
+    private String deviceName;
+
+    @NotNull(message = "Branch is required")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "branch_id", nullable = false)
+    private Branch branch;
+
+    @NotBlank(message = "Device IP is required")
+    @Column(name = "ip_address", nullable = false)
+    private String ipAddress;
+
+    @NotNull(message = "Device port is required")
+    @Min(value = 1, message = "Port must be between 1 and 65535")
+    @Max(value = 65535, message = "Port must be between 1 and 65535")
+    @Column(name = "port", nullable = false)
+    private Integer port;
+
+    @Column(name = "serial_number")
+    private String serialNumber;
+
+    @NotNull(message = "Device status is required")
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private DeviceStatus status = DeviceStatus.OFFLINE;
+
+    @Column(name = "status_changed_at")
+    private LocalDateTime statusChangedAt;
+
+    // Time of the newest punch read from the device, the polling cursor
+    @Column(name = "last_punch_at")
+    private LocalDateTime lastPunchAt;
+
+    @Column(name = "mac_address")
+    private String macAddress;
+
+    @Min(value = 1, message = "Timeout must be positive")
+    @Column(name = "connection_timeout")
+    private Integer connectionTimeout = 5000;
+
+    @Min(value = 1, message = "Read timeout must be positive")
+    @Column(name = "read_timeout")
+    private Integer readTimeout = 3000;
+
+    @Column(name = "firmware_version")
+    private String firmwareVersion;
+
+    @Column(name = "model")
+    private String model;
+
+    @Column(name = "max_users")
+    private Integer maxUsers;
+
+    @Column(name = "max_records")
+    private Integer maxRecords;
+
+    /**
+     * Branch id without initializing the lazy branch proxy
+     */
+    public Long getBranchId() {
+        return branch != null ? branch.getId() : null;
+    }
+
+    public enum DeviceStatus {
+        ONLINE, OFFLINE, MAINTENANCE, ERROR
+    }
+}
@@ -1,5 +1,7 @@
 package com.attendance.payroll.entity;
 
+import com.attendance.payroll.service.ReferenceCacheEntityListener;
+import com.attendance.payroll.service.SearchIndexEntityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.Data;
@@ -20,11 +22,13 @@ import java.util.List;
     @Index(name = "idx_employee_email", columnList = "email"),
     @Index(name = "idx_employee_branch", columnList = "branch_id"),
     @Index(name = "idx_employee_employee_id", columnList = "employee_id"),
-    @Index(name = "idx_employee_status", columnList = "status")
+    @Index(name = "idx_employee_status", columnList = "status"),
+    @Index(name = "idx_employee_updated", columnList = "updated_at, id")
 })
 @Data
 @EqualsAndHashCode(callSuper = true)
 @Where(clause = "deleted_at IS NULL")
+@EntityListeners({SearchIndexEntityListener.class, ReferenceCacheEntityListener.class})
 public class Employee extends BaseEntity {
 
     @NotBlank(message = "Employee ID is required")
@@ -107,11 +111,7 @@ public class Employee extends BaseEntity {
     @Column(name = "biometric_id")
     private String biometricId;
 
-    @Column(name = "fingerprint_data", columnDefinition = "TEXT")
-    private String fingerprintData;
-
-    @Column(name = "face_data", columnDefinition = "TEXT")
-    private String faceData;
+    // Templates are stored apart from the employee row, see BiometricTemplate
 
     @Column(name = "card_number")
     private String cardNumber;
@@ -0,0 +1,38 @@
+package com.attendance.payroll.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.time.LocalDate;
+
+/**
+ * Persisted anomaly scoring state of one employee
+ * The state is an encoded {@code AnomalyProfile}; rows are written by {@code AnomalyProfileJdbcRepository} only
+ */
+@Entity
+@Table(name = "employee_anomaly_profiles", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_employee_anomaly_profiles_employee", columnNames = {"employee_id"})
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(exclude = {"employee", "state"})
+public class EmployeeAnomalyProfile extends BaseEntity {
+
+    @NotNull(message = "Employee is required")
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "employee_id", nullable = false)
+    private Employee employee;
+
+    @NotNull(message = "State is required")
+    @Column(name = "state", nullable = false)
+    private byte[] state;
+
+    @Column(name = "observations")
+    private Integer observations = 0;
+
+    @Column(name = "last_observed_date")
+    private LocalDate lastObservedDate;
+}
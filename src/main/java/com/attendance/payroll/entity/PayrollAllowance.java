@@ -17,8 +17,9 @@ import java.math.BigDecimal;
 public class PayrollAllowance extends BaseEntity {
 
     @NotNull(message = "Payroll record is required")
+    // No database foreign key: payroll_records is partitioned, so its id alone is not a unique key
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "payroll_record_id", nullable = false)
+    @JoinColumn(name = "payroll_record_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private PayrollRecord payrollRecord;
 
     @NotBlank(message = "Allowance name is required")
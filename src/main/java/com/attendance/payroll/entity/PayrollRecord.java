@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.BatchSize;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -17,10 +18,20 @@ import java.util.List;
  */
 @Entity
 @Table(name = "payroll_records", indexes = {
+    // Branch-month and month lookups use idx_payroll_branch_month_id and idx_payroll_month_status (Flyway V3)
     @Index(name = "idx_payroll_employee_month", columnList = "employee_id, payroll_month"),
-    @Index(name = "idx_payroll_branch_month", columnList = "branch_id, payroll_month"),
-    @Index(name = "idx_payroll_month", columnList = "payroll_month"),
-    @Index(name = "idx_payroll_status", columnList = "status")
+    @Index(name = "idx_payroll_status", columnList = "status"),
+    @Index(name = "idx_payroll_updated", columnList = "updated_at, id")
+})
+@NamedEntityGraph(name = "PayrollRecord.employeeAndBranch", attributeNodes = {
+    @NamedAttributeNode("employee"),
+    @NamedAttributeNode("branch")
+})
+// Only one of the two child bags can be joined; deductions follow in one batched query
+@NamedEntityGraph(name = "PayrollRecord.detail", attributeNodes = {
+    @NamedAttributeNode("employee"),
+    @NamedAttributeNode("branch"),
+    @NamedAttributeNode("allowances")
 })
 @Data
 @EqualsAndHashCode(callSuper = true)
@@ -164,9 +175,11 @@ public class PayrollRecord extends BaseEntity {
 
     // Children records for detailed breakdown
     @OneToMany(mappedBy = "payrollRecord", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
     private List<PayrollAllowance> allowances = new ArrayList<>();
 
     @OneToMany(mappedBy = "payrollRecord", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
     private List<PayrollDeduction> deductions = new ArrayList<>();
 
     public enum PayrollStatus {
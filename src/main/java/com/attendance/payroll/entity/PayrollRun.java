@@ -0,0 +1,73 @@
+package com.attendance.payroll.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a monthly payroll run for a single branch
+ * One row per branch and payroll month, used to report progress and to restart failed branches
+ */
+@Entity
+@Table(name = "payroll_runs", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_payroll_run_branch_month", columnNames = {"branch_id", "payroll_month"})
+}, indexes = {
+    @Index(name = "idx_payroll_run_month", columnList = "payroll_month")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class PayrollRun extends BaseEntity {
+
+    @NotNull(message = "Branch is required")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "branch_id", nullable = false)
+    private Branch branch;
+
+    @NotNull(message = "Payroll month is required")
+    @Column(name = "payroll_month", nullable = false)
+    private LocalDate payrollMonth; // First day of the month
+
+    @NotNull(message = "Run status is required")
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private RunStatus status = RunStatus.PENDING;
+
+    @Column(name = "total_employees")
+    private Integer totalEmployees = 0;
+
+    @Column(name = "processed_employees")
+    private Integer processedEmployees = 0;
+
+    @Column(name = "skipped_employees")
+    private Integer skippedEmployees = 0;
+
+    @Column(name = "attempts")
+    private Integer attempts = 0;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    public enum RunStatus {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    // Helper methods
+    public boolean isCompleted() {
+        return status == RunStatus.COMPLETED;
+    }
+
+    public double getProgressPercentage() {
+        if (totalEmployees == null || totalEmployees == 0) return isCompleted() ? 100.0 : 0.0;
+        return (double) processedEmployees / totalEmployees * 100;
+    }
+}
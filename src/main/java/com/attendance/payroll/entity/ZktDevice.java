@@ -4,7 +4,8 @@ import jakarta.validation.constraints.*;
 import lombok.Data;
 
 /**
- * ZKTeco biometric device configuration
+ * ZKTeco biometric device configuration as stored in the legacy branches.zkt_devices JSON column
+ * Only read when importing those lists into the devices table, see {@link Device}
  */
 @Data
 public class ZktDevice {
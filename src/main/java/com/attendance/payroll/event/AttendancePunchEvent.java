@@ -0,0 +1,40 @@
+package com.attendance.payroll.event;
+
+import com.attendance.payroll.dto.DevicePunch;
+import com.attendance.payroll.entity.Attendance;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One device punch on the attendance punch topic, keyed by employee code
+ * Events carry no deduplication key: a punch delivered twice merges into the same attendance window on write.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendancePunchEvent {
+
+    private Long branchId;
+
+    private String deviceId;
+
+    private String employeeId;
+
+    private LocalDateTime punchTime;
+
+    private Attendance.BiometricMethod verificationMethod;
+
+    private byte[] verificationTemplate;
+
+    public static AttendancePunchEvent from(Long branchId, DevicePunch punch) {
+        return new AttendancePunchEvent(branchId, punch.getDeviceId(), punch.getEmployeeId(), punch.getPunchTime(),
+                punch.getVerificationMethod(), punch.getVerificationTemplate());
+    }
+
+    public DevicePunch toDevicePunch() {
+        return new DevicePunch(deviceId, employeeId, punchTime, verificationMethod, verificationTemplate);
+    }
+}
@@ -0,0 +1,39 @@
+package com.attendance.payroll.event;
+
+import com.attendance.payroll.dto.BranchDashboardDelta;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Broadcast over Kafka when a node sees dashboard changes of the day, so nodes holding the subscribers get them
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BranchDashboardChangeEvent {
+
+    // The sending node, which has already applied the change itself
+    private String instanceId;
+
+    private LocalDate date;
+
+    // Branches whose daily summary was refreshed
+    private List<Long> refreshedBranchIds = new ArrayList<>();
+
+    private List<BranchLateArrival> lateArrivals = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BranchLateArrival {
+
+        private Long branchId;
+
+        private BranchDashboardDelta.LateArrival lateArrival;
+    }
+}
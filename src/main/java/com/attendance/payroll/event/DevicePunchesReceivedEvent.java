@@ -0,0 +1,19 @@
+package com.attendance.payroll.event;
+
+import com.attendance.payroll.dto.DevicePunch;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Published when a poll of a ZKTeco device returns new punches
+ */
+@Data
+public class DevicePunchesReceivedEvent {
+
+    private final Long branchId;
+
+    private final String deviceId;
+
+    private final List<DevicePunch> punches;
+}
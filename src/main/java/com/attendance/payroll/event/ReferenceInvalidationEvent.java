@@ -0,0 +1,26 @@
+package com.attendance.payroll.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Broadcast over Kafka when a cached branch or employee row changes, so every node drops its copy
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReferenceInvalidationEvent {
+
+    private ReferenceType type;
+
+    private Long id;
+
+    private String code;
+
+    private Long version;
+
+    public enum ReferenceType {
+        BRANCH, EMPLOYEE
+    }
+}
@@ -0,0 +1,99 @@
+package com.attendance.payroll.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Optional;
+
+/**
+ * Cluster-wide named locks on PostgreSQL session-level advisory locks
+ *
+ * A lock is held on its own pooled connection for as long as it is open, so it is visible to every node sharing
+ * the database, and PostgreSQL releases it by itself when the holding node dies and its session goes away.
+ * Names are hashed into the advisory key space under a fixed class id, keeping them apart from other users of
+ * advisory locks on the same database.
+ */
+@Repository
+public class AdvisoryLockJdbcRepository {
+
+    private static final int LOCK_CLASS = 0x50415952; // "PAYR"
+
+    @Autowired
+    private DataSource dataSource;
+
+    /**
+     * Take the named lock if no session holds it
+     *
+     * @return the held lock, to be closed to release it, or empty when another session holds it
+     */
+    public Optional<AdvisoryLock> tryLock(String name) {
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            connection.setAutoCommit(true);
+            boolean acquired;
+            try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?, hashtext(?))")) {
+                statement.setInt(1, LOCK_CLASS);
+                statement.setString(2, name);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    acquired = resultSet.next() && resultSet.getBoolean(1);
+                }
+            }
+            if (!acquired) {
+                connection.close();
+                return Optional.empty();
+            }
+            return Optional.of(new AdvisoryLock(name, connection));
+        } catch (SQLException e) {
+            closeQuietly(connection);
+            throw new RuntimeException("Could not take advisory lock " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // The lock was never taken; nothing else to release
+            }
+        }
+    }
+
+    /**
+     * A held advisory lock; closing it unlocks and returns the connection to the pool
+     */
+    public static final class AdvisoryLock implements AutoCloseable {
+
+        private final String name;
+
+        private final Connection connection;
+
+        private AdvisoryLock(String name, Connection connection) {
+            this.name = name;
+            this.connection = connection;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public void close() {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(?, hashtext(?))")) {
+                statement.setInt(1, LOCK_CLASS);
+                statement.setString(2, name);
+                statement.execute();
+            } catch (SQLException e) {
+                throw new RuntimeException("Could not release advisory lock " + name + ": " + e.getMessage(), e);
+            } finally {
+                closeQuietly(connection);
+            }
+        }
+    }
+}
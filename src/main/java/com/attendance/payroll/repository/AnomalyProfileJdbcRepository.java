@@ -0,0 +1,92 @@
+package com.attendance.payroll.repository;
+
+import com.attendance.payroll.util.AnomalyProfile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC access to employee anomaly profiles and the risk score they feed
+ */
+@Repository
+public class AnomalyProfileJdbcRepository {
+
+    private static final String UPSERT = "INSERT INTO employee_anomaly_profiles (" +
+            "employee_id, state, observations, last_observed_date, created_at, updated_at, is_active, version) " +
+            "VALUES (?, ?, ?, ?, now(), now(), true, 0) " +
+            "ON CONFLICT (employee_id) DO UPDATE SET state = EXCLUDED.state, observations = EXCLUDED.observations, " +
+            "last_observed_date = EXCLUDED.last_observed_date, updated_at = now(), " +
+            "version = employee_anomaly_profiles.version + 1";
+
+    // ai_risk_score is delta-synced, so a changed score moves updated_at and version like any other write
+    private static final String UPDATE_RISK_SCORE = "UPDATE employees SET ai_risk_score = ?, updated_at = now(), " +
+            "version = COALESCE(version, 0) + 1 WHERE id = ? AND ai_risk_score IS DISTINCT FROM ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Encoded states by employee id; employees without a profile are absent from the result
+     */
+    public Map<Long, byte[]> findStates(Collection<Long> employeeIds) {
+        Map<Long, byte[]> states = new HashMap<>();
+        if (employeeIds.isEmpty()) {
+            return states;
+        }
+        StringBuilder sql = new StringBuilder("SELECT employee_id, state FROM employee_anomaly_profiles WHERE employee_id IN (");
+        for (int i = 0; i < employeeIds.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+
+        jdbcTemplate.query(sql.toString(), ps -> {
+            int index = 1;
+            for (Long employeeId : employeeIds) {
+                ps.setLong(index++, employeeId);
+            }
+        }, rs -> {
+            states.put(rs.getLong("employee_id"), rs.getBytes("state"));
+        });
+        return states;
+    }
+
+    public void upsertStates(Map<Long, AnomalyProfile> profiles) {
+        if (profiles.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, AnomalyProfile>> entries = new ArrayList<>(profiles.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT, entries, entries.size(), (ps, entry) -> {
+            AnomalyProfile profile = entry.getValue();
+            LocalDate lastObserved = profile.getLastObservedDate();
+            ps.setLong(1, entry.getKey());
+            ps.setBytes(2, profile.encode());
+            ps.setInt(3, profile.getObservations());
+            if (lastObserved != null) {
+                ps.setDate(4, Date.valueOf(lastObserved));
+            } else {
+                ps.setNull(4, Types.DATE);
+            }
+        });
+    }
+
+    public void updateRiskScores(Map<Long, AnomalyProfile> profiles) {
+        if (profiles.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, AnomalyProfile>> entries = new ArrayList<>(profiles.entrySet());
+        jdbcTemplate.batchUpdate(UPDATE_RISK_SCORE, entries, entries.size(), (ps, entry) -> {
+            ps.setDouble(1, entry.getValue().getRiskScore());
+            ps.setLong(2, entry.getKey());
+            ps.setDouble(3, entry.getValue().getRiskScore());
+        });
+    }
+}
@@ -0,0 +1,186 @@
+package com.attendance.payroll.repository;
+
+import com.attendance.payroll.dto.AttendanceDayHours;
+import com.attendance.payroll.dto.AttendancePunchWindow;
+import com.attendance.payroll.dto.EmployeeWeek;
+import com.attendance.payroll.dto.UpsertedAttendance;
+import com.attendance.payroll.entity.Attendance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * JDBC access for high-volume attendance writes
+ * Attendance uses IDENTITY ids, which disables Hibernate insert batching, so punch ingestion writes through here
+ */
+@Repository
+public class AttendanceJdbcRepository {
+
+    private static final String UPSERT_PREFIX = "INSERT INTO attendance (" +
+            "employee_id, branch_id, attendance_date, check_in_time, check_out_time, check_in_device_id, " +
+            "check_out_device_id, biometric_verification_method, verification_score, status, attendance_type, total_working_hours, " +
+            "total_break_hours, overtime_hours, late_arrival_minutes, early_departure_minutes, ai_anomaly_score, " +
+            "is_flagged_for_review, manual_override, created_at, updated_at, is_active, version) VALUES ";
+
+    private static final String UPSERT_ROW =
+            "(?, ?, ?, ?, ?, ?, ?, ?, ?, 'PRESENT', 'REGULAR', 0, 0, 0, 0, 0, 0, false, false, now(), now(), true, 0)";
+
+    private static final String UPSERT_SUFFIX = " ON CONFLICT (employee_id, attendance_date) DO UPDATE SET " +
+            "check_in_time = LEAST(attendance.check_in_time, EXCLUDED.check_in_time), " +
+            "check_in_device_id = CASE WHEN attendance.check_in_time IS NULL " +
+            "OR EXCLUDED.check_in_time < attendance.check_in_time " +
+            "THEN EXCLUDED.check_in_device_id ELSE attendance.check_in_device_id END, " +
+            "biometric_verification_method = CASE WHEN attendance.check_in_time IS NULL " +
+            "OR EXCLUDED.check_in_time < attendance.check_in_time " +
+            "THEN EXCLUDED.biometric_verification_method ELSE attendance.biometric_verification_method END, " +
+            "verification_score = CASE WHEN attendance.check_in_time IS NULL " +
+            "OR EXCLUDED.check_in_time < attendance.check_in_time " +
+            "THEN EXCLUDED.verification_score ELSE attendance.verification_score END, " +
+            // The latest punch of the day becomes the check-out, unless it is also the earliest one
+            "check_out_time = NULLIF(GREATEST(attendance.check_in_time, attendance.check_out_time, " +
+            "EXCLUDED.check_in_time, EXCLUDED.check_out_time), LEAST(attendance.check_in_time, EXCLUDED.check_in_time)), " +
+            "check_out_device_id = CASE WHEN GREATEST(EXCLUDED.check_in_time, EXCLUDED.check_out_time) > " +
+            "COALESCE(GREATEST(attendance.check_in_time, attendance.check_out_time), '-infinity'::timestamp) " +
+            "THEN COALESCE(EXCLUDED.check_out_device_id, EXCLUDED.check_in_device_id) " +
+            "ELSE attendance.check_out_device_id END, " +
+            "updated_at = now(), version = attendance.version + 1 " +
+            "WHERE attendance.manual_override IS NOT TRUE " +
+            "RETURNING id, employee_id, branch_id, attendance_date, check_in_time, check_out_time, status, manual_override";
+
+    private static final String UPDATE_DERIVED = "UPDATE attendance SET total_working_hours = ?, overtime_hours = ?, " +
+            "late_arrival_minutes = ?, early_departure_minutes = ?, status = ?, ai_anomaly_score = ?, " +
+            "is_flagged_for_review = (COALESCE(is_flagged_for_review, false) OR ?), " +
+            "flag_reason = COALESCE(?, flag_reason), updated_at = now(), version = COALESCE(version, 0) + 1 " +
+            "WHERE id = ? AND attendance_date = ?";
+
+    private static final String WEEK_HOURS_SUFFIX = " AS k(employee_id, week_start) " +
+            "JOIN attendance a ON a.employee_id = k.employee_id " +
+            "AND a.attendance_date BETWEEN k.week_start AND k.week_start + 6 " +
+            "AND a.is_active = true AND a.deleted_at IS NULL";
+
+    private static final String UPDATE_OVERTIME = "UPDATE attendance SET overtime_hours = ?, updated_at = now(), " +
+            "version = COALESCE(version, 0) + 1 WHERE employee_id = ? AND attendance_date = ? AND manual_override IS NOT TRUE";
+
+    private static final int PARAMETERS_PER_ROW = 9;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Merge punch windows into attendance rows with one multi-row upsert keyed on (employee_id, attendance_date)
+     *
+     * @return the resulting state of every inserted or updated row; manually overridden rows are left untouched
+     */
+    public List<UpsertedAttendance> upsertPunchWindows(List<AttendancePunchWindow> windows) {
+        StringBuilder sql = new StringBuilder(UPSERT_PREFIX.length() + windows.size() * (UPSERT_ROW.length() + 2)
+                + UPSERT_SUFFIX.length());
+        sql.append(UPSERT_PREFIX);
+        for (int i = 0; i < windows.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append(UPSERT_ROW);
+        }
+        sql.append(UPSERT_SUFFIX);
+
+        return jdbcTemplate.query(sql.toString(), ps -> {
+            int index = 1;
+            for (AttendancePunchWindow window : windows) {
+                LocalDateTime checkOut = window.getCheckOut();
+                ps.setLong(index++, window.getEmployeeId());
+                ps.setLong(index++, window.getBranchId());
+                ps.setDate(index++, Date.valueOf(window.getAttendanceDate()));
+                ps.setTimestamp(index++, Timestamp.valueOf(window.getFirstPunch()));
+                ps.setTimestamp(index++, checkOut != null ? Timestamp.valueOf(checkOut) : null);
+                ps.setString(index++, window.getFirstDeviceId());
+                ps.setString(index++, checkOut != null ? window.getLastDeviceId() : null);
+                ps.setString(index++, window.getVerificationMethod() != null ? window.getVerificationMethod().name() : null);
+                ps.setObject(index++, window.getVerificationScore(), Types.DOUBLE);
+            }
+        }, (rs, rowNum) -> {
+            Timestamp checkOut = rs.getTimestamp("check_out_time");
+            UpsertedAttendance row = new UpsertedAttendance(
+                    rs.getLong("id"),
+                    rs.getLong("employee_id"),
+                    rs.getLong("branch_id"),
+                    rs.getDate("attendance_date").toLocalDate(),
+                    rs.getTimestamp("check_in_time").toLocalDateTime(),
+                    checkOut != null ? checkOut.toLocalDateTime() : null,
+                    rs.getBoolean("manual_override"));
+            row.setStatus(Attendance.AttendanceStatus.valueOf(rs.getString("status")));
+            row.setPreviousStatus(row.getStatus());
+            return row;
+        });
+    }
+
+    /**
+     * Write derived working-time fields for rows returned by {@link #upsertPunchWindows}
+     */
+    public void updateDerivedFields(List<UpsertedAttendance> rows) {
+        jdbcTemplate.batchUpdate(UPDATE_DERIVED, rows, rows.size(), (ps, row) -> {
+            ps.setDouble(1, row.getTotalWorkingHours());
+            ps.setDouble(2, row.getOvertimeHours());
+            ps.setInt(3, row.getLateArrivalMinutes());
+            ps.setInt(4, row.getEarlyDepartureMinutes());
+            ps.setString(5, row.getStatus().name());
+            ps.setDouble(6, row.getAiAnomalyScore());
+            ps.setBoolean(7, row.isFlaggedForReview());
+            ps.setString(8, row.getFlagReason());
+            ps.setLong(9, row.getId());
+            ps.setDate(10, Date.valueOf(row.getAttendanceDate()));
+        });
+    }
+
+    /**
+     * Working and overtime hours of every attendance row in the given employee weeks, with one query
+     */
+    public List<AttendanceDayHours> findWeekHours(Collection<EmployeeWeek> weeks) {
+        if (weeks.isEmpty()) {
+            return List.of();
+        }
+        StringBuilder sql = new StringBuilder("SELECT a.employee_id, a.branch_id, a.attendance_date, " +
+                "a.total_working_hours, a.overtime_hours, a.manual_override FROM (VALUES ");
+        for (int i = 0; i < weeks.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?::bigint, ?::date)");
+        }
+        sql.append(")").append(WEEK_HOURS_SUFFIX);
+
+        return jdbcTemplate.query(sql.toString(), ps -> {
+            int index = 1;
+            for (EmployeeWeek week : weeks) {
+                ps.setLong(index++, week.getEmployeeId());
+                ps.setDate(index++, Date.valueOf(week.getWeekStart()));
+            }
+        }, (rs, rowNum) -> new AttendanceDayHours(
+                rs.getLong("employee_id"),
+                rs.getLong("branch_id"),
+                rs.getDate("attendance_date").toLocalDate(),
+                rs.getDouble("total_working_hours"),
+                rs.getDouble("overtime_hours"),
+                rs.getBoolean("manual_override")));
+    }
+
+    /**
+     * Write the overtime hours of rows other than the ones just upserted, e.g. later days of a recomputed week
+     * Manually overridden rows are never written, should one have been overridden since its week was read
+     */
+    public void updateOvertimeHours(List<AttendanceDayHours> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPDATE_OVERTIME, rows, rows.size(), (ps, row) -> {
+            ps.setDouble(1, row.getOvertimeHours());
+            ps.setLong(2, row.getEmployeeId());
+            ps.setDate(3, Date.valueOf(row.getAttendanceDate()));
+        });
+    }
+
+    public static int maxRowsPerUpsert() {
+        // PostgreSQL accepts at most 32767 bind parameters per statement
+        return Short.MAX_VALUE / PARAMETERS_PER_ROW;
+    }
+}
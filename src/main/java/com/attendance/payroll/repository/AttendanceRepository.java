@@ -1,16 +1,24 @@
 package com.attendance.payroll.repository;
 
+import com.attendance.payroll.dto.AttendanceListRow;
+import com.attendance.payroll.dto.EmployeeAttendanceSummary;
 import com.attendance.payroll.entity.Attendance;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for Attendance entity
@@ -18,13 +26,23 @@ import java.util.Optional;
 @Repository
 public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
 
+    String ATTENDANCE_LIST_ROW = "SELECT a.id AS id, a.attendanceDate AS attendanceDate, e.id AS employeeId, " +
+            "e.employeeId AS employeeCode, e.firstName AS firstName, e.lastName AS lastName, b.id AS branchId, " +
+            "b.branchId AS branchCode, b.name AS branchName, a.checkInTime AS checkInTime, a.checkOutTime AS checkOutTime, " +
+            "a.totalWorkingHours AS totalWorkingHours, a.overtimeHours AS overtimeHours, " +
+            "a.lateArrivalMinutes AS lateArrivalMinutes, a.earlyDepartureMinutes AS earlyDepartureMinutes, " +
+            "a.status AS status, a.isFlaggedForReview AS flaggedForReview " +
+            "FROM Attendance a JOIN a.employee e JOIN a.branch b ";
+
     Optional<Attendance> findByEmployeeIdAndAttendanceDate(Long employeeId, LocalDate date);
 
+    @EntityGraph("Attendance.employeeAndBranch")
     @Query("SELECT a FROM Attendance a WHERE a.employee.id = :employeeId AND a.attendanceDate BETWEEN :startDate AND :endDate ORDER BY a.attendanceDate DESC")
     List<Attendance> findByEmployeeAndDateRange(@Param("employeeId") Long employeeId, 
                                               @Param("startDate") LocalDate startDate, 
                                               @Param("endDate") LocalDate endDate);
 
+    @EntityGraph("Attendance.employeeAndBranch")
     @Query("SELECT a FROM Attendance a WHERE a.branch.id = :branchId AND a.attendanceDate = :attendanceDate ORDER BY a.employee.firstName")
     List<Attendance> findByBranchAndDate(@Param("branchId") Long branchId, @Param("attendanceDate") LocalDate attendanceDate);
 
@@ -33,15 +51,60 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
                                             @Param("endDate") LocalDate endDate, 
                                             @Param("status") Attendance.AttendanceStatus status);
 
+    /**
+     * Streaming variant of {@link #findByDateRangeAndStatus}; must be consumed inside a read-only transaction and closed
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + StreamingQueries.FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT a FROM Attendance a WHERE a.attendanceDate BETWEEN :startDate AND :endDate AND a.status = :status " +
+           "ORDER BY a.attendanceDate, a.id")
+    Stream<Attendance> streamByDateRangeAndStatus(@Param("startDate") LocalDate startDate,
+                                                  @Param("endDate") LocalDate endDate,
+                                                  @Param("status") Attendance.AttendanceStatus status);
+
+    /**
+     * Keyset-paginated variant of {@link #findByDateRangeAndStatus}, ordered by (attendanceDate, id)
+     * Pass the date and id of the last row of the previous slice, or use {@link #findFirstSliceByDateRangeAndStatus}
+     */
+    @Query("SELECT a FROM Attendance a WHERE a.attendanceDate BETWEEN :startDate AND :endDate AND a.status = :status AND " +
+           "(a.attendanceDate > :afterDate OR (a.attendanceDate = :afterDate AND a.id > :afterId)) " +
+           "ORDER BY a.attendanceDate, a.id")
+    Slice<Attendance> findSliceByDateRangeAndStatusAfter(@Param("startDate") LocalDate startDate,
+                                                         @Param("endDate") LocalDate endDate,
+                                                         @Param("status") Attendance.AttendanceStatus status,
+                                                         @Param("afterDate") LocalDate afterDate,
+                                                         @Param("afterId") Long afterId,
+                                                         Pageable pageable);
+
+    default Slice<Attendance> findFirstSliceByDateRangeAndStatus(LocalDate startDate, LocalDate endDate,
+                                                                 Attendance.AttendanceStatus status, int size) {
+        return findSliceByDateRangeAndStatusAfter(startDate, endDate, status, startDate, 0L, Pageable.ofSize(size));
+    }
+
     @Query("SELECT a FROM Attendance a WHERE a.employee.id = :employeeId AND a.attendanceDate = :date")
     Optional<Attendance> findByEmployeeAndAttendanceDate(@Param("employeeId") Long employeeId, @Param("date") LocalDate date);
 
     @Query("SELECT a FROM Attendance a WHERE a.employee.employeeId = :employeeId AND a.attendanceDate = :date")
     Optional<Attendance> findByEmployeeCodeAndDate(@Param("employeeId") String employeeId, @Param("date") LocalDate date);
 
+    @EntityGraph("Attendance.employeeAndBranch")
     @Query("SELECT a FROM Attendance a WHERE a.isFlaggedForReview = true AND a.isActive = true")
     List<Attendance> findFlaggedForReview();
 
+    // Partition-pruned variants: bounding the attendance date lets PostgreSQL skip every other monthly partition
+
+    @Query("SELECT a FROM Attendance a WHERE a.id = :id AND a.attendanceDate = :date")
+    Optional<Attendance> findByIdAndAttendanceDate(@Param("id") Long id, @Param("date") LocalDate date);
+
+    @EntityGraph("Attendance.employeeAndBranch")
+    @Query("SELECT a FROM Attendance a WHERE a.isFlaggedForReview = true AND a.isActive = true " +
+           "AND a.attendanceDate >= :sinceDate ORDER BY a.attendanceDate DESC")
+    List<Attendance> findFlaggedForReviewSince(@Param("sinceDate") LocalDate sinceDate);
+
+    @EntityGraph("Attendance.employeeAndBranch")
     @Query("SELECT a FROM Attendance a WHERE a.branch.id = :branchId AND a.attendanceDate = :date AND a.status IN :statuses")
     List<Attendance> findByBranchAndDateAndStatus(@Param("branchId") Long branchId, 
                                                 @Param("date") LocalDate date, 
@@ -72,11 +135,40 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
                                     @Param("startDate") LocalDate startDate,
                                     @Param("endDate") LocalDate endDate);
 
+    @EntityGraph("Attendance.employeeAndBranch")
     @Query("SELECT a FROM Attendance a WHERE a.attendanceDate = :date AND a.branch.id = :branchId AND (a.lateArrivalMinutes > 0 OR a.earlyDepartureMinutes > 0)")
     List<Attendance> findLateOrEarlyDepartures(@Param("date") LocalDate date, @Param("branchId") Long branchId);
 
     boolean existsByEmployeeIdAndAttendanceDate(Long employeeId, LocalDate date);
 
+    @Query("SELECT a.employee.id AS employeeId, " +
+           "SUM(CASE WHEN a.status = 'PRESENT' OR a.status = 'LATE' THEN 1 ELSE 0 END) AS presentDays, " +
+           "SUM(CASE WHEN a.status = 'ABSENT' THEN 1 ELSE 0 END) AS absentDays, " +
+           "SUM(CASE WHEN a.status = 'LATE' THEN 1 ELSE 0 END) AS lateDays, " +
+           "SUM(CASE WHEN a.earlyDepartureMinutes > 0 THEN 1 ELSE 0 END) AS earlyDepartures, " +
+           "COALESCE(SUM(a.lateArrivalMinutes), 0) AS lateMinutes, " +
+           "COALESCE(SUM(a.earlyDepartureMinutes), 0) AS earlyMinutes, " +
+           "COALESCE(SUM(a.totalWorkingHours), 0.0) AS workingHours, " +
+           "COALESCE(SUM(a.overtimeHours), 0.0) AS overtimeHours " +
+           "FROM Attendance a WHERE a.branch.id = :branchId AND a.attendanceDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY a.employee.id")
+    List<EmployeeAttendanceSummary> summarizeByBranchAndPeriod(@Param("branchId") Long branchId,
+                                                               @Param("startDate") LocalDate startDate,
+                                                               @Param("endDate") LocalDate endDate);
+
+    /**
+     * List-screen rows of a branch-day: one query with the employee and branch columns joined in
+     */
+    @Query(ATTENDANCE_LIST_ROW + "WHERE a.branch.id = :branchId AND a.attendanceDate = :attendanceDate ORDER BY e.firstName, e.lastName")
+    List<AttendanceListRow> findListRowsByBranchAndDate(@Param("branchId") Long branchId,
+                                                        @Param("attendanceDate") LocalDate attendanceDate);
+
+    @Query(ATTENDANCE_LIST_ROW + "WHERE a.employee.id = :employeeId AND a.attendanceDate BETWEEN :startDate AND :endDate " +
+           "ORDER BY a.attendanceDate DESC")
+    List<AttendanceListRow> findListRowsByEmployeeAndDateRange(@Param("employeeId") Long employeeId,
+                                                               @Param("startDate") LocalDate startDate,
+                                                               @Param("endDate") LocalDate endDate);
+
     @Query("SELECT a.attendanceDate FROM Attendance a WHERE a.employee.id = :employeeId AND a.attendanceDate BETWEEN :startDate AND :endDate ORDER BY a.attendanceDate")
     List<LocalDate> findAttendanceDatesByEmployee(@Param("employeeId") Long employeeId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.attendance.payroll.repository;
+
+import com.attendance.payroll.dto.BiometricTemplateData;
+import com.attendance.payroll.entity.BiometricTemplate;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Repository interface for BiometricTemplate entity
+ */
+@Repository
+public interface BiometricTemplateRepository extends JpaRepository<BiometricTemplate, Long> {
+
+    String TEMPLATE_DATA = "SELECT e.id AS employeeId, e.branch.id AS branchId, e.employeeId AS employeeCode, " +
+            "e.biometricId AS biometricId, t.templateType AS templateType, t.slot AS slot, " +
+            "t.algorithmVersion AS algorithmVersion, t.template AS template " +
+            "FROM BiometricTemplate t JOIN t.employee e ";
+
+    @Query("SELECT t FROM BiometricTemplate t WHERE t.employee.id = :employeeId ORDER BY t.templateType, t.slot")
+    List<BiometricTemplate> findByEmployeeId(@Param("employeeId") Long employeeId);
+
+    @Query("SELECT t FROM BiometricTemplate t WHERE t.employee.id = :employeeId AND t.templateType = :templateType AND t.slot = :slot")
+    Optional<BiometricTemplate> findByEmployeeIdAndTypeAndSlot(@Param("employeeId") Long employeeId,
+                                                               @Param("templateType") BiometricTemplate.TemplateType templateType,
+                                                               @Param("slot") Integer slot);
+
+    @Query("SELECT COUNT(t) FROM BiometricTemplate t WHERE t.employee.id = :employeeId")
+    long countByEmployeeId(@Param("employeeId") Long employeeId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM BiometricTemplate t WHERE t.employee.id = :employeeId")
+    int deleteByEmployeeId(@Param("employeeId") Long employeeId);
+
+    /**
+     * Templates of the active employees of a branch, ordered by employee, for device provisioning
+     * Streams projections, so nothing is managed by the persistence context; consume inside a read-only
+     * transaction and close
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + StreamingQueries.FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query(TEMPLATE_DATA + "WHERE e.branch.id = :branchId AND e.status = 'ACTIVE' AND e.isActive = true AND t.isActive = true " +
+           "ORDER BY e.id, t.templateType, t.slot")
+    Stream<BiometricTemplateData> streamActiveByBranch(@Param("branchId") Long branchId);
+
+    @Query(TEMPLATE_DATA + "WHERE e.id = :employeeId AND e.status = 'ACTIVE' AND e.isActive = true AND t.isActive = true " +
+           "ORDER BY t.templateType, t.slot")
+    List<BiometricTemplateData> findActiveDataByEmployeeId(@Param("employeeId") Long employeeId);
+}
@@ -0,0 +1,92 @@
+package com.attendance.payroll.repository;
+
+import com.attendance.payroll.dto.BranchDay;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * JDBC writes for the branch_daily_summary read model
+ *
+ * Each branch-day is recomputed from its attendance rows (served by idx_attendance_branch_date) and upserted,
+ * so a refresh is idempotent and a branch-day whose rows were all removed drops back to zero.
+ */
+@Repository
+public class BranchDailySummaryJdbcRepository {
+
+    private static final String UPSERT_PREFIX = "INSERT INTO branch_daily_summary (" +
+            "branch_id, summary_date, active_employees, present_count, late_count, absent_count, half_day_count, " +
+            "leave_count, other_count, total_late_minutes, total_early_departure_minutes, total_working_hours, " +
+            "total_overtime_hours, recomputed_at, created_at, updated_at, is_active, version) " +
+            "SELECT k.branch_id, k.summary_date, " +
+            "(SELECT COUNT(*) FROM employees e WHERE e.branch_id = k.branch_id AND e.status = 'ACTIVE' " +
+            "AND e.is_active = true AND e.deleted_at IS NULL), " +
+            "COUNT(a.id) FILTER (WHERE a.status = 'PRESENT'), " +
+            "COUNT(a.id) FILTER (WHERE a.status = 'LATE'), " +
+            "COUNT(a.id) FILTER (WHERE a.status = 'ABSENT'), " +
+            "COUNT(a.id) FILTER (WHERE a.status = 'HALF_DAY'), " +
+            "COUNT(a.id) FILTER (WHERE a.status = 'LEAVE'), " +
+            "COUNT(a.id) FILTER (WHERE a.status IN ('WEEKEND', 'HOLIDAY')), " +
+            "COALESCE(SUM(a.late_arrival_minutes), 0), COALESCE(SUM(a.early_departure_minutes), 0), " +
+            "COALESCE(SUM(a.total_working_hours), 0), COALESCE(SUM(a.overtime_hours), 0), " +
+            "now(), now(), now(), true, 0 FROM ";
+
+    private static final String UPSERT_SUFFIX = " LEFT JOIN attendance a ON a.branch_id = k.branch_id " +
+            "AND a.attendance_date = k.summary_date AND a.is_active = true AND a.deleted_at IS NULL " +
+            "GROUP BY k.branch_id, k.summary_date " +
+            "ON CONFLICT (branch_id, summary_date) DO UPDATE SET " +
+            "active_employees = EXCLUDED.active_employees, present_count = EXCLUDED.present_count, " +
+            "late_count = EXCLUDED.late_count, absent_count = EXCLUDED.absent_count, " +
+            "half_day_count = EXCLUDED.half_day_count, leave_count = EXCLUDED.leave_count, " +
+            "other_count = EXCLUDED.other_count, total_late_minutes = EXCLUDED.total_late_minutes, " +
+            "total_early_departure_minutes = EXCLUDED.total_early_departure_minutes, " +
+            "total_working_hours = EXCLUDED.total_working_hours, total_overtime_hours = EXCLUDED.total_overtime_hours, " +
+            "recomputed_at = now(), updated_at = now(), version = branch_daily_summary.version + 1";
+
+    // Every branch-day with attendance in the range, plus existing summaries whose rows may have gone
+    private static final String RANGE_KEYS = "(SELECT branch_id, attendance_date AS summary_date FROM attendance " +
+            "WHERE attendance_date BETWEEN ? AND ? " +
+            "UNION SELECT branch_id, summary_date FROM branch_daily_summary WHERE summary_date BETWEEN ? AND ?) k";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Recompute the given branch-days with a single statement
+     */
+    public int refresh(Collection<BranchDay> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        StringBuilder values = new StringBuilder("(VALUES ");
+        for (int i = 0; i < keys.size(); i++) {
+            values.append(i == 0 ? "" : ", ").append("(?::bigint, ?::date)");
+        }
+        values.append(") AS k(branch_id, summary_date)");
+
+        return jdbcTemplate.update(UPSERT_PREFIX + values + UPSERT_SUFFIX, ps -> {
+            int index = 1;
+            for (BranchDay key : keys) {
+                ps.setLong(index++, key.getBranchId());
+                ps.setDate(index++, Date.valueOf(key.getDate()));
+            }
+        });
+    }
+
+    /**
+     * Recompute every branch-day between the two dates, inclusive
+     */
+    public int refreshRange(LocalDate startDate, LocalDate endDate) {
+        return jdbcTemplate.update(UPSERT_PREFIX + RANGE_KEYS + UPSERT_SUFFIX,
+                Date.valueOf(startDate), Date.valueOf(endDate), Date.valueOf(startDate), Date.valueOf(endDate));
+    }
+
+    public static int maxKeysPerRefresh() {
+        // PostgreSQL accepts at most 32767 bind parameters per statement
+        return Short.MAX_VALUE / 2;
+    }
+}
@@ -0,0 +1,32 @@
+package com.attendance.payroll.repository;
+
+import com.attendance.payroll.entity.BranchDailySummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for BranchDailySummary entity
+ */
+@Repository
+public interface BranchDailySummaryRepository extends JpaRepository<BranchDailySummary, Long> {
+
+    Optional<BranchDailySummary> findByBranchIdAndSummaryDate(Long branchId, LocalDate summaryDate);
+
+    List<BranchDailySummary> findByBranchIdInAndSummaryDate(Collection<Long> branchIds, LocalDate summaryDate);
+
+    @Query("SELECT s FROM BranchDailySummary s JOIN FETCH s.branch WHERE s.summaryDate = :date ORDER BY s.branch.name")
+    List<BranchDailySummary> findAllByDate(@Param("date") LocalDate date);
+
+    @Query("SELECT s FROM BranchDailySummary s WHERE s.branch.id = :branchId " +
+           "AND s.summaryDate BETWEEN :startDate AND :endDate ORDER BY s.summaryDate")
+    List<BranchDailySummary> findByBranchAndDateRange(@Param("branchId") Long branchId,
+                                                      @Param("startDate") LocalDate startDate,
+                                                      @Param("endDate") LocalDate endDate);
+}
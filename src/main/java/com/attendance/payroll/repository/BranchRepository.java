@@ -1,13 +1,17 @@
 package com.attendance.payroll.repository;
 
+import com.attendance.payroll.dto.BranchSearchDocument;
 import com.attendance.payroll.entity.Branch;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -37,4 +41,13 @@ public interface BranchRepository extends JpaRepository<Branch, Long> {
 
     @Query("SELECT b FROM Branch b WHERE b.managerName = :managerName AND b.isActive = true")
     List<Branch> findByManagerName(@Param("managerName") String managerName);
-}
\ No newline at end of file
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Branch b SET b.lastSyncTimestamp = :syncTimestamp WHERE b.id = :id")
+    int updateLastSyncTimestamp(@Param("id") Long id, @Param("syncTimestamp") LocalDateTime syncTimestamp);
+
+    @Query("SELECT b.id AS id, b.name AS name, b.location AS location FROM Branch b " +
+           "WHERE b.isActive = true AND b.deletedAt IS NULL")
+    List<BranchSearchDocument> findSearchDocuments();
+}
@@ -0,0 +1,498 @@
+package com.attendance.payroll.repository;
+
+import com.attendance.payroll.dto.DeltaSyncCursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * JDBC reads and writes of the delta sync between branch and headquarters databases
+ *
+ * Each node has its own ids, so rows travel without them: foreign keys are shipped as the employee and branch
+ * business codes and rows are matched on their natural key (employee code; employee and date; employee and
+ * month). Changes are read in (updated_at, id) order from a cursor position. Applying a row is a single
+ * statement that only writes when the incoming version is newer than the local one, so the node holding the
+ * higher version wins a conflict and a row echoed back to its origin is a no-op. Equal versions with different
+ * contents were changed on two nodes independently; both sides keep the row whose shipped columns hash higher,
+ * so they settle on the same row without comparing clocks. Both rows are hashed as values of the table's own
+ * column types, so an unchanged row hashes the same whichever node it was read on. Every writer of a synced
+ * table therefore bumps the version and stamps updated_at with the database clock. Applied rows get a local
+ * updated_at, so a hub re-exports them to its other nodes.
+ */
+@Repository
+public class DeltaSyncJdbcRepository {
+
+    // Shared BaseEntity columns, shipped last; version decides conflicts and deleted_at carries soft deletes
+    private static final List<SyncColumn> BASE_COLUMNS = List.of(text("created_by"), text("updated_by"),
+            bool("is_active"), timestamp("deleted_at"), text("deleted_by"), bigint("version"));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Declared types of each synced table's columns, e.g. numeric(12,2) or double precision
+    private final Map<SyncTable, Map<String, String>> columnTypes = new ConcurrentHashMap<>();
+
+    /**
+     * The database's current local time, the clock updated_at is stamped with
+     */
+    public LocalDateTime currentTimestamp() {
+        return jdbcTemplate.queryForObject("SELECT localtimestamp", Timestamp.class).toLocalDateTime();
+    }
+
+    /**
+     * Changed rows of the table after the position and strictly before the upper bound, oldest first
+     * The upper bound keeps rows of still-running transactions, stamped earlier but committed later, out of reach
+     */
+    public List<ChangedRow> findChanges(SyncTable table, DeltaSyncCursor.Position after, LocalDateTime before, int limit) {
+        String sql = "SELECT t.id AS sync_id, t.updated_at AS sync_updated_at, " + table.selectList() + " FROM " + table.from +
+                " WHERE (t.updated_at, t.id) > (?, ?) AND t.updated_at < ? ORDER BY t.updated_at, t.id LIMIT ?";
+        return jdbcTemplate.query(sql, ps -> {
+            ps.setTimestamp(1, Timestamp.valueOf(after.getUpdatedAt()));
+            ps.setLong(2, after.getId());
+            ps.setTimestamp(3, Timestamp.valueOf(before));
+            ps.setInt(4, limit);
+        }, (rs, rowNum) -> {
+            Object[] values = new Object[table.columns.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = table.columns.get(i).read(rs);
+            }
+            return new ChangedRow(new DeltaSyncCursor.Position(rs.getTimestamp("sync_updated_at").toLocalDateTime(),
+                    rs.getLong("sync_id")), values);
+        });
+    }
+
+    /**
+     * Apply shipped rows, each laid out as {@link SyncTable#getColumnNames()}
+     *
+     * @return the rows written; the others were stale or reference an unknown employee or branch
+     */
+    public List<Object[]> apply(SyncTable table, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        if (table == SyncTable.PAYROLL_RECORDS) {
+            return applyWithoutConflictTarget(table, rows);
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(table.insertSql(table.conflictUpdate()), rows, rows.size(),
+                (ps, row) -> table.bindInsert(ps, row));
+        return written(rows, counts[0], null);
+    }
+
+    /**
+     * Branch code each shipped row's key currently has on this node, by {@link #rowKey(Object[])}
+     * Only for tables keyed by employee; keys not present here are left out
+     */
+    public Map<String, String> findCurrentBranchCodes(SyncTable table, List<Object[]> rows) {
+        if (rows.isEmpty() || !table.keyedByEmployee) {
+            return Map.of();
+        }
+        SyncColumn keyColumn = table.key.get(1);
+        String sql = "SELECT e.employee_id AS employee_code, t." + keyColumn.name + " AS key_value, b.branch_id AS branch_code " +
+                "FROM unnest(?::text[], ?::date[]) AS k(employee_code, key_value) " +
+                "JOIN employees e ON e.employee_id = k.employee_code " +
+                "JOIN " + table.table + " t ON t.employee_id = e.id AND t." + keyColumn.name + " = k.key_value " +
+                "JOIN branches b ON b.id = t.branch_id";
+        Map<String, String> branchCodes = new HashMap<>();
+        jdbcTemplate.query(sql, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("text",
+                    rows.stream().map(row -> row[0]).toArray()));
+            ps.setArray(2, ps.getConnection().createArrayOf("date",
+                    rows.stream().map(row -> row[1].toString()).toArray()));
+        }, rs -> {
+            branchCodes.put(rs.getString("employee_code") + "|" + rs.getDate("key_value").toLocalDate(),
+                    rs.getString("branch_code"));
+        });
+        return branchCodes;
+    }
+
+    /**
+     * Employee code and date key of a shipped row of a table keyed by employee, e.g. "E1001|2024-03-01"
+     */
+    public static String rowKey(Object[] row) {
+        return row[0] + "|" + row[1];
+    }
+
+    // payroll_records has no unique key on (employee, month), so it is update-else-insert instead of an upsert
+    private List<Object[]> applyWithoutConflictTarget(SyncTable table, List<Object[]> rows) {
+        int[][] updated = jdbcTemplate.batchUpdate(table.updateSql(columnTypes(table)), rows, rows.size(),
+                (ps, row) -> table.bindUpdate(ps, row));
+        List<Object[]> missing = new ArrayList<>();
+        List<Object[]> written = written(rows, updated[0], missing);
+        if (!missing.isEmpty()) {
+            int[][] inserted = jdbcTemplate.batchUpdate(table.insertSql(table.notExists()), missing, missing.size(),
+                    (ps, row) -> table.bindInsertIfAbsent(ps, row));
+            written.addAll(written(missing, inserted[0], null));
+        }
+        return written;
+    }
+
+    private Map<String, String> columnTypes(SyncTable table) {
+        return columnTypes.computeIfAbsent(table, t -> {
+            Map<String, String> types = new HashMap<>();
+            jdbcTemplate.query("SELECT attname, format_type(atttypid, atttypmod) FROM pg_attribute " +
+                    "WHERE attrelid = ?::regclass AND attnum > 0 AND NOT attisdropped",
+                    rs -> {
+                        types.put(rs.getString(1), rs.getString(2));
+                    }, t.table);
+            return Map.copyOf(types);
+        });
+    }
+
+    private static List<Object[]> written(List<Object[]> rows, int[] counts, List<Object[]> notWritten) {
+        List<Object[]> written = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (counts[i] > 0) {
+                written.add(rows.get(i));
+            } else if (notWritten != null) {
+                notWritten.add(rows.get(i));
+            }
+        }
+        return written;
+    }
+
+    /**
+     * One changed row: its cursor position on this node and its shipped column values
+     */
+    public static final class ChangedRow {
+
+        private final DeltaSyncCursor.Position position;
+
+        private final Object[] values;
+
+        public ChangedRow(DeltaSyncCursor.Position position, Object[] values) {
+            this.position = position;
+            this.values = values;
+        }
+
+        public DeltaSyncCursor.Position getPosition() {
+            return position;
+        }
+
+        public Object[] getValues() {
+            return values;
+        }
+    }
+
+    /**
+     * The synchronized tables, in apply order (employees before the rows that reference them)
+     * The first columns are the natural key, then come the referenced codes, then the plain columns
+     */
+    public enum SyncTable {
+
+        EMPLOYEES("employees", "employees t LEFT JOIN branches b ON b.id = t.branch_id", false,
+                List.of(text("employee_id")),
+                List.of(text("branch_code", "b.branch_id")),
+                List.of(text("first_name"), text("last_name"), text("email"), text("phone"), date("date_of_birth"),
+                        date("hire_date"), text("department"), text("position"), text("status"),
+                        text("work_schedule_type"), text("shift_start_time"), text("shift_end_time"),
+                        integer("working_days_per_week"), text("biometric_id"), text("card_number"), text("address"),
+                        text("city"), text("state_province"), text("postal_code"), text("country"), text("profile_picture"),
+                        text("emergency_contact_name"), text("emergency_contact_phone"),
+                        text("emergency_contact_relationship"), text("national_id"), text("passport_number"),
+                        text("nationality"), decimal("annual_leave_balance"), decimal("sick_leave_balance"),
+                        decimal("ai_risk_score"))),
+
+        ATTENDANCE("attendance", "attendance t JOIN employees e ON e.id = t.employee_id JOIN branches b ON b.id = t.branch_id", true,
+                List.of(text("employee_code", "e.employee_id"), date("attendance_date")),
+                List.of(text("branch_code", "b.branch_id")),
+                List.of(timestamp("check_in_time"), timestamp("check_out_time"), timestamp("break_start_time"),
+                        timestamp("break_end_time"), decimal("total_working_hours"), decimal("total_break_hours"),
+                        decimal("overtime_hours"), text("status"), text("attendance_type"),
+                        integer("late_arrival_minutes"), integer("early_departure_minutes"), text("check_in_device_id"),
+                        text("check_out_device_id"), text("biometric_verification_method"),
+                        decimal("verification_score"), text("leave_type"), text("leave_reason"), text("approved_by"),
+                        decimal("check_in_latitude"), decimal("check_in_longitude"), decimal("check_out_latitude"),
+                        decimal("check_out_longitude"), decimal("ai_anomaly_score"), bool("is_flagged_for_review"),
+                        text("flag_reason"), bool("manual_override"), text("manual_override_by"),
+                        text("manual_override_reason"), text("notes"))),
+
+        PAYROLL_RECORDS("payroll_records", "payroll_records t JOIN employees e ON e.id = t.employee_id JOIN branches b ON b.id = t.branch_id", true,
+                List.of(text("employee_code", "e.employee_id"), date("payroll_month")),
+                List.of(text("branch_code", "b.branch_id")),
+                List.of(integer("working_days"), integer("present_days"), integer("absent_days"),
+                        integer("late_arrivals"), integer("early_departures"), decimal("overtime_hours"),
+                        decimal("base_salary"), decimal("allowances"), decimal("overtime_amount"), decimal("bonus"),
+                        decimal("commission"), decimal("gross_salary"), decimal("tax_deduction"),
+                        decimal("social_security_deduction"), decimal("health_insurance_deduction"),
+                        decimal("pension_deduction"), decimal("other_deductions"), decimal("total_deductions"),
+                        decimal("net_salary"), text("status"), date("payment_date"), text("payment_method"),
+                        text("bank_account_number"), text("bank_name"), text("reference_number"),
+                        bool("ai_calculated_ot"), decimal("anomaly_score"), bool("is_flagged"), text("flag_reason"),
+                        text("calculated_by"), timestamp("calculated_at"), text("approved_by"),
+                        timestamp("approved_at"), text("processed_by"), timestamp("processed_at"),
+                        text("calculation_notes")));
+
+        private final String table;
+
+        private final String from;
+
+        // The natural key starts with the employee code rather than the local employee_id
+        private final boolean keyedByEmployee;
+
+        private final List<SyncColumn> key;
+
+        private final List<SyncColumn> references;
+
+        private final List<SyncColumn> plain;
+
+        private final List<SyncColumn> columns;
+
+        SyncTable(String table, String from, boolean keyedByEmployee, List<SyncColumn> key, List<SyncColumn> references,
+                  List<SyncColumn> plain) {
+            this.table = table;
+            this.from = from;
+            this.keyedByEmployee = keyedByEmployee;
+            this.key = key;
+            this.references = references;
+            List<SyncColumn> all = new ArrayList<>(plain);
+            all.addAll(BASE_COLUMNS);
+            this.plain = List.copyOf(all);
+            List<SyncColumn> shipped = new ArrayList<>(key);
+            shipped.addAll(references);
+            shipped.addAll(this.plain);
+            this.columns = List.copyOf(shipped);
+        }
+
+        public List<String> getColumnNames() {
+            return columns.stream().map(column -> column.name).collect(Collectors.toList());
+        }
+
+        private String selectList() {
+            return columns.stream().map(column -> column.source + " AS " + column.name).collect(Collectors.joining(", "));
+        }
+
+        // Columns written from the shipped row: the local-keyed natural key (without the employee code) and the plain ones
+        private List<SyncColumn> written() {
+            List<SyncColumn> written = new ArrayList<>(keyedByEmployee ? key.subList(1, key.size()) : key);
+            written.addAll(plain);
+            return written;
+        }
+
+        private String insertSql(String tail) {
+            List<SyncColumn> written = written();
+            String targets = (keyedByEmployee ? "employee_id, " : "") + "branch_id, " +
+                    written.stream().map(column -> column.name).collect(Collectors.joining(", ")) + ", updated_at, created_at";
+            String values = (keyedByEmployee ? "e.id, " : "") + "b.id, " +
+                    written.stream().map(column -> "?").collect(Collectors.joining(", ")) + ", now(), now()";
+            String source = keyedByEmployee
+                    ? " FROM employees e JOIN branches b ON b.branch_id = ? WHERE e.employee_id = ?"
+                    : " FROM branches b WHERE b.branch_id = ?";
+            return "INSERT INTO " + table + " (" + targets + ") SELECT " + values + source + tail;
+        }
+
+        private String conflictUpdate() {
+            String conflictTarget = (keyedByEmployee ? "employee_id, " : "") + written().get(0).name;
+            String assignments = written().stream()
+                    .skip(1)
+                    .map(column -> column.name + " = EXCLUDED." + column.name)
+                    .collect(Collectors.joining(", "));
+            return " ON CONFLICT (" + conflictTarget + ") DO UPDATE SET " + assignments +
+                    ", branch_id = EXCLUDED.branch_id, updated_at = now() WHERE " + newer(table, "EXCLUDED");
+        }
+
+        private String notExists() {
+            return " AND NOT EXISTS (SELECT 1 FROM " + table + " p WHERE p.employee_id = e.id AND p." +
+                    written().get(0).name + " = ?)";
+        }
+
+        // The incoming row is bound once as x, cast to the columns' own types, so the version check and the
+        // tie-break read it exactly as they read EXCLUDED
+        private String updateSql(Map<String, String> columnTypes) {
+            String incoming = plain.stream().map(column -> "?::" + columnTypes.get(column.name) + " AS " + column.name)
+                    .collect(Collectors.joining(", "));
+            String assignments = plain.stream().map(column -> column.name + " = x." + column.name)
+                    .collect(Collectors.joining(", "));
+            String keyColumn = written().get(0).name;
+            return "UPDATE " + table + " t SET " + assignments + ", branch_id = b.id, updated_at = now() " +
+                    "FROM (SELECT " + incoming + ") x, employees e, branches b WHERE e.employee_id = ? " +
+                    "AND b.branch_id = ? AND t.employee_id = e.id AND t." + keyColumn + " = ? AND " + newer("t", "x");
+        }
+
+        // Whether the incoming row replaces the current one: a higher version, or the higher content hash on a tie
+        private String newer(String current, String incoming) {
+            return "(" + current + ".version IS NULL OR " + current + ".version < " + incoming + ".version OR (" +
+                    current + ".version = " + incoming + ".version AND " + contentHash(incoming) + " > " +
+                    contentHash(current) + "))";
+        }
+
+        // Hash of the shipped plain columns in their column types; a double cast to numeric would lose digits
+        private String contentHash(String alias) {
+            return "md5(ROW(" + plain.stream().map(column -> alias + "." + column.name)
+                    .collect(Collectors.joining(", ")) + ")::text)";
+        }
+
+        private void bindInsert(PreparedStatement ps, Object[] row) throws SQLException {
+            int index = 1;
+            for (SyncColumn column : written()) {
+                column.bind(ps, index++, row[columnIndex(column)]);
+            }
+            ps.setString(index++, (String) row[key.size()]);
+            if (keyedByEmployee) {
+                ps.setString(index, (String) row[0]);
+            }
+        }
+
+        private void bindInsertIfAbsent(PreparedStatement ps, Object[] row) throws SQLException {
+            bindInsert(ps, row);
+            // The NOT EXISTS month comes after the written columns, the branch code and the employee code
+            key.get(key.size() - 1).bind(ps, written().size() + 3, row[key.size() - 1]);
+        }
+
+        private void bindUpdate(PreparedStatement ps, Object[] row) throws SQLException {
+            int index = 1;
+            for (SyncColumn column : plain) {
+                column.bind(ps, index++, row[columnIndex(column)]);
+            }
+            ps.setString(index++, (String) row[0]);
+            ps.setString(index++, (String) row[key.size()]);
+            key.get(key.size() - 1).bind(ps, index, row[key.size() - 1]);
+        }
+
+        private int columnIndex(SyncColumn column) {
+            return columns.indexOf(column);
+        }
+    }
+
+    private static SyncColumn text(String name) {
+        return new SyncColumn(name, "t." + name, ColumnType.TEXT);
+    }
+
+    private static SyncColumn text(String name, String source) {
+        return new SyncColumn(name, source, ColumnType.TEXT);
+    }
+
+    private static SyncColumn integer(String name) {
+        return new SyncColumn(name, "t." + name, ColumnType.INTEGER);
+    }
+
+    private static SyncColumn bigint(String name) {
+        return new SyncColumn(name, "t." + name, ColumnType.BIGINT);
+    }
+
+    private static SyncColumn decimal(String name) {
+        return new SyncColumn(name, "t." + name, ColumnType.DECIMAL);
+    }
+
+    private static SyncColumn bool(String name) {
+        return new SyncColumn(name, "t." + name, ColumnType.BOOLEAN);
+    }
+
+    private static SyncColumn date(String name) {
+        return new SyncColumn(name, "t." + name, ColumnType.DATE);
+    }
+
+    private static SyncColumn timestamp(String name) {
+        return new SyncColumn(name, "t." + name, ColumnType.TIMESTAMP);
+    }
+
+    private enum ColumnType {
+        TEXT, INTEGER, BIGINT, DECIMAL, BOOLEAN, DATE, TIMESTAMP
+    }
+
+    /**
+     * A shipped column; values travel as JSON scalars (dates and timestamps as ISO-8601 text, decimals as text)
+     */
+    private static final class SyncColumn {
+
+        private final String name;
+
+        private final String source;
+
+        private final ColumnType type;
+
+        private SyncColumn(String name, String source, ColumnType type) {
+            this.name = name;
+            this.source = source;
+            this.type = type;
+        }
+
+        private Object read(ResultSet rs) throws SQLException {
+            switch (type) {
+                case INTEGER:
+                    int intValue = rs.getInt(name);
+                    return rs.wasNull() ? null : intValue;
+                case BIGINT:
+                    long longValue = rs.getLong(name);
+                    return rs.wasNull() ? null : longValue;
+                case DECIMAL:
+                    BigDecimal decimal = rs.getBigDecimal(name);
+                    return decimal != null ? decimal.toPlainString() : null;
+                case BOOLEAN:
+                    boolean boolValue = rs.getBoolean(name);
+                    return rs.wasNull() ? null : boolValue;
+                case DATE:
+                    Date date = rs.getDate(name);
+                    return date != null ? date.toLocalDate().toString() : null;
+                case TIMESTAMP:
+                    Timestamp timestamp = rs.getTimestamp(name);
+                    return timestamp != null ? timestamp.toLocalDateTime().toString() : null;
+                default:
+                    return rs.getString(name);
+            }
+        }
+
+        private void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            if (value == null) {
+                ps.setNull(index, sqlType());
+                return;
+            }
+            switch (type) {
+                case INTEGER:
+                    ps.setInt(index, ((Number) value).intValue());
+                    break;
+                case BIGINT:
+                    ps.setLong(index, ((Number) value).longValue());
+                    break;
+                case DECIMAL:
+                    ps.setBigDecimal(index, new BigDecimal(value.toString()));
+                    break;
+                case BOOLEAN:
+                    ps.setBoolean(index, (Boolean) value);
+                    break;
+                case DATE:
+                    ps.setDate(index, Date.valueOf(LocalDate.parse(value.toString())));
+                    break;
+                case TIMESTAMP:
+                    ps.setTimestamp(index, Timestamp.valueOf(LocalDateTime.parse(value.toString())));
+                    break;
+                default:
+                    ps.setString(index, value.toString());
+            }
+        }
+
+        private int sqlType() {
+            switch (type) {
+                case INTEGER:
+                    return Types.INTEGER;
+                case BIGINT:
+                    return Types.BIGINT;
+                case DECIMAL:
+                    return Types.NUMERIC;
+                case BOOLEAN:
+                    return Types.BOOLEAN;
+                case DATE:
+                    return Types.DATE;
+                case TIMESTAMP:
+                    return Types.TIMESTAMP;
+                default:
+                    return Types.VARCHAR;
+            }
+        }
+    }
+}
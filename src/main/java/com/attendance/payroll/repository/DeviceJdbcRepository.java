@@ -0,0 +1,38 @@
+package com.attendance.payroll.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JDBC access to the legacy branches.zkt_devices JSON column, which is no longer mapped on Branch
+ */
+@Repository
+public class DeviceJdbcRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Non-empty legacy device lists keyed by branch id, or nothing when the column does not exist
+     */
+    public Map<Long, String> findLegacyDeviceLists() {
+        Integer columns = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.columns " +
+                "WHERE table_name = 'branches' AND column_name = 'zkt_devices' AND table_schema = current_schema()",
+                Integer.class);
+        Map<Long, String> lists = new LinkedHashMap<>();
+        if (columns == null || columns == 0) {
+            return lists;
+        }
+        jdbcTemplate.query("SELECT id, zkt_devices::text FROM branches " +
+                        "WHERE zkt_devices IS NOT NULL AND zkt_devices::text NOT IN ('', '[]', 'null')",
+                rs -> {
+                    lists.put(rs.getLong(1), rs.getString(2));
+                });
+        return lists;
+    }
+}
@@ -0,0 +1,46 @@
+package com.attendance.payroll.repository;
+
+import com.attendance.payroll.entity.Device;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for Device entity
+ */
+@Repository
+public interface DeviceRepository extends JpaRepository<Device, Long> {
+
+    Optional<Device> findByDeviceIdAndIsActiveTrue(String deviceId);
+
+    Optional<Device> findBySerialNumberAndIsActiveTrue(String serialNumber);
+
+    List<Device> findByBranch_IdAndIsActiveTrue(Long branchId);
+
+    List<Device> findByStatusAndIsActiveTrue(Device.DeviceStatus status);
+
+    boolean existsByDeviceId(String deviceId);
+
+    @Query("SELECT d FROM Device d WHERE d.isActive = true AND d.deletedAt IS NULL " +
+           "AND d.branch.isActive = true AND d.branch.status = 'ACTIVE'")
+    List<Device> findRegisteredDevices();
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Device d SET d.status = :status, d.statusChangedAt = :changedAt WHERE d.deviceId = :deviceId")
+    int updateStatus(@Param("deviceId") String deviceId, @Param("status") Device.DeviceStatus status,
+                     @Param("changedAt") LocalDateTime changedAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Device d SET d.lastPunchAt = :lastPunchAt WHERE d.deviceId = :deviceId " +
+           "AND (d.lastPunchAt IS NULL OR d.lastPunchAt < :lastPunchAt)")
+    int advanceLastPunchAt(@Param("deviceId") String deviceId, @Param("lastPunchAt") LocalDateTime lastPunchAt);
+}
@@ -1,5 +1,8 @@
 package com.attendance.payroll.repository;
 
+import com.attendance.payroll.dto.EmployeePunchProfile;
+import com.attendance.payroll.dto.EmployeeSearchDocument;
+import com.attendance.payroll.dto.EmployeeWorkingDay;
 import com.attendance.payroll.entity.Employee;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -9,6 +12,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +24,8 @@ public interface EmployeeRepository extends JpaRepository<Employee, Long> {
 
     Optional<Employee> findByEmployeeIdAndIsActiveTrue(String employeeId);
 
+    Optional<Employee> findByEmployeeId(String employeeId);
+
     Optional<Employee> findByEmailAndIsActiveTrue(String email);
 
     List<Employee> findByBranchIdAndIsActiveTrue(Long branchId);
@@ -64,4 +70,17 @@ public interface EmployeeRepository extends JpaRepository<Employee, Long> {
 
     @Query("SELECT COUNT(e) FROM Employee e WHERE e.department = :department AND e.status = 'ACTIVE'")
     long countByDepartment(@Param("department") Employee.Department department);
-}
\ No newline at end of file
+
+    @Query("SELECT e.id AS id, e.employeeId AS employeeId, b.id AS branchId, " +
+           "e.shiftStartTime AS shiftStartTime, e.shiftEndTime AS shiftEndTime, " +
+           "b.workingHoursStart AS branchWorkingHoursStart, b.workingHoursEnd AS branchWorkingHoursEnd " +
+           "FROM Employee e LEFT JOIN e.branch b WHERE e.employeeId IN :employeeIds AND e.isActive = true")
+    List<EmployeePunchProfile> findPunchProfilesByEmployeeIds(@Param("employeeIds") Collection<String> employeeIds);
+
+    @Query("SELECT e.id AS employeeId, d AS workingDay FROM Employee e JOIN e.workingDays d WHERE e.id IN :ids")
+    List<EmployeeWorkingDay> findWorkingDaysByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT e.id AS id, e.firstName AS firstName, e.lastName AS lastName, e.email AS email, " +
+           "e.employeeId AS employeeId FROM Employee e WHERE e.isActive = true")
+    List<EmployeeSearchDocument> findSearchDocuments();
+}
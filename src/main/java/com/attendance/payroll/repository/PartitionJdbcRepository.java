@@ -0,0 +1,70 @@
+package com.attendance.payroll.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * JDBC access to the monthly partitions of attendance and payroll_records
+ * Partitions are named {@code <table>_pYYYYMM}, as created by the create_monthly_partition function (migration V1)
+ */
+@Repository
+public class PartitionJdbcRepository {
+
+    private static final Pattern MONTHLY_PARTITION = Pattern.compile(".+_p(\\d{4})(\\d{2})");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public boolean isPartitioned(String table) {
+        Boolean partitioned = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass(?))", Boolean.class, table);
+        return Boolean.TRUE.equals(partitioned);
+    }
+
+    /**
+     * Create the partition holding the given month if it does not exist yet
+     *
+     * @return the partition name
+     */
+    public String createMonthlyPartition(String table, LocalDate month) {
+        return jdbcTemplate.queryForObject("SELECT create_monthly_partition(?, ?)", String.class,
+                table, Date.valueOf(month.withDayOfMonth(1)));
+    }
+
+    /**
+     * Attached monthly partitions of a table keyed by their first day, oldest first
+     */
+    public Map<LocalDate, String> findMonthlyPartitions(String table) {
+        List<String> names = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = to_regclass(?)", String.class, table);
+        Map<LocalDate, String> partitions = new TreeMap<>();
+        for (String name : names) {
+            Matcher matcher = MONTHLY_PARTITION.matcher(name);
+            if (matcher.matches()) {
+                partitions.put(LocalDate.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)), 1), name);
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * Detach a partition; the detached table keeps its rows and can be archived or dropped separately
+     */
+    public void detachPartition(String table, String partition) {
+        jdbcTemplate.execute("ALTER TABLE " + quote(table) + " DETACH PARTITION " + quote(partition));
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
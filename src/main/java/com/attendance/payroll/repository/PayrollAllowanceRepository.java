@@ -1,11 +1,13 @@
 package com.attendance.payroll.repository;
 
 import com.attendance.payroll.entity.PayrollAllowance;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -16,6 +18,9 @@ public interface PayrollAllowanceRepository extends JpaRepository<PayrollAllowan
 
     List<PayrollAllowance> findByPayrollRecordId(Long payrollRecordId);
 
+    @Query("SELECT pa FROM PayrollAllowance pa WHERE pa.payrollRecord.id IN :payrollRecordIds ORDER BY pa.id")
+    List<PayrollAllowance> findByPayrollRecordIdIn(@Param("payrollRecordIds") Collection<Long> payrollRecordIds);
+
     @Query("SELECT pa FROM PayrollAllowance pa WHERE pa.payrollRecord.employee.id = :employeeId AND pa.payrollRecord.payrollMonth BETWEEN :startDate AND :endDate")
     List<PayrollAllowance> findByEmployeeAndDateRange(@Param("employeeId") Long employeeId,
                                                     @Param("startDate") java.time.LocalDate startDate,
@@ -26,6 +31,7 @@ public interface PayrollAllowanceRepository extends JpaRepository<PayrollAllowan
 
     List<PayrollAllowance> findByAllowanceType(PayrollAllowance.AllowanceType allowanceType);
 
+    @EntityGraph(attributePaths = {"payrollRecord", "payrollRecord.employee"})
     @Query("SELECT pa FROM PayrollAllowance pa WHERE pa.payrollRecord.branch.id = :branchId AND pa.payrollRecord.payrollMonth = :payrollMonth")
     List<PayrollAllowance> findByBranchAndMonth(@Param("branchId") Long branchId, @Param("payrollMonth") java.time.LocalDate payrollMonth);
 }
\ No newline at end of file
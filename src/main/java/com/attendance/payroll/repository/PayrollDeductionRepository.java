@@ -1,12 +1,20 @@
 package com.attendance.payroll.repository;
 
 import com.attendance.payroll.entity.PayrollDeduction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for PayrollDeduction entity
@@ -16,6 +24,9 @@ public interface PayrollDeductionRepository extends JpaRepository<PayrollDeducti
 
     List<PayrollDeduction> findByPayrollRecordId(Long payrollRecordId);
 
+    @Query("SELECT pd FROM PayrollDeduction pd WHERE pd.payrollRecord.id IN :payrollRecordIds ORDER BY pd.id")
+    List<PayrollDeduction> findByPayrollRecordIdIn(@Param("payrollRecordIds") Collection<Long> payrollRecordIds);
+
     @Query("SELECT pd FROM PayrollDeduction pd WHERE pd.payrollRecord.employee.id = :employeeId AND pd.payrollRecord.payrollMonth BETWEEN :startDate AND :endDate")
     List<PayrollDeduction> findByEmployeeAndDateRange(@Param("employeeId") Long employeeId,
                                                     @Param("startDate") java.time.LocalDate startDate,
@@ -26,9 +37,33 @@ public interface PayrollDeductionRepository extends JpaRepository<PayrollDeducti
 
     List<PayrollDeduction> findByDeductionType(PayrollDeduction.DeductionType deductionType);
 
+    @EntityGraph(attributePaths = {"payrollRecord", "payrollRecord.employee"})
     @Query("SELECT pd FROM PayrollDeduction pd WHERE pd.payrollRecord.branch.id = :branchId AND pd.payrollRecord.payrollMonth = :payrollMonth")
     List<PayrollDeduction> findByBranchAndMonth(@Param("branchId") Long branchId, @Param("payrollMonth") java.time.LocalDate payrollMonth);
 
+    @EntityGraph(attributePaths = {"payrollRecord", "payrollRecord.employee"})
     @Query("SELECT pd FROM PayrollDeduction pd WHERE pd.payrollRecord.status = 'PROCESSED' AND pd.payrollRecord.payrollMonth = :payrollMonth")
     List<PayrollDeduction> findProcessedDeductionsByMonth(@Param("payrollMonth") java.time.LocalDate payrollMonth);
+
+    /**
+     * Streaming variant of {@link #findProcessedDeductionsByMonth}; must be consumed inside a read-only transaction and closed
+     * The payroll record and employee are not fetched, so each cursor row stays one deduction row
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + StreamingQueries.FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT pd FROM PayrollDeduction pd WHERE pd.payrollRecord.status = 'PROCESSED' AND pd.payrollRecord.payrollMonth = :payrollMonth " +
+           "ORDER BY pd.id")
+    Stream<PayrollDeduction> streamProcessedDeductionsByMonth(@Param("payrollMonth") java.time.LocalDate payrollMonth);
+
+    /**
+     * Keyset-paginated variant of {@link #findProcessedDeductionsByMonth}; the month is fixed, so the key is the id
+     */
+    @Query("SELECT pd FROM PayrollDeduction pd WHERE pd.payrollRecord.status = 'PROCESSED' AND pd.payrollRecord.payrollMonth = :payrollMonth " +
+           "AND pd.id > :afterId ORDER BY pd.id")
+    Slice<PayrollDeduction> findSliceOfProcessedDeductionsByMonthAfter(@Param("payrollMonth") java.time.LocalDate payrollMonth,
+                                                                       @Param("afterId") Long afterId,
+                                                                       Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,135 @@
+package com.attendance.payroll.repository;
+
+import com.attendance.payroll.dto.OvertimeAdjustment;
+import com.attendance.payroll.entity.PayrollRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JDBC access for bulk payroll writes
+ * PayrollRecord uses IDENTITY ids, which disables Hibernate insert batching, so bulk runs write through here
+ */
+@Repository
+public class PayrollRecordJdbcRepository {
+
+    private static final String PENDING_RECORDS =
+            "SELECT id FROM payroll_records WHERE branch_id = ? AND payroll_month = ? AND status IN ('DRAFT', 'CALCULATED')";
+
+    private static final String INSERT_RECORD = "INSERT INTO payroll_records (" +
+            "employee_id, branch_id, payroll_month, working_days, present_days, absent_days, late_arrivals, " +
+            "early_departures, overtime_hours, base_salary, allowances, overtime_amount, bonus, commission, " +
+            "gross_salary, tax_deduction, social_security_deduction, health_insurance_deduction, pension_deduction, " +
+            "other_deductions, total_deductions, net_salary, status, payment_method, bank_account_number, bank_name, " +
+            "ai_calculated_ot, anomaly_score, is_flagged, flag_reason, calculated_by, calculated_at, created_at, " +
+            "updated_at, is_active, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, " +
+            "now(), now(), ?, 0)";
+
+    private static final String PENDING_OVERTIME_HOURS = "GREATEST(0, overtime_hours + ?)";
+
+    // Overtime pay follows the hours at the record's own rate; a flat amount on a record without hours is kept
+    private static final String PENDING_OVERTIME_AMOUNT = "CASE WHEN overtime_hours > 0 " +
+            "THEN round(overtime_amount * " + PENDING_OVERTIME_HOURS + " / overtime_hours, 2) ELSE overtime_amount END";
+
+    private static final String PENDING_GROSS_SALARY =
+            "base_salary + allowances + " + PENDING_OVERTIME_AMOUNT + " + bonus + commission";
+
+    // Every expression reads the row as it was, so the delta is bound once per use
+    private static final String ADD_PENDING_OVERTIME = "UPDATE payroll_records SET " +
+            "overtime_hours = " + PENDING_OVERTIME_HOURS + ", " +
+            "overtime_amount = " + PENDING_OVERTIME_AMOUNT + ", " +
+            "gross_salary = " + PENDING_GROSS_SALARY + ", " +
+            "net_salary = " + PENDING_GROSS_SALARY + " - total_deductions, updated_at = now(), " +
+            "version = COALESCE(version, 0) + 1 " +
+            "WHERE employee_id = ? AND payroll_month = ? AND status IN ('DRAFT', 'CALCULATED')";
+
+    private static final int PENDING_OVERTIME_DELTAS = 4;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Remove DRAFT and CALCULATED records (and their children) for a branch-month so a run can be repeated
+     */
+    public int deletePendingByBranchAndMonth(Long branchId, LocalDate payrollMonth) {
+        Date month = Date.valueOf(payrollMonth);
+        jdbcTemplate.update("DELETE FROM payroll_allowances WHERE payroll_record_id IN (" + PENDING_RECORDS + ")",
+                branchId, month);
+        jdbcTemplate.update("DELETE FROM payroll_deductions WHERE payroll_record_id IN (" + PENDING_RECORDS + ")",
+                branchId, month);
+        return jdbcTemplate.update(
+                "DELETE FROM payroll_records WHERE branch_id = ? AND payroll_month = ? AND status IN ('DRAFT', 'CALCULATED')",
+                branchId, month);
+    }
+
+    /**
+     * Insert records in JDBC batches of the given size
+     */
+    public void batchInsert(List<PayrollRecord> records, int batchSize) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_RECORD, records, batchSize, (ps, record) -> {
+            ps.setLong(1, record.getEmployee().getId());
+            ps.setLong(2, record.getBranch().getId());
+            ps.setDate(3, Date.valueOf(record.getPayrollMonth()));
+            ps.setInt(4, record.getWorkingDays());
+            ps.setInt(5, record.getPresentDays());
+            ps.setInt(6, record.getAbsentDays());
+            ps.setInt(7, record.getLateArrivals());
+            ps.setInt(8, record.getEarlyDepartures());
+            ps.setBigDecimal(9, record.getOvertimeHours());
+            ps.setBigDecimal(10, record.getBaseSalary());
+            ps.setBigDecimal(11, record.getAllowances());
+            ps.setBigDecimal(12, record.getOvertimeAmount());
+            ps.setBigDecimal(13, record.getBonus());
+            ps.setBigDecimal(14, record.getCommission());
+            ps.setBigDecimal(15, record.getGrossSalary());
+            ps.setBigDecimal(16, record.getTaxDeduction());
+            ps.setBigDecimal(17, record.getSocialSecurityDeduction());
+            ps.setBigDecimal(18, record.getHealthInsuranceDeduction());
+            ps.setBigDecimal(19, record.getPensionDeduction());
+            ps.setBigDecimal(20, record.getOtherDeductions());
+            ps.setBigDecimal(21, record.getTotalDeductions());
+            ps.setBigDecimal(22, record.getNetSalary());
+            ps.setString(23, record.getStatus().name());
+            ps.setString(24, record.getPaymentMethod() != null ? record.getPaymentMethod().name() : null);
+            ps.setString(25, record.getBankAccountNumber());
+            ps.setString(26, record.getBankName());
+            ps.setBoolean(27, Boolean.TRUE.equals(record.getAiCalculatedOvertime()));
+            ps.setDouble(28, record.getAnomalyScore() != null ? record.getAnomalyScore() : 0.0);
+            ps.setBoolean(29, Boolean.TRUE.equals(record.getIsFlagged()));
+            ps.setString(30, record.getFlagReason());
+            ps.setString(31, record.getCalculatedBy());
+            ps.setTimestamp(32, record.getCalculatedAt() != null ? Timestamp.valueOf(record.getCalculatedAt()) : now);
+            ps.setBoolean(33, true);
+        });
+    }
+
+    /**
+     * Apply overtime changes to records not yet reviewed; later statuses are left to a re-run
+     * Overtime amount, gross and net salary move with the hours, so the totals stay those of
+     * {@link com.attendance.payroll.util.PayrollCalculator#applyTotals}
+     */
+    public void addPendingOvertimeHours(List<OvertimeAdjustment> adjustments) {
+        if (adjustments.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(ADD_PENDING_OVERTIME, adjustments, adjustments.size(), (ps, adjustment) -> {
+            BigDecimal hours = BigDecimal.valueOf(adjustment.getHours()).setScale(2, RoundingMode.HALF_UP);
+            int index = 1;
+            for (int i = 0; i < PENDING_OVERTIME_DELTAS; i++) {
+                ps.setBigDecimal(index++, hours);
+            }
+            ps.setLong(index++, adjustment.getEmployeeId());
+            ps.setDate(index, Date.valueOf(adjustment.getPayrollMonth()));
+        });
+    }
+}
@@ -1,16 +1,24 @@
 package com.attendance.payroll.repository;
 
+import com.attendance.payroll.dto.BankTransferLine;
+import com.attendance.payroll.dto.PayrollListRow;
 import com.attendance.payroll.entity.PayrollRecord;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for PayrollRecord entity
@@ -18,8 +26,15 @@ import java.util.Optional;
 @Repository
 public interface PayrollRepository extends JpaRepository<PayrollRecord, Long> {
 
+    String PAYROLL_LIST_ROW = "SELECT p.id AS id, p.payrollMonth AS payrollMonth, e.id AS employeeId, " +
+            "e.employeeId AS employeeCode, e.firstName AS firstName, e.lastName AS lastName, b.id AS branchId, " +
+            "b.branchId AS branchCode, b.name AS branchName, p.grossSalary AS grossSalary, " +
+            "p.totalDeductions AS totalDeductions, p.netSalary AS netSalary, p.status AS status, p.isFlagged AS flagged " +
+            "FROM PayrollRecord p JOIN p.employee e JOIN p.branch b ";
+
     Optional<PayrollRecord> findByEmployeeIdAndPayrollMonth(Long employeeId, LocalDate payrollMonth);
 
+    @EntityGraph("PayrollRecord.employeeAndBranch")
     @Query("SELECT p FROM PayrollRecord p WHERE p.employee.id = :employeeId AND p.payrollMonth BETWEEN :startDate AND :endDate ORDER BY p.payrollMonth DESC")
     List<PayrollRecord> findByEmployeeAndDateRange(@Param("employeeId") Long employeeId, 
                                                  @Param("startDate") LocalDate startDate, 
@@ -28,18 +43,119 @@ public interface PayrollRepository extends JpaRepository<PayrollRecord, Long> {
     @Query("SELECT p FROM PayrollRecord p WHERE p.branch.id = :branchId AND p.payrollMonth = :payrollMonth")
     List<PayrollRecord> findByBranchAndMonth(@Param("branchId") Long branchId, @Param("payrollMonth") LocalDate payrollMonth);
 
+    @EntityGraph("PayrollRecord.employeeAndBranch")
     @Query("SELECT p FROM PayrollRecord p WHERE p.payrollMonth BETWEEN :startDate AND :endDate ORDER BY p.payrollMonth DESC, p.employee.firstName")
     List<PayrollRecord> findByDateRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
 
+    /**
+     * Streaming variant of {@link #findByDateRange}; must be consumed inside a read-only transaction and closed
+     * Employee and branch are not fetched: joining them would widen every cursor row, so they load lazily if touched
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + StreamingQueries.FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT p FROM PayrollRecord p WHERE p.payrollMonth BETWEEN :startDate AND :endDate ORDER BY p.payrollMonth, p.id")
+    Stream<PayrollRecord> streamByDateRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * Approved records of a month paid by bank transfer, ordered by branch, for the bank file export
+     * Streams projections, so nothing is managed by the persistence context; consume inside a read-only
+     * transaction and close
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + StreamingQueries.FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT p.id AS id, b.id AS branchId, b.branchId AS branchCode, e.employeeId AS employeeCode, " +
+           "e.firstName AS firstName, e.lastName AS lastName, p.bankAccountNumber AS bankAccountNumber, " +
+           "p.bankName AS bankName, p.netSalary AS netSalary " +
+           "FROM PayrollRecord p JOIN p.employee e JOIN p.branch b " +
+           "WHERE p.payrollMonth = :payrollMonth AND p.status = 'APPROVED' AND p.paymentMethod = 'BANK_TRANSFER' " +
+           "ORDER BY b.id, p.id")
+    Stream<BankTransferLine> streamApprovedBankTransfers(@Param("payrollMonth") LocalDate payrollMonth);
+
+    /**
+     * Keyset-paginated variant of {@link #findByDateRange}, ordered by (payrollMonth, id)
+     * Pass the month and id of the last row of the previous slice, or use {@link #findFirstSliceByDateRange}
+     * Like the stream, the slice leaves employee and branch lazy
+     */
+    @Query("SELECT p FROM PayrollRecord p WHERE p.payrollMonth BETWEEN :startDate AND :endDate AND " +
+           "(p.payrollMonth > :afterMonth OR (p.payrollMonth = :afterMonth AND p.id > :afterId)) " +
+           "ORDER BY p.payrollMonth, p.id")
+    Slice<PayrollRecord> findSliceByDateRangeAfter(@Param("startDate") LocalDate startDate,
+                                                   @Param("endDate") LocalDate endDate,
+                                                   @Param("afterMonth") LocalDate afterMonth,
+                                                   @Param("afterId") Long afterId,
+                                                   Pageable pageable);
+
+    default Slice<PayrollRecord> findFirstSliceByDateRange(LocalDate startDate, LocalDate endDate, int size) {
+        return findSliceByDateRangeAfter(startDate, endDate, startDate, 0L, Pageable.ofSize(size));
+    }
+
+    /**
+     * Keyset-paginated records of one branch-month in the given statuses, ordered by id, with the employee fetched
+     * Pass the id of the last row of the previous slice, or 0 for the first slice
+     */
+    @Query("SELECT p FROM PayrollRecord p JOIN FETCH p.employee WHERE p.branch.id = :branchId AND p.payrollMonth = :payrollMonth " +
+           "AND p.status IN :statuses AND p.id > :afterId ORDER BY p.id")
+    Slice<PayrollRecord> findSliceByBranchAndMonthAfter(@Param("branchId") Long branchId,
+                                                        @Param("payrollMonth") LocalDate payrollMonth,
+                                                        @Param("statuses") List<PayrollRecord.PayrollStatus> statuses,
+                                                        @Param("afterId") Long afterId,
+                                                        Pageable pageable);
+
+    @EntityGraph("PayrollRecord.employeeAndBranch")
     @Query("SELECT p FROM PayrollRecord p WHERE p.status = :status AND p.payrollMonth = :payrollMonth")
     List<PayrollRecord> findByStatusAndMonth(@Param("status") PayrollRecord.PayrollStatus status, @Param("payrollMonth") LocalDate payrollMonth);
 
     @Query("SELECT p FROM PayrollRecord p WHERE p.employee.id = :employeeId AND p.status IN :statuses")
     List<PayrollRecord> findByEmployeeAndStatuses(@Param("employeeId") Long employeeId, @Param("statuses") List<PayrollRecord.PayrollStatus> statuses);
 
+    @EntityGraph("PayrollRecord.employeeAndBranch")
     @Query("SELECT p FROM PayrollRecord p WHERE p.isFlagged = true AND p.isActive = true")
     List<PayrollRecord> findFlaggedPayroll();
 
+    // Partition-pruned variants: bounding the payroll month lets PostgreSQL skip every other monthly partition
+
+    @Query("SELECT p FROM PayrollRecord p WHERE p.id = :id AND p.payrollMonth = :payrollMonth")
+    Optional<PayrollRecord> findByIdAndPayrollMonth(@Param("id") Long id, @Param("payrollMonth") LocalDate payrollMonth);
+
+    /**
+     * Detail view of a record: employee, branch and allowances in one query, deductions in a second
+     */
+    @EntityGraph("PayrollRecord.detail")
+    @Query("SELECT p FROM PayrollRecord p WHERE p.id = :id AND p.payrollMonth = :payrollMonth")
+    Optional<PayrollRecord> findDetailByIdAndPayrollMonth(@Param("id") Long id, @Param("payrollMonth") LocalDate payrollMonth);
+
+    /**
+     * List-screen rows of a branch-month: one query with the employee and branch columns joined in
+     */
+    @Query(PAYROLL_LIST_ROW + "WHERE p.branch.id = :branchId AND p.payrollMonth = :payrollMonth ORDER BY e.firstName, e.lastName")
+    List<PayrollListRow> findListRowsByBranchAndMonth(@Param("branchId") Long branchId,
+                                                      @Param("payrollMonth") LocalDate payrollMonth);
+
+    @Query(PAYROLL_LIST_ROW + "WHERE p.status = :status AND p.payrollMonth = :payrollMonth ORDER BY b.id, e.firstName, e.lastName")
+    List<PayrollListRow> findListRowsByStatusAndMonth(@Param("status") PayrollRecord.PayrollStatus status,
+                                                      @Param("payrollMonth") LocalDate payrollMonth);
+
+    @Query("SELECT p FROM PayrollRecord p WHERE p.employee.id = :employeeId AND p.payrollMonth >= :sinceMonth " +
+           "ORDER BY p.payrollMonth DESC")
+    List<PayrollRecord> findByEmployeeSince(@Param("employeeId") Long employeeId, @Param("sinceMonth") LocalDate sinceMonth);
+
+    @Query("SELECT p FROM PayrollRecord p WHERE p.employee.id = :employeeId AND p.status IN :statuses " +
+           "AND p.payrollMonth >= :sinceMonth")
+    List<PayrollRecord> findByEmployeeAndStatusesSince(@Param("employeeId") Long employeeId,
+                                                       @Param("statuses") List<PayrollRecord.PayrollStatus> statuses,
+                                                       @Param("sinceMonth") LocalDate sinceMonth);
+
+    @EntityGraph("PayrollRecord.employeeAndBranch")
+    @Query("SELECT p FROM PayrollRecord p WHERE p.isFlagged = true AND p.isActive = true AND p.payrollMonth >= :sinceMonth")
+    List<PayrollRecord> findFlaggedPayrollSince(@Param("sinceMonth") LocalDate sinceMonth);
+
+    @EntityGraph("PayrollRecord.employeeAndBranch")
     @Query("SELECT p FROM PayrollRecord p WHERE p.branch.id = :branchId AND p.status = :status AND p.payrollMonth = :payrollMonth")
     List<PayrollRecord> findByBranchAndStatusAndMonth(@Param("branchId") Long branchId, 
                                                     @Param("status") PayrollRecord.PayrollStatus status, 
@@ -61,6 +177,11 @@ public interface PayrollRepository extends JpaRepository<PayrollRecord, Long> {
     @Query("SELECT p FROM PayrollRecord p WHERE p.employee.id = :employeeId ORDER BY p.payrollMonth DESC")
     List<PayrollRecord> findByEmployeeOrderByMonthDesc(@Param("employeeId") Long employeeId);
 
+    @Query("SELECT p.employee.id FROM PayrollRecord p WHERE p.branch.id = :branchId AND p.payrollMonth = :payrollMonth AND p.status NOT IN :statuses")
+    List<Long> findEmployeeIdsByBranchAndMonthAndStatusNotIn(@Param("branchId") Long branchId,
+                                                            @Param("payrollMonth") LocalDate payrollMonth,
+                                                            @Param("statuses") List<PayrollRecord.PayrollStatus> statuses);
+
     @Query("SELECT p FROM PayrollRecord p WHERE p.payrollMonth = :payrollMonth AND p.branch.id = :branchId AND p.status IN :reviewStatuses")
     List<PayrollRecord> findPendingReviewPayroll(@Param("payrollMonth") LocalDate payrollMonth, 
                                                @Param("branchId") Long branchId, 
@@ -0,0 +1,32 @@
+package com.attendance.payroll.repository;
+
+import com.attendance.payroll.entity.PayrollRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for PayrollRun entity
+ */
+@Repository
+public interface PayrollRunRepository extends JpaRepository<PayrollRun, Long> {
+
+    Optional<PayrollRun> findByBranchIdAndPayrollMonth(Long branchId, LocalDate payrollMonth);
+
+    @Query("SELECT r FROM PayrollRun r JOIN FETCH r.branch WHERE r.payrollMonth = :payrollMonth ORDER BY r.branch.name")
+    List<PayrollRun> findByPayrollMonth(@Param("payrollMonth") LocalDate payrollMonth);
+
+    @Modifying
+    @Query("UPDATE PayrollRun r SET r.totalEmployees = :totalEmployees, r.skippedEmployees = :skippedEmployees, " +
+           "r.processedEmployees = :processedEmployees WHERE r.id = :id")
+    int updateProgress(@Param("id") Long id,
+                       @Param("totalEmployees") int totalEmployees,
+                       @Param("skippedEmployees") int skippedEmployees,
+                       @Param("processedEmployees") int processedEmployees);
+}
@@ -0,0 +1,43 @@
+package com.attendance.payroll.repository;
+
+import jakarta.persistence.EntityManager;
+
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Support for the streaming repository variants
+ *
+ * Stream-returning queries are read through a server-side cursor of {@link #FETCH_SIZE} rows. To keep memory
+ * constant the persistence context must not grow with the stream, so consumers should go through
+ * {@link #forEachDetached}, which detaches each entity once it has been handled.
+ */
+public final class StreamingQueries {
+
+    public static final int FETCH_SIZE = 500;
+
+    private StreamingQueries() {
+    }
+
+    /**
+     * Consume and close a repository stream, detaching each entity after the action has run
+     * The persistence context is cleared every {@link #FETCH_SIZE} rows so lazily loaded associations go too
+     */
+    public static <T> long forEachDetached(Stream<T> stream, EntityManager entityManager, Consumer<? super T> action) {
+        long count = 0;
+        try (stream) {
+            Iterator<T> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                T entity = iterator.next();
+                action.accept(entity);
+                if (++count % FETCH_SIZE == 0) {
+                    entityManager.clear();
+                } else {
+                    entityManager.detach(entity);
+                }
+            }
+        }
+        return count;
+    }
+}
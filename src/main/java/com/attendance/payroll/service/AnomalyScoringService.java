@@ -0,0 +1,107 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.dto.UpsertedAttendance;
+import com.attendance.payroll.repository.AnomalyProfileJdbcRepository;
+import com.attendance.payroll.util.AnomalyProfile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Scores attendance rows for anomalies as they are ingested
+ *
+ * Every employee has an {@link AnomalyProfile} of running statistics, so scoring a row is a constant amount of
+ * work and never reads attendance history. Profiles are cached in memory and loaded from
+ * employee_anomaly_profiles on first use. Scoring runs on copies that are persisted inside the caller's
+ * transaction; the caller hands them back to {@link #commit} once that transaction has committed, so a
+ * rolled-back and retried batch is not counted twice. Rows scoring at least {@code app.ai.anomaly-threshold}
+ * are flagged for review, and each employee's risk score is kept on employees.ai_risk_score.
+ */
+@Service
+@Slf4j
+public class AnomalyScoringService {
+
+    @Autowired
+    private AnomalyProfileJdbcRepository profileJdbcRepository;
+
+    @Value("${app.ai.scoring-enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.ai.anomaly-threshold:0.8}")
+    private double anomalyThreshold;
+
+    @Value("${app.ai.prediction-window-days:30}")
+    private int windowDays;
+
+    @Value("${app.ai.min-observations:10}")
+    private int minObservations;
+
+    private final Map<Long, AnomalyProfile> profiles = new ConcurrentHashMap<>();
+
+    /**
+     * Score and flag the rows, then persist the updated profiles in the current transaction
+     *
+     * @return the updated profiles, to pass to {@link #commit} after the transaction commits
+     */
+    public Map<Long, AnomalyProfile> score(List<UpsertedAttendance> rows) {
+        if (!enabled || rows.isEmpty()) {
+            return Map.of();
+        }
+
+        Set<Long> missing = new HashSet<>();
+        for (UpsertedAttendance row : rows) {
+            if (!profiles.containsKey(row.getEmployeeId())) {
+                missing.add(row.getEmployeeId());
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<Long, byte[]> states = profileJdbcRepository.findStates(missing);
+            for (Long employeeId : missing) {
+                profiles.putIfAbsent(employeeId, AnomalyProfile.decode(states.get(employeeId)));
+            }
+        }
+
+        // Days must reach a profile in order for its statistics to be meaningful
+        List<UpsertedAttendance> ordered = new ArrayList<>(rows);
+        ordered.sort(Comparator.comparing(UpsertedAttendance::getAttendanceDate));
+
+        Map<Long, AnomalyProfile> updated = new HashMap<>();
+        for (UpsertedAttendance row : ordered) {
+            AnomalyProfile profile = updated.computeIfAbsent(row.getEmployeeId(), id -> profiles.get(id).copy());
+            AnomalyProfile.Score score = profile.observe(row.getAttendanceDate(), row.getCheckInTime(),
+                    row.getCheckOutTime(), row.getTotalWorkingHours(), windowDays, minObservations);
+            row.setAiAnomalyScore(score.getValue());
+            if (score.getValue() >= anomalyThreshold) {
+                row.setFlaggedForReview(true);
+                row.setFlagReason(score.getReason());
+                log.debug("Attendance {} of employee {} flagged: {} (score {})",
+                        row.getId(), row.getEmployeeId(), score.getReason(), score.getValue());
+            }
+        }
+
+        profileJdbcRepository.upsertStates(updated);
+        profileJdbcRepository.updateRiskScores(updated);
+        return updated;
+    }
+
+    /**
+     * Make profiles returned by {@link #score} the cached state
+     */
+    public void commit(Map<Long, AnomalyProfile> updated) {
+        profiles.putAll(updated);
+    }
+
+    public int getCachedProfileCount() {
+        return profiles.size();
+    }
+}
@@ -0,0 +1,166 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.dto.BankFileTotals;
+import com.attendance.payroll.dto.BankTransferLine;
+import com.attendance.payroll.repository.PayrollRepository;
+import com.attendance.payroll.util.BankFileWriter;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Monthly bank transfer files for approved payroll records paid by bank transfer
+ *
+ * Records are read as projections through a server-side cursor and written straight to the output channel,
+ * so heap use stays flat however many records the month has. Control totals and the checksum are computed
+ * in the same pass. Records come ordered by branch, which lets the per-branch export switch files as the
+ * branch changes instead of running one query per branch. Branch files are written to temporary files next to
+ * their targets, synced, and renamed into place only once every branch was written, so a failed export never
+ * leaves a truncated file, or a mix of this month's and a previous export's files, for the bank upload to pick up.
+ */
+@Service
+@Slf4j
+public class BankFileExportService {
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    @Autowired
+    private PayrollRepository payrollRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.payroll.bank-file.originator:ATTENDANCE-PAYROLL}")
+    private String originator;
+
+    private TransactionTemplate readOnlyTemplate;
+
+    @PostConstruct
+    void init() {
+        readOnlyTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Write the month's bank file for all branches to the channel, which is left open
+     */
+    public BankFileTotals export(LocalDate payrollMonth, BankFileWriter.Format format, WritableByteChannel channel) {
+        LocalDate month = payrollMonth.withDayOfMonth(1);
+        BankFileTotals totals = readOnlyTemplate.execute(status -> {
+            BankFileWriter writer = new BankFileWriter(channel, format, originator, month, null);
+            try (Stream<BankTransferLine> lines = payrollRepository.streamApprovedBankTransfers(month)) {
+                lines.forEach(writer::write);
+            }
+            return writer.finish();
+        });
+        log.info("Exported bank file for {}: {} transfers, total {}", month, totals.getRecordCount(), totals.getTotalAmount());
+        return totals;
+    }
+
+    /**
+     * Write one bank file per branch into the directory, named bank-transfers-yyyyMM-BRANCH.csv (or .txt)
+     */
+    public List<BankFileTotals> exportPerBranch(LocalDate payrollMonth, BankFileWriter.Format format, Path directory) {
+        LocalDate month = payrollMonth.withDayOfMonth(1);
+        Map<Path, Path> pending = new LinkedHashMap<>();
+        try {
+            List<BankFileTotals> files = readOnlyTemplate.execute(status -> {
+                List<BankFileTotals> written = new ArrayList<>();
+                FileChannel channel = null;
+                BankFileWriter writer = null;
+                Long branchId = null;
+                try (Stream<BankTransferLine> lines = payrollRepository.streamApprovedBankTransfers(month)) {
+                    Iterator<BankTransferLine> iterator = lines.iterator();
+                    while (iterator.hasNext()) {
+                        BankTransferLine line = iterator.next();
+                        if (!line.getBranchId().equals(branchId)) {
+                            if (writer != null) {
+                                written.add(writer.finish());
+                                channel.force(true);
+                                channel.close();
+                            }
+                            branchId = line.getBranchId();
+                            Path target = directory.resolve(fileName(month, line.getBranchCode(), format));
+                            Path temporary = createTemporary(target);
+                            pending.put(temporary, target);
+                            channel = FileChannel.open(temporary, StandardOpenOption.WRITE);
+                            writer = new BankFileWriter(channel, format, originator, month, line.getBranchCode());
+                        }
+                        writer.write(line);
+                    }
+                    if (writer != null) {
+                        written.add(writer.finish());
+                        channel.force(true);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not write bank files to " + directory, e);
+                } finally {
+                    closeQuietly(channel);
+                }
+                return written;
+            });
+            for (Map.Entry<Path, Path> file : pending.entrySet()) {
+                Files.move(file.getKey(), file.getValue(), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+            pending.clear();
+            log.info("Exported {} branch bank files for {} to {}", files.size(), month, directory);
+            return files;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not move bank files into " + directory, e);
+        } finally {
+            pending.keySet().forEach(BankFileExportService::deleteQuietly);
+        }
+    }
+
+    public static String fileName(LocalDate payrollMonth, String branchCode, BankFileWriter.Format format) {
+        return "bank-transfers-" + payrollMonth.format(MONTH) + "-" + branchCode
+                + (format == BankFileWriter.Format.CSV ? ".csv" : ".txt");
+    }
+
+    // In the target's directory, so the final rename stays on one file system and is atomic
+    private static Path createTemporary(Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        return Files.createTempFile(target.getParent(), "." + target.getFileName(), ".part");
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete temporary bank file {}", path, e);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Could not close bank file channel", e);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.dto.BiometricTemplateData;
+import com.attendance.payroll.entity.Attendance;
+import com.attendance.payroll.entity.BiometricTemplate;
+import com.attendance.payroll.event.ReferenceInvalidationEvent;
+import com.attendance.payroll.util.BiometricMatchIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-side 1:N matching of biometric probes against the templates enrolled in a branch
+ *
+ * Each branch gets one {@link BiometricMatchIndex} per template type, built from the branch's templates the first
+ * time the branch is matched and kept up to date per employee: template enrolments and removals (and any other
+ * employee change, including a branch move) arrive as employee reference invalidations on every node, and the
+ * employee's templates are reloaded into the index of their current branch. Large indexes are scanned on a
+ * dedicated pool. Fingerprints are binary codes compared by Hamming distance, faces float32 embeddings compared
+ * by cosine similarity.
+ */
+@Service
+@Slf4j
+public class BiometricMatchingService {
+
+    @Autowired
+    private BiometricTemplateService biometricTemplateService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.biometric.matching.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.biometric.matching.parallelism:0}")
+    private int parallelism;
+
+    @Value("${app.biometric.matching.parallel-threshold:8192}")
+    private int parallelThreshold;
+
+    @Value("${app.biometric.matching.min-score:0.6}")
+    private double minScore;
+
+    private final Map<Long, Map<BiometricTemplate.TemplateType, BiometricMatchIndex>> branches = new ConcurrentHashMap<>();
+
+    private ForkJoinPool matchPool;
+
+    private Timer matchTimer;
+
+    @PostConstruct
+    void init() {
+        matchPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        matchTimer = Timer.builder("biometric.match")
+                .description("Time to match one probe against a branch index")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        matchPool.shutdown();
+    }
+
+    /**
+     * Best match of the probe among the branch's templates of the type, or null below {@code app.biometric.matching.min-score}
+     */
+    public BiometricMatchIndex.Match match(Long branchId, BiometricTemplate.TemplateType templateType, byte[] probe) {
+        if (!enabled || probe == null) {
+            return null;
+        }
+        BiometricMatchIndex index = index(branchId).get(templateType);
+        if (index == null) {
+            return null;
+        }
+        long started = System.nanoTime();
+        BiometricMatchIndex.Match match = index.best(probe, matchPool, parallelThreshold);
+        matchTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return match != null && match.getScore() >= minScore ? match : null;
+    }
+
+    /**
+     * Verification score of a punch carrying a probe: the match score when the best match is the punching
+     * employee, 0 when the probe matches someone else or nobody, null when the punch cannot be verified
+     * server-side (no probe, a method without templates, or no templates enrolled for the employee)
+     */
+    public Double verificationScore(Long branchId, Long employeeId, Attendance.BiometricMethod method, byte[] probe) {
+        BiometricTemplate.TemplateType templateType = templateType(method);
+        if (!enabled || probe == null || templateType == null) {
+            return null;
+        }
+        BiometricMatchIndex index = index(branchId).get(templateType);
+        if (index == null || index.score(employeeId, probe) == null) {
+            return null;
+        }
+        BiometricMatchIndex.Match match = match(branchId, templateType, probe);
+        if (match == null || match.getEmployeeId() != employeeId) {
+            log.debug("Probe of employee {} on branch {} matched {}", employeeId, branchId,
+                    match != null ? match.getEmployeeId() : "nobody");
+            return 0.0;
+        }
+        return match.getScore();
+    }
+
+    public int getIndexedTemplates(Long branchId) {
+        Map<BiometricTemplate.TemplateType, BiometricMatchIndex> indexes = branches.get(branchId);
+        return indexes == null ? 0 : indexes.values().stream().mapToInt(BiometricMatchIndex::size).sum();
+    }
+
+    @EventListener
+    public void onReferenceInvalidation(ReferenceInvalidationEvent event) {
+        if (event.getType() != ReferenceInvalidationEvent.ReferenceType.EMPLOYEE || branches.isEmpty()) {
+            return;
+        }
+        try {
+            List<BiometricTemplateData> templates = biometricTemplateService.getTemplateData(event.getId());
+            branches.values().forEach(indexes -> indexes.values().forEach(index -> index.removeEmployee(event.getId())));
+            for (BiometricTemplateData template : templates) {
+                Map<BiometricTemplate.TemplateType, BiometricMatchIndex> indexes = branches.get(template.getBranchId());
+                if (indexes != null) {
+                    add(indexes, template);
+                }
+            }
+        } catch (RuntimeException e) {
+            // The branch is rebuilt from scratch on its next match rather than serving a stale index
+            log.warn("Could not reload biometric templates of employee {}, dropping loaded indexes", event.getId(), e);
+            branches.clear();
+        }
+    }
+
+    private Map<BiometricTemplate.TemplateType, BiometricMatchIndex> index(Long branchId) {
+        return branches.computeIfAbsent(branchId, this::load);
+    }
+
+    private Map<BiometricTemplate.TemplateType, BiometricMatchIndex> load(Long branchId) {
+        Map<BiometricTemplate.TemplateType, BiometricMatchIndex> indexes = new EnumMap<>(BiometricTemplate.TemplateType.class);
+        indexes.put(BiometricTemplate.TemplateType.FINGERPRINT, new BiometricMatchIndex(BiometricMatchIndex.Metric.HAMMING));
+        indexes.put(BiometricTemplate.TemplateType.FACE, new BiometricMatchIndex(BiometricMatchIndex.Metric.COSINE));
+        long loaded = biometricTemplateService.streamBranchTemplates(branchId, template -> add(indexes, template));
+        log.info("Built biometric matching index for branch {}: {} of {} templates indexed",
+                branchId, indexes.values().stream().mapToInt(BiometricMatchIndex::size).sum(), loaded);
+        return indexes;
+    }
+
+    private static void add(Map<BiometricTemplate.TemplateType, BiometricMatchIndex> indexes, BiometricTemplateData template) {
+        if (!indexes.get(template.getTemplateType()).put(template.getEmployeeId(), template.getSlot(), template.getTemplate())) {
+            log.warn("Skipping {} template {} of employee {}: length or encoding does not fit the branch index",
+                    template.getTemplateType(), template.getSlot(), template.getEmployeeCode());
+        }
+    }
+
+    private static BiometricTemplate.TemplateType templateType(Attendance.BiometricMethod method) {
+        if (method == Attendance.BiometricMethod.FINGERPRINT) {
+            return BiometricTemplate.TemplateType.FINGERPRINT;
+        }
+        if (method == Attendance.BiometricMethod.FACE_RECOGNITION) {
+            return BiometricTemplate.TemplateType.FACE;
+        }
+        return null;
+    }
+}
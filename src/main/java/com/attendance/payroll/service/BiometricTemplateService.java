@@ -0,0 +1,130 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.dto.BiometricTemplateData;
+import com.attendance.payroll.entity.BiometricTemplate;
+import com.attendance.payroll.entity.Employee;
+import com.attendance.payroll.repository.BiometricTemplateRepository;
+import com.attendance.payroll.repository.EmployeeRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Biometric templates of employees, kept off the employee row
+ *
+ * Templates are only read when asked for: one employee's templates for enrollment screens, or a whole branch
+ * streamed through a server-side cursor when devices are provisioned, so no employee query ever carries them.
+ * An employee has at most one template per type and slot (finger index); enrolling again replaces it.
+ */
+@Service
+@Slf4j
+public class BiometricTemplateService {
+
+    @Autowired
+    private BiometricTemplateRepository biometricTemplateRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private ReferenceCacheService referenceCacheService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.biometric.max-template-bytes:8192}")
+    private int maxTemplateBytes;
+
+    private TransactionTemplate transactionTemplate;
+
+    private TransactionTemplate readOnlyTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate.setReadOnly(true);
+    }
+
+    public List<BiometricTemplate> getTemplates(Long employeeId) {
+        return biometricTemplateRepository.findByEmployeeId(employeeId);
+    }
+
+    /**
+     * Store a template, replacing the one already enrolled in the same type and slot
+     */
+    public BiometricTemplate enroll(Long employeeId, BiometricTemplate.TemplateType templateType, int slot,
+                                    Integer algorithmVersion, byte[] template) {
+        if (template == null || template.length == 0) {
+            throw new RuntimeException("Empty biometric template for employee: " + employeeId);
+        }
+        if (template.length > maxTemplateBytes) {
+            throw new RuntimeException("Biometric template of " + template.length + " bytes exceeds the limit of "
+                    + maxTemplateBytes + " for employee: " + employeeId);
+        }
+        Employee employee = employeeRepository.findById(employeeId)
+                .orElseThrow(() -> new RuntimeException("Employee not found: " + employeeId));
+        BiometricTemplate saved = transactionTemplate.execute(status -> {
+            BiometricTemplate enrolled = biometricTemplateRepository
+                    .findByEmployeeIdAndTypeAndSlot(employeeId, templateType, slot)
+                    .orElseGet(() -> {
+                        BiometricTemplate created = new BiometricTemplate();
+                        created.setEmployee(employee);
+                        created.setTemplateType(templateType);
+                        created.setSlot(slot);
+                        return created;
+                    });
+            enrolled.setAlgorithmVersion(algorithmVersion);
+            enrolled.setTemplate(template);
+            enrolled.setIsActive(true);
+            return biometricTemplateRepository.save(enrolled);
+        });
+        // Matching indexes on every node reload the employee's templates on the employee invalidation
+        referenceCacheService.invalidate(employee);
+        return saved;
+    }
+
+    public int removeTemplates(Long employeeId) {
+        int removed = biometricTemplateRepository.deleteByEmployeeId(employeeId);
+        if (removed > 0) {
+            employeeRepository.findById(employeeId).ifPresent(referenceCacheService::invalidate);
+        }
+        return removed;
+    }
+
+    /**
+     * Active templates of an employee, with the branch whose matching index holds them
+     */
+    public List<BiometricTemplateData> getTemplateData(Long employeeId) {
+        return biometricTemplateRepository.findActiveDataByEmployeeId(employeeId);
+    }
+
+    /**
+     * Stream the templates of a branch's active employees, ordered by employee, to the consumer
+     * The consumer runs inside a read-only transaction; returns the number of templates streamed
+     */
+    public long streamBranchTemplates(Long branchId, Consumer<BiometricTemplateData> consumer) {
+        Long streamed = readOnlyTemplate.execute(status -> {
+            long count = 0;
+            try (Stream<BiometricTemplateData> templates = biometricTemplateRepository.streamActiveByBranch(branchId)) {
+                Iterator<BiometricTemplateData> iterator = templates.iterator();
+                while (iterator.hasNext()) {
+                    consumer.accept(iterator.next());
+                    count++;
+                }
+            }
+            return count;
+        });
+        log.info("Streamed {} biometric templates for branch {}", streamed, branchId);
+        return streamed;
+    }
+}
@@ -0,0 +1,47 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.entity.Attendance;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+import static com.attendance.payroll.util.TransactionCallbacks.afterCommit;
+
+/**
+ * JPA callbacks marking the branch-day of a changed attendance row for summary refresh
+ *
+ * Marked after commit, so the refresh never reads the row's previous state. An edit that moves the row to
+ * another branch or date marks the branch-day it left as well.
+ */
+@Component
+public class BranchDailySummaryEntityListener {
+
+    @Autowired
+    @Lazy
+    private BranchDailySummaryService branchDailySummaryService;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Attendance attendance) {
+        if (attendance.getBranch() == null || attendance.getAttendanceDate() == null) {
+            return;
+        }
+        Long branchId = attendance.getBranch().getId();
+        LocalDate date = attendance.getAttendanceDate();
+        Long previousBranchId = attendance.getPersistedBranchId();
+        LocalDate previousDate = attendance.getPersistedAttendanceDate();
+        afterCommit(() -> {
+            branchDailySummaryService.markDirty(branchId, date);
+            if (previousBranchId != null && previousDate != null
+                    && (!previousBranchId.equals(branchId) || !previousDate.equals(date))) {
+                branchDailySummaryService.markDirty(previousBranchId, previousDate);
+            }
+        });
+    }
+}
@@ -0,0 +1,114 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.dto.BranchDay;
+import com.attendance.payroll.entity.BranchDailySummary;
+import com.attendance.payroll.repository.BranchDailySummaryJdbcRepository;
+import com.attendance.payroll.repository.BranchDailySummaryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains the branch_daily_summary read model behind the attendance dashboards
+ *
+ * Attendance writes mark their branch-day dirty; dirty branch-days are recomputed together every
+ * {@code app.summary.refresh-interval-ms}, so a burst of punches for one branch costs one refresh rather than
+ * one per row. A nightly job recomputes the last {@code app.summary.reconcile-days} days to catch writes that
+ * bypass both paths (bulk SQL, a crash between commit and refresh). Reads are a single-row lookup.
+ */
+@Service
+@Slf4j
+public class BranchDailySummaryService {
+
+    @Autowired
+    private BranchDailySummaryRepository summaryRepository;
+
+    @Autowired
+    private BranchDailySummaryJdbcRepository summaryJdbcRepository;
+
+    @Autowired
+    private BranchDashboardService branchDashboardService;
+
+    @Value("${app.summary.reconcile-days:7}")
+    private int reconcileDays;
+
+    private final Set<BranchDay> dirty = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Summary of a branch-day, computed on the spot when it does not exist yet
+     */
+    public BranchDailySummary getSummary(Long branchId, LocalDate date) {
+        Optional<BranchDailySummary> summary = summaryRepository.findByBranchIdAndSummaryDate(branchId, date);
+        if (summary.isPresent()) {
+            return summary.get();
+        }
+        summaryJdbcRepository.refresh(List.of(new BranchDay(branchId, date)));
+        return summaryRepository.findByBranchIdAndSummaryDate(branchId, date)
+                .orElseThrow(() -> new RuntimeException("Branch not found with ID: " + branchId));
+    }
+
+    public List<BranchDailySummary> getSummaries(LocalDate date) {
+        return summaryRepository.findAllByDate(date);
+    }
+
+    public List<BranchDailySummary> getSummaries(Long branchId, LocalDate startDate, LocalDate endDate) {
+        return summaryRepository.findByBranchAndDateRange(branchId, startDate, endDate);
+    }
+
+    public void markDirty(Long branchId, LocalDate date) {
+        dirty.add(new BranchDay(branchId, date));
+    }
+
+    public int getPendingRefreshCount() {
+        return dirty.size();
+    }
+
+    /**
+     * Recompute every branch-day marked since the last run
+     */
+    @Scheduled(fixedDelayString = "${app.summary.refresh-interval-ms:2000}")
+    public void refreshDirty() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<BranchDay> keys = new ArrayList<>();
+        for (BranchDay key : dirty) {
+            if (dirty.remove(key)) {
+                keys.add(key);
+            }
+        }
+
+        int chunkSize = BranchDailySummaryJdbcRepository.maxKeysPerRefresh();
+        for (int from = 0; from < keys.size(); from += chunkSize) {
+            List<BranchDay> chunk = keys.subList(from, Math.min(from + chunkSize, keys.size()));
+            try {
+                summaryJdbcRepository.refresh(chunk);
+            } catch (RuntimeException e) {
+                log.error("Refreshing {} branch daily summaries failed, retrying on the next run", chunk.size(), e);
+                dirty.addAll(chunk);
+                continue;
+            }
+            branchDashboardService.onSummariesRefreshed(chunk);
+        }
+    }
+
+    /**
+     * Recompute the recent days from scratch
+     */
+    @Scheduled(cron = "${app.summary.reconcile-cron:0 30 2 * * *}")
+    public void reconcile() {
+        LocalDate endDate = LocalDate.now();
+        LocalDate startDate = endDate.minusDays(reconcileDays);
+        int rows = summaryJdbcRepository.refreshRange(startDate, endDate);
+        log.info("Reconciled {} branch daily summaries between {} and {}", rows, startDate, endDate);
+    }
+}
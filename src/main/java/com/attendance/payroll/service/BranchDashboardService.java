@@ -0,0 +1,329 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.dto.BranchDashboardDelta;
+import com.attendance.payroll.dto.BranchDay;
+import com.attendance.payroll.dto.UpsertedAttendance;
+import com.attendance.payroll.entity.Attendance;
+import com.attendance.payroll.entity.BranchDailySummary;
+import com.attendance.payroll.event.BranchDashboardChangeEvent;
+import com.attendance.payroll.repository.BranchDailySummaryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Live attendance feed of each branch over STOMP, replacing dashboards that poll the day's attendance
+ *
+ * Changes are collected per branch and sent as one {@link BranchDashboardDelta} frame every
+ * {@code app.dashboard.frame-interval-ms}, so a subscriber never gets more than one frame per interval however
+ * many punches arrive. Count changes come from the branch daily summary refreshes, late arrivals from punch
+ * ingestion. Only branches with at least one subscriber are tracked; a new subscription gets the full counts
+ * in the next frame.
+ *
+ * Subscribers are held by the node they connected to, which is rarely the node that ingested the punch or
+ * refreshed the summary. With {@code app.dashboard.fan-out.enabled} every node broadcasts the changes of the day
+ * it sees (refreshed branches, rows turned late) as a {@link BranchDashboardChangeEvent}. Each node consumes the
+ * topic in its own group and applies the changes of the branches watched locally, reading counts from the shared
+ * summary table.
+ */
+@Service
+@Slf4j
+public class BranchDashboardService {
+
+    private static final Pattern BRANCH_DESTINATION = Pattern.compile("^/topic/branches/(\\d+)/attendance$");
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private BranchDailySummaryRepository summaryRepository;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Value("${app.dashboard.max-late-arrivals-per-frame:50}")
+    private int maxLateArrivalsPerFrame;
+
+    @Value("${app.dashboard.fan-out.enabled:true}")
+    private boolean fanOut;
+
+    @Value("${app.dashboard.fan-out.topic:branch-dashboard-changes}")
+    private String fanOutTopic;
+
+    // Tells this node's own broadcasts apart on the topic, whatever the node configuration
+    private final String instanceId = UUID.randomUUID().toString();
+
+    // Subscription id to branch id, per STOMP session
+    private final Map<String, Map<String, Long>> sessions = new ConcurrentHashMap<>();
+
+    private final Map<Long, Integer> subscribers = new ConcurrentHashMap<>();
+
+    private final Map<Long, BranchDashboardDelta> pending = new ConcurrentHashMap<>();
+
+    // Counts last sent per branch, to send only the ones that moved
+    private final Map<Long, int[]> lastCounts = new ConcurrentHashMap<>();
+
+    public static String destination(Long branchId) {
+        return "/topic/branches/" + branchId + "/attendance";
+    }
+
+    public boolean isWatched(Long branchId) {
+        return subscribers.containsKey(branchId);
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor headers = StompHeaderAccessor.wrap(event.getMessage());
+        Long branchId = branchIdOf(headers.getDestination());
+        if (branchId == null || headers.getSessionId() == null || headers.getSubscriptionId() == null) {
+            return;
+        }
+        sessions.computeIfAbsent(headers.getSessionId(), id -> new ConcurrentHashMap<>())
+                .put(headers.getSubscriptionId(), branchId);
+        subscribers.merge(branchId, 1, Integer::sum);
+
+        // The newcomer needs every count, not just the ones that change next
+        lastCounts.remove(branchId);
+        queueCounts(Set.of(branchId), LocalDate.now());
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor headers = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, Long> subscriptions = sessions.get(headers.getSessionId());
+        if (subscriptions != null && headers.getSubscriptionId() != null) {
+            release(subscriptions.remove(headers.getSubscriptionId()));
+        }
+    }
+
+    /**
+     * Also fired when a slow client is cut off by the send buffer or time limits
+     */
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, Long> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::release);
+        }
+    }
+
+    /**
+     * Queue the current counts of refreshed branch-days that are on a dashboard (today, watched branches)
+     */
+    public void onSummariesRefreshed(Collection<BranchDay> keys) {
+        LocalDate today = LocalDate.now();
+        Set<Long> branchIds = new HashSet<>();
+        for (BranchDay key : keys) {
+            if (today.equals(key.getDate())) {
+                branchIds.add(key.getBranchId());
+            }
+        }
+        if (branchIds.isEmpty()) {
+            return;
+        }
+        queueCounts(branchIds, today);
+        broadcast(new BranchDashboardChangeEvent(instanceId, today, new ArrayList<>(branchIds), new ArrayList<>()));
+    }
+
+    /**
+     * Queue rows of today that just turned late
+     */
+    public void onAttendanceWritten(List<UpsertedAttendance> rows) {
+        LocalDate today = LocalDate.now();
+        List<BranchDashboardChangeEvent.BranchLateArrival> lateArrivals = new ArrayList<>();
+        for (UpsertedAttendance row : rows) {
+            if (row.getStatus() != Attendance.AttendanceStatus.LATE
+                    || row.getPreviousStatus() == Attendance.AttendanceStatus.LATE
+                    || !today.equals(row.getAttendanceDate())) {
+                continue;
+            }
+            lateArrivals.add(new BranchDashboardChangeEvent.BranchLateArrival(row.getBranchId(),
+                    new BranchDashboardDelta.LateArrival(row.getEmployeeId(), row.getCheckInTime(),
+                            row.getLateArrivalMinutes())));
+        }
+        if (lateArrivals.isEmpty()) {
+            return;
+        }
+        queueLateArrivals(lateArrivals, today);
+        broadcast(new BranchDashboardChangeEvent(instanceId, today, new ArrayList<>(), lateArrivals));
+    }
+
+    /**
+     * Apply the changes another node saw to the branches watched here
+     */
+    @KafkaListener(topics = "${app.dashboard.fan-out.topic:branch-dashboard-changes}",
+                   groupId = "${app.dashboard.fan-out.consumer-group:${spring.application.name}-dashboard-${HOSTNAME:localhost}}",
+                   properties = "auto.offset.reset=latest",
+                   autoStartup = "${app.dashboard.fan-out.enabled:true}")
+    public void onRemoteChange(BranchDashboardChangeEvent event) {
+        if (instanceId.equals(event.getInstanceId()) || !LocalDate.now().equals(event.getDate())) {
+            return;
+        }
+        if (event.getRefreshedBranchIds() != null && !event.getRefreshedBranchIds().isEmpty()) {
+            queueCounts(new HashSet<>(event.getRefreshedBranchIds()), event.getDate());
+        }
+        if (event.getLateArrivals() != null && !event.getLateArrivals().isEmpty()) {
+            queueLateArrivals(event.getLateArrivals(), event.getDate());
+        }
+    }
+
+    /**
+     * Send one frame per branch with pending changes
+     */
+    @Scheduled(fixedDelayString = "${app.dashboard.frame-interval-ms:1000}")
+    public void publishFrames() {
+        for (Long branchId : pending.keySet()) {
+            BranchDashboardDelta frame = pending.remove(branchId);
+            if (frame == null || !isWatched(branchId)) {
+                continue;
+            }
+            frame.setGeneratedAt(LocalDateTime.now());
+            try {
+                messagingTemplate.convertAndSend(destination(branchId), frame);
+            } catch (RuntimeException e) {
+                log.warn("Could not send dashboard frame for branch {}", branchId, e);
+            }
+        }
+    }
+
+    private void queueCounts(Set<Long> branchIds, LocalDate date) {
+        Set<Long> watched = new HashSet<>();
+        for (Long branchId : branchIds) {
+            if (isWatched(branchId)) {
+                watched.add(branchId);
+            }
+        }
+        if (watched.isEmpty()) {
+            return;
+        }
+        try {
+            for (BranchDailySummary summary : summaryRepository.findByBranchIdInAndSummaryDate(watched, date)) {
+                recordCounts(summary);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not load counts of {} watched branches", watched.size(), e);
+        }
+    }
+
+    private void queueLateArrivals(List<BranchDashboardChangeEvent.BranchLateArrival> lateArrivals, LocalDate date) {
+        for (BranchDashboardChangeEvent.BranchLateArrival late : lateArrivals) {
+            if (!isWatched(late.getBranchId())) {
+                continue;
+            }
+            pending.compute(late.getBranchId(), (branchId, delta) -> {
+                BranchDashboardDelta frame = delta != null ? delta : new BranchDashboardDelta(branchId, date);
+                if (frame.getLateArrivals().size() < maxLateArrivalsPerFrame) {
+                    frame.getLateArrivals().add(late.getLateArrival());
+                } else {
+                    frame.setOmittedLateArrivals(frame.getOmittedLateArrivals() + 1);
+                }
+                return frame;
+            });
+        }
+    }
+
+    private void broadcast(BranchDashboardChangeEvent event) {
+        if (!fanOut) {
+            return;
+        }
+        kafkaTemplate.send(fanOutTopic, instanceId, event).whenComplete((result, e) -> {
+            if (e != null) {
+                log.warn("Could not broadcast dashboard changes of {}", event.getDate(), e);
+            }
+        });
+    }
+
+    private void recordCounts(BranchDailySummary summary) {
+        Long branchId = summary.getBranch().getId();
+        int[] counts = {summary.getActiveEmployees(), summary.getPresentCount(), summary.getLateCount(),
+                summary.getAbsentCount(), summary.getHalfDayCount(), summary.getLeaveCount(),
+                summary.getOnSiteCount(), summary.getNotRecordedCount()};
+        int[] previous = lastCounts.put(branchId, counts);
+        if (Arrays.equals(previous, counts)) {
+            return;
+        }
+        pending.compute(branchId, (id, delta) -> {
+            BranchDashboardDelta frame = delta != null ? delta : new BranchDashboardDelta(id, summary.getSummaryDate());
+            // Counts already queued in this frame stay until it is sent
+            if (changed(previous, counts, 0)) {
+                frame.setActiveEmployees(counts[0]);
+            }
+            if (changed(previous, counts, 1)) {
+                frame.setPresentCount(counts[1]);
+            }
+            if (changed(previous, counts, 2)) {
+                frame.setLateCount(counts[2]);
+            }
+            if (changed(previous, counts, 3)) {
+                frame.setAbsentCount(counts[3]);
+            }
+            if (changed(previous, counts, 4)) {
+                frame.setHalfDayCount(counts[4]);
+            }
+            if (changed(previous, counts, 5)) {
+                frame.setLeaveCount(counts[5]);
+            }
+            if (changed(previous, counts, 6)) {
+                frame.setOnSiteCount(counts[6]);
+            }
+            if (changed(previous, counts, 7)) {
+                frame.setNotRecordedCount(counts[7]);
+            }
+            return frame;
+        });
+    }
+
+    private static boolean changed(int[] previous, int[] counts, int index) {
+        return previous == null || previous[index] != counts[index];
+    }
+
+    private void release(Long branchId) {
+        if (branchId == null) {
+            return;
+        }
+        subscribers.computeIfPresent(branchId, (id, count) -> count > 1 ? count - 1 : null);
+        if (!isWatched(branchId)) {
+            pending.remove(branchId);
+            lastCounts.remove(branchId);
+        }
+    }
+
+    /**
+     * The branch of a dashboard destination, or null for any other destination
+     */
+    public static Long branchIdOf(String destination) {
+        if (destination == null) {
+            return null;
+        }
+        Matcher matcher = BRANCH_DESTINATION.matcher(destination);
+        return matcher.matches() ? Long.valueOf(matcher.group(1)) : null;
+    }
+}
@@ -0,0 +1,238 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.dto.BranchReference;
+import com.attendance.payroll.dto.DeltaSyncBatch;
+import com.attendance.payroll.dto.DeltaSyncCursor;
+import com.attendance.payroll.dto.DeltaSyncResult;
+import com.attendance.payroll.repository.BranchRepository;
+import com.attendance.payroll.repository.DeltaSyncJdbcRepository;
+import com.attendance.payroll.repository.DeltaSyncJdbcRepository.SyncTable;
+import com.attendance.payroll.repository.EmployeeRepository;
+import com.attendance.payroll.util.TransactionCallbacks;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cursor-based delta sync of employees, attendance and payroll records between branch and headquarters nodes
+ *
+ * A consumer pulls pages of rows changed after its cursor, (updated_at, id) per table, and resumes from the
+ * page's cursor token after a failure or restart. Pages stop {@code app.sync.commit-lag-seconds} short of now so
+ * rows of transactions still in flight are not skipped, and a table is only paged once the tables it references
+ * have caught up, so a shipped row never arrives before its employee. Soft deletes travel as deleted_at and
+ * is_active like any other change. Pages are exchanged as gzipped JSON; on apply the higher version of a row wins,
+ * equal versions are settled by a hash of the row's contents, and everything in a page is written in one
+ * transaction. The commit lag is measured on the database clock, the one updated_at is stamped with.
+ */
+@Service
+@Slf4j
+public class DeltaSyncService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private DeltaSyncJdbcRepository deltaSyncJdbcRepository;
+
+    @Autowired
+    private BranchRepository branchRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private BranchDailySummaryService branchDailySummaryService;
+
+    @Autowired
+    private ReferenceCacheService referenceCacheService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.sync.node-id:${spring.application.name}}")
+    private String nodeId;
+
+    @Value("${app.sync.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.sync.commit-lag-seconds:5}")
+    private long commitLagSeconds;
+
+    private TransactionTemplate transactionTemplate;
+
+    private TransactionTemplate readOnlyTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Rows changed after the cursor token, at most {@code limit} per table ({@code app.sync.batch-size} when not positive)
+     */
+    public DeltaSyncBatch pull(String cursorToken, int limit) {
+        DeltaSyncCursor cursor = DeltaSyncCursor.decode(cursorToken);
+        int pageSize = limit > 0 ? limit : batchSize;
+
+        DeltaSyncBatch batch = new DeltaSyncBatch();
+        batch.setSourceNode(nodeId);
+        readOnlyTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = deltaSyncJdbcRepository.currentTimestamp();
+            LocalDateTime upperBound = now.minusSeconds(commitLagSeconds);
+            batch.setGeneratedAt(now);
+            for (SyncTable table : SyncTable.values()) {
+                String name = table.name();
+                List<DeltaSyncJdbcRepository.ChangedRow> changes = deltaSyncJdbcRepository.findChanges(table,
+                        cursor.position(name), upperBound, pageSize + 1);
+                boolean more = changes.size() > pageSize;
+                if (more) {
+                    changes = changes.subList(0, pageSize);
+                }
+                if (!changes.isEmpty()) {
+                    batch.getTables().add(new DeltaSyncBatch.TableChanges(name, table.getColumnNames(),
+                            changes.stream().map(DeltaSyncJdbcRepository.ChangedRow::getValues).collect(Collectors.toList())));
+                    cursor.getPositions().put(name, changes.get(changes.size() - 1).getPosition());
+                }
+                if (more) {
+                    // Later tables reference this one; they wait until it has caught up
+                    batch.setHasMore(true);
+                    break;
+                }
+            }
+        });
+        batch.setNextCursor(cursor.encode());
+        return batch;
+    }
+
+    /**
+     * {@link #pull(String, int)} as gzipped JSON
+     */
+    public byte[] export(String cursorToken, int limit) {
+        DeltaSyncBatch batch = pull(cursorToken, limit);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes, BUFFER_SIZE)) {
+            objectMapper.writeValue(out, batch);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write delta sync batch", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Apply a gzipped JSON batch as produced by {@link #export(String, int)}
+     */
+    public DeltaSyncResult apply(byte[] compressed) {
+        DeltaSyncBatch batch;
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed), BUFFER_SIZE)) {
+            batch = objectMapper.readValue(in, DeltaSyncBatch.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read delta sync batch", e);
+        }
+        return apply(batch);
+    }
+
+    public DeltaSyncResult apply(DeltaSyncBatch batch) {
+        Map<String, DeltaSyncBatch.TableChanges> changesByTable = new HashMap<>();
+        for (DeltaSyncBatch.TableChanges changes : batch.getTables()) {
+            SyncTable table;
+            try {
+                table = SyncTable.valueOf(changes.getTable());
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Unsupported delta sync table: " + changes.getTable());
+            }
+            if (!table.getColumnNames().equals(changes.getColumns())) {
+                throw new RuntimeException("Delta sync columns of " + table + " do not match this node: " + changes.getColumns());
+            }
+            changesByTable.put(table.name(), changes);
+        }
+
+        DeltaSyncResult result = new DeltaSyncResult();
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<String> branchCodes = new HashSet<>();
+            for (SyncTable table : SyncTable.values()) {
+                DeltaSyncBatch.TableChanges changes = changesByTable.get(table.name());
+                if (changes == null) {
+                    continue;
+                }
+                // A row moving to another branch leaves a branch-day behind whose summary needs refreshing too
+                Map<String, String> previousBranchCodes = table == SyncTable.ATTENDANCE
+                        ? deltaSyncJdbcRepository.findCurrentBranchCodes(table, changes.getRows())
+                        : Map.of();
+                List<Object[]> written = deltaSyncJdbcRepository.apply(table, changes.getRows());
+                result.getApplied().put(table.name(), written.size());
+                result.getSkipped().put(table.name(), changes.getRows().size() - written.size());
+                afterApply(table, written, previousBranchCodes, branchCodes);
+            }
+            LocalDateTime syncedAt = LocalDateTime.now();
+            for (String branchCode : branchCodes) {
+                branchId(branchCode).ifPresent(branchId -> branchRepository.updateLastSyncTimestamp(branchId, syncedAt));
+            }
+        });
+
+        log.info("Applied delta sync batch from {} generated at {}: {} rows applied, {} skipped {}",
+                batch.getSourceNode(), batch.getGeneratedAt(), result.getTotalApplied(), result.getTotalSkipped(),
+                result.getSkipped());
+        return result;
+    }
+
+    // Plain JDBC writes bypass the entity listeners, so derived state is refreshed here instead
+    private void afterApply(SyncTable table, List<Object[]> written, Map<String, String> previousBranchCodes,
+                            Set<String> branchCodes) {
+        if (written.isEmpty()) {
+            return;
+        }
+        List<String> columns = table.getColumnNames();
+        int branchColumn = columns.indexOf("branch_code");
+        written.forEach(row -> branchCodes.add((String) row[branchColumn]));
+
+        if (table == SyncTable.EMPLOYEES) {
+            Set<String> employeeCodes = written.stream()
+                    .map(row -> (String) row[columns.indexOf("employee_id")])
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+            TransactionCallbacks.afterCommit(() -> employeeCodes.forEach(code ->
+                    employeeRepository.findByEmployeeId(code).ifPresent(referenceCacheService::invalidate)));
+        } else if (table == SyncTable.ATTENDANCE) {
+            int dateColumn = columns.indexOf("attendance_date");
+            for (Object[] row : written) {
+                LocalDate date = LocalDate.parse((String) row[dateColumn]);
+                branchId((String) row[branchColumn]).ifPresent(branchId -> branchDailySummaryService.markDirty(branchId, date));
+                String previous = previousBranchCodes.get(DeltaSyncJdbcRepository.rowKey(row));
+                if (previous != null && !previous.equals(row[branchColumn])) {
+                    branchId(previous).ifPresent(branchId -> branchDailySummaryService.markDirty(branchId, date));
+                }
+            }
+        }
+    }
+
+    private Optional<Long> branchId(String branchCode) {
+        return referenceCacheService.findBranch(branchCode).map(BranchReference::getId);
+    }
+}
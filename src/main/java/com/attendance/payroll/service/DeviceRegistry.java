@@ -0,0 +1,188 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.entity.Branch;
+import com.attendance.payroll.entity.Device;
+import com.attendance.payroll.entity.ZktDevice;
+import com.attendance.payroll.entity.ZktDeviceListConverter;
+import com.attendance.payroll.repository.BranchRepository;
+import com.attendance.payroll.repository.DeviceJdbcRepository;
+import com.attendance.payroll.repository.DeviceRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory registry of the devices on active branches
+ *
+ * Devices are indexed by device ID and by serial number, so resolving the branch of a punch is a hash lookup.
+ * The maps are rebuilt from the devices table on startup and periodically, and swapped in as a whole; status
+ * changes are written with a single-column update of the device row and never touch the branch.
+ * On first start, devices still stored in the legacy branches.zkt_devices JSON column are imported; entries
+ * that do not make a valid device (no IP address or port, unknown status) and branch lists that do not parse
+ * are logged and skipped, so bad legacy data cannot stop the application from starting.
+ */
+@Service
+@Slf4j
+public class DeviceRegistry {
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private DeviceJdbcRepository deviceJdbcRepository;
+
+    @Autowired
+    private BranchRepository branchRepository;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private volatile Map<String, Device> byDeviceId = Collections.emptyMap();
+
+    private volatile Map<String, Device> bySerialNumber = Collections.emptyMap();
+
+    @PostConstruct
+    void init() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> importLegacyDevices());
+        reload();
+    }
+
+    /**
+     * Rebuild the lookup maps from the devices table
+     */
+    @Scheduled(fixedDelayString = "${app.zkteco.polling.refresh-interval-ms:300000}",
+               initialDelayString = "${app.zkteco.polling.refresh-interval-ms:300000}")
+    public void reload() {
+        Map<String, Device> devices = new HashMap<>();
+        Map<String, Device> serials = new HashMap<>();
+        for (Device device : deviceRepository.findRegisteredDevices()) {
+            devices.put(device.getDeviceId(), device);
+            if (device.getSerialNumber() != null) {
+                serials.put(device.getSerialNumber(), device);
+            }
+        }
+        byDeviceId = devices;
+        bySerialNumber = serials;
+        log.debug("Device registry loaded with {} devices", devices.size());
+    }
+
+    public Collection<Device> getDevices() {
+        return Collections.unmodifiableCollection(byDeviceId.values());
+    }
+
+    public Optional<Device> findByDeviceId(String deviceId) {
+        return Optional.ofNullable(byDeviceId.get(deviceId));
+    }
+
+    public Optional<Device> findBySerialNumber(String serialNumber) {
+        return Optional.ofNullable(bySerialNumber.get(serialNumber));
+    }
+
+    /**
+     * Branch of the device identified by device ID or serial number, or null when it is not registered
+     */
+    public Long findBranchId(String deviceIdOrSerialNumber) {
+        Device device = byDeviceId.get(deviceIdOrSerialNumber);
+        if (device == null) {
+            device = bySerialNumber.get(deviceIdOrSerialNumber);
+        }
+        return device != null ? device.getBranchId() : null;
+    }
+
+    /**
+     * Persist a device status change without loading or rewriting the branch
+     */
+    public void updateStatus(String deviceId, Device.DeviceStatus status) {
+        LocalDateTime now = LocalDateTime.now();
+        if (deviceRepository.updateStatus(deviceId, status, now) == 0) {
+            log.warn("Status update for unknown device {}", deviceId);
+            return;
+        }
+        Device device = byDeviceId.get(deviceId);
+        if (device != null) {
+            device.setStatus(status);
+            device.setStatusChangedAt(now);
+        }
+    }
+
+    private void importLegacyDevices() {
+        ZktDeviceListConverter converter = new ZktDeviceListConverter();
+        int imported = 0;
+        int skipped = 0;
+        for (Map.Entry<Long, String> entry : deviceJdbcRepository.findLegacyDeviceLists().entrySet()) {
+            List<ZktDevice> legacy;
+            try {
+                legacy = converter.convertToEntityAttribute(entry.getValue());
+            } catch (RuntimeException e) {
+                log.warn("Skipping the legacy device list of branch {}: {}", entry.getKey(), e.getMessage());
+                continue;
+            }
+            Branch branch = branchRepository.getReferenceById(entry.getKey());
+            for (ZktDevice zktDevice : legacy) {
+                if (zktDevice.getDeviceId() == null || deviceRepository.existsByDeviceId(zktDevice.getDeviceId())) {
+                    continue;
+                }
+                Device device;
+                try {
+                    device = fromLegacy(zktDevice, branch);
+                } catch (IllegalArgumentException e) {
+                    log.warn("Skipping legacy device {} of branch {}: {}", zktDevice.getDeviceId(), entry.getKey(), e.getMessage());
+                    skipped++;
+                    continue;
+                }
+                Set<ConstraintViolation<Device>> violations = validator.validate(device);
+                if (!violations.isEmpty()) {
+                    log.warn("Skipping legacy device {} of branch {}: {}", zktDevice.getDeviceId(), entry.getKey(),
+                            violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(", ")));
+                    skipped++;
+                    continue;
+                }
+                deviceRepository.save(device);
+                imported++;
+            }
+        }
+        if (imported > 0 || skipped > 0) {
+            log.info("Imported {} devices from the legacy branch device lists, skipped {} invalid entries", imported, skipped);
+        }
+    }
+
+    private static Device fromLegacy(ZktDevice zktDevice, Branch branch) {
+        Device device = new Device();
+        device.setDeviceId(zktDevice.getDeviceId());
+        device.setDeviceName(zktDevice.getDeviceName() != null ? zktDevice.getDeviceName() : zktDevice.getDeviceId());
+        device.setBranch(branch);
+        device.setIpAddress(zktDevice.getIpAddress());
+        device.setPort(zktDevice.getPort());
+        device.setSerialNumber(zktDevice.getSerialNumber());
+        if (zktDevice.getStatus() != null) {
+            device.setStatus(Device.DeviceStatus.valueOf(zktDevice.getStatus().name()));
+        }
+        device.setMacAddress(zktDevice.getMacAddress());
+        device.setConnectionTimeout(zktDevice.getConnectionTimeout());
+        device.setReadTimeout(zktDevice.getReadTimeout());
+        device.setFirmwareVersion(zktDevice.getFirmwareVersion());
+        device.setModel(zktDevice.getModel());
+        device.setMaxUsers(zktDevice.getMaxUsers());
+        device.setMaxRecords(zktDevice.getMaxRecords());
+        return device;
+    }
+}
@@ -0,0 +1,87 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.repository.PartitionJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Keeps the monthly partitions of attendance and payroll_records ahead of time and within retention
+ *
+ * Partitions for the current month and {@code app.partitioning.months-ahead} months after it are created in
+ * advance, so rows never land in the default partition. Partitions whose month ended more than the configured
+ * retention ago are detached: they leave the parent table (and its indexes) but are kept as plain tables
+ * for archiving.
+ */
+@Service
+@Slf4j
+public class PartitionMaintenanceService {
+
+    public static final String ATTENDANCE_TABLE = "attendance";
+
+    public static final String PAYROLL_RECORDS_TABLE = "payroll_records";
+
+    @Autowired
+    private PartitionJdbcRepository partitionJdbcRepository;
+
+    @Value("${app.partitioning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.partitioning.months-ahead:2}")
+    private int monthsAhead;
+
+    @Value("${app.partitioning.attendance-retention-months:24}")
+    private int attendanceRetentionMonths;
+
+    @Value("${app.partitioning.payroll-retention-months:84}")
+    private int payrollRetentionMonths;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${app.partitioning.cron:0 0 3 * * *}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        maintain(ATTENDANCE_TABLE, attendanceRetentionMonths);
+        maintain(PAYROLL_RECORDS_TABLE, payrollRetentionMonths);
+    }
+
+    private void maintain(String table, int retentionMonths) {
+        try {
+            if (!partitionJdbcRepository.isPartitioned(table)) {
+                log.warn("Table {} is not partitioned, skipping partition maintenance", table);
+                return;
+            }
+
+            LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+            for (int i = 0; i <= monthsAhead; i++) {
+                partitionJdbcRepository.createMonthlyPartition(table, currentMonth.plusMonths(i));
+            }
+
+            if (retentionMonths <= 0) {
+                return;
+            }
+            LocalDate oldestKept = currentMonth.minusMonths(retentionMonths);
+            for (Map.Entry<LocalDate, String> partition : partitionJdbcRepository.findMonthlyPartitions(table).entrySet()) {
+                if (!partition.getKey().isBefore(oldestKept)) {
+                    break;
+                }
+                partitionJdbcRepository.detachPartition(table, partition.getValue());
+                log.info("Detached partition {} of {} (retention {} months)", partition.getValue(), table, retentionMonths);
+            }
+        } catch (RuntimeException e) {
+            log.error("Partition maintenance of {} failed", table, e);
+        }
+    }
+}
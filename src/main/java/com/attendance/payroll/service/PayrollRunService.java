@@ -0,0 +1,307 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.dto.EmployeeAttendanceSummary;
+import com.attendance.payroll.entity.Branch;
+import com.attendance.payroll.entity.Employee;
+import com.attendance.payroll.entity.PayrollRecord;
+import com.attendance.payroll.entity.PayrollRun;
+import com.attendance.payroll.repository.AdvisoryLockJdbcRepository;
+import com.attendance.payroll.repository.AdvisoryLockJdbcRepository.AdvisoryLock;
+import com.attendance.payroll.repository.AttendanceRepository;
+import com.attendance.payroll.repository.BranchRepository;
+import com.attendance.payroll.repository.EmployeeRepository;
+import com.attendance.payroll.repository.PayrollRecordJdbcRepository;
+import com.attendance.payroll.repository.PayrollRepository;
+import com.attendance.payroll.repository.PayrollRunRepository;
+import com.attendance.payroll.util.PayrollCalculator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Monthly payroll run engine
+ *
+ * Processes the run branch by branch: each branch's month of attendance is aggregated in one query,
+ * records are computed on a dedicated fork-join pool and written back in JDBC batches.
+ * Per-branch progress is kept in payroll_runs so a failed branch can be restarted on its own
+ * without recalculating branches that already completed.
+ *
+ * The schedule fires on every node, so a run first takes a cluster-wide advisory lock; a node that finds it held
+ * skips the run. A branch whose run row is RUNNING is treated as held by another node as well, until it has been
+ * running for longer than {@code app.payroll.run.stale-after-minutes} and is assumed to belong to a node that died.
+ */
+@Service
+@Slf4j
+public class PayrollRunService {
+
+    private static final String CALCULATED_BY = "payroll-run";
+
+    private static final String RUN_LOCK = "payroll-run";
+
+    private static final List<PayrollRecord.PayrollStatus> PENDING_STATUSES =
+            List.of(PayrollRecord.PayrollStatus.DRAFT, PayrollRecord.PayrollStatus.CALCULATED);
+
+    @Autowired
+    private BranchRepository branchRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private PayrollRepository payrollRepository;
+
+    @Autowired
+    private PayrollRunRepository payrollRunRepository;
+
+    @Autowired
+    private PayrollRecordJdbcRepository payrollRecordJdbcRepository;
+
+    @Autowired
+    private AdvisoryLockJdbcRepository advisoryLockJdbcRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.payroll.run.parallelism:0}")
+    private int parallelism;
+
+    @Value("${app.payroll.run.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.payroll.run.stale-after-minutes:240}")
+    private long staleAfterMinutes;
+
+    @Value("${app.payroll.overtime-rate:1.5}")
+    private BigDecimal overtimeRate;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private ForkJoinPool calculationPool;
+
+    private TransactionTemplate branchTransaction;
+
+    private TransactionTemplate progressTransaction;
+
+    @PostConstruct
+    void init() {
+        calculationPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        branchTransaction = new TransactionTemplate(transactionManager);
+        progressTransaction = new TransactionTemplate(transactionManager);
+        progressTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        calculationPool.shutdown();
+    }
+
+    @Scheduled(cron = "0 0 1 ${app.payroll.monthly-processing-day} * *")
+    public void runScheduledMonth() {
+        Optional<AdvisoryLock> lock = advisoryLockJdbcRepository.tryLock(RUN_LOCK);
+        if (lock.isEmpty()) {
+            log.info("Skipping scheduled payroll run: another node is running payroll");
+            return;
+        }
+        try (AdvisoryLock held = lock.get()) {
+            runMonthLocked(LocalDate.now());
+        }
+    }
+
+    /**
+     * Run payroll for every active branch, skipping branches that already completed for the month
+     */
+    public List<PayrollRun> runMonth(LocalDate payrollMonth) {
+        try (AdvisoryLock lock = acquireRunLock()) {
+            return runMonthLocked(payrollMonth);
+        }
+    }
+
+    /**
+     * Run (or re-run) payroll for a single branch, e.g. to restart a branch that failed
+     */
+    public PayrollRun runBranch(Long branchId, LocalDate payrollMonth) {
+        LocalDate month = payrollMonth.withDayOfMonth(1);
+        Branch branch = branchRepository.findById(branchId)
+                .orElseThrow(() -> new RuntimeException("Branch not found: " + branchId));
+
+        try (AdvisoryLock lock = acquireRunLock()) {
+            if (!running.compareAndSet(false, true)) {
+                throw new RuntimeException("A payroll run is already in progress");
+            }
+            try {
+                PayrollRun run = prepareRun(branch, month);
+                if (isHeldElsewhere(run)) {
+                    throw new RuntimeException("Payroll run for branch " + branch.getBranchId() + " (" + month
+                            + ") is already running since " + run.getStartedAt());
+                }
+                return executeRun(run, branch, month);
+            } finally {
+                running.set(false);
+            }
+        }
+    }
+
+    public List<PayrollRun> getProgress(LocalDate payrollMonth) {
+        return payrollRunRepository.findByPayrollMonth(payrollMonth.withDayOfMonth(1));
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    private List<PayrollRun> runMonthLocked(LocalDate payrollMonth) {
+        LocalDate month = payrollMonth.withDayOfMonth(1);
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("A payroll run is already in progress");
+        }
+
+        try {
+            log.info("Starting payroll run for {}", month);
+            for (Branch branch : branchRepository.findActiveBranches()) {
+                PayrollRun run = prepareRun(branch, month);
+                if (run.isCompleted()) {
+                    log.info("Skipping branch {} for {}: already completed", branch.getBranchId(), month);
+                    continue;
+                }
+                if (isHeldElsewhere(run)) {
+                    log.warn("Skipping branch {} for {}: running since {}", branch.getBranchId(), month, run.getStartedAt());
+                    continue;
+                }
+                executeRun(run, branch, month);
+            }
+            return getProgress(month);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private AdvisoryLock acquireRunLock() {
+        return advisoryLockJdbcRepository.tryLock(RUN_LOCK)
+                .orElseThrow(() -> new RuntimeException("A payroll run is already in progress on another node"));
+    }
+
+    // Runs are only started under the cluster lock, so a RUNNING row seen while holding it was left by a node
+    // that lost its database session, and may still be writing, or died mid-run; it is taken over once it is old
+    // enough not to be live
+    private boolean isHeldElsewhere(PayrollRun run) {
+        return run.getStatus() == PayrollRun.RunStatus.RUNNING
+                && run.getStartedAt() != null
+                && run.getStartedAt().isAfter(LocalDateTime.now().minusMinutes(staleAfterMinutes));
+    }
+
+    private PayrollRun executeRun(PayrollRun run, Branch branch, LocalDate month) {
+        run.setStatus(PayrollRun.RunStatus.RUNNING);
+        run.setAttempts(run.getAttempts() + 1);
+        run.setStartedAt(LocalDateTime.now());
+        run.setCompletedAt(null);
+        run.setErrorMessage(null);
+        run.setProcessedEmployees(0);
+        PayrollRun started = saveRun(run);
+
+        try {
+            branchTransaction.executeWithoutResult(status -> calculateBranch(started, branch, month));
+            started.setStatus(PayrollRun.RunStatus.COMPLETED);
+            started.setCompletedAt(LocalDateTime.now());
+            log.info("Payroll run for branch {} ({}) completed: {} records, {} skipped",
+                    branch.getBranchId(), month, started.getProcessedEmployees(), started.getSkippedEmployees());
+        } catch (RuntimeException e) {
+            log.error("Payroll run for branch {} ({}) failed", branch.getBranchId(), month, e);
+            started.setStatus(PayrollRun.RunStatus.FAILED);
+            started.setProcessedEmployees(0);
+            started.setErrorMessage(e.getMessage());
+        }
+        return saveRun(started);
+    }
+
+    private void calculateBranch(PayrollRun run, Branch branch, LocalDate month) {
+        Long branchId = branch.getId();
+        List<Employee> employees = employeeRepository.findActiveEmployeesByBranch(branchId);
+
+        // Records already reviewed, approved or paid are never recalculated
+        Set<Long> locked = new HashSet<>(
+                payrollRepository.findEmployeeIdsByBranchAndMonthAndStatusNotIn(branchId, month, PENDING_STATUSES));
+        List<Employee> pending = employees.stream()
+                .filter(employee -> !locked.contains(employee.getId()))
+                .toList();
+
+        run.setTotalEmployees(pending.size());
+        run.setSkippedEmployees(employees.size() - pending.size());
+        updateProgress(run);
+
+        Map<Long, EmployeeAttendanceSummary> totals = loadAttendanceTotals(branchId, month);
+        Map<Long, PayrollRecord> previous = payrollRepository.findByBranchAndMonth(branchId, month.minusMonths(1))
+                .stream()
+                .collect(Collectors.toMap(record -> record.getEmployee().getId(), Function.identity(), (a, b) -> a));
+        int workingDays = PayrollCalculator.countWorkingDays(month, PayrollCalculator.DEFAULT_WORKING_DAYS);
+
+        List<PayrollRecord> records = calculationPool.submit(() -> pending.parallelStream()
+                .map(employee -> PayrollCalculator.buildRecord(employee, branch, month, workingDays,
+                        totals.get(employee.getId()), previous.get(employee.getId()), overtimeRate, CALCULATED_BY))
+                .toList())
+                .join();
+        long flagged = records.stream().filter(record -> Boolean.TRUE.equals(record.getIsFlagged())).count();
+        if (flagged > 0) {
+            log.warn("Payroll run for branch {} ({}): {} records flagged, no previous month to carry salary from",
+                    branch.getBranchId(), month, flagged);
+        }
+
+        payrollRecordJdbcRepository.deletePendingByBranchAndMonth(branchId, month);
+        for (int from = 0; from < records.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, records.size());
+            payrollRecordJdbcRepository.batchInsert(records.subList(from, to), batchSize);
+            run.setProcessedEmployees(to);
+            updateProgress(run);
+            log.debug("Payroll run for branch {} ({}): {}/{} records written",
+                    branch.getBranchId(), month, to, records.size());
+        }
+    }
+
+    private Map<Long, EmployeeAttendanceSummary> loadAttendanceTotals(Long branchId, LocalDate month) {
+        return attendanceRepository.summarizeByBranchAndPeriod(branchId, month, month.plusMonths(1).minusDays(1))
+                .stream()
+                .collect(Collectors.toMap(EmployeeAttendanceSummary::getEmployeeId, Function.identity()));
+    }
+
+    private PayrollRun prepareRun(Branch branch, LocalDate month) {
+        return progressTransaction.execute(status -> payrollRunRepository
+                .findByBranchIdAndPayrollMonth(branch.getId(), month)
+                .orElseGet(() -> {
+                    PayrollRun run = new PayrollRun();
+                    run.setBranch(branch);
+                    run.setPayrollMonth(month);
+                    return payrollRunRepository.save(run);
+                }));
+    }
+
+    private void updateProgress(PayrollRun run) {
+        progressTransaction.executeWithoutResult(status -> payrollRunRepository.updateProgress(run.getId(),
+                run.getTotalEmployees(), run.getSkippedEmployees(), run.getProcessedEmployees()));
+    }
+
+    private PayrollRun saveRun(PayrollRun run) {
+        return progressTransaction.execute(status -> payrollRunRepository.save(run));
+    }
+}
@@ -0,0 +1,289 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.dto.PayslipArchiveSummary;
+import com.attendance.payroll.entity.Branch;
+import com.attendance.payroll.entity.PayrollAllowance;
+import com.attendance.payroll.entity.PayrollDeduction;
+import com.attendance.payroll.entity.PayrollRecord;
+import com.attendance.payroll.repository.BranchRepository;
+import com.attendance.payroll.repository.PayrollAllowanceRepository;
+import com.attendance.payroll.repository.PayrollDeductionRepository;
+import com.attendance.payroll.repository.PayrollRepository;
+import com.attendance.payroll.util.PayslipRenderer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Bulk payslips of a branch-month, streamed into a single ZIP archive
+ *
+ * Records are read in keyset slices of {@code app.payroll.payslips.batch-size} with their employee fetched, and
+ * each slice's allowances and deductions are loaded with one IN query apiece. Payslips are rendered on a
+ * dedicated fork-join pool while the calling thread writes finished ones to the archive in record order; at most
+ * {@code app.payroll.payslips.max-in-flight} rendered payslips are held at once and the persistence context is
+ * cleared after every slice, so memory stays bounded however large the branch is.
+ * Render latency is published as the {@code payroll.payslip.render} timer and summarised per archive.
+ */
+@Service
+@Slf4j
+public class PayslipArchiveService {
+
+    private static final List<PayrollRecord.PayrollStatus> PAYSLIP_STATUSES = List.of(
+            PayrollRecord.PayrollStatus.APPROVED, PayrollRecord.PayrollStatus.PROCESSED, PayrollRecord.PayrollStatus.PAID);
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private BranchRepository branchRepository;
+
+    @Autowired
+    private PayrollRepository payrollRepository;
+
+    @Autowired
+    private PayrollAllowanceRepository payrollAllowanceRepository;
+
+    @Autowired
+    private PayrollDeductionRepository payrollDeductionRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.payroll.payslips.parallelism:0}")
+    private int parallelism;
+
+    @Value("${app.payroll.payslips.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.payroll.payslips.max-in-flight:256}")
+    private int maxInFlight;
+
+    private ForkJoinPool renderPool;
+
+    private TransactionTemplate readOnlyTemplate;
+
+    private Timer renderTimer;
+
+    @PostConstruct
+    void init() {
+        renderPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        readOnlyTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate.setReadOnly(true);
+        renderTimer = Timer.builder("payroll.payslip.render")
+                .description("Time to render one payslip")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        renderPool.shutdown();
+    }
+
+    /**
+     * Write the branch-month archive to payslips-yyyyMM-BRANCH.zip in the directory
+     */
+    public PayslipArchiveSummary export(Long branchId, LocalDate payrollMonth, Path directory) {
+        Branch branch = branchRepository.findById(branchId)
+                .orElseThrow(() -> new RuntimeException("Branch not found: " + branchId));
+        Path path = directory.resolve(fileName(payrollMonth, branch.getBranchId()));
+        try {
+            Files.createDirectories(directory);
+            try (OutputStream out = Files.newOutputStream(path)) {
+                return export(branchId, payrollMonth, out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write payslip archive " + path, e);
+        }
+    }
+
+    /**
+     * Write the branch-month archive to the stream, which is flushed but left open
+     */
+    public PayslipArchiveSummary export(Long branchId, LocalDate payrollMonth, OutputStream out) {
+        LocalDate month = payrollMonth.withDayOfMonth(1);
+        Branch branch = branchRepository.findById(branchId)
+                .orElseThrow(() -> new RuntimeException("Branch not found: " + branchId));
+
+        long started = System.nanoTime();
+        RenderStats stats = new RenderStats();
+        CountingOutputStream counting = new CountingOutputStream(out);
+        long payslips = readOnlyTemplate.execute(status -> {
+            Deque<CompletableFuture<RenderedPayslip>> inFlight = new ArrayDeque<>();
+            try {
+                ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(counting, BUFFER_SIZE));
+                long written = 0;
+                long afterId = 0L;
+                Slice<PayrollRecord> slice;
+                do {
+                    slice = payrollRepository.findSliceByBranchAndMonthAfter(branchId, month, PAYSLIP_STATUSES,
+                            afterId, Pageable.ofSize(batchSize));
+                    List<PayrollRecord> records = slice.getContent();
+                    if (records.isEmpty()) {
+                        break;
+                    }
+                    List<Long> ids = records.stream().map(PayrollRecord::getId).collect(Collectors.toList());
+                    Map<Long, List<PayrollAllowance>> allowances = payrollAllowanceRepository.findByPayrollRecordIdIn(ids)
+                            .stream()
+                            .collect(Collectors.groupingBy(allowance -> allowance.getPayrollRecord().getId()));
+                    Map<Long, List<PayrollDeduction>> deductions = payrollDeductionRepository.findByPayrollRecordIdIn(ids)
+                            .stream()
+                            .collect(Collectors.groupingBy(deduction -> deduction.getPayrollRecord().getId()));
+
+                    for (PayrollRecord record : records) {
+                        while (inFlight.size() >= maxInFlight) {
+                            write(zip, inFlight.poll());
+                            written++;
+                        }
+                        inFlight.add(CompletableFuture.supplyAsync(() -> render(record, branch,
+                                allowances.getOrDefault(record.getId(), List.of()),
+                                deductions.getOrDefault(record.getId(), List.of()), stats), renderPool));
+                    }
+                    afterId = records.get(records.size() - 1).getId();
+                    // Rendering only reads loaded state, so the slice can leave the persistence context right away
+                    entityManager.clear();
+                } while (slice.hasNext());
+
+                while (!inFlight.isEmpty()) {
+                    write(zip, inFlight.poll());
+                    written++;
+                }
+                zip.finish();
+                zip.flush();
+                return written;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write payslip archive for branch " + branch.getBranchId(), e);
+            } finally {
+                inFlight.forEach(future -> future.cancel(false));
+            }
+        });
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        PayslipArchiveSummary summary = new PayslipArchiveSummary(branch.getBranchId(), month, payslips,
+                counting.getCount(), elapsedMillis,
+                elapsedMillis > 0 ? payslips * 1000.0 / elapsedMillis : payslips,
+                payslips > 0 ? stats.totalNanos.get() / 1e6 / payslips : 0.0,
+                stats.maxNanos.get() / 1e6);
+        log.info("Wrote {} payslips for branch {} {} ({} bytes) in {} ms: {} payslips/s, render mean {} ms, max {} ms",
+                payslips, branch.getBranchId(), month, summary.getArchiveBytes(), elapsedMillis,
+                String.format("%.1f", summary.getPayslipsPerSecond()),
+                String.format("%.2f", summary.getMeanRenderMillis()), String.format("%.2f", summary.getMaxRenderMillis()));
+        return summary;
+    }
+
+    public static String fileName(LocalDate payrollMonth, String branchCode) {
+        return "payslips-" + payrollMonth.format(MONTH) + "-" + branchCode + ".zip";
+    }
+
+    private RenderedPayslip render(PayrollRecord record, Branch branch, List<PayrollAllowance> allowances,
+                                   List<PayrollDeduction> deductions, RenderStats stats) {
+        long started = System.nanoTime();
+        byte[] content;
+        try {
+            content = PayslipRenderer.render(record, branch, allowances, deductions);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Could not render payslip for payroll record " + record.getId(), e);
+        }
+        long nanos = System.nanoTime() - started;
+        renderTimer.record(nanos, TimeUnit.NANOSECONDS);
+        stats.totalNanos.addAndGet(nanos);
+        stats.maxNanos.accumulateAndGet(nanos, Math::max);
+        return new RenderedPayslip(PayslipRenderer.entryName(record), content);
+    }
+
+    private static void write(ZipOutputStream zip, CompletableFuture<RenderedPayslip> future) throws IOException {
+        RenderedPayslip payslip;
+        try {
+            payslip = future.join();
+        } catch (CompletionException e) {
+            throw (RuntimeException) e.getCause();
+        }
+        zip.putNextEntry(new ZipEntry(payslip.entryName));
+        zip.write(payslip.content);
+        zip.closeEntry();
+    }
+
+    private static final class RenderedPayslip {
+
+        private final String entryName;
+
+        private final byte[] content;
+
+        private RenderedPayslip(String entryName, byte[] content) {
+            this.entryName = entryName;
+            this.content = content;
+        }
+    }
+
+    private static final class RenderStats {
+
+        private final AtomicLong totalNanos = new AtomicLong();
+
+        private final AtomicLong maxNanos = new AtomicLong();
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
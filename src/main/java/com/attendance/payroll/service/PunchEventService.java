@@ -0,0 +1,121 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.dto.DevicePunch;
+import com.attendance.payroll.event.AttendancePunchEvent;
+import com.attendance.payroll.event.DevicePunchesReceivedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Attendance punch pipeline over Kafka
+ *
+ * With {@code app.ingestion.kafka.publish} a node (typically a branch node) sends the punches its devices
+ * return to the punch topic, keyed by employee code, instead of writing them itself. The poll only counts as
+ * accepted once every record is acknowledged by the brokers, so the device cursor never passes unsent punches.
+ * With {@code app.ingestion.kafka.consume} a node writes the topic in batches: each poll goes through
+ * {@link PunchIngestionService#ingest} and its offsets are committed afterwards. The keying keeps all punches
+ * of an employee on one partition, hence one consumer thread. Writes are idempotent (the upsert merges a punch
+ * into the day's window), so a batch redelivered after a crash before the commit changes nothing.
+ */
+@Service
+@Slf4j
+public class PunchEventService {
+
+    @Autowired
+    private PunchIngestionService punchIngestionService;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Value("${app.ingestion.kafka.publish:false}")
+    private boolean publish;
+
+    @Value("${app.ingestion.kafka.topic:attendance-punches}")
+    private String topic;
+
+    @Value("${app.ingestion.kafka.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    @Value("${app.ingestion.journal.enabled:false}")
+    private boolean journalEnabled;
+
+    @EventListener
+    public void onDevicePunches(DevicePunchesReceivedEvent event) {
+        // With the journal on, punches are published when the journal forwards them, see PunchJournalService
+        if (publish && !journalEnabled) {
+            publish(event);
+        }
+    }
+
+    /**
+     * Send a poll's punches and wait for the brokers to acknowledge all of them
+     */
+    public void publish(DevicePunchesReceivedEvent event) {
+        List<AttendancePunchEvent> events = new ArrayList<>(event.getPunches().size());
+        for (DevicePunch punch : event.getPunches()) {
+            events.add(AttendancePunchEvent.from(event.getBranchId(), punch));
+        }
+        // Propagates to the poller, which retries the device later from its last acknowledged punch
+        publish(events, "device " + event.getDeviceId());
+    }
+
+    /**
+     * Send punch events in order and wait for the brokers to acknowledge all of them
+     */
+    public void publish(List<AttendancePunchEvent> events, String source) {
+        List<CompletableFuture<SendResult<String, Object>>> sends = new ArrayList<>(events.size());
+        for (AttendancePunchEvent event : events) {
+            sends.add(kafkaTemplate.send(topic, event.getEmployeeId(), event));
+        }
+        try {
+            CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while publishing punches from " + source, e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new RuntimeException("Could not publish punches from " + source, e);
+        }
+    }
+
+    /**
+     * Write one poll of punch events, then commit its offsets
+     * An unreadable record is reported by index: the records before it are written and committed, the record
+     * itself goes to the dead-letter topic, and the rest is redelivered.
+     */
+    @KafkaListener(topics = "${app.ingestion.kafka.topic:attendance-punches}",
+                   groupId = "${app.ingestion.kafka.group-id:attendance-punch-writer}",
+                   containerFactory = "punchBatchListenerContainerFactory",
+                   autoStartup = "${app.ingestion.kafka.consume:false}")
+    public void onPunchEvents(List<ConsumerRecord<String, AttendancePunchEvent>> records, Acknowledgment acknowledgment) {
+        List<DevicePunch> punches = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, AttendancePunchEvent> record = records.get(i);
+            AttendancePunchEvent event = record.value();
+            if (event == null || event.getEmployeeId() == null || event.getPunchTime() == null) {
+                punchIngestionService.ingest(punches);
+                throw new BatchListenerFailedException("Unreadable punch event at " + record.topic() + "-"
+                        + record.partition() + "@" + record.offset(), i);
+            }
+            punches.add(event.toDevicePunch());
+        }
+        punchIngestionService.ingest(punches);
+        acknowledgment.acknowledge();
+        log.debug("Wrote {} punch events", punches.size());
+    }
+}
@@ -0,0 +1,340 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.dto.AttendancePunchWindow;
+import com.attendance.payroll.dto.DevicePunch;
+import com.attendance.payroll.dto.EmployeePunchProfile;
+import com.attendance.payroll.dto.UpsertedAttendance;
+import com.attendance.payroll.event.DevicePunchesReceivedEvent;
+import com.attendance.payroll.repository.AttendanceJdbcRepository;
+import com.attendance.payroll.repository.EmployeeRepository;
+import com.attendance.payroll.util.AnomalyProfile;
+import com.attendance.payroll.util.AttendanceCalculator;
+import com.attendance.payroll.util.ShiftSchedule;
+import com.attendance.payroll.util.TransientFailures;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind ingestion of device punches
+ *
+ * Punches are buffered in a bounded queue and flushed by a single writer thread. Each flush merges the
+ * punches of one employee and day into a check-in/check-out window and writes all windows with one
+ * multi-row upsert keyed on (employee_id, attendance_date), so the 08:55 clock-in burst costs a handful
+ * of statements instead of one transaction per punch. In the same transaction, upserted rows get their
+ * weekly overtime and an anomaly score. When the queue is full, producers block for up to
+ * {@code app.ingestion.offer-timeout-ms} and are then rejected; on shutdown the queue is drained before exit.
+ * The writer only retries transient failures (database unreachable, lock timeouts); a batch failing for good is
+ * split in halves until the punch the database rejects is isolated, which is logged and dropped.
+ */
+@Service
+@Slf4j
+public class PunchIngestionService {
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private AttendanceJdbcRepository attendanceJdbcRepository;
+
+    @Autowired
+    private DeviceRegistry deviceRegistry;
+
+    @Autowired
+    private BranchDailySummaryService branchDailySummaryService;
+
+    @Autowired
+    private AnomalyScoringService anomalyScoringService;
+
+    @Autowired
+    private WeeklyOvertimeService weeklyOvertimeService;
+
+    @Autowired
+    private ShiftScheduleService shiftScheduleService;
+
+    @Autowired
+    private BranchDashboardService branchDashboardService;
+
+    @Autowired
+    private BiometricMatchingService biometricMatchingService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.ingestion.queue-capacity:50000}")
+    private int queueCapacity;
+
+    @Value("${app.ingestion.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.ingestion.flush-interval-ms:500}")
+    private long flushIntervalMs;
+
+    @Value("${app.ingestion.offer-timeout-ms:5000}")
+    private long offerTimeoutMs;
+
+    @Value("${app.ingestion.shutdown-timeout-ms:30000}")
+    private long shutdownTimeoutMs;
+
+    @Value("${app.ingestion.kafka.publish:false}")
+    private boolean publishToKafka;
+
+    @Value("${app.ingestion.journal.enabled:false}")
+    private boolean journalEnabled;
+
+    private final AtomicLong acceptedPunches = new AtomicLong();
+
+    private final AtomicLong rejectedPunches = new AtomicLong();
+
+    private final AtomicLong flushedRows = new AtomicLong();
+
+    private final AtomicLong droppedPunches = new AtomicLong();
+
+    private BlockingQueue<DevicePunch> queue;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Thread writer;
+
+    private volatile boolean accepting = true;
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        writer = new Thread(this::writeLoop, "punch-writer");
+        writer.start();
+    }
+
+    /**
+     * Flush everything still buffered before the application context closes
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        accepting = false;
+        writer.join(shutdownTimeoutMs);
+        if (writer.isAlive()) {
+            log.error("Punch writer did not finish within {} ms, {} punches not flushed", shutdownTimeoutMs, queue.size());
+            writer.interrupt();
+        }
+    }
+
+    /**
+     * Queue a punch for writing, blocking while the queue is full
+     *
+     * @return false when the punch was rejected because the queue stayed full (or the service is stopping)
+     */
+    public boolean submit(DevicePunch punch) {
+        if (!accepting) {
+            rejectedPunches.incrementAndGet();
+            return false;
+        }
+        try {
+            if (queue.offer(punch, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                acceptedPunches.incrementAndGet();
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejectedPunches.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Write punches on the caller's thread, bypassing the queue
+     * Used by the Kafka consumer, which commits its offsets once this returns; up to {@code app.ingestion.batch-size}
+     * employee-days are written in a single transaction.
+     */
+    public void ingest(List<DevicePunch> punches) {
+        if (punches.isEmpty()) {
+            return;
+        }
+        acceptedPunches.addAndGet(punches.size());
+        flush(punches);
+    }
+
+    /**
+     * {@link #ingest(List)}, dropping punches the database rejects for good
+     * On a non-transient failure the punches are bisected until each rejected punch is isolated, logged and
+     * dropped, and the rest is written. Transient failures propagate, for the caller to retry the whole list;
+     * punches already written by then merge into the same attendance windows on the retry.
+     */
+    public void ingestSkippingRejected(List<DevicePunch> punches) {
+        if (punches.isEmpty()) {
+            return;
+        }
+        acceptedPunches.addAndGet(punches.size());
+        flushIsolating(punches);
+    }
+
+    @EventListener
+    public void onDevicePunches(DevicePunchesReceivedEvent event) {
+        if (publishToKafka) {
+            // Written by whichever node consumes the punch topic, see PunchEventService
+            return;
+        }
+        if (journalEnabled) {
+            // Written when the local journal forwards them, see PunchJournalService
+            return;
+        }
+        for (DevicePunch punch : event.getPunches()) {
+            if (!submit(punch)) {
+                // Propagates to the poller, which retries the device later from its last acknowledged punch
+                throw new RuntimeException("Punch ingestion queue is full, rejecting punches from device " + event.getDeviceId());
+            }
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getAcceptedPunches() {
+        return acceptedPunches.get();
+    }
+
+    public long getRejectedPunches() {
+        return rejectedPunches.get();
+    }
+
+    public long getFlushedRows() {
+        return flushedRows.get();
+    }
+
+    public long getDroppedPunches() {
+        return droppedPunches.get();
+    }
+
+    private void writeLoop() {
+        List<DevicePunch> batch = new ArrayList<>(batchSize);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                DevicePunch first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flushWithRetry(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void flushWithRetry(List<DevicePunch> batch) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                flushIsolating(batch);
+                return;
+            } catch (RuntimeException e) {
+                long backoff = Math.min(30000L, 500L << Math.min(attempt, 6));
+                log.error("Flushing {} punches failed (attempt {}), retrying in {} ms", batch.size(), attempt, backoff, e);
+                Thread.sleep(backoff);
+            }
+        }
+    }
+
+    private void flushIsolating(List<DevicePunch> punches) {
+        try {
+            flush(punches);
+        } catch (RuntimeException e) {
+            if (TransientFailures.isTransient(e)) {
+                throw e;
+            }
+            if (punches.size() == 1) {
+                DevicePunch punch = punches.get(0);
+                droppedPunches.incrementAndGet();
+                log.error("Dropping punch from device {} for employee {} at {}: rejected by the database",
+                        punch.getDeviceId(), punch.getEmployeeId(), punch.getPunchTime(), e);
+                return;
+            }
+            int middle = punches.size() / 2;
+            log.warn("Flushing {} punches failed, splitting the batch to isolate the rejected punch: {}",
+                    punches.size(), e.getMessage());
+            flushIsolating(punches.subList(0, middle));
+            flushIsolating(punches.subList(middle, punches.size()));
+        }
+    }
+
+    private void flush(List<DevicePunch> punches) {
+        Set<String> employeeCodes = punches.stream().map(DevicePunch::getEmployeeId).collect(Collectors.toSet());
+        Map<String, EmployeePunchProfile> profiles = employeeRepository.findPunchProfilesByEmployeeIds(employeeCodes)
+                .stream()
+                .collect(Collectors.toMap(EmployeePunchProfile::getEmployeeId, profile -> profile));
+
+        Map<Long, ShiftSchedule> schedules = shiftScheduleService.getSchedules(profiles.values());
+
+        Map<String, AttendancePunchWindow> windows = new LinkedHashMap<>();
+        for (DevicePunch punch : punches) {
+            EmployeePunchProfile profile = profiles.get(punch.getEmployeeId());
+            if (profile == null) {
+                log.warn("Dropping punch from device {} for unknown employee {}", punch.getDeviceId(), punch.getEmployeeId());
+                continue;
+            }
+            // The early hours of an overnight shift belong to the day the shift started
+            LocalDate date = schedules.get(profile.getId()).shiftDate(punch.getPunchTime());
+            // The day is booked to the branch of the device punched first, or the home branch for unknown devices
+            Long deviceBranchId = deviceRegistry.findBranchId(punch.getDeviceId());
+            Long branchId = deviceBranchId != null ? deviceBranchId : profile.getBranchId();
+            // Templates are indexed under the employee's home branch
+            Double verificationScore = punch.getVerificationTemplate() == null ? null
+                    : biometricMatchingService.verificationScore(profile.getBranchId(), profile.getId(),
+                            punch.getVerificationMethod(), punch.getVerificationTemplate());
+            windows.computeIfAbsent(profile.getId() + "@" + date,
+                    key -> new AttendancePunchWindow(profile.getId(), branchId, date)).merge(punch, verificationScore);
+        }
+
+        List<AttendancePunchWindow> merged = new ArrayList<>(windows.values());
+        int chunkSize = Math.min(batchSize, AttendanceJdbcRepository.maxRowsPerUpsert());
+        for (int from = 0; from < merged.size(); from += chunkSize) {
+            List<AttendancePunchWindow> chunk = merged.subList(from, Math.min(from + chunkSize, merged.size()));
+            Map<Long, AnomalyProfile> scoredProfiles = new HashMap<>();
+            AtomicReference<WeeklyOvertimeService.Update> overtimeUpdate = new AtomicReference<>();
+            List<UpsertedAttendance> rows = transactionTemplate.execute(status -> {
+                List<UpsertedAttendance> upserted = attendanceJdbcRepository.upsertPunchWindows(chunk);
+                upserted.forEach(row -> derive(row, schedules.get(row.getEmployeeId())));
+                overtimeUpdate.set(weeklyOvertimeService.apply(upserted));
+                scoredProfiles.putAll(anomalyScoringService.score(upserted));
+                attendanceJdbcRepository.updateDerivedFields(upserted);
+                return upserted;
+            });
+            anomalyScoringService.commit(scoredProfiles);
+            weeklyOvertimeService.commit(overtimeUpdate.get());
+            flushedRows.addAndGet(rows.size());
+            rows.forEach(row -> branchDailySummaryService.markDirty(row.getBranchId(), row.getAttendanceDate()));
+            branchDashboardService.onAttendanceWritten(rows);
+        }
+    }
+
+    private void derive(UpsertedAttendance row, ShiftSchedule schedule) {
+        int lateMinutes = schedule.lateArrivalMinutes(row.getAttendanceDate(), row.getCheckInTime());
+        row.setTotalWorkingHours(AttendanceCalculator.workingHours(row.getCheckInTime(), row.getCheckOutTime()));
+        row.setLateArrivalMinutes(lateMinutes);
+        row.setEarlyDepartureMinutes(schedule.recordedEarlyDepartureMinutes(row.getAttendanceDate(), row.getCheckOutTime()));
+        row.setStatus(schedule.punchStatus(row.getStatus(), lateMinutes));
+    }
+}
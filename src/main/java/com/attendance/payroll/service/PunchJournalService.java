@@ -0,0 +1,305 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.dto.DevicePunch;
+import com.attendance.payroll.entity.Attendance;
+import com.attendance.payroll.event.AttendancePunchEvent;
+import com.attendance.payroll.event.DevicePunchesReceivedEvent;
+import com.attendance.payroll.util.PunchJournal;
+import com.attendance.payroll.util.TransientFailures;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Store-and-forward of device punches through a local journal, for branch nodes with an unreliable link
+ *
+ * With {@code app.ingestion.journal.enabled} every poll's punches are appended to a {@link PunchJournal} on local
+ * disk and synced before the poll is accepted, so the device cursor only passes punches that survive a crash.
+ * Concurrent polls share one fsync. A single forwarder thread replays the journal in order, as Kafka punch events
+ * when {@code app.ingestion.kafka.publish} is on and straight into {@link PunchIngestionService#ingest} otherwise,
+ * and acknowledges what was delivered, after which fully delivered segments are deleted. While the topic or the
+ * database is unreachable the forwarder backs off and punches keep accumulating in the journal, so polling runs
+ * at local disk speed whether the link is up or down. Only such transient failures are retried: a record that
+ * cannot be decoded, or a punch the topic or the database rejects for good, is isolated, logged and dropped, and
+ * the forwarder acknowledges past it. A crash between delivery and acknowledgement replays the last batch;
+ * nothing deduplicates the replay, it relies on the attendance upsert merging a punch written twice into the
+ * same window.
+ */
+@Service
+@Slf4j
+public class PunchJournalService {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final long NO_BRANCH = Long.MIN_VALUE;
+
+    @Autowired
+    private PunchIngestionService punchIngestionService;
+
+    @Autowired
+    private PunchEventService punchEventService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.ingestion.journal.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.ingestion.journal.directory:data/punch-journal}")
+    private String directory;
+
+    @Value("${app.ingestion.journal.segment-bytes:67108864}")
+    private int segmentBytes;
+
+    @Value("${app.ingestion.journal.replay-batch-size:500}")
+    private int replayBatchSize;
+
+    @Value("${app.ingestion.journal.idle-interval-ms:200}")
+    private long idleIntervalMs;
+
+    @Value("${app.ingestion.journal.max-retry-interval-ms:30000}")
+    private long maxRetryIntervalMs;
+
+    @Value("${app.ingestion.kafka.publish:false}")
+    private boolean publishToKafka;
+
+    private PunchJournal journal;
+
+    private Thread forwarder;
+
+    private volatile boolean running;
+
+    private Counter droppedPunches;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        journal = new PunchJournal(Path.of(directory), segmentBytes);
+        Gauge.builder("punch.journal.pending", journal, PunchJournal::getPending)
+                .description("Journaled punches not yet delivered")
+                .register(meterRegistry);
+        droppedPunches = meterRegistry.counter("punch.journal.dropped");
+        log.info("Punch journal in {}: {} punches pending delivery", directory, journal.getPending());
+        running = true;
+        forwarder = new Thread(this::forwardLoop, "punch-journal-forwarder");
+        forwarder.start();
+    }
+
+    /**
+     * Stop forwarding; undelivered punches stay in the journal and are replayed on the next start
+     * A forwarder still inside a delivery after the grace period keeps the journal open rather than have it
+     * closed underneath it; its batch is unacknowledged and replays on the next start either way.
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        forwarder.interrupt();
+        forwarder.join(maxRetryIntervalMs);
+        if (forwarder.isAlive()) {
+            log.warn("Punch journal forwarder did not stop within {} ms, leaving the journal open", maxRetryIntervalMs);
+            return;
+        }
+        journal.close();
+    }
+
+    @EventListener
+    public void onDevicePunches(DevicePunchesReceivedEvent event) {
+        if (!enabled || event.getPunches().isEmpty()) {
+            return;
+        }
+        if (!running) {
+            throw new RuntimeException("Punch journal is closed, rejecting punches from device " + event.getDeviceId());
+        }
+        List<byte[]> records = new ArrayList<>(event.getPunches().size());
+        for (DevicePunch punch : event.getPunches()) {
+            records.add(encode(event.getBranchId(), punch));
+        }
+        // A failure propagates to the poller, which retries the device later from its last acknowledged punch
+        journal.sync(journal.append(records));
+    }
+
+    public long getPendingPunches() {
+        return enabled ? journal.getPending() : 0;
+    }
+
+    private void forwardLoop() {
+        long forwarded = journal.getAcknowledged();
+        int failures = 0;
+        while (running) {
+            try {
+                List<PunchJournal.Entry> entries = journal.read(forwarded, replayBatchSize);
+                if (entries.isEmpty()) {
+                    Thread.sleep(idleIntervalMs);
+                    continue;
+                }
+                try {
+                    forward(entries);
+                } catch (RuntimeException e) {
+                    if (!running) {
+                        return;
+                    }
+                    if (!TransientFailures.isTransient(e)) {
+                        // forward isolates rejected entries itself, so this is not a single bad punch
+                        log.error("Forwarding journaled punches {} to {} failed for good, dropping them",
+                                entries.get(0).getSequence(), entries.get(entries.size() - 1).getSequence(), e);
+                        droppedPunches.increment(entries.size());
+                        forwarded = entries.get(entries.size() - 1).getSequence();
+                        journal.acknowledge(forwarded);
+                        continue;
+                    }
+                    failures++;
+                    long backoff = Math.min(maxRetryIntervalMs, 500L << Math.min(failures, 6));
+                    if (failures == 1) {
+                        log.warn("Forwarding journaled punches failed, holding {} punches locally and retrying",
+                                journal.getPending(), e);
+                    } else {
+                        log.debug("Forwarding journaled punches failed (attempt {}), retrying in {} ms", failures, backoff);
+                    }
+                    Thread.sleep(backoff);
+                    continue;
+                }
+                if (failures > 0) {
+                    log.info("Forwarding journaled punches resumed after {} failed attempts, {} punches pending",
+                            failures, journal.getPending());
+                    failures = 0;
+                }
+                forwarded = entries.get(entries.size() - 1).getSequence();
+                journal.acknowledge(forwarded);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Punch journal forwarder failed", e);
+            }
+        }
+    }
+
+    // Transient failures propagate for the whole batch to be retried; anything else is dropped entry by entry
+    private void forward(List<PunchJournal.Entry> entries) {
+        List<AttendancePunchEvent> events = new ArrayList<>(entries.size());
+        for (PunchJournal.Entry entry : entries) {
+            AttendancePunchEvent event = decodeOrDrop(entry);
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        if (publishToKafka) {
+            publishIsolating(events);
+            return;
+        }
+        List<DevicePunch> punches = new ArrayList<>(events.size());
+        for (AttendancePunchEvent event : events) {
+            punches.add(event.toDevicePunch());
+        }
+        punchIngestionService.ingestSkippingRejected(punches);
+    }
+
+    // A record that cannot be decoded now will not decode on a retry either
+    private AttendancePunchEvent decodeOrDrop(PunchJournal.Entry entry) {
+        try {
+            return decode(entry.getPayload());
+        } catch (RuntimeException e) {
+            droppedPunches.increment();
+            log.error("Dropping punch journal record {}: it cannot be decoded", entry.getSequence(), e);
+            return null;
+        }
+    }
+
+    // Bisects a batch the topic rejects until each rejected event is isolated, as PunchIngestionService does for writes
+    private void publishIsolating(List<AttendancePunchEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            punchEventService.publish(events, "punch journal");
+        } catch (RuntimeException e) {
+            if (TransientFailures.isTransient(e) || Thread.currentThread().isInterrupted()) {
+                throw e;
+            }
+            if (events.size() == 1) {
+                AttendancePunchEvent event = events.get(0);
+                droppedPunches.increment();
+                log.error("Dropping punch from device {} for employee {} at {}: rejected by the punch topic",
+                        event.getDeviceId(), event.getEmployeeId(), event.getPunchTime(), e);
+                return;
+            }
+            int middle = events.size() / 2;
+            log.warn("Publishing {} journaled punches failed, splitting the batch to isolate the rejected punch: {}",
+                    events.size(), e.getMessage());
+            publishIsolating(events.subList(0, middle));
+            publishIsolating(events.subList(middle, events.size()));
+        }
+    }
+
+    private static byte[] encode(Long branchId, DevicePunch punch) {
+        byte[] deviceId = utf8(punch.getDeviceId());
+        byte[] employeeId = utf8(punch.getEmployeeId());
+        byte[] method = utf8(punch.getVerificationMethod() != null ? punch.getVerificationMethod().name() : null);
+        byte[] template = punch.getVerificationTemplate();
+        ByteBuffer buffer = ByteBuffer.allocate(1 + Long.BYTES + 3 * Integer.BYTES + deviceId.length + employeeId.length
+                + method.length + Long.BYTES + Integer.BYTES + Integer.BYTES + (template != null ? template.length : 0));
+        buffer.put(FORMAT_VERSION);
+        buffer.putLong(branchId != null ? branchId : NO_BRANCH);
+        buffer.putInt(deviceId.length).put(deviceId);
+        buffer.putInt(employeeId.length).put(employeeId);
+        buffer.putLong(punch.getPunchTime().toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(punch.getPunchTime().getNano());
+        buffer.putInt(method.length).put(method);
+        buffer.putInt(template != null ? template.length : -1);
+        if (template != null) {
+            buffer.put(template);
+        }
+        return buffer.array();
+    }
+
+    private static AttendancePunchEvent decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        byte version = buffer.get();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalStateException("Unsupported punch journal record format " + version);
+        }
+        long branchId = buffer.getLong();
+        String deviceId = string(buffer);
+        String employeeId = string(buffer);
+        LocalDateTime punchTime = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+        String method = string(buffer);
+        int templateLength = buffer.getInt();
+        byte[] template = null;
+        if (templateLength >= 0) {
+            template = new byte[templateLength];
+            buffer.get(template);
+        }
+        return new AttendancePunchEvent(branchId != NO_BRANCH ? branchId : null, deviceId, employeeId, punchTime,
+                method.isEmpty() ? null : Attendance.BiometricMethod.valueOf(method), template);
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    private static String string(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,34 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.entity.Branch;
+import com.attendance.payroll.entity.Employee;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import static com.attendance.payroll.util.TransactionCallbacks.afterCommit;
+
+/**
+ * JPA callbacks invalidating cached branch and employee references when a row's version changes
+ *
+ * Invalidation runs after commit, so no node can reload the old row after it was evicted.
+ */
+@Component
+public class ReferenceCacheEntityListener {
+
+    @Autowired
+    @Lazy
+    private ReferenceCacheService referenceCacheService;
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        if (entity instanceof Employee employee) {
+            afterCommit(() -> referenceCacheService.invalidate(employee));
+        } else if (entity instanceof Branch branch) {
+            afterCommit(() -> referenceCacheService.invalidate(branch));
+        }
+    }
+}
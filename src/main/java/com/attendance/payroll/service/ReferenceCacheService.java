@@ -0,0 +1,312 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.dto.BranchReference;
+import com.attendance.payroll.dto.EmployeeReference;
+import com.attendance.payroll.entity.Branch;
+import com.attendance.payroll.entity.Employee;
+import com.attendance.payroll.event.ReferenceInvalidationEvent;
+import com.attendance.payroll.event.ReferenceInvalidationEvent.ReferenceType;
+import com.attendance.payroll.repository.BranchRepository;
+import com.attendance.payroll.repository.EmployeeRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Two-tier read-through cache for branch and employee reference data
+ *
+ * Lookups by business code go to a bounded in-process Caffeine cache (L1), then to Redis (L2), then to the
+ * database. When an entity's version changes, the writing node evicts its own copies and the Redis key after
+ * commit and broadcasts a {@link ReferenceInvalidationEvent}; every node consumes the topic in its own, stable
+ * consumer group ({@code app.cache.reference.consumer-group}) and evicts its L1 entry, found through an
+ * id-to-code index so a changed business code is evicted without scanning the cache. Entries also expire after
+ * their TTLs, which bounds staleness when an invalidation message is lost.
+ *
+ * Invalidations carry the entity version, which becomes the minimum version cached for that code: locally, and
+ * in Redis as a version key written atomically with the eviction. A read-through that loaded an older row
+ * (it read the database before the change committed) is neither written to Redis nor kept in L1, so it cannot
+ * bring the old row back after the eviction. L1 statistics are published as Micrometer cache metrics
+ * ({@code cache.gets}, {@code cache.evictions}, ...) and L2 hits and misses as {@code reference.cache.l2}.
+ */
+@Service
+@Slf4j
+public class ReferenceCacheService {
+
+    private static final String KEY_PREFIX = "ref:";
+
+    private static final String VERSION_SUFFIX = ":version";
+
+    // KEYS: value, version; ARGV: json, version, ttl seconds. Skips the write when a newer version was evicted.
+    private static final RedisScript<Long> WRITE_IF_CURRENT = new DefaultRedisScript<>(
+            "local minimum = redis.call('GET', KEYS[2]) " +
+            "if minimum and tonumber(minimum) > tonumber(ARGV[2]) then return 0 end " +
+            "redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[3]) return 1", Long.class);
+
+    // KEYS: value, version; ARGV: version, ttl seconds. Raises the minimum version and drops the value.
+    private static final RedisScript<Long> EVICT = new DefaultRedisScript<>(
+            "local minimum = redis.call('GET', KEYS[2]) " +
+            "if not minimum or tonumber(minimum) < tonumber(ARGV[1]) then " +
+            "redis.call('SET', KEYS[2], ARGV[1], 'EX', ARGV[2]) end " +
+            "return redis.call('DEL', KEYS[1])", Long.class);
+
+    @Autowired
+    private BranchRepository branchRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.cache.reference.l1-max-size:100000}")
+    private long l1MaxSize;
+
+    @Value("${app.cache.reference.l1-ttl-seconds:300}")
+    private long l1TtlSeconds;
+
+    @Value("${app.cache.reference.l2-ttl-seconds:3600}")
+    private long l2TtlSeconds;
+
+    @Value("${app.cache.reference.invalidation-topic:reference-invalidation}")
+    private String invalidationTopic;
+
+    private ReferenceTier<BranchReference> branches;
+
+    private ReferenceTier<EmployeeReference> employees;
+
+    private Counter invalidations;
+
+    @PostConstruct
+    void init() {
+        branches = new ReferenceTier<>(ReferenceType.BRANCH, BranchReference.class,
+                BranchReference::getId, BranchReference::getVersion);
+        employees = new ReferenceTier<>(ReferenceType.EMPLOYEE, EmployeeReference.class,
+                EmployeeReference::getId, EmployeeReference::getVersion);
+        CaffeineCacheMetrics.monitor(meterRegistry, branches.cache, "reference.branch");
+        CaffeineCacheMetrics.monitor(meterRegistry, employees.cache, "reference.employee");
+        invalidations = meterRegistry.counter("reference.cache.invalidations");
+    }
+
+    /**
+     * Active branch by its business code (e.g. "ALG")
+     */
+    public Optional<BranchReference> findBranch(String branchId) {
+        return branches.find(branchId, () -> branchRepository.findByBranchIdAndIsActiveTrue(branchId).map(BranchReference::from));
+    }
+
+    /**
+     * Active employee by its employee code
+     */
+    public Optional<EmployeeReference> findEmployee(String employeeId) {
+        return employees.find(employeeId,
+                () -> employeeRepository.findByEmployeeIdAndIsActiveTrue(employeeId).map(EmployeeReference::from));
+    }
+
+    /**
+     * Drop a changed branch everywhere; called once its transaction has committed
+     */
+    public void invalidate(Branch branch) {
+        invalidate(new ReferenceInvalidationEvent(ReferenceType.BRANCH, branch.getId(), branch.getBranchId(),
+                branch.getVersion()));
+    }
+
+    /**
+     * Drop a changed employee everywhere; called once its transaction has committed
+     */
+    public void invalidate(Employee employee) {
+        invalidate(new ReferenceInvalidationEvent(ReferenceType.EMPLOYEE, employee.getId(), employee.getEmployeeId(),
+                employee.getVersion()));
+    }
+
+    // One group per node, named after the host so a restarted node rejoins its own group instead of leaving an
+    // orphan behind; a fresh L1 has nothing stale, so a new group starts at the end of the topic
+    @KafkaListener(topics = "${app.cache.reference.invalidation-topic:reference-invalidation}",
+                   groupId = "${app.cache.reference.consumer-group:${spring.application.name}-reference-cache-${HOSTNAME:localhost}}",
+                   properties = "auto.offset.reset=latest")
+    public void onInvalidation(ReferenceInvalidationEvent event) {
+        evictLocal(event);
+    }
+
+    private void invalidate(ReferenceInvalidationEvent event) {
+        evictLocal(event);
+        try {
+            String key = redisKey(event.getType(), event.getCode());
+            redisTemplate.execute(EVICT, List.of(key, key + VERSION_SUFFIX),
+                    String.valueOf(versionOrZero(event.getVersion())), String.valueOf(l2TtlSeconds));
+        } catch (RuntimeException e) {
+            log.warn("Could not evict {} {} from Redis", event.getType(), event.getCode(), e);
+        }
+        kafkaTemplate.send(invalidationTopic, event.getType() + ":" + event.getId(), event)
+                .whenComplete((result, e) -> {
+                    if (e != null) {
+                        log.warn("Could not publish invalidation of {} {} (version {})",
+                                event.getType(), event.getCode(), event.getVersion(), e);
+                    }
+                });
+    }
+
+    private void evictLocal(ReferenceInvalidationEvent event) {
+        invalidations.increment();
+        // Other caches derived from the same rows evict on the local event
+        eventPublisher.publishEvent(event);
+        if (event.getType() == ReferenceType.BRANCH) {
+            branches.evict(event);
+        } else {
+            employees.evict(event);
+        }
+    }
+
+    private static long versionOrZero(Long version) {
+        return version != null ? version : 0L;
+    }
+
+    private static String redisKey(ReferenceType type, String code) {
+        return KEY_PREFIX + type.name().toLowerCase() + ":" + code;
+    }
+
+    /**
+     * One kind of reference: its L1 cache, the id-to-code index of what L1 holds and the minimum versions
+     * learnt from invalidations
+     */
+    private final class ReferenceTier<T> {
+
+        private final ReferenceType type;
+
+        private final String tag;
+
+        private final Class<T> valueType;
+
+        private final Function<T, Long> idOf;
+
+        private final Function<T, Long> versionOf;
+
+        private final Map<Long, String> codesById = new ConcurrentHashMap<>();
+
+        private final Cache<String, T> cache;
+
+        private final Cache<String, Long> minimumVersions;
+
+        private ReferenceTier(ReferenceType type, Class<T> valueType, Function<T, Long> idOf, Function<T, Long> versionOf) {
+            this.type = type;
+            this.tag = type.name().toLowerCase();
+            this.valueType = valueType;
+            this.idOf = idOf;
+            this.versionOf = versionOf;
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(l1MaxSize)
+                    .expireAfterWrite(Duration.ofSeconds(l1TtlSeconds))
+                    // Runs atomically with size and expiry evictions; explicit invalidations update the index themselves
+                    .<String, T>evictionListener((code, value, cause) -> {
+                        if (value != null) {
+                            codesById.remove(idOf.apply(value), code);
+                        }
+                    })
+                    .recordStats()
+                    .build();
+            this.minimumVersions = Caffeine.newBuilder()
+                    .maximumSize(l1MaxSize)
+                    .expireAfterWrite(Duration.ofSeconds(Math.max(l1TtlSeconds, l2TtlSeconds)))
+                    .build();
+        }
+
+        Optional<T> find(String code, Supplier<Optional<T>> database) {
+            T value = cache.get(code, key -> load(key, database));
+            if (value == null) {
+                return Optional.empty();
+            }
+            if (isStale(code, value)) {
+                // Loaded before an invalidation that raced with it: serve it this once, do not keep it
+                cache.asMap().remove(code, value);
+            } else {
+                codesById.put(idOf.apply(value), code);
+            }
+            return Optional.of(value);
+        }
+
+        void evict(ReferenceInvalidationEvent event) {
+            String code = event.getCode();
+            if (code != null) {
+                if (event.getVersion() != null) {
+                    minimumVersions.asMap().merge(code, event.getVersion(), Math::max);
+                }
+                cache.invalidate(code);
+            }
+            // The cached entry may sit under the previous code when the business code itself was changed
+            String cachedCode = event.getId() != null ? codesById.remove(event.getId()) : null;
+            if (cachedCode != null && !cachedCode.equals(code)) {
+                cache.invalidate(cachedCode);
+            }
+        }
+
+        private boolean isStale(String code, T value) {
+            Long minimum = minimumVersions.getIfPresent(code);
+            return minimum != null && versionOrZero(versionOf.apply(value)) < minimum;
+        }
+
+        private T load(String code, Supplier<Optional<T>> database) {
+            String key = redisKey(type, code);
+            try {
+                String json = redisTemplate.opsForValue().get(key);
+                if (json != null) {
+                    T cached = objectMapper.readValue(json, valueType);
+                    if (!isStale(code, cached)) {
+                        meterRegistry.counter("reference.cache.l2", "cache", tag, "result", "hit").increment();
+                        return cached;
+                    }
+                }
+            } catch (Exception e) {
+                log.debug("Redis read of {} failed: {}", key, e.getMessage());
+            }
+            meterRegistry.counter("reference.cache.l2", "cache", tag, "result", "miss").increment();
+
+            T loaded = database.get().orElse(null);
+            if (loaded != null && !isStale(code, loaded)) {
+                try {
+                    Long written = redisTemplate.execute(WRITE_IF_CURRENT, List.of(key, key + VERSION_SUFFIX),
+                            objectMapper.writeValueAsString(loaded), String.valueOf(versionOrZero(versionOf.apply(loaded))),
+                            String.valueOf(l2TtlSeconds));
+                    if (written != null && written == 0) {
+                        log.debug("Not caching {} {} in Redis: a newer version was evicted", type, code);
+                    }
+                } catch (Exception e) {
+                    log.debug("Redis write of {} failed: {}", key, e.getMessage());
+                }
+            }
+            return loaded;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.entity.Branch;
+import com.attendance.payroll.entity.Employee;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import static com.attendance.payroll.util.TransactionCallbacks.afterCommit;
+
+/**
+ * JPA callbacks keeping the search index in step with employee and branch writes
+ *
+ * Changes are applied after the surrounding transaction commits, so a rollback never leaks into search
+ * results. Soft-deleted and deactivated rows are removed from the index; if an update fails, the periodic
+ * rebuild repairs the index.
+ */
+@Component
+public class SearchIndexEntityListener {
+
+    @Autowired
+    @Lazy
+    private SearchIndexService searchIndexService;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        if (entity instanceof Employee employee) {
+            afterCommit(() -> searchIndexService.indexEmployee(employee));
+        } else if (entity instanceof Branch branch) {
+            afterCommit(() -> searchIndexService.indexBranch(branch));
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        if (entity instanceof Employee employee) {
+            Long id = employee.getId();
+            afterCommit(() -> searchIndexService.removeEmployee(id));
+        } else if (entity instanceof Branch branch) {
+            Long id = branch.getId();
+            afterCommit(() -> searchIndexService.removeBranch(id));
+        }
+    }
+}
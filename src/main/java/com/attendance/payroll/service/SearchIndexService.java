@@ -0,0 +1,241 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.dto.BranchSearchDocument;
+import com.attendance.payroll.dto.EmployeeSearchDocument;
+import com.attendance.payroll.entity.Branch;
+import com.attendance.payroll.entity.Employee;
+import com.attendance.payroll.repository.BranchRepository;
+import com.attendance.payroll.repository.EmployeeRepository;
+import com.attendance.payroll.util.NGramIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Type-ahead search over employees and branches backed by in-memory trigram indexes
+ *
+ * Employees are indexed on first name, last name, email and employee ID; branches on name and location.
+ * The indexes are loaded once the application is ready, kept current by {@link SearchIndexEntityListener}
+ * and rebuilt periodically to pick up rows changed by bulk statements, which bypass entity callbacks.
+ * Listener updates arriving while a rebuild reads the database are applied to the live indexes and also
+ * recorded, then replayed onto the rebuilt indexes before they are swapped in, so none is lost.
+ * With {@code app.search.index.enabled=false}, or while the indexes are still loading and
+ * {@code app.search.index.db-fallback} is set, searches go to the {@code findBySearchTerm} queries instead.
+ */
+@Service
+@Slf4j
+public class SearchIndexService {
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private BranchRepository branchRepository;
+
+    @Value("${app.search.index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.search.index.db-fallback:true}")
+    private boolean dbFallback;
+
+    private volatile NGramIndex employeeIndex = new NGramIndex();
+
+    private volatile NGramIndex branchIndex = new NGramIndex();
+
+    private volatile boolean ready;
+
+    // Guards swapping the indexes and the change logs kept while a rebuild is loading
+    private final Object updateLock = new Object();
+
+    private List<Consumer<NGramIndex>> employeeChanges;
+
+    private List<Consumer<NGramIndex>> branchChanges;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Search index is disabled, searches use the database");
+            return;
+        }
+        rebuild();
+    }
+
+    /**
+     * Reload both indexes from the database and swap them in
+     */
+    @Scheduled(fixedDelayString = "${app.search.index.rebuild-interval-ms:3600000}",
+               initialDelayString = "${app.search.index.rebuild-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        long started = System.currentTimeMillis();
+        synchronized (updateLock) {
+            employeeChanges = new ArrayList<>();
+            branchChanges = new ArrayList<>();
+        }
+        try {
+            NGramIndex employees = new NGramIndex();
+            for (EmployeeSearchDocument document : employeeRepository.findSearchDocuments()) {
+                employees.put(document.getId(), document.getFirstName(), document.getLastName(),
+                        document.getEmail(), document.getEmployeeId());
+            }
+            NGramIndex branches = new NGramIndex();
+            for (BranchSearchDocument document : branchRepository.findSearchDocuments()) {
+                branches.put(document.getId(), document.getName(), document.getLocation());
+            }
+
+            int replayed;
+            synchronized (updateLock) {
+                // Changes seen during the load may be newer than the rows it read
+                employeeChanges.forEach(change -> change.accept(employees));
+                branchChanges.forEach(change -> change.accept(branches));
+                replayed = employeeChanges.size() + branchChanges.size();
+                employeeIndex = employees;
+                branchIndex = branches;
+            }
+            ready = true;
+            log.info("Search index built with {} employees and {} branches in {} ms ({} updates replayed)",
+                    employees.size(), branches.size(), System.currentTimeMillis() - started, replayed);
+        } finally {
+            synchronized (updateLock) {
+                employeeChanges = null;
+                branchChanges = null;
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Ranked IDs of active employees matching the term
+     */
+    public Page<Long> searchEmployeeIds(String searchTerm, Pageable pageable) {
+        if (!useIndex()) {
+            return employeeRepository.findBySearchTerm(searchTerm, pageable).map(Employee::getId);
+        }
+        return search(employeeIndex, searchTerm, pageable);
+    }
+
+    /**
+     * Ranked IDs of active branches matching the term
+     */
+    public Page<Long> searchBranchIds(String searchTerm, Pageable pageable) {
+        if (!useIndex()) {
+            return branchRepository.findBySearchTerm(searchTerm, pageable).map(Branch::getId);
+        }
+        return search(branchIndex, searchTerm, pageable);
+    }
+
+    public Page<Employee> searchEmployees(String searchTerm, Pageable pageable) {
+        if (!useIndex()) {
+            return employeeRepository.findBySearchTerm(searchTerm, pageable);
+        }
+        return load(searchEmployeeIds(searchTerm, pageable), employeeRepository, Employee::getId);
+    }
+
+    public Page<Branch> searchBranches(String searchTerm, Pageable pageable) {
+        if (!useIndex()) {
+            return branchRepository.findBySearchTerm(searchTerm, pageable);
+        }
+        return load(searchBranchIds(searchTerm, pageable), branchRepository, Branch::getId);
+    }
+
+    public void indexEmployee(Employee employee) {
+        Long id = employee.getId();
+        if (employee.isActive()) {
+            String firstName = employee.getFirstName();
+            String lastName = employee.getLastName();
+            String email = employee.getEmail();
+            String employeeId = employee.getEmployeeId();
+            updateEmployees(index -> index.put(id, firstName, lastName, email, employeeId));
+        } else {
+            updateEmployees(index -> index.remove(id));
+        }
+    }
+
+    public void removeEmployee(Long id) {
+        updateEmployees(index -> index.remove(id));
+    }
+
+    public void indexBranch(Branch branch) {
+        Long id = branch.getId();
+        if (branch.isActive()) {
+            String name = branch.getName();
+            String location = branch.getLocation();
+            updateBranches(index -> index.put(id, name, location));
+        } else {
+            updateBranches(index -> index.remove(id));
+        }
+    }
+
+    public void removeBranch(Long id) {
+        updateBranches(index -> index.remove(id));
+    }
+
+    private void updateEmployees(Consumer<NGramIndex> change) {
+        synchronized (updateLock) {
+            change.accept(employeeIndex);
+            if (employeeChanges != null) {
+                employeeChanges.add(change);
+            }
+        }
+    }
+
+    private void updateBranches(Consumer<NGramIndex> change) {
+        synchronized (updateLock) {
+            change.accept(branchIndex);
+            if (branchChanges != null) {
+                branchChanges.add(change);
+            }
+        }
+    }
+
+    private boolean useIndex() {
+        if (!enabled) {
+            return false;
+        }
+        if (!ready) {
+            if (dbFallback) {
+                return false;
+            }
+            throw new RuntimeException("Search index is still loading");
+        }
+        return true;
+    }
+
+    private Page<Long> search(NGramIndex index, String searchTerm, Pageable pageable) {
+        NGramIndex.Hits hits = pageable.isPaged()
+                ? index.search(searchTerm, (int) pageable.getOffset(), pageable.getPageSize())
+                : index.search(searchTerm, 0, Integer.MAX_VALUE);
+        return new PageImpl<>(hits.getIds(), pageable, hits.getTotal());
+    }
+
+    private <T> Page<T> load(Page<Long> ids, JpaRepository<T, Long> repository, Function<T, Long> idOf) {
+        Map<Long, T> byId = repository.findAllById(ids.getContent()).stream()
+                .collect(Collectors.toMap(idOf, entity -> entity));
+        List<T> ordered = ids.getContent().stream()
+                .map(byId::get)
+                .filter(entity -> entity != null)
+                .collect(Collectors.toList());
+        return new PageImpl<>(ordered, ids.getPageable(), ids.getTotalElements());
+    }
+}
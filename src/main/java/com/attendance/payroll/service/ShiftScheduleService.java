@@ -0,0 +1,112 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.dto.EmployeePunchProfile;
+import com.attendance.payroll.dto.EmployeeWorkingDay;
+import com.attendance.payroll.event.ReferenceInvalidationEvent;
+import com.attendance.payroll.repository.EmployeeRepository;
+import com.attendance.payroll.util.ShiftSchedule;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled shift schedules of employees, cached by employee id
+ *
+ * Misses of a batch are compiled together from the punch profiles already loaded and one query for the working
+ * days of all of them, instead of one collection load per employee. Entries are dropped when the employee (or,
+ * for branch hours, any branch) changes on any node, through the reference cache invalidations, and expire
+ * after {@code app.cache.schedule.ttl-seconds} in case an invalidation is lost.
+ */
+@Service
+@Slf4j
+public class ShiftScheduleService {
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.cache.schedule.max-size:100000}")
+    private long maxSize;
+
+    @Value("${app.cache.schedule.ttl-seconds:3600}")
+    private long ttlSeconds;
+
+    @Value("${app.payroll.late-arrival-tolerance-minutes:15}")
+    private int lateToleranceMinutes;
+
+    @Value("${app.payroll.early-departure-tolerance-minutes:15}")
+    private int earlyDepartureToleranceMinutes;
+
+    private Cache<Long, ShiftSchedule> schedules;
+
+    @PostConstruct
+    void init() {
+        schedules = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, schedules, "shift.schedule");
+    }
+
+    /**
+     * Schedules of the given employees by employee id
+     */
+    public Map<Long, ShiftSchedule> getSchedules(Collection<EmployeePunchProfile> profiles) {
+        Map<Long, ShiftSchedule> result = new HashMap<>();
+        List<EmployeePunchProfile> missing = new ArrayList<>();
+        for (EmployeePunchProfile profile : profiles) {
+            ShiftSchedule schedule = schedules.getIfPresent(profile.getId());
+            if (schedule != null) {
+                result.put(profile.getId(), schedule);
+            } else {
+                missing.add(profile);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, List<String>> workingDays = new HashMap<>();
+        List<Long> ids = missing.stream().map(EmployeePunchProfile::getId).toList();
+        for (EmployeeWorkingDay day : employeeRepository.findWorkingDaysByIds(ids)) {
+            workingDays.computeIfAbsent(day.getEmployeeId(), id -> new ArrayList<>()).add(day.getWorkingDay());
+        }
+        for (EmployeePunchProfile profile : missing) {
+            ShiftSchedule schedule = ShiftSchedule.compile(profile.getShiftStartTime(), profile.getShiftEndTime(),
+                    profile.getBranchWorkingHoursStart(), profile.getBranchWorkingHoursEnd(),
+                    workingDays.get(profile.getId()), lateToleranceMinutes, earlyDepartureToleranceMinutes);
+            schedules.put(profile.getId(), schedule);
+            result.put(profile.getId(), schedule);
+        }
+        return result;
+    }
+
+    /**
+     * Drop schedules of changed employees; a changed branch may move the fallback hours of all its staff
+     */
+    @EventListener
+    public void onReferenceInvalidation(ReferenceInvalidationEvent event) {
+        if (event.getType() == ReferenceInvalidationEvent.ReferenceType.EMPLOYEE) {
+            schedules.invalidate(event.getId());
+        } else {
+            schedules.invalidateAll();
+        }
+    }
+}
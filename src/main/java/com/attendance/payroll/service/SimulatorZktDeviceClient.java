@@ -0,0 +1,99 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.dto.DevicePunch;
+import com.attendance.payroll.entity.Attendance;
+import com.attendance.payroll.entity.Device;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Line-oriented TCP client for the ZktDeviceSimulator in the benchmarks module
+ *
+ * This is NOT the ZKTeco device protocol: real terminals speak the binary ZK protocol on port 4370
+ * (CMD_CONNECT session handshake, CMD_ATTLOG_RRQ with chunked data preparation, checksummed packets), which is
+ * not implemented here. The client exists to load-test polling and ingestion against simulated devices and is
+ * only created with {@code app.zkteco.transport=simulator}; without a transport, device polling stays off.
+ *
+ * Request:  {@code LOGS <since ISO-8601 local date-time | ->}
+ * Response: one {@code <employeeId>,<ISO-8601 local date-time>,<BiometricMethod>} line per punch, then {@code END}
+ */
+@Component
+@ConditionalOnProperty(name = "app.zkteco.transport", havingValue = "simulator")
+@Slf4j
+public class SimulatorZktDeviceClient implements ZktDeviceClient {
+
+    public static final String LOGS_COMMAND = "LOGS";
+
+    public static final String END_MARKER = "END";
+
+    public static final String ERROR_PREFIX = "ERR";
+
+    @Value("${app.zkteco.connection-timeout:5000}")
+    private int defaultConnectionTimeout;
+
+    @Value("${app.zkteco.read-timeout:3000}")
+    private int defaultReadTimeout;
+
+    @PostConstruct
+    void warn() {
+        log.warn("ZKTeco polling uses the simulator line protocol; real ZKTeco devices will not answer it");
+    }
+
+    @Override
+    public List<DevicePunch> fetchPunches(Device device, LocalDateTime since) throws IOException {
+        int connectionTimeout = device.getConnectionTimeout() != null ? device.getConnectionTimeout() : defaultConnectionTimeout;
+        int readTimeout = device.getReadTimeout() != null ? device.getReadTimeout() : defaultReadTimeout;
+
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(device.getIpAddress(), device.getPort()), connectionTimeout);
+            socket.setSoTimeout(readTimeout);
+
+            Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII);
+            writer.write(LOGS_COMMAND + " " + (since != null ? since.toString() : "-") + "\n");
+            writer.flush();
+
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            List<DevicePunch> punches = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.equals(END_MARKER)) {
+                    return punches;
+                }
+                if (line.startsWith(ERROR_PREFIX)) {
+                    throw new IOException("Device " + device.getDeviceId() + " returned error: " + line);
+                }
+                punches.add(parsePunch(device.getDeviceId(), line));
+            }
+            throw new IOException("Device " + device.getDeviceId() + " closed the connection before " + END_MARKER);
+        }
+    }
+
+    private DevicePunch parsePunch(String deviceId, String line) throws IOException {
+        String[] fields = line.split(",", 3);
+        if (fields.length != 3) {
+            throw new IOException("Malformed punch line from device " + deviceId + ": " + line);
+        }
+        try {
+            return new DevicePunch(deviceId, fields[0], LocalDateTime.parse(fields[1]),
+                    Attendance.BiometricMethod.valueOf(fields[2]));
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed punch line from device " + deviceId + ": " + line, e);
+        }
+    }
+}
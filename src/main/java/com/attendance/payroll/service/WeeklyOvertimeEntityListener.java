@@ -0,0 +1,48 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.entity.Attendance;
+import com.attendance.payroll.util.WeeklyOvertimeWindow;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+import static com.attendance.payroll.util.TransactionCallbacks.afterCommit;
+
+/**
+ * JPA callbacks replaying the overtime week of an attendance row changed outside punch ingestion
+ *
+ * Replayed after commit, so the week is read with the correction in it. An edit that moves the row to another
+ * employee or week replays the week it left as well, which lost the row's hours.
+ */
+@Component
+public class WeeklyOvertimeEntityListener {
+
+    @Autowired
+    @Lazy
+    private WeeklyOvertimeService weeklyOvertimeService;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Attendance attendance) {
+        if (attendance.getEmployee() == null || attendance.getAttendanceDate() == null) {
+            return;
+        }
+        Long employeeId = attendance.getEmployee().getId();
+        LocalDate date = attendance.getAttendanceDate();
+        Long previousEmployeeId = attendance.getPersistedEmployeeId();
+        LocalDate previousDate = attendance.getPersistedAttendanceDate();
+        afterCommit(() -> {
+            weeklyOvertimeService.replayWeek(employeeId, date);
+            if (previousEmployeeId != null && previousDate != null && (!previousEmployeeId.equals(employeeId)
+                    || !WeeklyOvertimeWindow.weekStart(previousDate).equals(WeeklyOvertimeWindow.weekStart(date)))) {
+                weeklyOvertimeService.replayWeek(previousEmployeeId, previousDate);
+            }
+        });
+    }
+}
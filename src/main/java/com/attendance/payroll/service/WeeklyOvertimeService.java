@@ -0,0 +1,227 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.dto.AttendanceDayHours;
+import com.attendance.payroll.dto.BranchDay;
+import com.attendance.payroll.dto.EmployeeWeek;
+import com.attendance.payroll.dto.OvertimeAdjustment;
+import com.attendance.payroll.dto.UpsertedAttendance;
+import com.attendance.payroll.repository.AttendanceJdbcRepository;
+import com.attendance.payroll.repository.PayrollRecordJdbcRepository;
+import com.attendance.payroll.util.WeeklyOvertimeWindow;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Weekly overtime: hours beyond {@code app.payroll.overtime-threshold-hours} in a Monday-to-Sunday week
+ *
+ * The current week of every employee is kept in memory as a {@link WeeklyOvertimeWindow}, so an ingested row
+ * updates its own overtime and that of the later days of its week without reading the week back. Windows are
+ * loaded with one query for all employees of a batch whose week is not cached (a new week, a late punch for an
+ * older week, a restart). Overtime changes are applied as deltas to pending (DRAFT, CALCULATED) payroll
+ * records of the month, so PayrollRecord.overtimeHours follows without re-aggregating the month.
+ * Manual corrections go through JPA and replay only the affected week from the database; days with a manual
+ * override keep their overtime through every recomputation.
+ */
+@Service
+@Slf4j
+public class WeeklyOvertimeService {
+
+    @Autowired
+    private AttendanceJdbcRepository attendanceJdbcRepository;
+
+    @Autowired
+    private PayrollRecordJdbcRepository payrollRecordJdbcRepository;
+
+    @Autowired
+    private BranchDailySummaryService branchDailySummaryService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.payroll.overtime-threshold-hours:40}")
+    private double thresholdHours;
+
+    // Latest week of each employee, as committed
+    private final Map<Long, WeeklyOvertimeWindow> windows = new ConcurrentHashMap<>();
+
+    // Bumped around every replay, so a batch that overlapped one does not cache what it read before it
+    private final AtomicLong replays = new AtomicLong();
+
+    private TransactionTemplate replayTemplate;
+
+    /**
+     * Windows updated by {@link #apply}, to pass to {@link #commit} once its transaction has committed
+     */
+    public static final class Update {
+
+        private final Map<Long, WeeklyOvertimeWindow> windows = new HashMap<>();
+
+        private final Set<BranchDay> changedDays = new HashSet<>();
+
+        private final long replayMark;
+
+        private Update(long replayMark) {
+            this.replayMark = replayMark;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        // Replays run after the correcting transaction has committed, so they need a transaction of their own
+        replayTemplate = new TransactionTemplate(transactionManager);
+        replayTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Set the overtime of freshly upserted rows and write the overtime they move on other days of their week
+     * Runs in the caller's transaction; the rows' own overtime is written by the caller with the other derived fields
+     */
+    public Update apply(List<UpsertedAttendance> rows) {
+        Update update = new Update(replays.get());
+        Map<EmployeeWeek, List<UpsertedAttendance>> rowsByWeek = new LinkedHashMap<>();
+        for (UpsertedAttendance row : rows) {
+            EmployeeWeek week = new EmployeeWeek(row.getEmployeeId(), WeeklyOvertimeWindow.weekStart(row.getAttendanceDate()));
+            rowsByWeek.computeIfAbsent(week, key -> new ArrayList<>()).add(row);
+        }
+
+        Map<EmployeeWeek, WeeklyOvertimeWindow> stored = new HashMap<>();
+        List<EmployeeWeek> missing = new ArrayList<>();
+        for (EmployeeWeek week : rowsByWeek.keySet()) {
+            WeeklyOvertimeWindow cached = windows.get(week.getEmployeeId());
+            if (cached != null && cached.getWeekStart().equals(week.getWeekStart())) {
+                stored.put(week, cached);
+            } else {
+                missing.add(week);
+            }
+        }
+        stored.putAll(load(missing));
+
+        List<AttendanceDayHours> otherDays = new ArrayList<>();
+        Map<Long, Map<LocalDate, Double>> payrollDeltas = new LinkedHashMap<>();
+        rowsByWeek.forEach((week, weekRows) -> {
+            WeeklyOvertimeWindow before = stored.get(week);
+            WeeklyOvertimeWindow after = before.copy();
+            Set<LocalDate> rowDates = new HashSet<>();
+            for (UpsertedAttendance row : weekRows) {
+                after.put(row.getAttendanceDate(), row.getBranchId(), row.getTotalWorkingHours());
+                rowDates.add(row.getAttendanceDate());
+            }
+            for (UpsertedAttendance row : weekRows) {
+                row.setOvertimeHours(after.getOvertime(row.getAttendanceDate()));
+            }
+            collectChanges(week.getEmployeeId(), before, after, rowDates, otherDays, payrollDeltas, update.changedDays);
+            update.windows.merge(week.getEmployeeId(), after,
+                    (current, candidate) -> candidate.getWeekStart().isAfter(current.getWeekStart()) ? candidate : current);
+        });
+
+        attendanceJdbcRepository.updateOvertimeHours(otherDays);
+        payrollRecordJdbcRepository.addPendingOvertimeHours(toAdjustments(payrollDeltas));
+        return update;
+    }
+
+    /**
+     * Make the windows of an applied batch the cached state
+     */
+    public void commit(Update update) {
+        if (replays.get() != update.replayMark) {
+            update.windows.keySet().forEach(windows::remove);
+        } else {
+            update.windows.forEach((employeeId, window) -> windows.merge(employeeId, window,
+                    (current, candidate) -> candidate.getWeekStart().isBefore(current.getWeekStart()) ? current : candidate));
+        }
+        update.changedDays.forEach(day -> branchDailySummaryService.markDirty(day.getBranchId(), day.getDate()));
+    }
+
+    /**
+     * Recompute the overtime of the week containing the date from the stored rows, e.g. after a manual correction
+     */
+    public void replayWeek(Long employeeId, LocalDate date) {
+        EmployeeWeek week = new EmployeeWeek(employeeId, WeeklyOvertimeWindow.weekStart(date));
+        replays.incrementAndGet();
+        windows.remove(employeeId);
+        try {
+            Set<BranchDay> changedDays = new HashSet<>();
+            replayTemplate.executeWithoutResult(status -> {
+                WeeklyOvertimeWindow before = load(List.of(week)).get(week);
+                WeeklyOvertimeWindow after = before.copy();
+                after.recompute();
+
+                List<AttendanceDayHours> changed = new ArrayList<>();
+                Map<Long, Map<LocalDate, Double>> payrollDeltas = new LinkedHashMap<>();
+                collectChanges(employeeId, before, after, Set.of(), changed, payrollDeltas, changedDays);
+                attendanceJdbcRepository.updateOvertimeHours(changed);
+                payrollRecordJdbcRepository.addPendingOvertimeHours(toAdjustments(payrollDeltas));
+            });
+            changedDays.forEach(day -> branchDailySummaryService.markDirty(day.getBranchId(), day.getDate()));
+            if (!changedDays.isEmpty()) {
+                log.debug("Replayed overtime week {} of employee {}: {} days changed",
+                        week.getWeekStart(), employeeId, changedDays.size());
+            }
+        } finally {
+            replays.incrementAndGet();
+            windows.remove(employeeId);
+        }
+    }
+
+    private Map<EmployeeWeek, WeeklyOvertimeWindow> load(List<EmployeeWeek> weeks) {
+        Map<EmployeeWeek, WeeklyOvertimeWindow> loaded = new HashMap<>();
+        for (EmployeeWeek week : weeks) {
+            loaded.put(week, new WeeklyOvertimeWindow(week.getWeekStart(), thresholdHours));
+        }
+        for (AttendanceDayHours day : attendanceJdbcRepository.findWeekHours(weeks)) {
+            EmployeeWeek week = new EmployeeWeek(day.getEmployeeId(), WeeklyOvertimeWindow.weekStart(day.getAttendanceDate()));
+            WeeklyOvertimeWindow window = loaded.get(week);
+            if (window != null) {
+                window.load(day.getAttendanceDate(), day.getBranchId(), day.getWorkingHours(), day.getOvertimeHours(),
+                        day.isManualOverride());
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Collect the days whose overtime moved: rows to write (other than the ones in hand), payroll deltas
+     * per employee and month, and branch-days to refresh
+     */
+    private static void collectChanges(Long employeeId, WeeklyOvertimeWindow before, WeeklyOvertimeWindow after,
+                                       Set<LocalDate> rowDates, List<AttendanceDayHours> otherDays,
+                                       Map<Long, Map<LocalDate, Double>> payrollDeltas, Set<BranchDay> changedDays) {
+        for (LocalDate date : after.changedDays(before)) {
+            long branchId = after.getBranchId(date);
+            if (!rowDates.contains(date)) {
+                otherDays.add(new AttendanceDayHours(employeeId, branchId, date, after.getWorkingHours(date),
+                        after.getOvertime(date), false));
+                changedDays.add(new BranchDay(branchId, date));
+            }
+            payrollDeltas.computeIfAbsent(employeeId, id -> new LinkedHashMap<>())
+                    .merge(date.withDayOfMonth(1), after.overtimeDelta(before, date), Double::sum);
+        }
+    }
+
+    private static List<OvertimeAdjustment> toAdjustments(Map<Long, Map<LocalDate, Double>> payrollDeltas) {
+        List<OvertimeAdjustment> adjustments = new ArrayList<>();
+        payrollDeltas.forEach((employeeId, deltasByMonth) -> deltasByMonth.forEach((month, hours) -> {
+            if (hours != 0.0) {
+                adjustments.add(new OvertimeAdjustment(employeeId, month, hours));
+            }
+        }));
+        return adjustments;
+    }
+}
@@ -0,0 +1,21 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.dto.DevicePunch;
+import com.attendance.payroll.entity.Device;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Transport used to read attendance logs from a ZKTeco device
+ */
+public interface ZktDeviceClient {
+
+    /**
+     * Fetch punches recorded on the device after the given time
+     *
+     * @param since exclusive lower bound, or null to fetch the whole log
+     */
+    List<DevicePunch> fetchPunches(Device device, LocalDateTime since) throws IOException;
+}
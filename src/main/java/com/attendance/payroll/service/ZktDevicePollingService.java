@@ -0,0 +1,278 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.dto.DevicePunch;
+import com.attendance.payroll.entity.Device;
+import com.attendance.payroll.event.DevicePunchesReceivedEvent;
+import com.attendance.payroll.repository.BranchRepository;
+import com.attendance.payroll.repository.DeviceRepository;
+import com.attendance.payroll.util.VirtualThreads;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls every registered ZKTeco device for new punches
+ *
+ * Each device owns one lightweight task: the scheduler only decides when the next poll is due and the
+ * blocking socket I/O runs on a thread-per-task executor (virtual threads on JDK 21+). A device never
+ * has more than one poll in flight, so a slow or unreachable device only delays itself.
+ * Failures back off exponentially per device; after {@code app.zkteco.retry-attempts} consecutive
+ * failures the device's circuit opens and it is left alone until the open period expires.
+ * Punches the device returned but downstream refused (ingestion queue full, journal or broker down) say
+ * nothing about the device: its cursor stays put and it is polled again after a backoff of its own, without
+ * touching its failure count, circuit or status.
+ * Polling only runs when a {@link ZktDeviceClient} transport is configured ({@code app.zkteco.transport}).
+ * Devices come from the {@link DeviceRegistry}; each device's read cursor and status live on its own row.
+ */
+@Service
+@Slf4j
+public class ZktDevicePollingService {
+
+    @Autowired
+    private BranchRepository branchRepository;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private DeviceRegistry deviceRegistry;
+
+    @Autowired(required = false)
+    private ZktDeviceClient deviceClient;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.zkteco.retry-attempts:3}")
+    private int retryAttempts;
+
+    @Value("${app.zkteco.polling.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.zkteco.polling.interval-ms:30000}")
+    private long pollIntervalMs;
+
+    @Value("${app.zkteco.polling.max-backoff-ms:600000}")
+    private long maxBackoffMs;
+
+    @Value("${app.zkteco.polling.circuit-open-ms:300000}")
+    private long circuitOpenMs;
+
+    private final Map<String, DevicePollState> devices = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "zkt-poll-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ExecutorService pollers = VirtualThreads.newThreadPerTaskExecutor("zkt-poll");
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("ZKTeco device polling is disabled");
+            return;
+        }
+        if (deviceClient == null) {
+            log.warn("ZKTeco device polling is enabled but no device transport is configured (app.zkteco.transport)");
+            return;
+        }
+        refreshDevices();
+        log.info("ZKTeco device polling started for {} devices (virtual threads: {})",
+                devices.size(), VirtualThreads.isAvailable());
+    }
+
+    @PreDestroy
+    public void stop() {
+        devices.values().forEach(state -> state.stopped = true);
+        scheduler.shutdownNow();
+        pollers.shutdownNow();
+    }
+
+    /**
+     * Reconcile polling tasks with the devices currently configured on active branches
+     */
+    @Scheduled(fixedDelayString = "${app.zkteco.polling.refresh-interval-ms:300000}",
+               initialDelayString = "${app.zkteco.polling.refresh-interval-ms:300000}")
+    public void refreshDevices() {
+        if (!enabled || deviceClient == null) {
+            return;
+        }
+
+        Set<String> configured = new HashSet<>();
+        for (Device device : deviceRegistry.getDevices()) {
+            if (device.getStatus() == Device.DeviceStatus.MAINTENANCE) {
+                continue;
+            }
+            configured.add(device.getDeviceId());
+            devices.computeIfAbsent(device.getDeviceId(), id -> {
+                DevicePollState state = new DevicePollState(device);
+                schedule(state, ThreadLocalRandom.current().nextLong(Math.max(1, pollIntervalMs)));
+                return state;
+            });
+        }
+
+        devices.entrySet().removeIf(entry -> {
+            if (configured.contains(entry.getKey())) {
+                return false;
+            }
+            entry.getValue().stopped = true;
+            return true;
+        });
+    }
+
+    public int getDeviceCount() {
+        return devices.size();
+    }
+
+    public Map<String, Device.DeviceStatus> getDeviceStatuses() {
+        Map<String, Device.DeviceStatus> statuses = new ConcurrentHashMap<>();
+        devices.forEach((deviceId, state) -> statuses.put(deviceId, state.status));
+        return statuses;
+    }
+
+    private void schedule(DevicePollState state, long delayMs) {
+        if (state.stopped || scheduler.isShutdown()) {
+            return;
+        }
+        scheduler.schedule(() -> pollers.execute(() -> poll(state)), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void poll(DevicePollState state) {
+        if (state.stopped) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (state.circuitOpenUntil > now) {
+            schedule(state, state.circuitOpenUntil - now);
+            return;
+        }
+
+        List<DevicePunch> punches;
+        try {
+            punches = deviceClient.fetchPunches(state.device, state.lastPunchTime);
+        } catch (Exception e) {
+            schedule(state, onFailure(state, e));
+            return;
+        }
+
+        state.consecutiveFailures = 0;
+        state.circuitOpenUntil = 0;
+        updateStatus(state, Device.DeviceStatus.ONLINE);
+
+        try {
+            deliver(state, punches);
+            state.consecutiveRejections = 0;
+            schedule(state, pollIntervalMs);
+        } catch (RuntimeException e) {
+            schedule(state, onRejected(state, punches.size(), e));
+        }
+    }
+
+    private void deliver(DevicePollState state, List<DevicePunch> punches) {
+        if (punches.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime latest = state.lastPunchTime;
+        for (DevicePunch punch : punches) {
+            if (latest == null || punch.getPunchTime().isAfter(latest)) {
+                latest = punch.getPunchTime();
+            }
+        }
+
+        // The cursor only advances once the punches were accepted downstream
+        eventPublisher.publishEvent(new DevicePunchesReceivedEvent(state.branchId, state.device.getDeviceId(), punches));
+        state.lastPunchTime = latest;
+        deviceRepository.advanceLastPunchAt(state.device.getDeviceId(), latest);
+        branchRepository.updateLastSyncTimestamp(state.branchId, LocalDateTime.now());
+    }
+
+    private long onFailure(DevicePollState state, Exception e) {
+        int failures = ++state.consecutiveFailures;
+        if (failures >= retryAttempts) {
+            state.circuitOpenUntil = System.currentTimeMillis() + circuitOpenMs;
+            updateStatus(state, Device.DeviceStatus.ERROR);
+            log.warn("Device {} failed {} times in a row, circuit open for {} ms: {}",
+                    state.device.getDeviceId(), failures, circuitOpenMs, e.getMessage());
+            return circuitOpenMs;
+        }
+
+        updateStatus(state, Device.DeviceStatus.OFFLINE);
+        long backoff = Math.min(maxBackoffMs, pollIntervalMs << Math.min(failures, 20));
+        log.debug("Poll of device {} failed (attempt {}): {}", state.device.getDeviceId(), failures, e.getMessage());
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(Math.max(1, backoff / 2));
+    }
+
+    // Downstream is saturated or down; the device is fine, so only its next poll is pushed back
+    private long onRejected(DevicePollState state, int punches, RuntimeException e) {
+        int rejections = ++state.consecutiveRejections;
+        long backoff = Math.min(maxBackoffMs, pollIntervalMs << Math.min(rejections, 20));
+        if (rejections == 1) {
+            log.warn("{} punches from device {} were not accepted downstream, retrying later: {}",
+                    punches, state.device.getDeviceId(), e.getMessage());
+        } else {
+            log.debug("Punches from device {} not accepted downstream (attempt {}): {}",
+                    state.device.getDeviceId(), rejections, e.getMessage());
+        }
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(Math.max(1, backoff / 2));
+    }
+
+    private void updateStatus(DevicePollState state, Device.DeviceStatus status) {
+        if (state.status == status) {
+            return;
+        }
+        state.status = status;
+        try {
+            deviceRegistry.updateStatus(state.device.getDeviceId(), status);
+        } catch (RuntimeException e) {
+            log.warn("Could not persist status {} for device {}", status, state.device.getDeviceId(), e);
+        }
+    }
+
+    private static final class DevicePollState {
+
+        private final Long branchId;
+
+        private final Device device;
+
+        private volatile Device.DeviceStatus status;
+
+        private volatile LocalDateTime lastPunchTime;
+
+        private volatile int consecutiveFailures;
+
+        private volatile int consecutiveRejections;
+
+        private volatile long circuitOpenUntil;
+
+        private volatile boolean stopped;
+
+        private DevicePollState(Device device) {
+            this.branchId = device.getBranchId();
+            this.device = device;
+            this.status = device.getStatus();
+            this.lastPunchTime = device.getLastPunchAt();
+        }
+    }
+}
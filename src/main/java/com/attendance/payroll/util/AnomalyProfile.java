@@ -0,0 +1,322 @@
+package com.attendance.payroll.util;
+
+import java.nio.ByteBuffer;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Running attendance statistics of one employee, used to score new attendance rows in constant time
+ *
+ * Keeps exponentially weighted means and variances of check-in time (overall and per weekday), check-out
+ * time and working hours, plus an exponentially weighted risk score. With a smoothing window of N days each
+ * observation has weight 2 / (N + 1), so older behaviour fades out without keeping any history.
+ * A day is folded into the statistics once: its check-in when the day is first seen, its check-out and hours
+ * when a later day arrives, because the last punch of a day can still move until then.
+ * Re-scoring the latest day (more punches arrived) replaces that day's contribution to the risk score instead
+ * of adding another one. The whole state serializes to about 170 bytes.
+ */
+public class AnomalyProfile {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final int DAYS = 7;
+
+    // Lower bounds on the standard deviations, so very regular employees are not flagged for a few minutes
+    private static final double MIN_TIME_STD_MINUTES = 10.0;
+
+    private static final double MIN_HOURS_STD = 0.5;
+
+    // z-score at which the score reaches 0.5; a z of twice this scores 0.8
+    private static final double HALF_SCORE_Z = 2.0;
+
+    private int observations;
+
+    private double checkInMean;
+
+    private double checkInVariance;
+
+    private final int[] weekdayObservations = new int[DAYS];
+
+    private final double[] weekdayCheckInMean = new double[DAYS];
+
+    private final double[] weekdayCheckInVariance = new double[DAYS];
+
+    private int checkOutObservations;
+
+    private double checkOutMean;
+
+    private double checkOutVariance;
+
+    private double hoursMean;
+
+    private double hoursVariance;
+
+    private double riskScore;
+
+    private long lastCheckInDay = Long.MIN_VALUE;
+
+    private long pendingDay = Long.MIN_VALUE;
+
+    private long scoredDay = Long.MIN_VALUE;
+
+    private double scoredDayScore;
+
+    private double pendingCheckOut = Double.NaN;
+
+    private double pendingHours = Double.NaN;
+
+    /**
+     * Outcome of scoring one attendance row
+     */
+    public static final class Score {
+
+        private final double value;
+
+        private final String reason;
+
+        Score(double value, String reason) {
+            this.value = value;
+            this.reason = reason;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        /**
+         * The dominant deviation, or null when nothing stands out
+         */
+        public String getReason() {
+            return reason;
+        }
+    }
+
+    /**
+     * Score a row against the statistics so far, then fold it in
+     *
+     * @param windowDays      smoothing window in days
+     * @param minObservations observations required before a statistic contributes to the score
+     */
+    public Score observe(LocalDate date, LocalDateTime checkIn, LocalDateTime checkOut, double workingHours,
+                         int windowDays, int minObservations) {
+        long day = date.toEpochDay();
+        int weekday = date.getDayOfWeek().getValue() - 1;
+        double alpha = 2.0 / (Math.max(1, windowDays) + 1);
+
+        if (pendingDay != Long.MIN_VALUE && day > pendingDay) {
+            foldPending(alpha);
+        }
+
+        double worstZ = 0.0;
+        String reason = null;
+        if (checkIn != null) {
+            double minutes = minutesOfDay(checkIn);
+            double z;
+            if (weekdayObservations[weekday] >= minObservations) {
+                z = zScore(minutes, weekdayCheckInMean[weekday], weekdayCheckInVariance[weekday], MIN_TIME_STD_MINUTES);
+            } else if (observations >= minObservations) {
+                z = zScore(minutes, checkInMean, checkInVariance, MIN_TIME_STD_MINUTES);
+            } else {
+                z = 0.0;
+            }
+            if (z > worstZ) {
+                worstZ = z;
+                reason = "Unusual check-in time for " + DayOfWeek.of(weekday + 1);
+            }
+            if (day > lastCheckInDay) {
+                observeCheckIn(minutes, weekday, alpha);
+                lastCheckInDay = day;
+            }
+        }
+
+        if (checkOut != null) {
+            double minutes = minutesOfDay(checkOut);
+            if (checkOutObservations >= minObservations) {
+                double z = zScore(minutes, checkOutMean, checkOutVariance, MIN_TIME_STD_MINUTES);
+                if (z > worstZ) {
+                    worstZ = z;
+                    reason = "Unusual check-out time";
+                }
+                z = zScore(workingHours, hoursMean, hoursVariance, MIN_HOURS_STD);
+                if (z > worstZ) {
+                    worstZ = z;
+                    reason = "Unusual working hours";
+                }
+            }
+            if (day >= pendingDay) {
+                pendingDay = day;
+                pendingCheckOut = minutes;
+                pendingHours = workingHours;
+            }
+        }
+
+        double score = worstZ * worstZ / (worstZ * worstZ + HALF_SCORE_Z * HALF_SCORE_Z);
+        if (day == scoredDay) {
+            riskScore += alpha * (score - scoredDayScore);
+        } else if (day > scoredDay) {
+            riskScore += alpha * (score - riskScore);
+        }
+        if (day >= scoredDay) {
+            scoredDay = day;
+            scoredDayScore = score;
+        }
+        return new Score(score, reason);
+    }
+
+    public int getObservations() {
+        return observations;
+    }
+
+    public double getRiskScore() {
+        return riskScore;
+    }
+
+    public LocalDate getLastObservedDate() {
+        return scoredDay == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(scoredDay);
+    }
+
+    /**
+     * A full-precision copy; only {@link #encode()} narrows statistics to float, when the state is persisted
+     */
+    public AnomalyProfile copy() {
+        AnomalyProfile copy = new AnomalyProfile();
+        copy.observations = observations;
+        copy.checkInMean = checkInMean;
+        copy.checkInVariance = checkInVariance;
+        System.arraycopy(weekdayObservations, 0, copy.weekdayObservations, 0, DAYS);
+        System.arraycopy(weekdayCheckInMean, 0, copy.weekdayCheckInMean, 0, DAYS);
+        System.arraycopy(weekdayCheckInVariance, 0, copy.weekdayCheckInVariance, 0, DAYS);
+        copy.checkOutObservations = checkOutObservations;
+        copy.checkOutMean = checkOutMean;
+        copy.checkOutVariance = checkOutVariance;
+        copy.hoursMean = hoursMean;
+        copy.hoursVariance = hoursVariance;
+        copy.riskScore = riskScore;
+        copy.lastCheckInDay = lastCheckInDay;
+        copy.pendingDay = pendingDay;
+        copy.scoredDay = scoredDay;
+        copy.scoredDayScore = scoredDayScore;
+        copy.pendingCheckOut = pendingCheckOut;
+        copy.pendingHours = pendingHours;
+        return copy;
+    }
+
+    public byte[] encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 4 * (2 + DAYS) + 8 * 5 + 4 * (DAYS * 2 + 8));
+        buffer.put(FORMAT_VERSION);
+        buffer.putInt(observations);
+        buffer.putInt(checkOutObservations);
+        for (int count : weekdayObservations) {
+            buffer.putInt(count);
+        }
+        buffer.putLong(lastCheckInDay);
+        buffer.putLong(pendingDay);
+        buffer.putLong(scoredDay);
+        buffer.putDouble(riskScore);
+        buffer.putDouble(checkInMean);
+        buffer.putFloat((float) checkInVariance);
+        for (int i = 0; i < DAYS; i++) {
+            buffer.putFloat((float) weekdayCheckInMean[i]);
+            buffer.putFloat((float) weekdayCheckInVariance[i]);
+        }
+        buffer.putFloat((float) checkOutMean);
+        buffer.putFloat((float) checkOutVariance);
+        buffer.putFloat((float) hoursMean);
+        buffer.putFloat((float) hoursVariance);
+        buffer.putFloat((float) pendingCheckOut);
+        buffer.putFloat((float) pendingHours);
+        buffer.putFloat((float) scoredDayScore);
+        return buffer.array();
+    }
+
+    public static AnomalyProfile decode(byte[] state) {
+        AnomalyProfile profile = new AnomalyProfile();
+        if (state == null || state.length == 0) {
+            return profile;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(state);
+        if (buffer.get() != FORMAT_VERSION) {
+            // Unknown layout: start over rather than misread it
+            return profile;
+        }
+        profile.observations = buffer.getInt();
+        profile.checkOutObservations = buffer.getInt();
+        for (int i = 0; i < DAYS; i++) {
+            profile.weekdayObservations[i] = buffer.getInt();
+        }
+        profile.lastCheckInDay = buffer.getLong();
+        profile.pendingDay = buffer.getLong();
+        profile.scoredDay = buffer.getLong();
+        profile.riskScore = buffer.getDouble();
+        profile.checkInMean = buffer.getDouble();
+        profile.checkInVariance = buffer.getFloat();
+        for (int i = 0; i < DAYS; i++) {
+            profile.weekdayCheckInMean[i] = buffer.getFloat();
+            profile.weekdayCheckInVariance[i] = buffer.getFloat();
+        }
+        profile.checkOutMean = buffer.getFloat();
+        profile.checkOutVariance = buffer.getFloat();
+        profile.hoursMean = buffer.getFloat();
+        profile.hoursVariance = buffer.getFloat();
+        profile.pendingCheckOut = buffer.getFloat();
+        profile.pendingHours = buffer.getFloat();
+        profile.scoredDayScore = buffer.getFloat();
+        return profile;
+    }
+
+    private void observeCheckIn(double minutes, int weekday, double alpha) {
+        if (observations == 0) {
+            checkInMean = minutes;
+        } else {
+            double diff = minutes - checkInMean;
+            double increment = alpha * diff;
+            checkInMean += increment;
+            checkInVariance = (1 - alpha) * (checkInVariance + diff * increment);
+        }
+        observations++;
+
+        if (weekdayObservations[weekday] == 0) {
+            weekdayCheckInMean[weekday] = minutes;
+        } else {
+            // A weekday recurs once a week, so its window is a seventh as many observations
+            double weekdayAlpha = Math.min(1.0, alpha * DAYS);
+            double diff = minutes - weekdayCheckInMean[weekday];
+            double increment = weekdayAlpha * diff;
+            weekdayCheckInMean[weekday] += increment;
+            weekdayCheckInVariance[weekday] = (1 - weekdayAlpha) * (weekdayCheckInVariance[weekday] + diff * increment);
+        }
+        weekdayObservations[weekday]++;
+    }
+
+    private void foldPending(double alpha) {
+        if (!Double.isNaN(pendingCheckOut)) {
+            if (checkOutObservations == 0) {
+                checkOutMean = pendingCheckOut;
+                hoursMean = pendingHours;
+            } else {
+                double diff = pendingCheckOut - checkOutMean;
+                double increment = alpha * diff;
+                checkOutMean += increment;
+                checkOutVariance = (1 - alpha) * (checkOutVariance + diff * increment);
+
+                diff = pendingHours - hoursMean;
+                increment = alpha * diff;
+                hoursMean += increment;
+                hoursVariance = (1 - alpha) * (hoursVariance + diff * increment);
+            }
+            checkOutObservations++;
+        }
+        pendingDay = Long.MIN_VALUE;
+        pendingCheckOut = Double.NaN;
+        pendingHours = Double.NaN;
+    }
+
+    private static double zScore(double value, double mean, double variance, double minStd) {
+        return Math.abs(value - mean) / Math.max(minStd, Math.sqrt(Math.max(0.0, variance)));
+    }
+
+    private static double minutesOfDay(LocalDateTime time) {
+        return time.getHour() * 60 + time.getMinute() + time.getSecond() / 60.0;
+    }
+}
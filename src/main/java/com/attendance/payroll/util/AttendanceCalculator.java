@@ -0,0 +1,52 @@
+package com.attendance.payroll.util;
+
+import com.attendance.payroll.entity.Attendance;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Stateless working-time calculations for attendance rows
+ */
+public final class AttendanceCalculator {
+
+    private AttendanceCalculator() {
+    }
+
+    public static double workingHours(LocalDateTime checkIn, LocalDateTime checkOut) {
+        if (checkIn == null || checkOut == null || !checkOut.isAfter(checkIn)) {
+            return 0.0;
+        }
+        return Duration.between(checkIn, checkOut).toMinutes() / 60.0;
+    }
+
+    public static int lateArrivalMinutes(LocalDateTime checkIn, String shiftStartTime) {
+        if (checkIn == null || shiftStartTime == null) {
+            return 0;
+        }
+        LocalDateTime scheduled = checkIn.toLocalDate().atTime(LocalTime.parse(shiftStartTime));
+        return checkIn.isAfter(scheduled) ? (int) Duration.between(scheduled, checkIn).toMinutes() : 0;
+    }
+
+    public static int earlyDepartureMinutes(LocalDateTime checkOut, String shiftEndTime) {
+        if (checkOut == null || shiftEndTime == null) {
+            return 0;
+        }
+        LocalDateTime scheduled = checkOut.toLocalDate().atTime(LocalTime.parse(shiftEndTime));
+        return checkOut.isBefore(scheduled) ? (int) Duration.between(checkOut, scheduled).toMinutes() : 0;
+    }
+
+    /**
+     * Status for a punched day: LATE beyond the tolerance, otherwise PRESENT
+     * Statuses that were not set by punches (leave, holiday, ...) are kept
+     */
+    public static Attendance.AttendanceStatus punchStatus(Attendance.AttendanceStatus current, int lateMinutes,
+                                                          int toleranceMinutes) {
+        if (current != null && current != Attendance.AttendanceStatus.PRESENT
+                && current != Attendance.AttendanceStatus.LATE && current != Attendance.AttendanceStatus.ABSENT) {
+            return current;
+        }
+        return lateMinutes > toleranceMinutes ? Attendance.AttendanceStatus.LATE : Attendance.AttendanceStatus.PRESENT;
+    }
+}
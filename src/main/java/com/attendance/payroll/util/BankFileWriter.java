@@ -0,0 +1,208 @@
+package com.attendance.payroll.util;
+
+import com.attendance.payroll.dto.BankFileTotals;
+import com.attendance.payroll.dto.BankTransferLine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.CRC32;
+
+/**
+ * Writes one bank transfer file to a channel, line by line, with control totals computed in the same pass
+ *
+ * Memory use does not depend on the number of lines: each line is encoded into a fixed-size buffer that is
+ * flushed to the channel when full. The trailer carries the record count, the total amount, a hash of the
+ * account numbers and the CRC-32 of everything before it. Text is written in US-ASCII; other characters
+ * (accented names) become '?', as most bank formats require. A transfer without an account number fails the
+ * file rather than being written as a line the bank would reject or misroute.
+ */
+public class BankFileWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final long ACCOUNT_HASH_MODULUS = 1_000_000_000_000_000L;
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final DateTimeFormatter CREATED = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    public enum Format {
+        CSV, FIXED_WIDTH
+    }
+
+    private final WritableByteChannel channel;
+
+    private final Format format;
+
+    private final String branchCode;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private final StringBuilder line = new StringBuilder(256);
+
+    private final CRC32 crc = new CRC32();
+
+    private long recordCount;
+
+    private long totalMinor;
+
+    private long accountHash;
+
+    /**
+     * Start a file and write its header
+     *
+     * @param branchCode branch the file is for, or null for all branches
+     */
+    public BankFileWriter(WritableByteChannel channel, Format format, String originator, LocalDate payrollMonth,
+                          String branchCode) {
+        this.channel = channel;
+        this.format = format;
+        this.branchCode = branchCode;
+
+        String created = LocalDateTime.now().format(CREATED);
+        if (format == Format.CSV) {
+            line.append("record_type,sequence,employee_id,beneficiary,account_number,bank_name,amount,reference");
+            endLine(true);
+            line.append("H,").append(csv(originator)).append(',').append(payrollMonth.format(MONTH)).append(',')
+                    .append(created).append(',').append(csv(branchCode));
+        } else {
+            line.append('H');
+            fixed(originator, 35);
+            fixed(payrollMonth.format(MONTH), 6);
+            fixed(created, 14);
+            fixed(branchCode, 20);
+        }
+        endLine(true);
+    }
+
+    public void write(BankTransferLine transfer) {
+        long amount = Money.of(transfer.getNetSalary() != null ? transfer.getNetSalary() : BigDecimal.ZERO,
+                RoundingMode.HALF_UP);
+        if (amount < 0) {
+            throw new RuntimeException("Negative net salary on payroll record: " + transfer.getId());
+        }
+        if (transfer.getBankAccountNumber() == null || transfer.getBankAccountNumber().isBlank()) {
+            throw new RuntimeException("Missing bank account number on payroll record: " + transfer.getId());
+        }
+        String account = transfer.getBankAccountNumber().trim();
+        String beneficiary = transfer.getFirstName() + " " + transfer.getLastName();
+        String reference = "PAY" + transfer.getId();
+        recordCount++;
+        totalMinor = Money.add(totalMinor, amount);
+        accountHash = (accountHash + accountValue(account)) % ACCOUNT_HASH_MODULUS;
+
+        if (format == Format.CSV) {
+            line.append("D,").append(recordCount).append(',').append(csv(transfer.getEmployeeCode())).append(',')
+                    .append(csv(beneficiary)).append(',').append(csv(account)).append(',')
+                    .append(csv(transfer.getBankName())).append(',').append(Money.toBigDecimal(amount).toPlainString())
+                    .append(',').append(reference);
+        } else {
+            line.append('D');
+            number(recordCount, 8);
+            fixed(transfer.getEmployeeCode(), 20);
+            fixed(beneficiary, 35);
+            fixed(account, 34);
+            fixed(transfer.getBankName(), 35);
+            number(amount, 15);
+            fixed(reference, 16);
+        }
+        endLine(true);
+    }
+
+    /**
+     * Write the trailer and flush; the channel is left open
+     */
+    public BankFileTotals finish() {
+        String checksum = String.format("%08X", crc.getValue());
+        if (format == Format.CSV) {
+            line.append("T,").append(recordCount).append(',').append(Money.toBigDecimal(totalMinor).toPlainString())
+                    .append(',').append(accountHash).append(',').append(checksum);
+        } else {
+            line.append('T');
+            number(recordCount, 8);
+            number(totalMinor, 18);
+            number(accountHash, 15);
+            fixed(checksum, 8);
+        }
+        endLine(false);
+        flush();
+        return new BankFileTotals(branchCode, recordCount, Money.toBigDecimal(totalMinor), accountHash, checksum);
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    private void endLine(boolean checksummed) {
+        line.append("\r\n");
+        byte[] bytes = line.toString().getBytes(StandardCharsets.US_ASCII);
+        line.setLength(0);
+        if (checksummed) {
+            crc.update(bytes);
+        }
+        if (buffer.remaining() < bytes.length) {
+            flush();
+        }
+        buffer.put(bytes);
+    }
+
+    private void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write bank file", e);
+        }
+        buffer.clear();
+    }
+
+    private void fixed(String value, int width) {
+        String text = value != null ? value : "";
+        for (int i = 0; i < width; i++) {
+            line.append(i < text.length() ? text.charAt(i) : ' ');
+        }
+    }
+
+    private void number(long value, int width) {
+        String digits = Long.toString(value);
+        if (digits.length() > width) {
+            throw new RuntimeException("Value " + value + " does not fit a " + width + "-digit bank file field");
+        }
+        for (int i = digits.length(); i < width; i++) {
+            line.append('0');
+        }
+        line.append(digits);
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static long accountValue(String account) {
+        long sum = 0;
+        for (int i = 0; i < account.length(); i++) {
+            char c = account.charAt(i);
+            if (c >= '0' && c <= '9') {
+                sum = sum * 10 + (c - '0');
+                sum %= ACCOUNT_HASH_MODULUS;
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,391 @@
+package com.attendance.payroll.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory 1:N matching index over the biometric templates of one branch and template type
+ *
+ * Templates of one index share a fixed length and are packed back to back in a single primitive array, one
+ * dense ordinal per template, so a scan walks contiguous memory and the inner loops are plain int or popcount
+ * reductions. When built with the vector-api profile and run with {@code --add-modules jdk.incubator.vector} on
+ * 256-bit vector hardware the int8 dot product goes through {@code VectorInt8DotProduct}; otherwise it is the scalar
+ * loop, which C2 may still auto-vectorize. Hamming distance stays on {@link Long#bitCount}, an intrinsic, since the
+ * Java 17 Vector API has no lane-wise popcount. Two encodings are supported:
+ * <ul>
+ *   <li>{@link Metric#COSINE}: little-endian float32 embeddings (face), L2-normalized and quantized to int8,
+ *       scored by dot product</li>
+ *   <li>{@link Metric#HAMMING}: binary codes (fingerprint), packed into longs, scored by the share of equal bits</li>
+ * </ul>
+ * Scores are in [0, 1] for cosine and hamming alike. Removal moves the last template into the freed ordinal,
+ * so the arrays stay dense. Large indexes are scanned in parallel chunks on the given pool.
+ */
+@Slf4j
+public class BiometricMatchIndex {
+
+    private static final int QUANTIZATION_SCALE = 127;
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private static final Int8DotProduct DOT_PRODUCT = selectDotProduct();
+
+    // Smallest share of a parallel scan worth a task of its own
+    private static final int MIN_CHUNK = 1024;
+
+    private static final long NO_MATCH = Long.MIN_VALUE;
+
+    // Slots are finger indexes (0-9) and face numbers; the key packs employee and slot into one long
+    private static final int MAX_SLOTS = 64;
+
+    private final Metric metric;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> ordinalByKey = new HashMap<>();
+
+    // Template length in the index's unit (int8 components or 64-bit words), fixed by the first template
+    private int width = -1;
+
+    private int templateBytes = -1;
+
+    private byte[] codes = new byte[0];
+
+    private long[] words = new long[0];
+
+    private long[] employeeIds = new long[64];
+
+    private int[] slots = new int[64];
+
+    private int size;
+
+    public BiometricMatchIndex(Metric metric) {
+        this.metric = metric;
+    }
+
+    public Metric getMetric() {
+        return metric;
+    }
+
+    /**
+     * Add or replace the template of an employee slot
+     *
+     * @return false when the template cannot be decoded or its length differs from the other templates of the index
+     */
+    public boolean put(long employeeId, int slot, byte[] template) {
+        if (slot < 0 || slot >= MAX_SLOTS || template == null || template.length == 0) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            if (templateBytes >= 0 && template.length != templateBytes) {
+                return false;
+            }
+            Object encoded = encode(template);
+            if (encoded == null) {
+                return false;
+            }
+            if (templateBytes < 0) {
+                templateBytes = template.length;
+                width = metric == Metric.COSINE ? ((byte[]) encoded).length : ((long[]) encoded).length;
+            }
+
+            long key = key(employeeId, slot);
+            Integer existing = ordinalByKey.get(key);
+            int ordinal = existing != null ? existing : size++;
+            ensureCapacity(size);
+            if (metric == Metric.COSINE) {
+                System.arraycopy((byte[]) encoded, 0, codes, ordinal * width, width);
+            } else {
+                System.arraycopy((long[]) encoded, 0, words, ordinal * width, width);
+            }
+            employeeIds[ordinal] = employeeId;
+            slots[ordinal] = slot;
+            ordinalByKey.put(key, ordinal);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long employeeId, int slot) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalByKey.remove(key(employeeId, slot));
+            if (ordinal != null) {
+                compact(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove every template of the employee
+     */
+    public void removeEmployee(long employeeId) {
+        lock.writeLock().lock();
+        try {
+            for (int slot = 0; slot < MAX_SLOTS; slot++) {
+                Integer ordinal = ordinalByKey.remove(key(employeeId, slot));
+                if (ordinal != null) {
+                    compact(ordinal);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Best scoring template for the probe, or null when the index is empty or the probe does not fit it
+     * Indexes of at least {@code parallelThreshold} templates are scanned in chunks on the pool
+     */
+    public Match best(byte[] probe, ForkJoinPool pool, int parallelThreshold) {
+        lock.readLock().lock();
+        try {
+            if (size == 0 || probe == null || probe.length != templateBytes) {
+                return null;
+            }
+            Object encoded = encode(probe);
+            if (encoded == null) {
+                return null;
+            }
+            int count = size;
+            if (pool == null || count < parallelThreshold) {
+                return toMatch(scan(encoded, 0, count));
+            }
+            int chunks = Math.max(1, Math.min(pool.getParallelism() * 4, count / MIN_CHUNK));
+            int chunkSize = (count + chunks - 1) / chunks;
+            // The caller holds the read lock while the workers scan, so no write can interleave
+            long best = pool.submit(() -> IntStream.range(0, chunks)
+                    .parallel()
+                    .mapToLong(chunk -> scan(encoded, chunk * chunkSize, Math.min(count, (chunk + 1) * chunkSize)))
+                    .reduce(NO_MATCH, BiometricMatchIndex::better))
+                    .join();
+            return toMatch(best);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Best score of the employee's own templates, or null when the employee has none in this index
+     */
+    public Double score(long employeeId, byte[] probe) {
+        lock.readLock().lock();
+        try {
+            if (probe == null || probe.length != templateBytes) {
+                return null;
+            }
+            Object encoded = encode(probe);
+            if (encoded == null) {
+                return null;
+            }
+            Double best = null;
+            for (int slot = 0; slot < MAX_SLOTS; slot++) {
+                Integer ordinal = ordinalByKey.get(key(employeeId, slot));
+                if (ordinal != null) {
+                    double score = toScore(rawScore(encoded, ordinal));
+                    best = best == null ? score : Math.max(best, score);
+                }
+            }
+            return best;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Best (raw score, ordinal) of the range packed into a long: raw score in the high int, ordinal in the low int
+    private long scan(Object probe, int from, int to) {
+        long best = NO_MATCH;
+        for (int ordinal = from; ordinal < to; ordinal++) {
+            best = better(best, pack(rawScore(probe, ordinal), ordinal));
+        }
+        return best;
+    }
+
+    private int rawScore(Object probe, int ordinal) {
+        int offset = ordinal * width;
+        if (metric == Metric.COSINE) {
+            return DOT_PRODUCT.dot((byte[]) probe, codes, offset);
+        }
+        long[] query = (long[]) probe;
+        long[] data = words;
+        int differing = 0;
+        for (int i = 0; i < width; i++) {
+            differing += Long.bitCount(query[i] ^ data[offset + i]);
+        }
+        return templateBytes * 8 - differing;
+    }
+
+    private static long pack(int rawScore, int ordinal) {
+        return ((long) rawScore << 32) | (0xFFFFFFFFL & ~ordinal);
+    }
+
+    // Higher score wins; on equal scores the lower ordinal wins, so results do not depend on chunking
+    private static long better(long a, long b) {
+        return Math.max(a, b);
+    }
+
+    private Match toMatch(long packed) {
+        if (packed == NO_MATCH) {
+            return null;
+        }
+        int ordinal = ~(int) packed;
+        return new Match(employeeIds[ordinal], slots[ordinal], toScore((int) (packed >> 32)));
+    }
+
+    private double toScore(int rawScore) {
+        if (metric == Metric.COSINE) {
+            return Math.max(0.0, rawScore / (double) (QUANTIZATION_SCALE * QUANTIZATION_SCALE));
+        }
+        return rawScore / (double) (templateBytes * 8);
+    }
+
+    private Object encode(byte[] template) {
+        if (metric == Metric.HAMMING) {
+            long[] packed = new long[(template.length + Long.BYTES - 1) / Long.BYTES];
+            ByteBuffer buffer = ByteBuffer.wrap(template).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < packed.length; i++) {
+                if (buffer.remaining() >= Long.BYTES) {
+                    packed[i] = buffer.getLong();
+                } else {
+                    long tail = 0;
+                    for (int shift = 0; buffer.hasRemaining(); shift += 8) {
+                        tail |= (buffer.get() & 0xFFL) << shift;
+                    }
+                    packed[i] = tail;
+                }
+            }
+            return packed;
+        }
+
+        if (template.length % Float.BYTES != 0) {
+            return null;
+        }
+        FloatBuffer floats = ByteBuffer.wrap(template).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        float[] embedding = new float[floats.remaining()];
+        floats.get(embedding);
+        double norm = 0;
+        for (float component : embedding) {
+            norm += component * component;
+        }
+        if (norm == 0 || Double.isNaN(norm) || Double.isInfinite(norm)) {
+            return null;
+        }
+        norm = Math.sqrt(norm);
+        byte[] quantized = new byte[embedding.length];
+        for (int i = 0; i < embedding.length; i++) {
+            quantized[i] = (byte) Math.round(embedding[i] / norm * QUANTIZATION_SCALE);
+        }
+        return quantized;
+    }
+
+    private void compact(int ordinal) {
+        int last = --size;
+        if (ordinal != last) {
+            if (metric == Metric.COSINE) {
+                System.arraycopy(codes, last * width, codes, ordinal * width, width);
+            } else {
+                System.arraycopy(words, last * width, words, ordinal * width, width);
+            }
+            employeeIds[ordinal] = employeeIds[last];
+            slots[ordinal] = slots[last];
+            ordinalByKey.put(key(employeeIds[ordinal], slots[ordinal]), ordinal);
+        }
+    }
+
+    private void ensureCapacity(int templates) {
+        if (templates > employeeIds.length) {
+            int capacity = Math.max(templates, employeeIds.length * 2);
+            employeeIds = Arrays.copyOf(employeeIds, capacity);
+            slots = Arrays.copyOf(slots, capacity);
+        }
+        if (metric == Metric.COSINE && codes.length < templates * width) {
+            codes = Arrays.copyOf(codes, Math.max(templates, employeeIds.length) * width);
+        } else if (metric == Metric.HAMMING && words.length < templates * width) {
+            words = Arrays.copyOf(words, Math.max(templates, employeeIds.length) * width);
+        }
+    }
+
+    // The vector kernel is looked up by name so this class still loads when the incubator module is absent
+    private static Int8DotProduct selectDotProduct() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            log.info("Biometric matching uses scalar kernels; start the JVM with --add-modules {} to vectorize them",
+                    VECTOR_MODULE);
+            return Int8DotProduct.SCALAR;
+        }
+        try {
+            Class<?> type = Class.forName(BiometricMatchIndex.class.getPackageName() + ".VectorInt8DotProduct");
+            if (!(Boolean) type.getDeclaredMethod("isSupported").invoke(null)) {
+                log.info("Biometric matching uses scalar kernels: no 256-bit vector support on this CPU");
+                return Int8DotProduct.SCALAR;
+            }
+            log.info("Biometric matching uses Vector API kernels");
+            return (Int8DotProduct) type.getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            log.info("Biometric matching uses scalar kernels: built without the vector-api profile");
+            return Int8DotProduct.SCALAR;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            log.warn("Vector API kernels unavailable, falling back to scalar kernels", e);
+            return Int8DotProduct.SCALAR;
+        }
+    }
+
+    private static long key(long employeeId, int slot) {
+        return employeeId * MAX_SLOTS + slot;
+    }
+
+    public enum Metric {
+        COSINE, HAMMING
+    }
+
+    /**
+     * Best matching template: its employee, slot and score in [0, 1]
+     */
+    public static final class Match {
+
+        private final long employeeId;
+
+        private final int slot;
+
+        private final double score;
+
+        public Match(long employeeId, int slot, double score) {
+            this.employeeId = employeeId;
+            this.slot = slot;
+            this.score = score;
+        }
+
+        public long getEmployeeId() {
+            return employeeId;
+        }
+
+        public int getSlot() {
+            return slot;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.attendance.payroll.util;
+
+/**
+ * Dot product of a quantized int8 probe with one template of a packed int8 array
+ *
+ * {@link #SCALAR} is the plain loop, which C2 auto-vectorizes where it can. {@code VectorInt8DotProduct} uses the
+ * incubating Vector API; it is only compiled by the vector-api Maven profile and only loaded when the JVM was started
+ * with {@code --add-modules jdk.incubator.vector}.
+ */
+interface Int8DotProduct {
+
+    Int8DotProduct SCALAR = (query, data, offset) -> {
+        int dot = 0;
+        for (int i = 0; i < query.length; i++) {
+            dot += query[i] * data[offset + i];
+        }
+        return dot;
+    };
+
+    /**
+     * Sum of {@code query[i] * data[offset + i]} over the whole query
+     */
+    int dot(byte[] query, byte[] data, int offset);
+}
@@ -0,0 +1,146 @@
+package com.attendance.payroll.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money arithmetic on {@code long} minor units (centimes of DZD)
+ *
+ * Amounts travel as plain longs, so bulk calculations allocate nothing; conversion to and from
+ * {@link BigDecimal} happens only at the persistence boundary. Additions fail on overflow instead of
+ * wrapping, and every operation that can lose precision takes an explicit {@link RoundingMode}.
+ */
+public final class Money {
+
+    /**
+     * Decimal places of a minor unit, matching the scale of the monetary columns
+     */
+    public static final int SCALE = 2;
+
+    public static final long MINOR_PER_UNIT = 100L;
+
+    public static final long ZERO = 0L;
+
+    private static final int BASIS_POINTS = 10_000;
+
+    private Money() {
+    }
+
+    /**
+     * Minor units of an amount with at most {@link #SCALE} decimal places
+     *
+     * @throws ArithmeticException if the amount has more decimal places or does not fit a long
+     */
+    public static long ofExact(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    public static long of(BigDecimal amount, RoundingMode rounding) {
+        return amount.setScale(SCALE, rounding).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Whether the amount can be converted with {@link #ofExact} without losing precision
+     * Checked without allocating for amounts whose scale is already small enough
+     */
+    public static boolean isExact(BigDecimal amount) {
+        if (amount.scale() <= SCALE) {
+            return amount.precision() - amount.scale() <= 16;
+        }
+        BigDecimal stripped = amount.stripTrailingZeros();
+        return stripped.scale() <= SCALE && stripped.precision() - stripped.scale() <= 16;
+    }
+
+    public static BigDecimal toBigDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    /**
+     * Convert back at a given scale; the amount must be representable at that scale
+     */
+    public static BigDecimal toBigDecimal(long minor, int scale) {
+        BigDecimal value = BigDecimal.valueOf(minor, SCALE);
+        return scale == SCALE ? value : value.setScale(scale, RoundingMode.UNNECESSARY);
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    /**
+     * amount * numerator / denominator, rounded once at the end
+     * Used for pro-rating, e.g. a monthly amount over worked days. An intermediate product beyond a long is
+     * carried exactly; only a result that does not fit a long fails.
+     */
+    public static long multiply(long minor, long numerator, long denominator, RoundingMode rounding) {
+        if (denominator == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        long high = Math.multiplyHigh(minor, numerator);
+        long product = minor * numerator;
+        if ((high == 0 && product >= 0) || (high == -1 && product < 0)) {
+            return divide(product, denominator, rounding);
+        }
+        return BigDecimal.valueOf(minor).multiply(BigDecimal.valueOf(numerator))
+                .divide(BigDecimal.valueOf(denominator), 0, rounding)
+                .longValueExact();
+    }
+
+    /**
+     * Share of an amount expressed in basis points (1/100 of a percent)
+     */
+    public static long percentage(long minor, int basisPoints, RoundingMode rounding) {
+        return multiply(minor, basisPoints, BASIS_POINTS, rounding);
+    }
+
+    /**
+     * Integer division of minor units with explicit rounding
+     */
+    public static long divide(long dividend, long divisor, RoundingMode rounding) {
+        if (dividend == Long.MIN_VALUE && divisor == -1) {
+            throw new ArithmeticException("long overflow");
+        }
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+
+        int sign = Long.signum(dividend) * Long.signum(divisor);
+        // Magnitudes are compared as negatives, which cover Long.MIN_VALUE: 2|r| vs |d| becomes -|r| vs -|d| + |r|
+        long negativeRemainder = -Math.abs(remainder);
+        long negativeDivisor = divisor < 0 ? divisor : -divisor;
+        long half = negativeDivisor - negativeRemainder;
+        boolean roundAway;
+        switch (rounding) {
+            case UP:
+                roundAway = true;
+                break;
+            case DOWN:
+                roundAway = false;
+                break;
+            case CEILING:
+                roundAway = sign > 0;
+                break;
+            case FLOOR:
+                roundAway = sign < 0;
+                break;
+            case HALF_UP:
+                roundAway = negativeRemainder <= half;
+                break;
+            case HALF_DOWN:
+                roundAway = negativeRemainder < half;
+                break;
+            case HALF_EVEN:
+                roundAway = negativeRemainder < half || (negativeRemainder == half && (quotient & 1) != 0);
+                break;
+            default:
+                throw new ArithmeticException("Rounding necessary");
+        }
+        return roundAway ? quotient + sign : quotient;
+    }
+}
@@ -0,0 +1,340 @@
+package com.attendance.payroll.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index answering case-insensitive substring queries over a few text fields per document
+ *
+ * Matches the semantics of {@code LOWER(field) LIKE '%term%'} on any field. Each document is stored under a
+ * dense int ordinal; posting lists are sorted int arrays, so a query intersects the postings of the term's
+ * trigrams (rarest first) and verifies the few survivors against the stored text. Results are ranked by
+ * exact field match, then prefix match, then plain substring match, then id.
+ * Terms shorter than a trigram are answered as type-ahead prefixes: each field's leading one and two characters
+ * get postings of their own, so a one- or two-character term only touches the documents with a field starting
+ * with it rather than scanning every stored text.
+ */
+public class NGramIndex {
+
+    private static final int N = 3;
+
+    private static final char FIELD_SEPARATOR = '\u0001';
+
+    // Tags field-prefix keys, which live in the same posting map as the 48-bit trigram keys
+    private static final long PREFIX_TAG = 1L << 62;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> ordinalById = new HashMap<>();
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+
+    private long[] ids = new long[1024];
+
+    private String[] texts = new String[1024];
+
+    private int nextOrdinal;
+
+    /**
+     * Add or replace a document
+     */
+    public void put(long id, String... fields) {
+        String text = join(fields);
+        lock.writeLock().lock();
+        try {
+            Integer existing = ordinalById.get(id);
+            if (existing != null) {
+                if (text.equals(texts[existing])) {
+                    return;
+                }
+                unindex(existing);
+            }
+            int ordinal = existing != null ? existing : allocateOrdinal();
+            ids[ordinal] = id;
+            texts[ordinal] = text;
+            ordinalById.put(id, ordinal);
+            for (long gram : grams(text)) {
+                postings.computeIfAbsent(gram, key -> new Postings()).add(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalById.remove(id);
+            if (ordinal != null) {
+                unindex(ordinal);
+                texts[ordinal] = null;
+                freeOrdinals.push(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ordinalById.clear();
+            postings.clear();
+            freeOrdinals.clear();
+            Arrays.fill(texts, null);
+            nextOrdinal = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinalById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranked document ids containing the term in any field
+     */
+    public Hits search(String term, int offset, int limit) {
+        String query = normalize(term);
+        if (query.isEmpty()) {
+            return new Hits(List.of(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            List<int[]> matches = new ArrayList<>();
+            if (query.length() < N) {
+                Postings prefixed = postings.get(prefixKey(query, query.length()));
+                for (int i = 0; prefixed != null && i < prefixed.size; i++) {
+                    collectPrefix(prefixed.ordinals[i], query, matches);
+                }
+            } else {
+                for (int ordinal : candidates(query)) {
+                    collect(ordinal, query, matches);
+                }
+            }
+
+            matches.sort(Comparator.<int[]>comparingInt(match -> match[1])
+                    .thenComparingLong(match -> ids[match[0]]));
+            List<Long> page = new ArrayList<>(Math.max(0, Math.min(limit, matches.size() - offset)));
+            for (int i = offset; i < matches.size() && page.size() < limit; i++) {
+                page.add(ids[matches.get(i)[0]]);
+            }
+            return new Hits(page, matches.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] candidates(String query) {
+        Set<Long> queryGrams = new HashSet<>();
+        addGrams(query, queryGrams);
+
+        List<Postings> lists = new ArrayList<>(queryGrams.size());
+        for (long gram : queryGrams) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        Postings rarest = lists.get(0);
+        int[] result = new int[rarest.size];
+        int count = 0;
+        outer:
+        for (int i = 0; i < rarest.size; i++) {
+            int ordinal = rarest.ordinals[i];
+            for (int j = 1; j < lists.size(); j++) {
+                if (!lists.get(j).contains(ordinal)) {
+                    continue outer;
+                }
+            }
+            result[count++] = ordinal;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private void collect(int ordinal, String query, List<int[]> matches) {
+        String text = texts[ordinal];
+        if (text == null || !text.contains(query)) {
+            return;
+        }
+        int rank = 2;
+        int start = 0;
+        while (start <= text.length()) {
+            int end = text.indexOf(FIELD_SEPARATOR, start);
+            int fieldEnd = end < 0 ? text.length() : end;
+            if (text.startsWith(query, start)) {
+                if (fieldEnd - start == query.length()) {
+                    rank = 0;
+                    break;
+                }
+                rank = 1;
+            }
+            if (end < 0) {
+                break;
+            }
+            start = end + 1;
+        }
+        matches.add(new int[] {ordinal, rank});
+    }
+
+    // Ranks a document already known to have a field starting with the query: exact field match or prefix
+    private void collectPrefix(int ordinal, String query, List<int[]> matches) {
+        String text = texts[ordinal];
+        int rank = 1;
+        int start = 0;
+        while (start <= text.length()) {
+            int end = text.indexOf(FIELD_SEPARATOR, start);
+            int fieldEnd = end < 0 ? text.length() : end;
+            if (fieldEnd - start == query.length() && text.startsWith(query, start)) {
+                rank = 0;
+                break;
+            }
+            if (end < 0) {
+                break;
+            }
+            start = end + 1;
+        }
+        matches.add(new int[] {ordinal, rank});
+    }
+
+    private void unindex(int ordinal) {
+        for (long gram : grams(texts[ordinal])) {
+            Postings list = postings.get(gram);
+            if (list != null && list.remove(ordinal) && list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private int allocateOrdinal() {
+        if (!freeOrdinals.isEmpty()) {
+            return freeOrdinals.pop();
+        }
+        if (nextOrdinal == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+            texts = Arrays.copyOf(texts, texts.length * 2);
+        }
+        return nextOrdinal++;
+    }
+
+    private static Set<Long> grams(String text) {
+        Set<Long> grams = new HashSet<>();
+        for (String field : text.split(String.valueOf(FIELD_SEPARATOR))) {
+            addGrams(field, grams);
+            for (int length = 1; length < N && length <= field.length(); length++) {
+                grams.add(prefixKey(field, length));
+            }
+        }
+        return grams;
+    }
+
+    private static long prefixKey(String value, int length) {
+        long key = PREFIX_TAG | ((long) length << 48);
+        for (int i = 0; i < length; i++) {
+            key |= (long) value.charAt(i) << (16 * (length - 1 - i));
+        }
+        return key;
+    }
+
+    private static void addGrams(String value, Set<Long> grams) {
+        for (int i = 0; i + N <= value.length(); i++) {
+            grams.add(((long) value.charAt(i) << 32) | ((long) value.charAt(i + 1) << 16) | value.charAt(i + 2));
+        }
+    }
+
+    private static String join(String... fields) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                text.append(FIELD_SEPARATOR);
+            }
+            text.append(normalize(fields[i]));
+        }
+        return text.toString();
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * One page of ranked ids plus the total number of matching documents
+     */
+    public static final class Hits {
+
+        private final List<Long> ids;
+
+        private final int total;
+
+        public Hits(List<Long> ids, int total) {
+            this.ids = ids;
+            this.total = total;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+    }
+
+    private static final class Postings {
+
+        private int[] ordinals = new int[4];
+
+        private int size;
+
+        void add(int ordinal) {
+            int index = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            System.arraycopy(ordinals, index, ordinals, index + 1, size - index);
+            ordinals[index] = ordinal;
+            size++;
+        }
+
+        boolean remove(int ordinal) {
+            int index = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ordinals, index + 1, ordinals, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(int ordinal) {
+            return Arrays.binarySearch(ordinals, 0, size, ordinal) >= 0;
+        }
+    }
+}
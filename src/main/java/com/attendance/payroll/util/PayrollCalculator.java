@@ -0,0 +1,170 @@
+package com.attendance.payroll.util;
+
+import com.attendance.payroll.dto.EmployeeAttendanceSummary;
+import com.attendance.payroll.entity.Branch;
+import com.attendance.payroll.entity.Employee;
+import com.attendance.payroll.entity.PayrollRecord;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Stateless payroll calculation helpers
+ * Builds payroll records from pre-aggregated attendance totals without touching the database,
+ * so it can be called from worker threads during a bulk payroll run
+ */
+public final class PayrollCalculator {
+
+    public static final Set<DayOfWeek> DEFAULT_WORKING_DAYS = EnumSet.of(
+            DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY);
+
+    /**
+     * Hours of a scheduled working day, over which the monthly base salary is spread to get the hourly rate
+     */
+    public static final int STANDARD_DAILY_HOURS = 8;
+
+    /**
+     * Multiple of the hourly rate an overtime hour is paid at, unless configured otherwise
+     */
+    public static final BigDecimal DEFAULT_OVERTIME_RATE = new BigDecimal("1.5");
+
+    static final String NO_PREVIOUS_RECORD = "No previous payroll record: base salary and deductions were not carried";
+
+    private PayrollCalculator() {
+    }
+
+    /**
+     * Count scheduled working days in the month starting at the given date
+     */
+    public static int countWorkingDays(LocalDate payrollMonth, Set<DayOfWeek> workingDays) {
+        LocalDate day = payrollMonth.withDayOfMonth(1);
+        int count = 0;
+        for (int i = 0; i < day.lengthOfMonth(); i++) {
+            if (workingDays.contains(day.plusDays(i).getDayOfWeek())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Build a calculated payroll record for one employee
+     *
+     * Without a previous record there is no salary to carry, so the record is flagged for review rather than
+     * left to be approved with a zero payslip.
+     *
+     * @param previous     the employee's record for the previous month, used to carry salary components forward
+     *                     (may be null)
+     * @param totals       the employee's attendance totals for the month (may be null when no attendance was recorded)
+     * @param overtimeRate multiple of the hourly rate each overtime hour is paid at
+     */
+    public static PayrollRecord buildRecord(Employee employee, Branch branch, LocalDate payrollMonth, int workingDays,
+                                            EmployeeAttendanceSummary totals, PayrollRecord previous,
+                                            BigDecimal overtimeRate, String calculatedBy) {
+        PayrollRecord record = new PayrollRecord();
+        record.setEmployee(employee);
+        record.setBranch(branch);
+        record.setPayrollMonth(payrollMonth);
+        record.setWorkingDays(workingDays);
+
+        if (totals != null) {
+            int presentDays = totals.getPresentDays().intValue();
+            record.setPresentDays(presentDays);
+            record.setAbsentDays(Math.max(0, workingDays - presentDays));
+            record.setLateArrivals(totals.getLateDays().intValue());
+            record.setEarlyDepartures(totals.getEarlyDepartures().intValue());
+            record.setOvertimeHours(BigDecimal.valueOf(totals.getOvertimeHours()).setScale(2, RoundingMode.HALF_UP));
+        } else {
+            record.setAbsentDays(workingDays);
+        }
+
+        if (previous != null) {
+            record.setBaseSalary(previous.getBaseSalary());
+            record.setAllowances(previous.getAllowances());
+            record.setTaxDeduction(previous.getTaxDeduction());
+            record.setSocialSecurityDeduction(previous.getSocialSecurityDeduction());
+            record.setHealthInsuranceDeduction(previous.getHealthInsuranceDeduction());
+            record.setPensionDeduction(previous.getPensionDeduction());
+            record.setOtherDeductions(previous.getOtherDeductions());
+            record.setPaymentMethod(previous.getPaymentMethod());
+            record.setBankAccountNumber(previous.getBankAccountNumber());
+            record.setBankName(previous.getBankName());
+        } else {
+            record.setIsFlagged(true);
+            record.setFlagReason(NO_PREVIOUS_RECORD);
+        }
+
+        record.setOvertimeAmount(overtimeAmount(record.getOvertimeHours(), record.getBaseSalary(), workingDays,
+                overtimeRate));
+        applyTotals(record);
+        record.setStatus(PayrollRecord.PayrollStatus.CALCULATED);
+        record.setCalculatedBy(calculatedBy);
+        record.setCalculatedAt(LocalDateTime.now());
+        return record;
+    }
+
+    /**
+     * Pay for the overtime hours at the base salary's hourly rate times the overtime rate
+     *
+     * The hourly rate spreads the monthly base salary over the month's working days of {@link #STANDARD_DAILY_HOURS};
+     * the amount is rounded once, half up to centimes, so it stays proportional to the hours.
+     */
+    public static BigDecimal overtimeAmount(BigDecimal overtimeHours, BigDecimal baseSalary, int workingDays,
+                                            BigDecimal overtimeRate) {
+        if (overtimeHours == null || overtimeHours.signum() <= 0 || baseSalary == null || workingDays <= 0) {
+            return BigDecimal.ZERO.setScale(2);
+        }
+        return baseSalary.multiply(overtimeHours).multiply(overtimeRate)
+                .divide(BigDecimal.valueOf((long) workingDays * STANDARD_DAILY_HOURS), 2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Compute gross salary, total deductions and net salary of a record on long minor units
+     *
+     * Gives the same values, scales included, as {@link PayrollRecord#calculateNetSalary()}: each result
+     * takes the largest scale of its operands, as {@link BigDecimal#add} does. Records with an amount that is not
+     * a whole number of centimes (or is null) go through the BigDecimal path unchanged.
+     */
+    public static void applyTotals(PayrollRecord record) {
+        BigDecimal[] earnings = {record.getBaseSalary(), record.getAllowances(), record.getOvertimeAmount(),
+                record.getBonus(), record.getCommission()};
+        BigDecimal[] deductions = {record.getTaxDeduction(), record.getSocialSecurityDeduction(),
+                record.getHealthInsuranceDeduction(), record.getPensionDeduction(), record.getOtherDeductions()};
+        if (!allExact(earnings) || !allExact(deductions)) {
+            record.calculateNetSalary();
+            return;
+        }
+
+        long gross = Money.ZERO;
+        int grossScale = 0;
+        for (BigDecimal amount : earnings) {
+            gross = Money.add(gross, Money.ofExact(amount));
+            grossScale = Math.max(grossScale, amount.scale());
+        }
+        long totalDeductions = Money.ZERO;
+        int deductionScale = 0;
+        for (BigDecimal amount : deductions) {
+            totalDeductions = Money.add(totalDeductions, Money.ofExact(amount));
+            deductionScale = Math.max(deductionScale, amount.scale());
+        }
+
+        record.setGrossSalary(Money.toBigDecimal(gross, grossScale));
+        record.setTotalDeductions(Money.toBigDecimal(totalDeductions, deductionScale));
+        record.setNetSalary(Money.toBigDecimal(Money.subtract(gross, totalDeductions), Math.max(grossScale, deductionScale)));
+    }
+
+    private static boolean allExact(BigDecimal[] amounts) {
+        for (BigDecimal amount : amounts) {
+            // Negative scales would need rescaling on the way back, leave those to BigDecimal
+            if (amount == null || amount.scale() < 0 || amount.scale() > Money.SCALE || !Money.isExact(amount)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
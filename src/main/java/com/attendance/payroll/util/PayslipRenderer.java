@@ -0,0 +1,110 @@
+package com.attendance.payroll.util;
+
+import com.attendance.payroll.entity.Branch;
+import com.attendance.payroll.entity.Employee;
+import com.attendance.payroll.entity.PayrollAllowance;
+import com.attendance.payroll.entity.PayrollDeduction;
+import com.attendance.payroll.entity.PayrollRecord;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Plain-text payslip of one payroll record
+ *
+ * Rendering only reads fields that were loaded up front (the record, its fetched employee and the allowance and
+ * deduction rows passed in), never a lazy association, so it is safe on worker threads outside the session.
+ */
+public final class PayslipRenderer {
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final DateTimeFormatter MONTH_TITLE = DateTimeFormatter.ofPattern("MM/yyyy");
+
+    private static final int WIDTH = 64;
+
+    private static final int AMOUNT_WIDTH = 16;
+
+    private PayslipRenderer() {
+    }
+
+    /**
+     * Archive entry name of the record's payslip, e.g. payslip-EMP001-202405.txt
+     */
+    public static String entryName(PayrollRecord record) {
+        return "payslip-" + record.getEmployee().getEmployeeId() + "-" + record.getPayrollMonth().format(MONTH) + ".txt";
+    }
+
+    public static byte[] render(PayrollRecord record, Branch branch, List<PayrollAllowance> allowances,
+                                List<PayrollDeduction> deductions) {
+        Employee employee = record.getEmployee();
+        StringBuilder text = new StringBuilder(2048);
+        rule(text, '=');
+        line(text, "PAYSLIP " + record.getPayrollMonth().format(MONTH_TITLE));
+        line(text, branch.getName() + " (" + branch.getBranchId() + ")");
+        rule(text, '=');
+        line(text, "Employee: " + employee.getFirstName() + " " + employee.getLastName() + " (" + employee.getEmployeeId() + ")");
+        line(text, "Position: " + employee.getPosition());
+        line(text, "Working days: " + record.getWorkingDays() + "   Present: " + record.getPresentDays()
+                + "   Absent: " + record.getAbsentDays());
+        line(text, "Late arrivals: " + record.getLateArrivals() + "   Early departures: " + record.getEarlyDepartures()
+                + "   Overtime hours: " + record.getOvertimeHours());
+
+        rule(text, '-');
+        amount(text, "Base salary", record.getBaseSalary());
+        for (PayrollAllowance allowance : allowances) {
+            amount(text, "  " + allowance.getName(), allowance.getAmount());
+        }
+        amount(text, "Overtime", record.getOvertimeAmount());
+        amount(text, "Bonus", record.getBonus());
+        amount(text, "Commission", record.getCommission());
+        amount(text, "Gross salary", record.getGrossSalary());
+
+        rule(text, '-');
+        amount(text, "Income tax", record.getTaxDeduction());
+        amount(text, "Social security", record.getSocialSecurityDeduction());
+        amount(text, "Health insurance", record.getHealthInsuranceDeduction());
+        amount(text, "Pension", record.getPensionDeduction());
+        amount(text, "Other deductions", record.getOtherDeductions());
+        for (PayrollDeduction deduction : deductions) {
+            amount(text, "  " + deduction.getName(), deduction.getAmount());
+        }
+        amount(text, "Total deductions", record.getTotalDeductions());
+
+        rule(text, '=');
+        amount(text, "NET SALARY", record.getNetSalary());
+        if (record.getPaymentMethod() == PayrollRecord.PaymentMethod.BANK_TRANSFER) {
+            line(text, "Paid by bank transfer to " + record.getBankName() + " " + maskAccount(record.getBankAccountNumber()));
+        } else if (record.getPaymentMethod() != null) {
+            line(text, "Paid by " + record.getPaymentMethod());
+        }
+        rule(text, '=');
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void line(StringBuilder text, String value) {
+        text.append(value).append('\n');
+    }
+
+    private static void rule(StringBuilder text, char c) {
+        text.append(String.valueOf(c).repeat(WIDTH)).append('\n');
+    }
+
+    private static void amount(StringBuilder text, String label, BigDecimal value) {
+        String formatted = (value != null ? value : BigDecimal.ZERO).setScale(Money.SCALE, RoundingMode.HALF_UP).toPlainString();
+        int labelWidth = WIDTH - AMOUNT_WIDTH;
+        String shown = label.length() > labelWidth ? label.substring(0, labelWidth) : label;
+        text.append(shown).append(" ".repeat(labelWidth - shown.length()));
+        text.append(" ".repeat(Math.max(0, AMOUNT_WIDTH - formatted.length()))).append(formatted).append('\n');
+    }
+
+    private static String maskAccount(String account) {
+        if (account == null || account.length() <= 4) {
+            return account != null ? account : "";
+        }
+        return "*".repeat(account.length() - 4) + account.substring(account.length() - 4);
+    }
+}
@@ -0,0 +1,378 @@
+package com.attendance.payroll.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Local append-only journal of opaque records in memory-mapped segment files
+ *
+ * Records get consecutive sequence numbers and are framed as [payload length][CRC-32][sequence][payload] in
+ * fixed-size segments named after their first sequence; a new segment is started when a record does not fit.
+ * An append only writes to the mapped pages. {@link #sync(long)} forces them to disk as a group commit: callers
+ * waiting for overlapping ranges share a single force. A consumer reads records after the last sequence it
+ * forwarded and {@link #acknowledge(long) acknowledges} them once delivered; the acknowledged sequence is kept
+ * in a checkpoint file and segments whose records are all acknowledged are deleted. On open, each segment is
+ * scanned up to its first empty or corrupt frame, so a record torn by a crash is dropped along with the
+ * unsynced records after it.
+ */
+public class PunchJournal implements Closeable {
+
+    private static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES + Long.BYTES;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final String CHECKPOINT = "acknowledged";
+
+    private final Path directory;
+
+    private final int segmentBytes;
+
+    // Segments by first sequence; the last one is appended to
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+    private final Object syncLock = new Object();
+
+    private final Object checkpointLock = new Object();
+
+    private long lastSequence;
+
+    private long acknowledged;
+
+    private volatile long durable;
+
+    public PunchJournal(Path directory, int segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        try {
+            Files.createDirectories(directory);
+            Path checkpoint = directory.resolve(CHECKPOINT);
+            if (Files.exists(checkpoint)) {
+                acknowledged = Long.parseLong(Files.readString(checkpoint, StandardCharsets.US_ASCII).trim());
+            }
+            lastSequence = acknowledged;
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted()
+                        .collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                Segment segment = Segment.open(file, segmentBytes);
+                if (segment.recordCount == 0 && segment.firstSequence <= lastSequence) {
+                    segment.delete();
+                    continue;
+                }
+                segments.put(segment.firstSequence, segment);
+                lastSequence = Math.max(lastSequence, segment.lastSequence());
+            }
+            durable = lastSequence;
+            deleteAcknowledgedSegments();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open punch journal in " + directory, e);
+        }
+    }
+
+    /**
+     * Append records in order
+     *
+     * @return the sequence of the last record, to {@link #sync(long)} on
+     */
+    public synchronized long append(List<byte[]> payloads) {
+        for (byte[] payload : payloads) {
+            if (HEADER_BYTES + payload.length > segmentBytes) {
+                throw new IllegalArgumentException("Journal record of " + payload.length + " bytes exceeds the segment size");
+            }
+            Segment active = segments.isEmpty() ? null : segments.lastEntry().getValue();
+            if (active == null || !active.fits(payload.length)) {
+                active = roll(active);
+            }
+            active.write(++lastSequence, payload);
+        }
+        return lastSequence;
+    }
+
+    /**
+     * Force every record up to the sequence to disk; returns at once when a concurrent sync already covered it
+     */
+    public void sync(long sequence) {
+        synchronized (syncLock) {
+            if (durable >= sequence) {
+                return;
+            }
+            Segment active;
+            long target;
+            synchronized (this) {
+                target = lastSequence;
+                active = segments.isEmpty() ? null : segments.lastEntry().getValue();
+            }
+            // Earlier segments were forced when they were rolled
+            if (active != null) {
+                active.force();
+            }
+            durable = target;
+        }
+    }
+
+    /**
+     * Up to {@code max} records after the sequence, oldest first
+     */
+    public synchronized List<Entry> read(long afterSequence, int max) {
+        List<Entry> entries = new ArrayList<>(Math.min(max, 1024));
+        Long from = segments.floorKey(afterSequence + 1);
+        Map<Long, Segment> tail = from != null ? segments.tailMap(from, true) : segments;
+        for (Segment segment : tail.values()) {
+            segment.read(afterSequence, max, entries);
+            if (entries.size() >= max) {
+                break;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Record that every record up to the sequence was delivered and drop the segments holding only such records
+     */
+    public void acknowledge(long sequence) {
+        synchronized (checkpointLock) {
+            long checkpoint;
+            synchronized (this) {
+                if (sequence <= acknowledged) {
+                    return;
+                }
+                checkpoint = Math.min(sequence, lastSequence);
+            }
+            // The checkpoint is written outside the journal lock so appends do not wait on its fsync
+            try {
+                Path temporary = directory.resolve(CHECKPOINT + ".tmp");
+                Files.writeString(temporary, Long.toString(checkpoint), StandardCharsets.US_ASCII,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE,
+                        StandardOpenOption.SYNC);
+                Files.move(temporary, directory.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                synchronized (this) {
+                    acknowledged = checkpoint;
+                    deleteAcknowledgedSegments();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not checkpoint punch journal in " + directory, e);
+            }
+        }
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    public synchronized long getAcknowledged() {
+        return acknowledged;
+    }
+
+    public synchronized long getPending() {
+        return lastSequence - acknowledged;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Segment segment : segments.values()) {
+            segment.force();
+            segment.close();
+        }
+        segments.clear();
+    }
+
+    private Segment roll(Segment active) {
+        if (active != null) {
+            active.force();
+        }
+        try {
+            Segment segment = Segment.create(directory.resolve(String.format("%020d", lastSequence + 1) + SEGMENT_SUFFIX),
+                    lastSequence + 1, segmentBytes);
+            segments.put(segment.firstSequence, segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create punch journal segment in " + directory, e);
+        }
+    }
+
+    // Every segment but the active one is full; it can go once the next segment starts at or before the checkpoint
+    private void deleteAcknowledgedSegments() throws IOException {
+        while (segments.size() > 1) {
+            Map.Entry<Long, Segment> first = segments.firstEntry();
+            if (segments.higherKey(first.getKey()) - 1 > acknowledged) {
+                return;
+            }
+            segments.remove(first.getKey());
+            first.getValue().close();
+            first.getValue().delete();
+        }
+    }
+
+    /**
+     * A journal record: its sequence and payload
+     */
+    public static final class Entry {
+
+        private final long sequence;
+
+        private final byte[] payload;
+
+        public Entry(long sequence, byte[] payload) {
+            this.sequence = sequence;
+            this.payload = payload;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+    }
+
+    private static final class Segment {
+
+        private final Path file;
+
+        private final FileChannel channel;
+
+        private final MappedByteBuffer buffer;
+
+        private final long firstSequence;
+
+        private final CRC32 crc = new CRC32();
+
+        private int position;
+
+        private int recordCount;
+
+        // Where the previous read stopped, so a consumer following the journal does not rescan the segment
+        private long readSequence;
+
+        private int readOffset;
+
+        private Segment(Path file, FileChannel channel, MappedByteBuffer buffer, long firstSequence) {
+            this.file = file;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.firstSequence = firstSequence;
+            this.readSequence = firstSequence - 1;
+        }
+
+        static Segment create(Path file, long firstSequence, int segmentBytes) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            return new Segment(file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes), firstSequence);
+        }
+
+        static Segment open(Path file, int segmentBytes) throws IOException {
+            String name = file.getFileName().toString();
+            long firstSequence = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // A segment keeps the size it was created with, whatever the configured size is now
+            long size = Math.max(channel.size(), segmentBytes);
+            Segment segment = new Segment(file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size), firstSequence);
+            segment.recover();
+            return segment;
+        }
+
+        boolean fits(int payloadBytes) {
+            return position + HEADER_BYTES + payloadBytes <= buffer.capacity();
+        }
+
+        long lastSequence() {
+            return firstSequence + recordCount - 1;
+        }
+
+        void write(long sequence, byte[] payload) {
+            crc.reset();
+            crc.update(payload);
+            // Length goes last: a reader never sees a non-zero length before the frame behind it is complete
+            buffer.putInt(position + Integer.BYTES, (int) crc.getValue());
+            buffer.putLong(position + 2 * Integer.BYTES, sequence);
+            buffer.put(position + HEADER_BYTES, payload);
+            buffer.putInt(position, payload.length);
+            position += HEADER_BYTES + payload.length;
+            recordCount++;
+        }
+
+        void read(long afterSequence, int max, List<Entry> entries) {
+            if (afterSequence < readSequence) {
+                readSequence = firstSequence - 1;
+                readOffset = 0;
+            }
+            while (readSequence < lastSequence() && entries.size() < max) {
+                int length = buffer.getInt(readOffset);
+                long sequence = readSequence + 1;
+                if (sequence > afterSequence) {
+                    byte[] payload = new byte[length];
+                    buffer.get(readOffset + HEADER_BYTES, payload);
+                    entries.add(new Entry(sequence, payload));
+                }
+                readOffset += HEADER_BYTES + length;
+                readSequence = sequence;
+            }
+        }
+
+        void force() {
+            buffer.force();
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not close punch journal segment " + file, e);
+            }
+        }
+
+        void delete() throws IOException {
+            Files.deleteIfExists(file);
+        }
+
+        private void recover() {
+            position = 0;
+            recordCount = 0;
+            while (position + HEADER_BYTES <= buffer.capacity()) {
+                int length = buffer.getInt(position);
+                if (length <= 0 || position + HEADER_BYTES + length > buffer.capacity()) {
+                    break;
+                }
+                long sequence = buffer.getLong(position + 2 * Integer.BYTES);
+                byte[] payload = new byte[length];
+                buffer.get(position + HEADER_BYTES, payload);
+                crc.reset();
+                crc.update(payload);
+                if (sequence != firstSequence + recordCount || (int) crc.getValue() != buffer.getInt(position + Integer.BYTES)) {
+                    break;
+                }
+                position += HEADER_BYTES + length;
+                recordCount++;
+            }
+            // Clear whatever a crash left behind the last good frame, so appends resume on zeroed space
+            for (int offset = position; offset < buffer.capacity(); offset++) {
+                if (buffer.get(offset) != 0) {
+                    buffer.put(offset, (byte) 0);
+                }
+            }
+        }
+    }
+}
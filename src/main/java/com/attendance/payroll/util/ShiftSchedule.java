@@ -0,0 +1,162 @@
+package com.attendance.payroll.util;
+
+import com.attendance.payroll.entity.Attendance;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
+
+/**
+ * Compiled working schedule of one employee, for evaluating punches without parsing or lazy loading
+ *
+ * Shift bounds are minutes of the day, working days a 7-bit mask (bit 0 is Monday). Late and early minutes are
+ * computed like {@link AttendanceCalculator#lateArrivalMinutes} and {@link AttendanceCalculator#earlyDepartureMinutes}
+ * (whole minutes, seconds truncated), except that days outside the mask have no schedule to be late for.
+ * A shift ending before it starts runs overnight: it belongs to the day it starts on, ends the next day, and
+ * punches up to halfway through the off-shift gap after its end are booked to it rather than to the new day.
+ */
+public final class ShiftSchedule {
+
+    public static final int ALL_DAYS = 0x7F;
+
+    private static final int DEFAULT_START_MINUTE = 9 * 60;
+
+    private static final int DEFAULT_END_MINUTE = 17 * 60;
+
+    private static final long DAY_SECONDS = 24 * 60 * 60;
+
+    private final int startMinute;
+
+    private final int endMinute;
+
+    private final int workingDayMask;
+
+    private final int lateToleranceMinutes;
+
+    private final int earlyDepartureToleranceMinutes;
+
+    public ShiftSchedule(int startMinute, int endMinute, int workingDayMask, int lateToleranceMinutes,
+                         int earlyDepartureToleranceMinutes) {
+        this.startMinute = startMinute;
+        this.endMinute = endMinute;
+        this.workingDayMask = workingDayMask;
+        this.lateToleranceMinutes = lateToleranceMinutes;
+        this.earlyDepartureToleranceMinutes = earlyDepartureToleranceMinutes;
+    }
+
+    /**
+     * Compile a schedule from its stored form
+     * Missing or malformed shift times fall back to the branch hours, then to 09:00-17:00; an empty list of
+     * working days falls back to Monday to Friday.
+     */
+    public static ShiftSchedule compile(String shiftStart, String shiftEnd, String branchStart, String branchEnd,
+                                        Collection<String> workingDays, int lateToleranceMinutes,
+                                        int earlyDepartureToleranceMinutes) {
+        int start = minuteOfDay(shiftStart, minuteOfDay(branchStart, DEFAULT_START_MINUTE));
+        int end = minuteOfDay(shiftEnd, minuteOfDay(branchEnd, DEFAULT_END_MINUTE));
+        int mask = workingDayMask(workingDays);
+        return new ShiftSchedule(start, end, mask != 0 ? mask : workingDayMask(PayrollCalculator.DEFAULT_WORKING_DAYS),
+                lateToleranceMinutes, earlyDepartureToleranceMinutes);
+    }
+
+    public static int workingDayMask(Collection<?> days) {
+        int mask = 0;
+        if (days == null) {
+            return mask;
+        }
+        for (Object day : days) {
+            try {
+                DayOfWeek dayOfWeek = day instanceof DayOfWeek value ? value : DayOfWeek.valueOf(day.toString().trim());
+                mask |= 1 << (dayOfWeek.getValue() - 1);
+            } catch (IllegalArgumentException e) {
+                // Unknown day names are ignored
+            }
+        }
+        return mask;
+    }
+
+    public boolean isWorkingDay(LocalDate date) {
+        return (workingDayMask & (1 << (date.getDayOfWeek().getValue() - 1))) != 0;
+    }
+
+    public boolean isOvernight() {
+        return endMinute < startMinute;
+    }
+
+    /**
+     * The day whose shift a punch belongs to: its own date, or the day before for the early hours of an overnight shift
+     */
+    public LocalDate shiftDate(LocalDateTime punch) {
+        LocalDate date = punch.toLocalDate();
+        if (isOvernight() && punch.toLocalTime().toSecondOfDay() < (endMinute + (startMinute - endMinute) / 2) * 60) {
+            return date.minusDays(1);
+        }
+        return date;
+    }
+
+    public int lateArrivalMinutes(LocalDate shiftDate, LocalDateTime checkIn) {
+        if (checkIn == null || !isWorkingDay(shiftDate)) {
+            return 0;
+        }
+        long seconds = epochSecond(checkIn) - (shiftDate.toEpochDay() * DAY_SECONDS + startMinute * 60L);
+        return seconds > 0 ? (int) (seconds / 60) : 0;
+    }
+
+    public int earlyDepartureMinutes(LocalDate shiftDate, LocalDateTime checkOut) {
+        if (checkOut == null || !isWorkingDay(shiftDate)) {
+            return 0;
+        }
+        long end = (shiftDate.toEpochDay() + (isOvernight() ? 1 : 0)) * DAY_SECONDS + endMinute * 60L;
+        // A fraction of a second past the whole second shortens the gap, as it does for Duration.between
+        long seconds = end - epochSecond(checkOut) - (checkOut.getNano() > 0 ? 1 : 0);
+        return seconds > 0 ? (int) (seconds / 60) : 0;
+    }
+
+    /**
+     * Status for a punched day given its late minutes, see {@link AttendanceCalculator#punchStatus}
+     */
+    public Attendance.AttendanceStatus punchStatus(Attendance.AttendanceStatus current, int lateMinutes) {
+        return AttendanceCalculator.punchStatus(current, lateMinutes, lateToleranceMinutes);
+    }
+
+    public boolean isEarlyDeparture(int earlyDepartureMinutes) {
+        return earlyDepartureMinutes > earlyDepartureToleranceMinutes;
+    }
+
+    /**
+     * Early departure minutes as recorded: zero within the tolerance, so only real early departures are counted
+     */
+    public int recordedEarlyDepartureMinutes(LocalDate shiftDate, LocalDateTime checkOut) {
+        int minutes = earlyDepartureMinutes(shiftDate, checkOut);
+        return isEarlyDeparture(minutes) ? minutes : 0;
+    }
+
+    public int getStartMinute() {
+        return startMinute;
+    }
+
+    public int getEndMinute() {
+        return endMinute;
+    }
+
+    public int getWorkingDayMask() {
+        return workingDayMask;
+    }
+
+    private static long epochSecond(LocalDateTime time) {
+        return time.toLocalDate().toEpochDay() * DAY_SECONDS + time.toLocalTime().toSecondOfDay();
+    }
+
+    private static int minuteOfDay(String time, int fallback) {
+        if (time == null || time.isBlank()) {
+            return fallback;
+        }
+        try {
+            return LocalTime.parse(time.trim()).toSecondOfDay() / 60;
+        } catch (RuntimeException e) {
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.attendance.payroll.util;
+
+import org.apache.kafka.common.errors.RetriableException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Telling failures worth retrying (database or broker unreachable, lock timeouts, deadlocks) from failures that
+ * will repeat on every attempt (constraint violations, bad data), so a write-behind loop retries the former and
+ * isolates the latter instead of stalling on them
+ */
+public final class TransientFailures {
+
+    private TransientFailures() {
+    }
+
+    /**
+     * Whether the failure, or any of its causes, is one that may succeed when retried unchanged
+     */
+    public static boolean isTransient(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof RetriableException
+                    || cause instanceof TimeoutException
+                    || cause instanceof ConnectException
+                    || cause instanceof SocketTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
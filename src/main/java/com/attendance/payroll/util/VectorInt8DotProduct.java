@@ -0,0 +1,47 @@
+package com.attendance.payroll.util;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link Int8DotProduct} on the Vector API: eight int8 components at a time, widened to int lanes
+ *
+ * References jdk.incubator.vector, so it must only be loaded once the module is known to be in the boot layer;
+ * {@link BiometricMatchIndex} loads it reflectively and otherwise stays on {@link Int8DotProduct#SCALAR}.
+ * The products of two int8 values fit a short, and a template would need millions of components before the int
+ * lanes could overflow, so the sums equal the scalar loop's exactly.
+ */
+final class VectorInt8DotProduct implements Int8DotProduct {
+
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_64;
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_256;
+
+    /**
+     * Whether the CPU has 256-bit vectors; on narrower hardware the widening casts are emulated and slower than
+     * the scalar loop
+     */
+    static boolean isSupported() {
+        return IntVector.SPECIES_PREFERRED.vectorBitSize() >= INTS.vectorBitSize();
+    }
+
+    @Override
+    public int dot(byte[] query, byte[] data, int offset) {
+        int length = query.length;
+        int upper = BYTES.loopBound(length);
+        IntVector sums = IntVector.zero(INTS);
+        int i = 0;
+        for (; i < upper; i += BYTES.length()) {
+            IntVector q = (IntVector) ByteVector.fromArray(BYTES, query, i).castShape(INTS, 0);
+            IntVector d = (IntVector) ByteVector.fromArray(BYTES, data, offset + i).castShape(INTS, 0);
+            sums = sums.add(q.mul(d));
+        }
+        int dot = sums.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            dot += query[i] * data[offset + i];
+        }
+        return dot;
+    }
+}
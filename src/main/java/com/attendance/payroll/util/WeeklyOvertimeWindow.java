@@ -0,0 +1,150 @@
+package com.attendance.payroll.util;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Working hours of one employee over one Monday-to-Sunday week, and the overtime they earn
+ *
+ * Overtime is what goes beyond the weekly threshold, booked to the days that cross it in date order: a day's
+ * overtime is the part of its hours beyond the threshold once the earlier days of the week are counted. Changing
+ * a day therefore only moves the overtime of that day and the days after it, which {@link #put} recomputes
+ * (at most seven days). Overtime is kept at hundredths of an hour, the precision of attendance.overtime_hours.
+ * A manually overridden day keeps the overtime it was given: its hours still count towards the threshold for
+ * the days after it, but no recomputation changes its own overtime.
+ */
+public class WeeklyOvertimeWindow {
+
+    private static final int DAYS = 7;
+
+    private final LocalDate weekStart;
+
+    private final double thresholdHours;
+
+    private final boolean[] recorded = new boolean[DAYS];
+
+    private final boolean[] fixed = new boolean[DAYS];
+
+    private final long[] branchIds = new long[DAYS];
+
+    private final double[] hours = new double[DAYS];
+
+    private final double[] overtime = new double[DAYS];
+
+    public WeeklyOvertimeWindow(LocalDate weekStart, double thresholdHours) {
+        this.weekStart = weekStart;
+        this.thresholdHours = thresholdHours;
+    }
+
+    public static LocalDate weekStart(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    public LocalDate getWeekStart() {
+        return weekStart;
+    }
+
+    public boolean covers(LocalDate date) {
+        return weekStart.equals(weekStart(date));
+    }
+
+    /**
+     * Record a stored day as is, without recomputing anything
+     *
+     * @param manualOverride whether the day's overtime was set by hand and must be kept
+     */
+    public void load(LocalDate date, long branchId, double workingHours, double overtimeHours, boolean manualOverride) {
+        int day = dayOf(date);
+        recorded[day] = true;
+        fixed[day] = manualOverride;
+        branchIds[day] = branchId;
+        hours[day] = workingHours;
+        overtime[day] = overtimeHours;
+    }
+
+    /**
+     * Set a day's working hours and recompute the overtime of that day and the rest of the week
+     */
+    public void put(LocalDate date, long branchId, double workingHours) {
+        int day = dayOf(date);
+        recorded[day] = true;
+        branchIds[day] = branchId;
+        hours[day] = workingHours;
+        recomputeFrom(day);
+    }
+
+    /**
+     * Recompute the overtime of the whole week from the recorded hours
+     */
+    public void recompute() {
+        recomputeFrom(0);
+    }
+
+    public double getWorkingHours(LocalDate date) {
+        return hours[dayOf(date)];
+    }
+
+    public double getOvertime(LocalDate date) {
+        return overtime[dayOf(date)];
+    }
+
+    public long getBranchId(LocalDate date) {
+        return branchIds[dayOf(date)];
+    }
+
+    /**
+     * Recorded days whose overtime differs from the same day in another state of this week
+     */
+    public List<LocalDate> changedDays(WeeklyOvertimeWindow before) {
+        List<LocalDate> changed = new ArrayList<>();
+        for (int day = 0; day < DAYS; day++) {
+            if (recorded[day] && overtime[day] != before.overtime[day]) {
+                changed.add(weekStart.plusDays(day));
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Overtime change of a day between another state of this week and this one
+     */
+    public double overtimeDelta(WeeklyOvertimeWindow before, LocalDate date) {
+        int day = dayOf(date);
+        return overtime[day] - before.overtime[day];
+    }
+
+    public WeeklyOvertimeWindow copy() {
+        WeeklyOvertimeWindow copy = new WeeklyOvertimeWindow(weekStart, thresholdHours);
+        System.arraycopy(recorded, 0, copy.recorded, 0, DAYS);
+        System.arraycopy(fixed, 0, copy.fixed, 0, DAYS);
+        System.arraycopy(branchIds, 0, copy.branchIds, 0, DAYS);
+        System.arraycopy(hours, 0, copy.hours, 0, DAYS);
+        System.arraycopy(overtime, 0, copy.overtime, 0, DAYS);
+        return copy;
+    }
+
+    private void recomputeFrom(int from) {
+        double before = 0.0;
+        for (int day = 0; day < from; day++) {
+            before += hours[day];
+        }
+        for (int day = from; day < DAYS; day++) {
+            if (recorded[day] && !fixed[day]) {
+                double beyond = Math.min(hours[day], before + hours[day] - thresholdHours);
+                overtime[day] = Math.max(0.0, Math.round(beyond * 100.0) / 100.0);
+            }
+            before += hours[day];
+        }
+    }
+
+    private int dayOf(LocalDate date) {
+        int day = (int) (date.toEpochDay() - weekStart.toEpochDay());
+        if (day < 0 || day >= DAYS) {
+            throw new RuntimeException("Date " + date + " is outside the week of " + weekStart);
+        }
+        return day;
+    }
+}
@@ -0,0 +1,191 @@
+-- Monthly range partitioning of attendance (by attendance_date) and payroll_records (by payroll_month)
+--
+-- Runs after Hibernate's schema update (see FlywayConfig), so both tables exist as plain tables, either
+-- freshly created and empty or holding existing data. Each table is rebuilt as a partitioned table with the
+-- same columns, defaults, identity, foreign keys, unique constraints and indexes; rows are copied across.
+-- The primary key becomes (id, partition key) because PostgreSQL requires the partition key in every
+-- unique constraint; ids stay unique through the identity sequence. Foreign keys pointing at
+-- payroll_records(id) cannot be kept for the same reason and are dropped.
+--
+-- The script runs outside a transaction (see the .conf file next to it): rows are copied in batches of
+-- copy_batch_size ids, each committed on its own, so a large table neither holds one transaction open for the
+-- whole copy nor has to roll all of it back on failure. Constraints and indexes still to be created are kept
+-- in partition_migration_pending, so calling the procedure again after a failure resumes the copy where the
+-- last committed batch ended.
+
+-- Rows that arrived before their month's partition existed sit in the default partition, and PostgreSQL refuses
+-- to create a partition whose range matches rows there. The default partition is then detached, the month's
+-- rows are moved into the new partition and the default partition is attached again, in the caller's transaction.
+CREATE OR REPLACE FUNCTION create_monthly_partition(parent_table text, month date)
+RETURNS text
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    first_day date := date_trunc('month', month)::date;
+    next_month date := (date_trunc('month', month) + interval '1 month')::date;
+    partition_name text := parent_table || '_p' || to_char(first_day, 'YYYYMM');
+    default_partition text;
+    key_column text;
+    has_stray_rows boolean := false;
+    moved bigint;
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN partition_name;
+    END IF;
+
+    SELECT c.relname INTO default_partition
+    FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+    WHERE i.inhparent = to_regclass(parent_table) AND pg_get_expr(c.relpartbound, c.oid) = 'DEFAULT';
+    IF default_partition IS NOT NULL THEN
+        SELECT a.attname INTO key_column
+        FROM pg_partitioned_table p JOIN pg_attribute a ON a.attrelid = p.partrelid AND a.attnum = p.partattrs[0]
+        WHERE p.partrelid = to_regclass(parent_table);
+        EXECUTE format('SELECT EXISTS (SELECT 1 FROM %I WHERE %I >= %L AND %I < %L)',
+                       default_partition, key_column, first_day, key_column, next_month) INTO has_stray_rows;
+    END IF;
+
+    IF NOT has_stray_rows THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                       partition_name, parent_table, first_day, next_month);
+        RETURN partition_name;
+    END IF;
+
+    EXECUTE format('ALTER TABLE %I DETACH PARTITION %I', parent_table, default_partition);
+    EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, parent_table, first_day, next_month);
+    EXECUTE format('WITH moved AS (DELETE FROM %I WHERE %I >= %L AND %I < %L RETURNING *) ' ||
+                   'INSERT INTO %I SELECT * FROM moved',
+                   default_partition, key_column, first_day, key_column, next_month, partition_name);
+    GET DIAGNOSTICS moved = ROW_COUNT;
+    EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I DEFAULT', parent_table, default_partition);
+    RAISE NOTICE 'Moved % rows of % out of % into %', moved, first_day, default_partition, partition_name;
+    RETURN partition_name;
+END;
+$$;
+
+CREATE TABLE IF NOT EXISTS partition_migration_pending (
+    parent_table text NOT NULL,
+    position int NOT NULL,
+    statement text NOT NULL,
+    PRIMARY KEY (parent_table, position)
+);
+
+CREATE OR REPLACE PROCEDURE partition_table_by_month(parent_table text, key_column text, months_ahead int,
+                                                     copy_batch_size int)
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    legacy_table text := parent_table || '_unpartitioned';
+    definition record;
+    statements text[] := '{}';
+    statement text;
+    legacy_sequence text;
+    first_month date;
+    last_month date;
+    month date;
+    copied_id bigint;
+    last_id bigint;
+BEGIN
+    IF to_regclass(legacy_table) IS NULL THEN
+        IF (SELECT relkind FROM pg_class WHERE oid = to_regclass(parent_table)) IS DISTINCT FROM 'r' THEN
+            RAISE NOTICE '% is missing or already partitioned, skipping', parent_table;
+            RETURN;
+        END IF;
+
+        -- Remember foreign keys, unique constraints and plain indexes before the legacy table goes away
+        FOR definition IN
+            SELECT conname, contype, pg_get_constraintdef(oid) AS def, conkey
+            FROM pg_constraint WHERE conrelid = to_regclass(parent_table) AND contype IN ('f', 'u')
+        LOOP
+            IF definition.contype = 'u' AND NOT EXISTS (
+                    SELECT 1 FROM pg_attribute
+                    WHERE attrelid = to_regclass(parent_table) AND attname = key_column AND attnum = ANY (definition.conkey)) THEN
+                RAISE NOTICE 'Dropping unique constraint % on %, it does not include %',
+                             definition.conname, parent_table, key_column;
+                CONTINUE;
+            END IF;
+            statements := statements ||
+                    format('ALTER TABLE %I ADD CONSTRAINT %I %s', parent_table, definition.conname, definition.def);
+        END LOOP;
+
+        FOR definition IN
+            SELECT pg_get_indexdef(i.indexrelid) AS def, i.indisunique, i.indkey::int2[] AS columns
+            FROM pg_index i
+            WHERE i.indrelid = to_regclass(parent_table) AND NOT i.indisprimary
+              AND NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conindid = i.indexrelid)
+        LOOP
+            IF definition.indisunique AND NOT EXISTS (
+                    SELECT 1 FROM pg_attribute
+                    WHERE attrelid = to_regclass(parent_table) AND attname = key_column AND attnum = ANY (definition.columns)) THEN
+                RAISE NOTICE 'Dropping unique index on %, it does not include %: %', parent_table, key_column, definition.def;
+                CONTINUE;
+            END IF;
+            -- Indexes created on the parent cascade to every partition, current and future
+            statements := statements ||
+                    regexp_replace(definition.def, ' ON (ONLY )?\S+ USING ', format(' ON %I USING ', parent_table));
+        END LOOP;
+
+        EXECUTE format('ALTER TABLE %I RENAME TO %I', parent_table, legacy_table);
+        EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING IDENTITY INCLUDING STORAGE) ' ||
+                       'PARTITION BY RANGE (%I)', parent_table, legacy_table, key_column);
+
+        EXECUTE format('SELECT date_trunc(''month'', min(%1$I))::date, date_trunc(''month'', max(%1$I))::date FROM %2$I',
+                       key_column, legacy_table) INTO first_month, last_month;
+        first_month := least(coalesce(first_month, current_date), date_trunc('month', current_date)::date);
+        last_month := greatest(coalesce(last_month, current_date),
+                               (date_trunc('month', current_date) + make_interval(months => months_ahead))::date);
+        month := date_trunc('month', first_month)::date;
+        WHILE month <= last_month LOOP
+            PERFORM create_monthly_partition(parent_table, month);
+            month := (month + interval '1 month')::date;
+        END LOOP;
+        EXECUTE format('CREATE TABLE %I PARTITION OF %I DEFAULT', parent_table || '_default', parent_table);
+
+        -- A serial id (rather than an identity) keeps using the legacy sequence, which must outlive the legacy table
+        legacy_sequence := pg_get_serial_sequence(legacy_table, 'id');
+        IF legacy_sequence IS NOT NULL AND pg_get_serial_sequence(parent_table, 'id') IS NULL THEN
+            EXECUTE format('ALTER SEQUENCE %s OWNED BY %I.id', legacy_sequence, parent_table);
+        END IF;
+
+        statements := format('ALTER TABLE %I ADD CONSTRAINT %I PRIMARY KEY (id, %I)',
+                             parent_table, parent_table || '_pkey', key_column) || statements;
+        INSERT INTO partition_migration_pending (parent_table, position, statement)
+        SELECT parent_table, ordinality, value FROM unnest(statements) WITH ORDINALITY AS s(value, ordinality);
+        COMMIT;
+    ELSE
+        RAISE NOTICE 'Resuming the copy of % into the partitioned %', legacy_table, parent_table;
+    END IF;
+
+    -- Copy in id order, one committed batch at a time; without indexes on the new table yet each batch is cheap
+    EXECUTE format('SELECT coalesce(max(id), 0) FROM %I', parent_table) INTO copied_id;
+    LOOP
+        -- The batch ends at the copy_batch_size-th id after the last copied one, walking the legacy primary key
+        EXECUTE format('SELECT max(id) FROM (SELECT id FROM %I WHERE id > $1 ORDER BY id LIMIT $2) batch', legacy_table)
+                INTO last_id USING copied_id, copy_batch_size;
+        EXIT WHEN last_id IS NULL;
+        EXECUTE format('INSERT INTO %I SELECT * FROM %I WHERE id > $1 AND id <= $2', parent_table, legacy_table)
+                USING copied_id, last_id;
+        copied_id := last_id;
+        COMMIT;
+    END LOOP;
+
+    EXECUTE format('SELECT setval(pg_get_serial_sequence(%L, ''id''), coalesce(max(id), 0) + 1, false) FROM %I',
+                   parent_table, parent_table);
+    EXECUTE format('DROP TABLE %I CASCADE', legacy_table);
+    FOR statement IN
+        SELECT p.statement FROM partition_migration_pending p WHERE p.parent_table = partition_table_by_month.parent_table
+        ORDER BY p.position
+    LOOP
+        EXECUTE statement;
+    END LOOP;
+    DELETE FROM partition_migration_pending p WHERE p.parent_table = partition_table_by_month.parent_table;
+    COMMIT;
+    EXECUTE format('ANALYZE %I', parent_table);
+END;
+$$;
+
+CALL partition_table_by_month('attendance', 'attendance_date', 2, 50000);
+CALL partition_table_by_month('payroll_records', 'payroll_month', 2, 50000);
+
+DROP PROCEDURE partition_table_by_month(text, text, int, int);
+DROP TABLE partition_migration_pending;
@@ -0,0 +1,42 @@
+-- Biometric templates move from the employees row to employee_biometric_templates
+--
+-- Runs after Hibernate's schema update (see FlywayConfig), so employee_biometric_templates already exists.
+-- The legacy TEXT columns held one fingerprint and one face template per employee, base64-encoded by the
+-- enrollment client; they are decoded to bytea and copied as slot 0 of each type, then dropped so employee
+-- reads no longer carry them. Values that are not valid base64 are kept byte for byte.
+
+CREATE OR REPLACE FUNCTION legacy_biometric_template_bytes(value text)
+RETURNS bytea
+LANGUAGE plpgsql
+IMMUTABLE
+AS $$
+BEGIN
+    RETURN decode(regexp_replace(value, '\s', '', 'g'), 'base64');
+EXCEPTION WHEN others THEN
+    RETURN convert_to(value, 'UTF8');
+END;
+$$;
+
+DO $$
+DECLARE
+    legacy record;
+BEGIN
+    FOR legacy IN
+        SELECT * FROM (VALUES ('fingerprint_data', 'FINGERPRINT'), ('face_data', 'FACE')) AS legacy_columns(column_name, template_type)
+    LOOP
+        IF EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_schema = current_schema() AND table_name = 'employees'
+                     AND column_name = legacy.column_name) THEN
+            EXECUTE format(
+                'INSERT INTO employee_biometric_templates (employee_id, template_type, slot, template, is_active, version, created_at, updated_at) '
+                'SELECT id, %L, 0, legacy_biometric_template_bytes(%I), true, 0, now(), now() FROM employees '
+                'WHERE %I IS NOT NULL AND %I <> '''' '
+                'ON CONFLICT (employee_id, template_type, slot) DO NOTHING',
+                legacy.template_type, legacy.column_name, legacy.column_name, legacy.column_name);
+            EXECUTE format('ALTER TABLE employees DROP COLUMN %I', legacy.column_name);
+        END IF;
+    END LOOP;
+END;
+$$;
+
+DROP FUNCTION legacy_biometric_template_bytes(text);
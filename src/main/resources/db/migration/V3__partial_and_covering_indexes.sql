@@ -0,0 +1,93 @@
+-- Partial and covering indexes matching the repository queries
+--
+-- Runs after Hibernate's schema update (see FlywayConfig). Partial index predicates only use constants the
+-- queries spell out themselves: Employee's @Where adds deleted_at IS NULL to every employee query, and the
+-- JPQL literals (is_active = true, status = 'ACTIVE', is_flagged = true) are rendered as SQL literals, so the
+-- planner can prove the predicate for prepared statements too. Predicates bound as parameters (a status
+-- argument, a date range) go into the key columns instead. INCLUDE columns let projection queries run as
+-- index-only scans, but only columns the hot write paths leave alone are included: an UPDATE that changes
+-- any indexed column, INCLUDE columns too, cannot be a HOT update. Where a new index covers an index of the
+-- entity mappings, the old one is dropped here and removed from the mapping rather than kept alongside.
+-- attendance and payroll_records are partitioned (V1); an index created on the parent is created on every
+-- partition, present and future.
+
+-- findActiveEmployeesByBranch, findRecentHiresByBranch
+CREATE INDEX IF NOT EXISTS idx_employee_active_branch_hire
+    ON employees (branch_id, hire_date)
+    WHERE deleted_at IS NULL AND status = 'ACTIVE';
+
+-- findByBranchIdAndIsActiveTrue, countByBranchIdAndStatus, findByBranchAndPosition
+CREATE INDEX IF NOT EXISTS idx_employee_live_branch_status
+    ON employees (branch_id, status, position)
+    WHERE deleted_at IS NULL;
+
+-- findByDepartmentAndStatus, countByDepartment
+CREATE INDEX IF NOT EXISTS idx_employee_active_department
+    ON employees (department)
+    WHERE deleted_at IS NULL AND status = 'ACTIVE';
+
+-- findByStatusAndIsActiveTrue
+CREATE INDEX IF NOT EXISTS idx_employee_live_status
+    ON employees (status)
+    WHERE deleted_at IS NULL AND is_active = true;
+
+-- findByHireDateRange
+CREATE INDEX IF NOT EXISTS idx_employee_live_hire_date
+    ON employees (hire_date)
+    WHERE deleted_at IS NULL AND is_active = true;
+
+-- findPunchProfilesByEmployeeIds, on every punch flush: the employee side is answered from the index alone
+CREATE INDEX IF NOT EXISTS idx_employee_punch_profile
+    ON employees (employee_id) INCLUDE (id, branch_id, shift_start_time, shift_end_time)
+    WHERE deleted_at IS NULL AND is_active = true;
+
+-- findFlaggedForReview, findFlaggedForReviewSince: flagged days are a small fraction of the table
+CREATE INDEX IF NOT EXISTS idx_attendance_flagged
+    ON attendance (attendance_date DESC)
+    WHERE is_flagged_for_review = true AND is_active = true;
+
+-- findByDateRangeAndStatus, streamByDateRangeAndStatus, findSliceByDateRangeAndStatusAfter (keyset order);
+-- replaces idx_attendance_status
+CREATE INDEX IF NOT EXISTS idx_attendance_status_date
+    ON attendance (status, attendance_date, id);
+DROP INDEX IF EXISTS idx_attendance_status;
+
+-- summarizeByBranchAndPeriod reads idx_attendance_branch_date (branch_id, attendance_date), and the per-employee
+-- counts and sums (countPresentAttendanceByEmployee, sumWorkingHoursByEmployee, sumOvertimeHoursByEmployee) read
+-- uk_attendance_employee_date. Covering either with the hours and minutes would turn every updateDerivedFields
+-- write into a non-HOT update; idx_attendance_employee_date duplicated the unique key.
+DROP INDEX IF EXISTS idx_attendance_employee_date;
+
+-- findLateOrEarlyDepartures
+CREATE INDEX IF NOT EXISTS idx_attendance_late_or_early
+    ON attendance (branch_id, attendance_date)
+    WHERE late_arrival_minutes > 0 OR early_departure_minutes > 0;
+
+-- findFlaggedPayroll, findFlaggedPayrollSince
+CREATE INDEX IF NOT EXISTS idx_payroll_flagged
+    ON payroll_records (payroll_month DESC)
+    WHERE is_flagged = true AND is_active = true;
+
+-- streamApprovedBankTransfers: the payroll side of the monthly bank file comes from the index alone, in file order
+CREATE INDEX IF NOT EXISTS idx_payroll_approved_bank_transfers
+    ON payroll_records (payroll_month, branch_id, id)
+    INCLUDE (employee_id, bank_account_number, bank_name, net_salary)
+    WHERE status = 'APPROVED' AND payment_method = 'BANK_TRANSFER';
+
+-- findByStatusAndMonth, findListRowsByStatusAndMonth, sumTotalNetSalary; replaces idx_payroll_month
+CREATE INDEX IF NOT EXISTS idx_payroll_month_status
+    ON payroll_records (payroll_month, status)
+    INCLUDE (net_salary);
+DROP INDEX IF EXISTS idx_payroll_month;
+
+-- findSliceByBranchAndMonthAfter (keyset order by id), findByBranchAndStatusAndMonth, findPendingReviewPayroll:
+-- status is an IN list on the keyset query, so it is checked from the index rather than breaking the id order
+CREATE INDEX IF NOT EXISTS idx_payroll_branch_month_id
+    ON payroll_records (branch_id, payroll_month, id)
+    INCLUDE (status);
+-- replaced by idx_payroll_branch_month_id
+DROP INDEX IF EXISTS idx_payroll_branch_month;
+
+ANALYZE employees;
+ANALYZE attendance;
+ANALYZE payroll_records;
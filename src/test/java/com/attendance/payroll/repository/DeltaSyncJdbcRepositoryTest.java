@@ -0,0 +1,144 @@
+package com.attendance.payroll.repository;
+
+import com.attendance.payroll.dto.DeltaSyncCursor;
+import com.attendance.payroll.entity.Branch;
+import com.attendance.payroll.entity.Employee;
+import com.attendance.payroll.entity.PayrollRecord;
+import com.attendance.payroll.repository.DeltaSyncJdbcRepository.ChangedRow;
+import com.attendance.payroll.repository.DeltaSyncJdbcRepository.SyncTable;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Conflict handling of the delta sync apply
+ *
+ * A row read on one node and applied back unchanged must not be written, or two nodes would keep shipping it to
+ * each other. Fixtures carry double precision values with more digits than a cast to numeric keeps, the case
+ * where hashing the shipped text against the stored double told an unchanged row apart from itself.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(DeltaSyncJdbcRepository.class)
+@Testcontainers(disabledWithoutDocker = true)
+class DeltaSyncJdbcRepositoryTest {
+
+    private static final LocalDate MONTH = LocalDate.of(2026, 9, 1);
+
+    // Rows per table; whether a wrongly hashed echo wins the tie varies by row, so a few rows make it show
+    private static final int ROWS = 8;
+
+    private static final DeltaSyncCursor.Position START = new DeltaSyncCursor.Position(
+            LocalDateTime.of(2000, 1, 1, 0, 0), 0L);
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = PostgresContainers.create();
+
+    @Autowired
+    private DeltaSyncJdbcRepository deltaSyncRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void createRows() {
+        Branch branch = new Branch();
+        branch.setBranchId("BR-01");
+        branch.setName("Algiers Centre");
+        entityManager.persist(branch);
+        Employee employee = new Employee();
+        employee.setEmployeeId("EMP-1");
+        employee.setFirstName("First");
+        employee.setLastName("Last");
+        employee.setEmail("employee@example.com");
+        employee.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        employee.setHireDate(LocalDate.of(2020, 1, 1));
+        employee.setDepartment(Employee.Department.FINANCE);
+        employee.setPosition("Accountant");
+        employee.setBranch(branch);
+        entityManager.persist(employee);
+        for (int i = 0; i < ROWS; i++) {
+            PayrollRecord record = new PayrollRecord();
+            record.setEmployee(employee);
+            record.setBranch(branch);
+            record.setPayrollMonth(MONTH.minusMonths(i));
+            record.setBaseSalary(new BigDecimal("50000.00"));
+            record.setOvertimeHours(new BigDecimal("7.25"));
+            record.setAnomalyScore(0.8734123456789123 / (i + 1));
+            record.setCalculationNotes("Calculated at headquarters");
+            entityManager.persist(record);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        // Inserted directly: the attendance entity listeners refresh summaries this slice has no services for
+        jdbcTemplate.update("INSERT INTO attendance (employee_id, branch_id, attendance_date, status, " +
+                "attendance_type, total_working_hours, overtime_hours, ai_anomaly_score, check_in_latitude, " +
+                "is_active, version, created_at, updated_at) SELECT ?, ?, ?::date + d, 'PRESENT', 'REGULAR', " +
+                "7.123456789012345 + d / 7.0, 0.1, 0.8734123456789123 / (d + 1), 36.75376543210987, true, 0, " +
+                "localtimestamp, localtimestamp FROM generate_series(0, ? - 1) AS d",
+                employee.getId(), branch.getId(), MONTH, ROWS);
+    }
+
+    @Test
+    void echoedPayrollRecordsAreNotWritten() {
+        List<Object[]> rows = changes(SyncTable.PAYROLL_RECORDS);
+
+        assertThat(rows).hasSize(ROWS);
+        assertThat(deltaSyncRepository.apply(SyncTable.PAYROLL_RECORDS, rows)).isEmpty();
+    }
+
+    @Test
+    void echoedAttendanceRowsAreNotWritten() {
+        List<Object[]> rows = changes(SyncTable.ATTENDANCE);
+
+        assertThat(rows).hasSize(ROWS);
+        assertThat(deltaSyncRepository.apply(SyncTable.ATTENDANCE, rows)).isEmpty();
+    }
+
+    @Test
+    void concurrentChangesSettleOnTheSameRowOnBothNodes() {
+        Object[] local = changes(SyncTable.PAYROLL_RECORDS).get(0);
+        Object[] remote = local.clone();
+        remote[SyncTable.PAYROLL_RECORDS.getColumnNames().indexOf("calculation_notes")] = "Recalculated at the branch";
+
+        boolean remoteWinsHere = !deltaSyncRepository.apply(SyncTable.PAYROLL_RECORDS, List.<Object[]>of(remote))
+                .isEmpty();
+        // The other node holds the remote row at the same version and receives the local one
+        jdbcTemplate.update("UPDATE payroll_records SET calculation_notes = 'Recalculated at the branch' " +
+                "WHERE payroll_month = ?", MONTH);
+        boolean localWinsThere = !deltaSyncRepository.apply(SyncTable.PAYROLL_RECORDS, List.<Object[]>of(local))
+                .isEmpty();
+
+        assertThat(localWinsThere).isNotEqualTo(remoteWinsHere);
+    }
+
+    private List<Object[]> changes(SyncTable table) {
+        return deltaSyncRepository.findChanges(table, START, deltaSyncRepository.currentTimestamp().plusDays(1), 10)
+                .stream()
+                .map(ChangedRow::getValues)
+                .toList();
+    }
+}
@@ -0,0 +1,144 @@
+package com.attendance.payroll.repository;
+
+import com.attendance.payroll.dto.PayrollListRow;
+import com.attendance.payroll.entity.Branch;
+import com.attendance.payroll.entity.Employee;
+import com.attendance.payroll.entity.PayrollDeduction;
+import com.attendance.payroll.entity.PayrollRecord;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statement budgets of the payroll list and detail queries
+ *
+ * List and detail reads must not fall back to a query per row for the employee, branch or child rows, and the
+ * streaming variant must stay a single narrow cursor over payroll_records. Fixtures are flushed and the
+ * persistence context cleared before each measured call, so nothing is answered from the first-level cache.
+ */
+@DataJpaTest(properties = {
+        SqlStatementCounter.PROPERTY,
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class PayrollRepositoryStatementCountTest {
+
+    private static final LocalDate MONTH = LocalDate.of(2026, 9, 1);
+
+    private static final int EMPLOYEES = 5;
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = PostgresContainers.create();
+
+    @Autowired
+    private PayrollRepository payrollRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Branch branch;
+
+    private PayrollRecord detailRecord;
+
+    @BeforeEach
+    void createPayrollMonth() {
+        branch = new Branch();
+        branch.setBranchId("BR-01");
+        branch.setName("Algiers Centre");
+        entityManager.persist(branch);
+        for (int i = 0; i < EMPLOYEES; i++) {
+            PayrollRecord record = new PayrollRecord();
+            record.setEmployee(employee(i));
+            record.setBranch(branch);
+            record.setPayrollMonth(MONTH);
+            record.setBaseSalary(new BigDecimal("50000.00"));
+            for (int d = 0; d < 2; d++) {
+                PayrollDeduction deduction = new PayrollDeduction();
+                deduction.setPayrollRecord(record);
+                deduction.setName("Deduction " + d);
+                deduction.setAmount(new BigDecimal("1000.00"));
+                record.getDeductions().add(deduction);
+            }
+            entityManager.persist(record);
+            detailRecord = record;
+        }
+        entityManager.flush();
+        entityManager.clear();
+        SqlStatementCounter.reset();
+    }
+
+    @Test
+    void listRowsAreOneQuery() {
+        List<PayrollListRow> rows = payrollRepository.findListRowsByBranchAndMonth(branch.getId(), MONTH);
+
+        assertThat(rows).hasSize(EMPLOYEES).allSatisfy(row -> {
+            assertThat(row.getFirstName()).isNotBlank();
+            assertThat(row.getBranchName()).isEqualTo("Algiers Centre");
+        });
+        SqlStatementCounter.assertStatements(1);
+    }
+
+    @Test
+    void dateRangeListFetchesEmployeeAndBranchInOneQuery() {
+        List<PayrollRecord> records = payrollRepository.findByDateRange(MONTH, MONTH);
+
+        assertThat(records).hasSize(EMPLOYEES).allSatisfy(record -> {
+            assertThat(record.getEmployee().getFirstName()).isNotBlank();
+            assertThat(record.getBranch().getName()).isEqualTo("Algiers Centre");
+        });
+        SqlStatementCounter.assertStatements(1);
+    }
+
+    @Test
+    void detailIsOneQueryPlusOneForDeductions() {
+        PayrollRecord record = payrollRepository.findDetailByIdAndPayrollMonth(detailRecord.getId(), MONTH).orElseThrow();
+
+        assertThat(record.getEmployee().getLastName()).isNotBlank();
+        assertThat(record.getBranch().getName()).isEqualTo("Algiers Centre");
+        assertThat(record.getDeductions()).hasSize(2);
+        SqlStatementCounter.assertStatements(2);
+    }
+
+    @Test
+    void streamIsOneCursorWithoutJoins() {
+        AtomicLong salaries = new AtomicLong();
+        long streamed = StreamingQueries.forEachDetached(payrollRepository.streamByDateRange(MONTH, MONTH),
+                entityManager, record -> salaries.addAndGet(record.getBaseSalary().longValue()));
+
+        assertThat(streamed).isEqualTo(EMPLOYEES);
+        SqlStatementCounter.assertStatements(1);
+        assertThat(SqlStatementCounter.statements().get(0)).doesNotContain("employees").doesNotContain("branches");
+    }
+
+    private Employee employee(int index) {
+        Employee employee = new Employee();
+        employee.setEmployeeId("EMP-" + index);
+        employee.setFirstName("First" + index);
+        employee.setLastName("Last" + index);
+        employee.setEmail("employee" + index + "@example.com");
+        employee.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        employee.setHireDate(LocalDate.of(2020, 1, 1));
+        employee.setDepartment(Employee.Department.FINANCE);
+        employee.setPosition("Accountant");
+        employee.setBranch(branch);
+        entityManager.persist(employee);
+        return employee;
+    }
+}
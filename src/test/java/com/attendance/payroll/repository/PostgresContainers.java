@@ -0,0 +1,18 @@
+package com.attendance.payroll.repository;
+
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * PostgreSQL containers for the repository tests, on the image docker-compose runs in production
+ */
+final class PostgresContainers {
+
+    static final String IMAGE = "postgres:16-alpine";
+
+    private PostgresContainers() {
+    }
+
+    static PostgreSQLContainer<?> create() {
+        return new PostgreSQLContainer<>(IMAGE);
+    }
+}
@@ -0,0 +1,242 @@
+package com.attendance.payroll.repository;
+
+import com.attendance.payroll.config.FlywayConfig;
+import com.attendance.payroll.entity.Attendance;
+import com.attendance.payroll.entity.PayrollRecord;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Pageable;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query plans of the hot repository queries must not fall back to sequential scans of the table they filter
+ *
+ * The schema is built the way production builds it: Hibernate's update, then the Flyway migrations, so the
+ * partitions and the V3 indexes are all there, and db/query-plan-seed.sql fills it with analyzed, representative
+ * data. Each test runs a repository method, takes the SQL Hibernate sent from {@link SqlStatementCounter} and plans
+ * it with EXPLAIN (GENERIC_PLAN), PostgreSQL 16, the plan every execution of the prepared statement can end up
+ * with. An index dropped or reshaped so it no longer matches a query shows up here as a Seq Scan. Tables joined
+ * in for many rows may legitimately be scanned, so only the filtered table is checked.
+ */
+@DataJpaTest(properties = {
+        SqlStatementCounter.PROPERTY,
+        "spring.jpa.hibernate.ddl-auto=update"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(FlywayConfig.class)
+@Testcontainers(disabledWithoutDocker = true)
+class QueryPlanRegressionTest {
+
+    private static final LocalDate MONTH = LocalDate.of(2026, 9, 1);
+
+    private static final LocalDate MONTH_END = MONTH.plusMonths(1).minusDays(1);
+
+    private static final List<Attendance.AttendanceStatus> PRESENT = List.of(Attendance.AttendanceStatus.PRESENT,
+            Attendance.AttendanceStatus.LATE);
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = PostgresContainers.create();
+
+    // Tables and partitions holding rows once seeded; empty partitions of months ahead cost nothing to scan
+    private static Set<String> populatedRelations;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private PayrollRepository payrollRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private JdbcConnectionDetails connectionDetails;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Seeded once for the class, committed outside the test transactions so they cannot roll it back
+    @BeforeEach
+    void seedRepresentativeData() throws Exception {
+        if (populatedRelations != null) {
+            return;
+        }
+        try (InputStream script = getClass().getResourceAsStream("/db/query-plan-seed.sql");
+             Connection connection = simpleQueryConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(new String(script.readAllBytes(), StandardCharsets.UTF_8));
+            Set<String> populated = new HashSet<>();
+            try (ResultSet relations = statement.executeQuery(
+                    "SELECT relname FROM pg_class WHERE relkind = 'r' AND reltuples > 0")) {
+                while (relations.next()) {
+                    populated.add(relations.getString(1));
+                }
+            }
+            populatedRelations = populated;
+        }
+    }
+
+    @Test
+    void activeEmployeesOfBranch() {
+        assertIndexed("employees", () -> employeeRepository.findActiveEmployeesByBranch(1L));
+    }
+
+    @Test
+    void punchProfiles() {
+        assertIndexed("employees", () -> employeeRepository.findPunchProfilesByEmployeeIds(
+                List.of("E01001", "E01002")));
+    }
+
+    @Test
+    void attendanceSummaryOfBranch() {
+        assertIndexed("attendance", () -> attendanceRepository.summarizeByBranchAndPeriod(1L, MONTH, MONTH_END));
+    }
+
+    @Test
+    void presentDaysOfEmployee() {
+        assertIndexed("attendance", () -> attendanceRepository.countPresentAttendanceByEmployee(1L, MONTH, MONTH_END,
+                PRESENT));
+    }
+
+    @Test
+    void workingHoursOfEmployee() {
+        assertIndexed("attendance", () -> attendanceRepository.sumWorkingHoursByEmployee(1L, MONTH, MONTH_END));
+    }
+
+    @Test
+    void attendanceByStatus() {
+        assertIndexed("attendance", () -> attendanceRepository.findByDateRangeAndStatus(MONTH, MONTH_END,
+                Attendance.AttendanceStatus.ABSENT));
+    }
+
+    @Test
+    void attendanceFlaggedForReview() {
+        assertIndexed("attendance", () -> attendanceRepository.findFlaggedForReview());
+    }
+
+    @Test
+    void lateOrEarlyDepartures() {
+        assertIndexed("attendance", () -> attendanceRepository.findLateOrEarlyDepartures(MONTH, 1L));
+    }
+
+    @Test
+    void payrollByStatusAndMonth() {
+        assertIndexed("payroll_records", () -> payrollRepository.findByStatusAndMonth(
+                PayrollRecord.PayrollStatus.APPROVED, MONTH));
+    }
+
+    @Test
+    void payrollSliceOfBranchMonth() {
+        assertIndexed("payroll_records", () -> payrollRepository.findSliceByBranchAndMonthAfter(1L, MONTH,
+                List.of(PayrollRecord.PayrollStatus.APPROVED), 0L, Pageable.ofSize(50)));
+    }
+
+    @Test
+    void flaggedPayroll() {
+        assertIndexed("payroll_records", () -> payrollRepository.findFlaggedPayroll());
+    }
+
+    @Test
+    void approvedBankTransfers() {
+        assertIndexed("payroll_records", () -> {
+            try (Stream<?> lines = payrollRepository.streamApprovedBankTransfers(MONTH)) {
+                lines.forEach(line -> { });
+            }
+        });
+    }
+
+    private void assertIndexed(String table, Runnable query) {
+        SqlStatementCounter.reset();
+        query.run();
+        List<String> statements = SqlStatementCounter.statements();
+        assertThat(statements).as("SQL statements issued").isNotEmpty();
+        String sql = statements.get(0);
+        assertThat(sequentialScans(table, sql)).as("sequential scans of %s in the plan of%n%s", table, sql).isEmpty();
+    }
+
+    // Populated relations of the table, partitions included, that the generic plan of the statement scans sequentially
+    private List<String> sequentialScans(String table, String sql) {
+        String json;
+        try (Connection connection = simpleQueryConnection();
+             Statement statement = connection.createStatement();
+             ResultSet plan = statement.executeQuery("EXPLAIN (GENERIC_PLAN, FORMAT JSON) " + numberParameters(sql))) {
+            plan.next();
+            json = plan.getString(1);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not plan " + sql, e);
+        }
+        List<String> scans = new ArrayList<>();
+        try {
+            collectSequentialScans(table, objectMapper.readTree(json).get(0).get("Plan"), scans);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read query plan: " + json, e);
+        }
+        return scans;
+    }
+
+    private static void collectSequentialScans(String table, JsonNode plan, List<String> scans) {
+        if ("Seq Scan".equals(plan.path("Node Type").asText())) {
+            String relation = plan.path("Relation Name").asText();
+            if ((relation.equals(table) || relation.startsWith(table + "_")) && populatedRelations.contains(relation)) {
+                scans.add(relation);
+            }
+        }
+        for (JsonNode child : plan.path("Plans")) {
+            collectSequentialScans(table, child, scans);
+        }
+    }
+
+    // The extended protocol pgJDBC uses by default would expect values bound for the $n placeholders of GENERIC_PLAN
+    private Connection simpleQueryConnection() throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("user", connectionDetails.getUsername());
+        if (connectionDetails.getPassword() != null) {
+            properties.setProperty("password", connectionDetails.getPassword());
+        }
+        properties.setProperty("preferQueryMode", "simple");
+        return DriverManager.getConnection(connectionDetails.getJdbcUrl(), properties);
+    }
+
+    // GENERIC_PLAN takes $n placeholders; Hibernate's SQL uses JDBC ones and no literal of these queries has a '?'
+    private static String numberParameters(String sql) {
+        StringBuilder numbered = new StringBuilder(sql.length() + 16);
+        int parameter = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '?') {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return numbered.toString();
+    }
+}
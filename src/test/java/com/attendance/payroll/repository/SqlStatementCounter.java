@@ -0,0 +1,45 @@
+package com.attendance.payroll.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Records the SQL Hibernate sends, so tests can pin how many statements a repository call costs
+ *
+ * Register it with {@link #PROPERTY}; Hibernate creates one instance per session factory, so the statements are
+ * kept per thread in static state. Call {@link #reset} right before the call under test, after fixtures have been
+ * flushed and the persistence context cleared, then {@link #assertStatements}.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    public static final String PROPERTY = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+            + "com.attendance.payroll.repository.SqlStatementCounter";
+
+    private static final ThreadLocal<List<String>> STATEMENTS = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.get().add(sql);
+        return sql;
+    }
+
+    public static void reset() {
+        STATEMENTS.get().clear();
+    }
+
+    public static List<String> statements() {
+        return List.copyOf(STATEMENTS.get());
+    }
+
+    /**
+     * Fails listing every statement seen when their number is not the expected one
+     */
+    public static void assertStatements(int expected) {
+        List<String> statements = statements();
+        assertThat(statements).as("SQL statements issued:%n%s", String.join("\n", statements)).hasSize(expected);
+    }
+}
@@ -0,0 +1,208 @@
+package com.attendance.payroll.service;
+
+import com.attendance.payroll.config.KafkaConfig;
+import com.attendance.payroll.dto.DevicePunch;
+import com.attendance.payroll.entity.Attendance;
+import com.attendance.payroll.event.AttendancePunchEvent;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * The punch pipeline against an embedded broker: batches are written then committed, an unreadable record goes
+ * to the dead-letter topic without holding up the records around it, and a batch whose write failed is
+ * redelivered rather than committed. Ingestion is mocked, recording what reached it.
+ */
+@SpringBootTest(classes = {KafkaConfig.class, PunchEventService.class}, properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "app.ingestion.kafka.consume=true",
+        "app.ingestion.kafka.topic=" + PunchEventServiceTest.TOPIC,
+        "app.ingestion.kafka.dead-letter-topic=" + PunchEventServiceTest.DEAD_LETTER_TOPIC,
+        "app.ingestion.kafka.group-id=" + PunchEventServiceTest.GROUP,
+        "app.ingestion.kafka.partitions=1",
+        "app.ingestion.kafka.concurrency=1",
+        "app.ingestion.kafka.poison-retries=1",
+        "app.ingestion.kafka.max-retry-interval-ms=2000"
+})
+@ImportAutoConfiguration(KafkaAutoConfiguration.class)
+@EmbeddedKafka(partitions = 1, topics = {PunchEventServiceTest.TOPIC, PunchEventServiceTest.DEAD_LETTER_TOPIC})
+class PunchEventServiceTest {
+
+    static final String TOPIC = "test-attendance-punches";
+
+    static final String DEAD_LETTER_TOPIC = "test-attendance-punches-dlt";
+
+    static final String GROUP = "test-attendance-punch-writer";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC, 0);
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @MockBean
+    private PunchIngestionService punchIngestionService;
+
+    private final List<DevicePunch> ingested = new CopyOnWriteArrayList<>();
+
+    @Test
+    void writesBatchThenCommitsItsOffsets() throws Exception {
+        recordIngestedPunches();
+        List<AttendancePunchEvent> events = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            events.add(event("EMP-BATCH", LocalDateTime.of(2026, 10, 12, 8, i)));
+        }
+        events.forEach(event -> kafkaTemplate.send(TOPIC, event.getEmployeeId(), event));
+        kafkaTemplate.flush();
+
+        awaitCommitted();
+        assertThat(punchesOf("EMP-BATCH")).extracting(DevicePunch::getPunchTime)
+                .containsExactlyElementsOf(events.stream().map(AttendancePunchEvent::getPunchTime).toList());
+    }
+
+    @Test
+    void sendsUnreadableRecordToDeadLetterTopic() throws Exception {
+        recordIngestedPunches();
+        AttendancePunchEvent before = event("EMP-POISON", LocalDateTime.of(2026, 10, 12, 8, 0));
+        AttendancePunchEvent after = event("EMP-POISON", LocalDateTime.of(2026, 10, 12, 17, 0));
+        byte[] poison = "{not json".getBytes(StandardCharsets.UTF_8);
+
+        kafkaTemplate.send(TOPIC, before.getEmployeeId(), before).get();
+        try (Producer<String, byte[]> producer = rawProducer()) {
+            producer.send(new ProducerRecord<>(TOPIC, "EMP-POISON", poison)).get();
+        }
+        kafkaTemplate.send(TOPIC, after.getEmployeeId(), after).get();
+
+        try (Consumer<String, byte[]> consumer = deadLetterConsumer()) {
+            ConsumerRecord<String, byte[]> deadLetter = KafkaTestUtils.getSingleRecord(consumer, DEAD_LETTER_TOPIC, TIMEOUT);
+            assertThat(deadLetter.key()).isEqualTo("EMP-POISON");
+            assertThat(deadLetter.value()).isEqualTo(poison);
+        }
+        awaitCommitted();
+        // The record before the poison one may be written again when the rest of its batch is redelivered
+        assertThat(punchesOf("EMP-POISON").stream().map(DevicePunch::getPunchTime).distinct())
+                .containsExactly(before.getPunchTime(), after.getPunchTime());
+    }
+
+    @Test
+    void redeliversBatchAfterDatabaseFailure() throws Exception {
+        AtomicBoolean failed = new AtomicBoolean();
+        doAnswer(invocation -> {
+            List<DevicePunch> punches = invocation.getArgument(0);
+            if (failed.compareAndSet(false, true)) {
+                throw new DataAccessResourceFailureException("database unreachable");
+            }
+            ingested.addAll(punches);
+            return null;
+        }).when(punchIngestionService).ingest(anyList());
+
+        AttendancePunchEvent event = event("EMP-RETRY", LocalDateTime.of(2026, 10, 12, 8, 0));
+        kafkaTemplate.send(TOPIC, event.getEmployeeId(), event).get();
+
+        awaitCommitted();
+        assertThat(failed).isTrue();
+        assertThat(punchesOf("EMP-RETRY")).extracting(DevicePunch::getPunchTime).containsExactly(event.getPunchTime());
+    }
+
+    private void recordIngestedPunches() {
+        doAnswer(invocation -> {
+            List<DevicePunch> punches = invocation.getArgument(0);
+            ingested.addAll(punches);
+            return null;
+        }).when(punchIngestionService).ingest(anyList());
+    }
+
+    private List<DevicePunch> punchesOf(String employeeId) {
+        return ingested.stream().filter(punch -> employeeId.equals(punch.getEmployeeId())).toList();
+    }
+
+    private static AttendancePunchEvent event(String employeeId, LocalDateTime punchTime) {
+        return new AttendancePunchEvent(1L, "DEV-1", employeeId, punchTime, Attendance.BiometricMethod.FINGERPRINT,
+                null);
+    }
+
+    // Waits until the writer group has committed everything on the topic so far
+    private void awaitCommitted() throws Exception {
+        try (AdminClient admin = AdminClient.create(Map.of(
+                AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, embeddedKafka.getBrokersAsString()))) {
+            long end = admin.listOffsets(Map.of(PARTITION, OffsetSpec.latest())).all().get().get(PARTITION).offset();
+            await(() -> {
+                try {
+                    OffsetAndMetadata committed = admin.listConsumerGroupOffsets(GROUP)
+                            .partitionsToOffsetAndMetadata().get().get(PARTITION);
+                    return committed != null && committed.offset() >= end;
+                } catch (Exception e) {
+                    return false;
+                }
+            });
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within %s", TIMEOUT).isLessThan(deadline);
+            Thread.sleep(100);
+        }
+    }
+
+    private Producer<String, byte[]> rawProducer() {
+        Map<String, Object> properties = KafkaTestUtils.producerProps(embeddedKafka);
+        properties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        properties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        return new KafkaProducer<>(properties);
+    }
+
+    private Consumer<String, byte[]> deadLetterConsumer() {
+        Map<String, Object> properties = KafkaTestUtils.consumerProps("dead-letter-reader", "false", embeddedKafka);
+        properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        Consumer<String, byte[]> consumer = new KafkaConsumer<>(properties);
+        embeddedKafka.consumeFromAnEmbeddedTopic(consumer, DEAD_LETTER_TOPIC);
+        return consumer;
+    }
+}
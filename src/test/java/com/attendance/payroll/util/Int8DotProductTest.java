@@ -0,0 +1,49 @@
+package com.attendance.payroll.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The Vector API dot product against the scalar loop, on every length around the vector width and at offsets
+ * into a packed array, including the int8 extremes. Compiled and run by the vector-api profile only.
+ */
+class Int8DotProductTest {
+
+    private static final long SEED = 0x5EED_2025L;
+
+    private final Int8DotProduct vector = new VectorInt8DotProduct();
+
+    @Test
+    void matchesScalarLoop() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int length = 0; length <= 67; length++) {
+            byte[] query = randomBytes(random, length);
+            byte[] data = randomBytes(random, length * 3 + 5);
+            for (int offset = 0; offset + length <= data.length; offset += length + 1) {
+                assertThat(vector.dot(query, data, offset)).as("length %d, offset %d", length, offset)
+                        .isEqualTo(Int8DotProduct.SCALAR.dot(query, data, offset));
+            }
+        }
+    }
+
+    @Test
+    void extremesDoNotOverflow() {
+        byte[] query = new byte[512];
+        byte[] data = new byte[512];
+        Arrays.fill(query, Byte.MIN_VALUE);
+        Arrays.fill(data, Byte.MIN_VALUE);
+        assertThat(vector.dot(query, data, 0)).isEqualTo(512 * 128 * 128);
+    }
+
+    private static byte[] randomBytes(SplittableRandom random, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) random.nextInt(256);
+        }
+        return bytes;
+    }
+}
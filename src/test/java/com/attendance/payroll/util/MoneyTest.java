@@ -0,0 +1,174 @@
+package com.attendance.payroll.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Property tests of the long minor-unit arithmetic against BigDecimal
+ *
+ * Operands come from a seeded generator mixing boundary values (zero, ones, powers of ten, the long limits and
+ * their neighbours) with random values of every magnitude, so failures reproduce. Every result must equal the
+ * BigDecimal result, or the operation must throw ArithmeticException exactly when that result does not fit a
+ * long or needs rounding under UNNECESSARY.
+ */
+class MoneyTest {
+
+    private static final long SEED = 0x5EED_2024L;
+
+    private static final int CASES = 2_000;
+
+    private static final long[] BOUNDARIES = {
+            0, 1, -1, 2, -2, 3, 5, 10, 99, 100, 101, 1_000, 9_999, 10_000, 1_000_000_007L,
+            Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE - 1,
+            Long.MIN_VALUE + 1, Long.MAX_VALUE / 2, Long.MIN_VALUE / 2, 1L << 62, -(1L << 62), 3_037_000_499L
+    };
+
+    @ParameterizedTest
+    @MethodSource("divisions")
+    void divideMatchesBigDecimal(long dividend, long divisor, RoundingMode rounding) {
+        BigDecimal expected;
+        try {
+            expected = BigDecimal.valueOf(dividend).divide(BigDecimal.valueOf(divisor), 0, rounding);
+        } catch (ArithmeticException e) {
+            assertThatThrownBy(() -> Money.divide(dividend, divisor, rounding)).isInstanceOf(ArithmeticException.class);
+            return;
+        }
+        assertMatches(expected, () -> Money.divide(dividend, divisor, rounding));
+    }
+
+    @ParameterizedTest
+    @MethodSource("products")
+    void multiplyMatchesBigDecimal(long minor, long numerator, long denominator) {
+        BigDecimal expected = BigDecimal.valueOf(minor).multiply(BigDecimal.valueOf(numerator))
+                .divide(BigDecimal.valueOf(denominator), 0, RoundingMode.HALF_UP);
+        assertMatches(expected, () -> Money.multiply(minor, numerator, denominator, RoundingMode.HALF_UP));
+    }
+
+    @ParameterizedTest
+    @MethodSource("percentages")
+    void percentageMatchesBigDecimal(long minor, int basisPoints) {
+        BigDecimal expected = BigDecimal.valueOf(minor).multiply(BigDecimal.valueOf(basisPoints))
+                .divide(BigDecimal.valueOf(10_000), 0, RoundingMode.HALF_UP);
+        assertMatches(expected, () -> Money.percentage(minor, basisPoints, RoundingMode.HALF_UP));
+    }
+
+    @ParameterizedTest
+    @MethodSource("pairs")
+    void addAndSubtractFailOnOverflow(long a, long b) {
+        assertMatches(new BigDecimal(BigInteger.valueOf(a).add(BigInteger.valueOf(b))), () -> Money.add(a, b));
+        assertMatches(new BigDecimal(BigInteger.valueOf(a).subtract(BigInteger.valueOf(b))), () -> Money.subtract(a, b));
+    }
+
+    @ParameterizedTest
+    @MethodSource("amounts")
+    void conversionRoundsHalfUp(BigDecimal amount) {
+        BigDecimal expected = amount.setScale(Money.SCALE, RoundingMode.HALF_UP);
+        long minor;
+        try {
+            minor = expected.unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            assertThatThrownBy(() -> Money.of(amount, RoundingMode.HALF_UP)).isInstanceOf(ArithmeticException.class);
+            return;
+        }
+        assertThat(Money.of(amount, RoundingMode.HALF_UP)).isEqualTo(minor);
+        assertThat(Money.toBigDecimal(minor)).isEqualByComparingTo(expected);
+    }
+
+    @ParameterizedTest
+    @MethodSource("amounts")
+    void isExactAgreesWithOfExact(BigDecimal amount) {
+        boolean converts;
+        try {
+            long minor = Money.ofExact(amount);
+            assertThat(Money.toBigDecimal(minor)).isEqualByComparingTo(amount);
+            converts = true;
+        } catch (ArithmeticException e) {
+            converts = false;
+        }
+        // isExact is the cheap, conservative check: it may refuse the few 17-19 digit amounts that still fit
+        if (Money.isExact(amount)) {
+            assertThat(converts).as("isExact(%s) but ofExact failed", amount).isTrue();
+        }
+        if (amount.stripTrailingZeros().scale() > Money.SCALE) {
+            assertThat(converts).as("ofExact(%s) must not drop decimals", amount).isFalse();
+        }
+    }
+
+    @Test
+    void minValueDividedByMinusOneOverflows() {
+        assertThatThrownBy(() -> Money.divide(Long.MIN_VALUE, -1, RoundingMode.HALF_UP))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void roundsHalfUpAwayFromZero() {
+        assertThat(Money.divide(5, 2, RoundingMode.HALF_UP)).isEqualTo(3);
+        assertThat(Money.divide(-5, 2, RoundingMode.HALF_UP)).isEqualTo(-3);
+        assertThat(Money.divide(Long.MAX_VALUE, Long.MIN_VALUE, RoundingMode.HALF_UP)).isEqualTo(-1);
+        assertThat(Money.percentage(1_999, 5_000, RoundingMode.HALF_UP)).isEqualTo(1_000);
+    }
+
+    private static void assertMatches(BigDecimal expected, LongSupplier actual) {
+        if (expected.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0
+                || expected.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) < 0) {
+            assertThatThrownBy(actual::getAsLong).isInstanceOf(ArithmeticException.class);
+        } else {
+            assertThat(actual.getAsLong()).isEqualTo(expected.longValueExact());
+        }
+    }
+
+    static Stream<Arguments> divisions() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        RoundingMode[] modes = RoundingMode.values();
+        return Stream.generate(() -> {
+            long divisor = anyLong(random);
+            return Arguments.of(anyLong(random), divisor != 0 ? divisor : 1, modes[random.nextInt(modes.length)]);
+        }).limit(CASES);
+    }
+
+    static Stream<Arguments> products() {
+        SplittableRandom random = new SplittableRandom(SEED + 1);
+        return Stream.generate(() -> {
+            long denominator = anyLong(random);
+            return Arguments.of(anyLong(random), anyLong(random), denominator != 0 ? denominator : 1);
+        }).limit(CASES);
+    }
+
+    static Stream<Arguments> percentages() {
+        SplittableRandom random = new SplittableRandom(SEED + 2);
+        return Stream.generate(() -> Arguments.of(anyLong(random), random.nextInt(-20_000, 20_001))).limit(CASES);
+    }
+
+    static Stream<Arguments> pairs() {
+        SplittableRandom random = new SplittableRandom(SEED + 3);
+        return Stream.generate(() -> Arguments.of(anyLong(random), anyLong(random))).limit(CASES);
+    }
+
+    static Stream<Arguments> amounts() {
+        SplittableRandom random = new SplittableRandom(SEED + 4);
+        return Stream.generate(() -> Arguments.of(BigDecimal.valueOf(anyLong(random), random.nextInt(-2, 7))))
+                .limit(CASES);
+    }
+
+    // A boundary value a quarter of the time, otherwise a random value of random bit length and sign
+    private static long anyLong(SplittableRandom random) {
+        if (random.nextInt(4) == 0) {
+            return BOUNDARIES[random.nextInt(BOUNDARIES.length)];
+        }
+        int bits = random.nextInt(1, 64);
+        long magnitude = random.nextLong() >>> (64 - bits);
+        return random.nextBoolean() ? magnitude : -magnitude;
+    }
+}
@@ -0,0 +1,125 @@
+package com.attendance.payroll.util;
+
+import com.attendance.payroll.dto.EmployeeAttendanceSummary;
+import com.attendance.payroll.entity.Branch;
+import com.attendance.payroll.entity.Employee;
+import com.attendance.payroll.entity.PayrollRecord;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Records built for the bulk payroll run: overtime pay and records with nothing to carry forward
+ */
+class PayrollCalculatorTest {
+
+    private static final LocalDate MONTH = LocalDate.of(2026, 9, 1);
+
+    private static final int WORKING_DAYS = 22;
+
+    @Test
+    void paysOvertimeHoursAtTheConfiguredMultipleOfTheHourlyRate() {
+        PayrollRecord record = build(totals(20, 10.0), previous("44000.00"), new BigDecimal("1.5"));
+
+        // 44000 over 22 days of 8 hours is 250 an hour, 10 hours at 1.5 times that
+        assertThat(record.getOvertimeHours()).isEqualByComparingTo("10");
+        assertThat(record.getOvertimeAmount()).isEqualTo(new BigDecimal("3750.00"));
+        assertThat(record.getGrossSalary()).isEqualByComparingTo("47750.00");
+        assertThat(record.getNetSalary()).isEqualByComparingTo("45750.00");
+        assertThat(record.getIsFlagged()).isFalse();
+    }
+
+    @Test
+    void roundsOvertimePayOnceToCentimes() {
+        assertThat(PayrollCalculator.overtimeAmount(new BigDecimal("1.25"), new BigDecimal("41234.56"), 21,
+                new BigDecimal("1.5"))).isEqualTo(new BigDecimal("460.21"));
+    }
+
+    @Test
+    void paysNothingWithoutOvertimeHours() {
+        PayrollRecord record = build(totals(22, 0.0), previous("44000.00"), new BigDecimal("1.5"));
+
+        assertThat(record.getOvertimeAmount()).isEqualByComparingTo("0");
+        assertThat(record.getGrossSalary()).isEqualByComparingTo("44000.00");
+    }
+
+    @Test
+    void flagsRecordWithoutPreviousMonth() {
+        PayrollRecord record = build(totals(22, 4.0), null, new BigDecimal("1.5"));
+
+        assertThat(record.getBaseSalary()).isEqualByComparingTo("0");
+        assertThat(record.getNetSalary()).isEqualByComparingTo("0");
+        assertThat(record.getIsFlagged()).isTrue();
+        assertThat(record.getFlagReason()).isEqualTo(PayrollCalculator.NO_PREVIOUS_RECORD);
+        assertThat(record.getStatus()).isEqualTo(PayrollRecord.PayrollStatus.CALCULATED);
+    }
+
+    private static PayrollRecord build(EmployeeAttendanceSummary totals, PayrollRecord previous,
+                                       BigDecimal overtimeRate) {
+        Employee employee = new Employee();
+        employee.setId(1L);
+        Branch branch = new Branch();
+        branch.setId(1L);
+        return PayrollCalculator.buildRecord(employee, branch, MONTH, WORKING_DAYS, totals, previous, overtimeRate,
+                "test");
+    }
+
+    private static PayrollRecord previous(String baseSalary) {
+        PayrollRecord previous = new PayrollRecord();
+        previous.setBaseSalary(new BigDecimal(baseSalary));
+        previous.setTaxDeduction(new BigDecimal("2000.00"));
+        return previous;
+    }
+
+    private static EmployeeAttendanceSummary totals(long presentDays, double overtimeHours) {
+        return new EmployeeAttendanceSummary() {
+            @Override
+            public Long getEmployeeId() {
+                return 1L;
+            }
+
+            @Override
+            public Long getPresentDays() {
+                return presentDays;
+            }
+
+            @Override
+            public Long getAbsentDays() {
+                return WORKING_DAYS - presentDays;
+            }
+
+            @Override
+            public Long getLateDays() {
+                return 0L;
+            }
+
+            @Override
+            public Long getEarlyDepartures() {
+                return 0L;
+            }
+
+            @Override
+            public Long getLateMinutes() {
+                return 0L;
+            }
+
+            @Override
+            public Long getEarlyMinutes() {
+                return 0L;
+            }
+
+            @Override
+            public Double getWorkingHours() {
+                return presentDays * 8.0 + overtimeHours;
+            }
+
+            @Override
+            public Double getOvertimeHours() {
+                return overtimeHours;
+            }
+        };
+    }
+}
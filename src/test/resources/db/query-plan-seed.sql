@@ -0,0 +1,56 @@
+-- Representative data for QueryPlanRegressionTest: 50 branches of 100 employees, two months of weekday attendance
+-- and a year of payroll, with the skew production has (few flagged rows, most payroll paid, most days present).
+-- Every date lies before the current month, so the rows land in the default partitions V1 leaves for history.
+
+INSERT INTO branches (branch_id, name, status, is_active, created_at, updated_at, version)
+SELECT 'BR' || lpad(b::text, 3, '0'), 'Branch ' || b, 'ACTIVE', true, now(), now(), 0
+FROM generate_series(1, 50) AS b;
+
+-- Employees are hired branch by branch, so the rows of one branch sit together as they do after a real rollout
+INSERT INTO employees (employee_id, first_name, last_name, email, date_of_birth, hire_date, department, position,
+                       status, branch_id, shift_start_time, shift_end_time, is_active, created_at, updated_at, version)
+SELECT 'E' || lpad(e::text, 5, '0'), 'First' || e, 'Last' || e, 'employee' || e || '@example.com',
+       DATE '1980-01-01' + (e * 37) % 9000, DATE '2015-01-01' + (e * 13) % 3000,
+       (ARRAY['IT', 'HR', 'FINANCE', 'MARKETING', 'SALES', 'OPERATIONS'])[1 + e % 6], 'Staff',
+       CASE WHEN e % 50 = 0 THEN 'TERMINATED' WHEN e % 25 = 0 THEN 'ON_LEAVE' ELSE 'ACTIVE' END,
+       (e - 1) / 100 + 1, '08:00', '17:00', e % 50 <> 0, now(), now(), 0
+FROM generate_series(1, 5000) AS e;
+
+INSERT INTO attendance (employee_id, branch_id, attendance_date, status, late_arrival_minutes, early_departure_minutes,
+                        total_working_hours, overtime_hours, is_flagged_for_review, is_active, created_at, updated_at,
+                        version)
+SELECT e.id, e.branch_id, d::date, s.status,
+       CASE WHEN s.status = 'LATE' THEN 5 + s.h % 30 ELSE 0 END,
+       CASE WHEN s.h % 50 = 0 THEN 20 ELSE 0 END,
+       CASE WHEN s.status IN ('ABSENT', 'LEAVE') THEN 0 WHEN s.status = 'HALF_DAY' THEN 4 ELSE 8 END,
+       CASE WHEN s.h % 20 = 0 THEN 1.5 ELSE 0 END,
+       (e.id + extract(doy FROM d)::int) % 250 = 0, true, d, d, 0
+FROM employees e
+CROSS JOIN generate_series(DATE '2026-08-01', DATE '2026-09-30', interval '1 day') AS d
+CROSS JOIN LATERAL (
+    SELECT h, CASE WHEN h < 80 THEN 'PRESENT' WHEN h < 88 THEN 'LATE' WHEN h < 94 THEN 'ABSENT'
+                   WHEN h < 97 THEN 'LEAVE' ELSE 'HALF_DAY' END AS status
+    FROM (SELECT ((e.id * 31 + extract(doy FROM d)::int * 17) % 100)::int AS h) AS hashed
+) AS s
+WHERE extract(isodow FROM d) < 6;
+
+-- Months before August are paid; August is being paid out and September is still in review
+INSERT INTO payroll_records (employee_id, branch_id, payroll_month, status, payment_method, base_salary, net_salary,
+                             bank_account_number, bank_name, working_days, present_days, is_flagged, is_active,
+                             created_at, updated_at, version)
+SELECT e.id, e.branch_id, m::date,
+       CASE WHEN m < DATE '2026-08-01' THEN CASE WHEN e.id % 100 = 0 THEN 'CANCELLED' ELSE 'PAID' END
+            WHEN m < DATE '2026-09-01' THEN CASE WHEN e.id % 3 = 0 THEN 'PROCESSED' ELSE 'PAID' END
+            ELSE (ARRAY['APPROVED', 'APPROVED', 'APPROVED', 'CALCULATED', 'CALCULATED', 'REVIEWED', 'DRAFT'])
+                 [1 + e.id % 7]
+       END,
+       CASE WHEN e.id % 10 = 0 THEN 'CASH' ELSE 'BANK_TRANSFER' END,
+       40000 + e.id % 60 * 1000, 36000 + e.id % 60 * 900, 'ACC' || lpad(e.id::text, 10, '0'), 'National Bank',
+       22, 20 + e.id % 3, (e.id + extract(month FROM m)::int) % 100 = 0, true, m, m, 0
+FROM employees e
+CROSS JOIN generate_series(DATE '2025-10-01', DATE '2026-09-01', interval '1 month') AS m;
+
+ANALYZE branches;
+ANALYZE employees;
+ANALYZE attendance;
+ANALYZE payroll_records;